@@ -5,48 +5,72 @@
 package pl.edu.icm.unity.base.mvel;
 
 import java.io.Serializable;
-import java.util.Map;
-import java.util.Objects;
-import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.logging.log4j.Logger;
 import org.mvel2.MVEL;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import pl.edu.icm.unity.base.utils.Log;
+
+/**
+ * Bounded cache of compiled MVEL expressions, keyed by the expression text. Compiled expressions can be
+ * executed concurrently, so a single instance is shared by all users of the same expression.
+ */
 public class MVELCompiledExpressionsCache
 {
-	private static final Map<ExpressionString, Serializable> CACHE = new WeakHashMap<>();
-	
+	private static final Logger log = Log.getLogger(Log.U_SERVER_CORE, MVELCompiledExpressionsCache.class);
+	static final int MAX_SIZE = 10000;
+	private static final Cache<String, Serializable> CACHE = CacheBuilder.newBuilder()
+			.maximumSize(MAX_SIZE)
+			.build();
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong compilations = new AtomicLong();
+	private static final AtomicLong compilationTimeNanos = new AtomicLong();
+
+	/**
+	 * @return compiled expression, either cached or compiled now. Compilation errors are thrown as
+	 * returned by {@link MVEL#compileExpression(String)}.
+	 */
 	public static Serializable getCompiledExpression(String expression)
 	{
-		return CACHE.computeIfAbsent(new ExpressionString(expression), 
-				expr -> MVEL.compileExpression(expr.expression));
-	}
-	
-	private static class ExpressionString
-	{
-		private final String expression;
-
-		public ExpressionString(String expression)
+		if (expression == null)
+			return MVEL.compileExpression(expression);
+		Serializable cached = CACHE.getIfPresent(expression);
+		if (cached != null)
 		{
-			this.expression = expression;
+			hits.incrementAndGet();
+			return cached;
 		}
+		long start = System.nanoTime();
+		Serializable compiled = MVEL.compileExpression(expression);
+		long time = System.nanoTime() - start;
+		CACHE.put(expression, compiled);
+		compilationTimeNanos.addAndGet(time);
+		long compiledNum = compilations.incrementAndGet();
+		if (log.isDebugEnabled())
+			log.debug("Compiled MVEL expression in {}us, compilations: {}, cache hits: {}, cached: {}",
+					time / 1000, compiledNum, hits.get(), CACHE.size());
+		return compiled;
+	}
 
-		@Override
-		public int hashCode()
-		{
-			return Objects.hash(expression);
-		}
+	public static long getHitsNumber()
+	{
+		return hits.get();
+	}
 
-		@Override
-		public boolean equals(Object obj)
-		{
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			ExpressionString other = (ExpressionString) obj;
-			return Objects.equals(expression, other.expression);
-		}
+	public static long getCompilationsNumber()
+	{
+		return compilations.get();
+	}
+
+	/**
+	 * @return total time spent on compiling expressions, in ms
+	 */
+	public static long getCompilationTime()
+	{
+		return compilationTimeNanos.get() / 1000000;
 	}
 }
@@ -20,8 +20,10 @@ public class Token
 	private String type;
 	private String value;
 	private Long owner;
+	private Long clientId;
 	private Date created;
 	private Date expires;
+	private Date activityDeadline;
 	private byte[] contents;
 
 	public Token(String type, String value, Long owner)
@@ -84,6 +86,30 @@ public class Token
 	{
 		this.expires = expires;
 	}
+	/**
+	 * @return id of the entity of a client, to which the token was issued (e.g. OAuth client). 
+	 * Null if not applicable.
+	 */
+	public Long getClientId()
+	{
+		return clientId;
+	}
+	public void setClientId(Long clientId)
+	{
+		this.clientId = clientId;
+	}
+	/**
+	 * @return time after which the token is considered abandoned, unless its usage is recorded 
+	 * by moving the deadline forward. Null if the token is not tracking activity.
+	 */
+	public Date getActivityDeadline()
+	{
+		return activityDeadline;
+	}
+	public void setActivityDeadline(Date activityDeadline)
+	{
+		this.activityDeadline = activityDeadline;
+	}
 	public byte[] getContents()
 	{
 		return contents;
@@ -106,7 +132,9 @@ public class Token
 		result = prime * result + Arrays.hashCode(contents);
 		result = prime * result + ((created == null) ? 0 : created.hashCode());
 		result = prime * result + ((expires == null) ? 0 : expires.hashCode());
+		result = prime * result + ((activityDeadline == null) ? 0 : activityDeadline.hashCode());
 		result = prime * result + ((owner == null) ? 0 : owner.hashCode());
+		result = prime * result + ((clientId == null) ? 0 : clientId.hashCode());
 		result = prime * result + ((type == null) ? 0 : type.hashCode());
 		result = prime * result + ((value == null) ? 0 : value.hashCode());
 		return result;
@@ -136,12 +164,24 @@ public class Token
 				return false;
 		} else if (!expires.equals(other.expires))
 			return false;
+		if (activityDeadline == null)
+		{
+			if (other.activityDeadline != null)
+				return false;
+		} else if (!activityDeadline.equals(other.activityDeadline))
+			return false;
 		if (owner == null)
 		{
 			if (other.owner != null)
 				return false;
 		} else if (!owner.equals(other.owner))
 			return false;
+		if (clientId == null)
+		{
+			if (other.clientId != null)
+				return false;
+		} else if (!clientId.equals(other.clientId))
+			return false;
 		if (type == null)
 		{
 			if (other.type != null)
@@ -22,4 +22,19 @@ public @interface Transactional
 	int maxRetries() default DEF_MAX_RETRIES;
 	
 	boolean autoCommit() default true;
+
+	/**
+	 * Read-only transactions can be served by a database replica, if configured. Nested transactions join
+	 * the enclosing one, so all code invoked in a read-only transaction must not modify the stored data.
+	 * Modifications in a transaction served by the replica fail.
+	 */
+	boolean readOnly() default false;
+
+	/**
+	 * Batch transactions send modifications to the database in JDBC batches, which are flushed periodically,
+	 * before each query and at commit. This speeds up bulk writes, but the numbers of rows affected by 
+	 * modifications are not available to the code. Nested transactions join the enclosing one, so the setting
+	 * is effective only for the outermost transaction.
+	 */
+	boolean batch() default false;
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.base.mvel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mvel2.CompileException;
+import org.mvel2.MVEL;
+
+public class MVELCompiledExpressionsCacheTest
+{
+	@Test
+	public void shouldReuseCompiledExpression()
+	{
+		String expression = "attr['cn'] == 'reuse-test'";
+		long hits = MVELCompiledExpressionsCache.getHitsNumber();
+
+		Serializable first = MVELCompiledExpressionsCache.getCompiledExpression(expression);
+		Serializable second = MVELCompiledExpressionsCache.getCompiledExpression(new String(expression));
+
+		assertThat(second).isSameAs(first);
+		assertThat(MVELCompiledExpressionsCache.getHitsNumber()).isGreaterThan(hits);
+	}
+
+	@Test
+	public void shouldEvaluateCachedExpression()
+	{
+		Serializable compiled = MVELCompiledExpressionsCache.getCompiledExpression("attr['cn'] + '-suffix'");
+
+		Object result = MVEL.executeExpression(compiled, Map.of("attr", Map.of("cn", "value")), new HashMap<>());
+
+		assertThat(result).isEqualTo("value-suffix");
+	}
+
+	@Test
+	public void shouldPropagateCompilationError()
+	{
+		Throwable error = catchThrowable(() -> MVELCompiledExpressionsCache.getCompiledExpression("attr['cn' ="));
+
+		assertThat(error).isInstanceOf(CompileException.class);
+	}
+}
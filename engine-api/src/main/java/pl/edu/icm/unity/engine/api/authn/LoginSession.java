@@ -315,6 +315,9 @@ public class LoginSession
 		String realm = main.get("realm").asText();
 		long maxInactive = main.get("maxInactivity").asLong();
 		long lastUsed = main.get("lastUsed").asLong();
+		//activity deadline might be updated without rewriting the contents
+		if (token.getActivityDeadline() != null)
+			lastUsed = Math.max(lastUsed, token.getActivityDeadline().getTime() - maxInactive);
 		String entityLabel = JsonUtil.getNullable(main, "entityLabel");
 		String credentialId = null;
 		if (main.has("outdatedCredentialId"))
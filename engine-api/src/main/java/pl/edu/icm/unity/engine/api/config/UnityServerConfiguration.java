@@ -65,6 +65,8 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 	public static final String PKI_CONF = "pkiConfigFile";
 	public static final String SCHEDULED_THREAD_POOL_SIZE = "threadPoolSize";
 	public static final String CONCURRENT_THREAD_POOL_SIZE = "concurrentThreadPoolSize";
+	public static final String EVENTS_PROCESSING_THREADS = "eventsProcessingThreads";
+	public static final String EVENTS_PROCESSING_BATCH_SIZE = "eventsProcessingBatchSize";
 	public static final String USE_CONFIG_FILE_AS_INITIAL_TEMPLATE_ONLY = "useConfiguredContentsOnFreshStartOnly";
 	public static final String IGNORE_CONFIGURED_CONTENTS_SETTING = "ignoreContentsReloadingFromConfiguration";
 	public static final String RELOAD_MSG_TEMPLATES = "reloadMessageTemplatesFromConfiguration";
@@ -95,6 +97,7 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 	
 	public static final String INITIALIZERS = "initializers.";
 	public static final String UPDATE_INTERVAL = "asyncStateUpdateInterval";
+	public static final String CHANGES_CHECK_INTERVAL = "asyncStateChangesCheckInterval";
 	public static final String WORKSPACE_DIRECTORY = "workspaceDirectory";
 	public static final String MAIN_CREDENTIAL = "credential";
 	public static final String MAIN_TRUSTSTORE = "truststore";
@@ -155,6 +158,8 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 	public static final String MOBILE_CONFIRMATION_REQUEST_LIMIT = "mobileConfirmationRequestLimit";
 	
 	public static final String AUTHZ_CACHE_MS = "authorizationRoleCacheTTL";
+	public static final String AUTHZ_SINGLE_QUERY = "authorizationRoleSingleQuery";
+	public static final String SYSTEM_DEFINITIONS_CACHE_MS = "systemDefinitionsCacheTTL";
 	public static final String MAX_REMOTE_AUTHN_TIME_S = "maxRemoteAuthnTime";
 	
 	public static final String SCRIPTS = "script.";
@@ -270,10 +275,20 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 				"Number of threads used by internal processes of the server to execute concurrently run tasks. "
 				+ "Increasing size of this thread pool increases performance of certain parallel operations like"
 				+ "external logo downloading from SAML federations. Note that HTTP server threads use a separate pool."));
+		defaults.put(EVENTS_PROCESSING_THREADS, new PropertyMD("4").setPositive().setCategory(mainCat).setDescription(
+				"Number of threads used to process reliable events, as notifications of webhooks and script "
+				+ "listeners. Events of a single listener are always processed by one thread at a time."));
+		defaults.put(EVENTS_PROCESSING_BATCH_SIZE, new PropertyMD("100").setPositive().setCategory(mainCat).setDescription(
+				"Maximum number of pending reliable events which are loaded from database and claimed "
+				+ "for processing at once."));
 		defaults.put(INITIALIZERS, new PropertyMD().setList(true).setCategory(mainCat).setDescription(
 				"List of identifiers of initialization modules that should be run on the first startup."));
 		defaults.put(UPDATE_INTERVAL, new PropertyMD("60").setPositive().setCategory(mainCat).setDescription(
 				"Defines the interval of background update tasks in seconds. Those tasks are used to update runtime state of the server (for instance the deployed endpoints) with the data which is stored in database."));
+		defaults.put(CHANGES_CHECK_INTERVAL, new PropertyMD("1").setPositive().setCategory(mainCat).setDescription(
+				"Defines the interval in seconds, in which the log of changes of the persisted configuration "
+				+ "(as endpoints or authenticators) is checked. Detected changes, also those made by other cluster "
+				+ "nodes, are applied immediately, without waiting for the background update tasks."));
 		defaults.put(WORKSPACE_DIRECTORY, new PropertyMD("data/workspace").setPath().setCategory(mainCat).setDescription(
 				"Defines a folder where the server will write its internal files."));
 		defaults.put(MESSAGES_DIRECTORY, new PropertyMD("i18n").setPath().setCategory(mainCat).setDescription(
@@ -495,6 +510,16 @@ public class UnityServerConfiguration extends UnityFilePropertiesHelper
 						+ "but change of authrization role may not be fully recognized "
 						+ "by the system untile the time defined here passes. "
 						+ "Set to 0 to disable cache."));
+		defaults.put(SYSTEM_DEFINITIONS_CACHE_MS, new PropertyMD("60000").setNonNegative().setCategory(mainCat).
+				setDescription("Defines for how long (in ms) the system definitions (as attribute types or groups) "
+						+ "loaded by bulk queries are reused. Changes made on this server are recognized "
+						+ "immediately, changes made by other cluster nodes are usually recognized with "
+						+ "the next query, but in rare cases only after the time defined here passes. "
+						+ "Set to 0 to disable cache."));
+		defaults.put(AUTHZ_SINGLE_QUERY, new PropertyMD("true").setCategory(mainCat).
+				setDescription("If true, authorization roles of an entity in a group and in all its "
+						+ "parent groups are established at once, with a single attributes query. "
+						+ "Otherwise each group of the path is queried separately."));
 		defaults.put(MAX_REMOTE_AUTHN_TIME_S, new PropertyMD("5400").setCategory(mainCat). //90 mins
 				setDescription("Defines for how long (in s) server will maintain a started, "
 						+ "but not finished remote authentication data. After this timeout"
@@ -4,6 +4,8 @@
  */
 package pl.edu.icm.unity.engine.api.event;
 
+import java.util.Set;
+
 import pl.edu.icm.unity.base.event.Event;
 
 /**
@@ -14,6 +16,7 @@ import pl.edu.icm.unity.base.event.Event;
 public interface EventListener
 {
 	public static final int DEFAULT_MAX_FAILURES = 10+7*24;
+	public static final Set<Class<? extends Event>> ALL_EVENTS = Set.of(Event.class);
 	
 	/**
 	 * @return if true is returned then the listener's handle method will be invoked 
@@ -30,6 +33,16 @@ public interface EventListener
 	 */
 	boolean isWanted(Event event);
 
+	/**
+	 * Allows for skipping the listener without calling {@link #isWanted(Event)}, for events of other types.
+	 * @return types (including supertypes) of events which can be wanted by this listener. 
+	 * By default all events.
+	 */
+	default Set<Class<? extends Event>> getWantedEventTypes()
+	{
+		return ALL_EVENTS;
+	}
+
 	/**
 	 * This method should return whether async processing is allowed. Otherwise processing is
 	 * done immediately.
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.api.files;
+
+import java.util.Optional;
+
+import pl.edu.icm.unity.base.file.FileData;
+
+/**
+ * Result of a conditional read of a file: either the file contents, or the information that the file was not
+ * modified since its known version.
+ */
+public class ConditionalFileData
+{
+	private final FileData file;
+	public final RemoteFileVersion version;
+
+	private ConditionalFileData(FileData file, RemoteFileVersion version)
+	{
+		this.file = file;
+		this.version = version;
+	}
+
+	public static ConditionalFileData modified(FileData file, RemoteFileVersion version)
+	{
+		return new ConditionalFileData(file, version);
+	}
+
+	public static ConditionalFileData notModified(RemoteFileVersion version)
+	{
+		return new ConditionalFileData(null, version);
+	}
+
+	/**
+	 * @return empty if the file was not modified
+	 */
+	public Optional<FileData> getFile()
+	{
+		return Optional.ofNullable(file);
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.api.files;
+
+import java.util.Objects;
+
+/**
+ * Identifies a version of a remote file, using the HTTP validators returned by the server. Used to make 
+ * conditional requests, which don't transfer the file if it was not modified.
+ */
+public class RemoteFileVersion
+{
+	public static final RemoteFileVersion UNKNOWN = new RemoteFileVersion(null, null);
+
+	/**
+	 * Value of the ETag header, can be null
+	 */
+	public final String etag;
+	/**
+	 * Value of the Last-Modified header, can be null
+	 */
+	public final String lastModified;
+
+	public RemoteFileVersion(String etag, String lastModified)
+	{
+		this.etag = etag;
+		this.lastModified = lastModified;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Objects.hash(etag, lastModified);
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		RemoteFileVersion other = (RemoteFileVersion) obj;
+		return Objects.equals(etag, other.etag) && Objects.equals(lastModified, other.lastModified);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "RemoteFileVersion [etag=" + etag + ", lastModified=" + lastModified + "]";
+	}
+}
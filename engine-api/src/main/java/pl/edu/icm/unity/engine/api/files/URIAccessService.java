@@ -22,6 +22,12 @@ public interface URIAccessService
 	FileData readURI(URI uri, String customTruststore);
 
 	RemoteFileData readURL(URI uri, String customTruststore, Duration connectionTimeout, Duration socketReadTimeout, int retriesNumber);
+
+	/**
+	 * Reads http(s) URLs with a conditional request: the file is not transferred if the server confirms that
+	 * it was not modified since the known version. Other URIs are always read.
+	 */
+	ConditionalFileData readURIIfModified(URI uri, String customTruststore, RemoteFileVersion knownVersion);
 	
 	FileData readImageURI(URI uri);
 
@@ -66,6 +66,15 @@ public interface IdentityTypeDefinition
 	 */
 	boolean isExpired(Identity identity); 
 
+	/**
+	 * @return if false then identities of this type never expire, i.e. {@link #isExpired(Identity)} always 
+	 * returns false, and there is no need to check them when looking for expired identities.
+	 */
+	default boolean canExpire()
+	{
+		return true;
+	}
+
 	
 	/**
 	 * Checks if the value is valid
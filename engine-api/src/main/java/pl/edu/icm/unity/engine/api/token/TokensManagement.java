@@ -39,6 +39,21 @@ public interface TokensManagement
 	void addToken(String type, String value, EntityParam owner, byte[] contents, Date created, Date expires) 
 			throws IllegalIdentityValueException, IllegalTypeException;
 
+	/**
+	 * As {@link #addToken(String, String, EntityParam, byte[], Date, Date)} but additionally sets 
+	 * the activity deadline of the token, see {@link #getInactiveTokens(String, Date)}.
+	 */
+	void addToken(String type, String value, EntityParam owner, byte[] contents, Date created, Date expires,
+			Date activityDeadline) throws IllegalIdentityValueException, IllegalTypeException;
+
+	/**
+	 * As {@link #addToken(String, String, EntityParam, byte[], Date, Date)} but additionally records 
+	 * the client to which the token was issued, see {@link #getOwnedTokens(String, EntityParam, long)}.
+	 * @param clientId entity id of the client
+	 */
+	void addToken(String type, String value, EntityParam owner, long clientId, byte[] contents, Date created, 
+			Date expires) throws IllegalIdentityValueException, IllegalTypeException;
+
 	/**
 	 * Adds a new token without owner
 	 * @param type type or category of the token
@@ -61,6 +76,13 @@ public interface TokensManagement
 	 * @param contents if null -> leave unchanged
 	 */
 	void updateToken(String type, String value, Date expires, byte[] contents);
+
+	/**
+	 * As {@link #updateToken(String, String, Date, byte[])} but additionally allows to update the 
+	 * activity deadline. 
+	 * @param activityDeadline if null -> leave unchanged
+	 */
+	void updateToken(String type, String value, Date expires, Date activityDeadline, byte[] contents);
 	
 	/**
 	 * Returns a specified token 
@@ -73,6 +95,13 @@ public interface TokensManagement
 	List<Token> getOwnedTokens(String type, EntityParam entity) 
 			throws IllegalIdentityValueException, IllegalTypeException;
 
+	/**
+	 * Returns all tokens of the entity, which were issued to the given client. Uses indexed lookup, 
+	 * so it is efficient also with a large number of owned tokens.
+	 */
+	List<Token> getOwnedTokens(String type, EntityParam entity, long clientId) 
+			throws IllegalIdentityValueException, IllegalTypeException;
+
 	/**
 	 * @return all tokens of a given type
 	 */
@@ -83,6 +112,12 @@ public interface TokensManagement
 	 */
 	List<Token> getAllTokens(); 
 	
+	/**
+	 * @return not expired tokens of a given type, which activity deadline is before the given time. 
+	 * Uses indexed lookup, so it is efficient also with a large number of tokens.
+	 */
+	List<Token> getInactiveTokens(String type, Date time); 
+	
 	/**
 	 * Adds a new listenr which is notified about expired tokens of a specified type 
 	 */
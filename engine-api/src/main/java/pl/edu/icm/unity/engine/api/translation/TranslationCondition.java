@@ -11,6 +11,7 @@ import org.apache.logging.log4j.Logger;
 import org.mvel2.MVEL;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.utils.Log;
 
 /**
@@ -75,7 +76,7 @@ public class TranslationCondition
 	public void setCondition(String condition)
 	{
 		this.condition = condition;
-		this.compiled = MVEL.compileExpression(condition);
+		this.compiled = MVELCompiledExpressionsCache.getCompiledExpression(condition);
 	}
 
 	@Override
@@ -64,7 +64,27 @@ public class TokensManagementImpl implements TokensManagement
 			throws IllegalIdentityValueException, IllegalTypeException
 	{
 		long entity = idResolver.getEntityId(owner);
-		addTokenInternal(type, value, contents, created, expires, entity);
+		addTokenInternal(type, value, contents, created, expires, null, entity, null);
+	}
+
+	@Transactional
+	@Override
+	public void addToken(String type, String value, EntityParam owner, byte[] contents,
+			Date created, Date expires, Date activityDeadline) 
+			throws IllegalIdentityValueException, IllegalTypeException
+	{
+		long entity = idResolver.getEntityId(owner);
+		addTokenInternal(type, value, contents, created, expires, activityDeadline, entity, null);
+	}
+
+	@Transactional
+	@Override
+	public void addToken(String type, String value, EntityParam owner, long clientId, byte[] contents,
+			Date created, Date expires) 
+			throws IllegalIdentityValueException, IllegalTypeException
+	{
+		long entity = idResolver.getEntityId(owner);
+		addTokenInternal(type, value, contents, created, expires, null, entity, clientId);
 	}
 	
 	@Transactional
@@ -73,16 +93,18 @@ public class TokensManagementImpl implements TokensManagement
 			Date created, Date expires) 
 			throws IllegalTypeException
 	{
-		addTokenInternal(type, value, contents, created, expires, null);
+		addTokenInternal(type, value, contents, created, expires, null, null, null);
 	}
 	
 	private void addTokenInternal(String type, String value, byte[] contents,
-			Date created, Date expires, Long entity)
+			Date created, Date expires, Date activityDeadline, Long entity, Long clientId)
 	{
 		Token token = new Token(type, value, entity);
+		token.setClientId(clientId);
 		token.setContents(contents);
 		token.setCreated(created);
 		token.setExpires(expires);
+		token.setActivityDeadline(activityDeadline);
 		dbTokens.create(token);
 	}
 	
@@ -96,12 +118,21 @@ public class TokensManagementImpl implements TokensManagement
 	@Transactional
 	@Override
 	public void updateToken(String type, String value, Date expires, byte[] contents)
+	{
+		updateToken(type, value, expires, null, contents);
+	}
+
+	@Transactional
+	@Override
+	public void updateToken(String type, String value, Date expires, Date activityDeadline, byte[] contents)
 	{
 		Token token = getTokenById(type, value);
 		if (contents != null)
 			token.setContents(contents);
 		if (expires != null)
 			token.setExpires(expires);		
+		if (activityDeadline != null)
+			token.setActivityDeadline(activityDeadline);
 		dbTokens.update(token);
 	}
 
@@ -125,6 +156,16 @@ public class TokensManagementImpl implements TokensManagement
 		return filterExpired(tokens);
 	}
 	
+	@Transactional
+	@Override
+	public List<Token> getOwnedTokens(String type, EntityParam owner, long clientId) 
+			throws IllegalIdentityValueException, IllegalTypeException
+	{
+		long entity = idResolver.getEntityId(owner);
+		List<Token> tokens = dbTokens.getOwnedByClient(type, entity, clientId);
+		return filterExpired(tokens);
+	}
+	
 	@Transactional
 	@Override
 	public List<Token> getAllTokens(String type)
@@ -141,6 +182,14 @@ public class TokensManagementImpl implements TokensManagement
 		return filterExpired(tokens);
 	}
 
+	@Transactional
+	@Override
+	public List<Token> getInactiveTokens(String type, Date time)
+	{
+		List<Token> tokens = dbTokens.getInactive(type, time);
+		return filterExpired(tokens);
+	}
+
 
 	private List<Token> filterExpired(List<Token> tokens)
 	{
@@ -154,12 +154,12 @@ public class AttributesManagementImpl implements AttributesManagement
 				checkAdditionalAuthn(at);
 			checkIfAllowed(entityId, attribute.getGroupPath(), attribute.getName());
 			attributesHelper.addAttribute(entityId, attribute, at, allowUpdate, fullAuthz);
+			//this is merely to propagate the change to authz layer more quickly in typical situations. It does 
+			// not guarantee that authz cache is cleared after all possible situations when roles are be altered. 
+			if (RoleAttributeTypeProvider.AUTHORIZATION_ROLE.equals(attribute.getName()))
+				authz.clearCache(entityId);
 		});
 
-		//this is merely to propagate the change to authz layer more quickly in typical situations. It does 
-		// not guarantee that authz cache is cleared after all possible situations when roles are be altered. 
-		if (RoleAttributeTypeProvider.AUTHORIZATION_ROLE.equals(attribute.getName()))
-			authz.clearCache();
 		if (sendConfirmations)
 			confirmationManager.sendVerificationQuietNoTx(entity, attribute, false);
 	}
@@ -233,6 +233,8 @@ public class AttributesManagementImpl implements AttributesManagement
 		checkIfMandatory(entityId, groupPath, attributeTypeId);
 		
 		dbAttributes.deleteAttribute(attributeTypeId, entityId, groupPath);
+		if (RoleAttributeTypeProvider.AUTHORIZATION_ROLE.equals(attributeTypeId))
+			authz.clearCache(entityId);
 		
 		audit.log(AuditEventTrigger.builder()
 				.type(AuditEventType.ATTRIBUTE)
@@ -244,7 +246,7 @@ public class AttributesManagementImpl implements AttributesManagement
 	}
 
 	@Override
-	@Transactional
+	@Transactional(readOnly = true)
 	public Collection<AttributeExt> getAttributes(EntityParam entity, String groupPath,
 			String attributeTypeId) throws EngineException
 	{
@@ -255,7 +257,7 @@ public class AttributesManagementImpl implements AttributesManagement
 	}
 
 	@Override
-	@Transactional
+	@Transactional(readOnly = true)
 	public Collection<AttributeExt> getAllAttributes(EntityParam entity, boolean effective, String groupPath,
 			String attributeTypeId, boolean allowDegrade) throws EngineException
 	{
@@ -276,7 +278,7 @@ public class AttributesManagementImpl implements AttributesManagement
 	}
 
 	@Override
-	@Transactional
+	@Transactional(readOnly = true)
 	public Collection<AttributeExt> getAllAttributes(EntityParam entity, boolean effective,
 			List<GroupPattern> groupPathPatterns, String attributeTypeId, boolean allowDegrade) throws EngineException
 	{
@@ -297,7 +299,7 @@ public class AttributesManagementImpl implements AttributesManagement
 	}
 
 	@Override
-	@Transactional
+	@Transactional(readOnly = true)
 	public Collection<AttributeExt> getAllDirectAttributes(EntityParam entity)
 	{
 		authz.checkAuthorizationRT(AuthzCapability.readHidden, AuthzCapability.read);
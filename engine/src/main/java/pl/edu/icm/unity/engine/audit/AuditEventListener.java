@@ -22,11 +22,11 @@ import pl.edu.icm.unity.engine.attribute.AttributeTypeChangedEvent;
 import pl.edu.icm.unity.engine.notifications.email.EmailFacility;
 import pl.edu.icm.unity.stdext.utils.EntityNameMetadataProvider;
 import pl.edu.icm.unity.store.api.AttributeDAO;
-import pl.edu.icm.unity.store.api.AuditEventDAO;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
 import pl.edu.icm.unity.store.types.StoredAttribute;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Listens to AuditEvents and stores them in database.
@@ -38,24 +38,26 @@ public class AuditEventListener implements EventListener
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_AUDIT, AuditEventListener.class);
 	public static final String ID = AuditEventListener.class.getName();
+	private static final Set<Class<? extends Event>> WANTED_EVENT_TYPES = 
+			Set.of(AuditEventTrigger.class, AttributeTypeChangedEvent.class);
 
 	String entityNameAttribute;
 
 	private AttributeDAO attributeDAO;
 	private EmailFacility emailFacility;
 	private AttributeSupport attributeSupport;
-	private AuditEventDAO dao;
+	private AuditEventWriter writer;
 	private TransactionalRunner tx;
 	volatile boolean enabled;
 
 	@Autowired
 	public AuditEventListener(final AttributeDAO attributeDAO, final EmailFacility emailFacility,
-				final AttributeSupport attributeSupport, final AuditEventDAO dao,
+				final AttributeSupport attributeSupport, final AuditEventWriter writer,
 				final TransactionalRunner tx)
 	{
 		this.attributeDAO = attributeDAO;
 		this.emailFacility = emailFacility;
-		this.dao = dao;
+		this.writer = writer;
 		this.tx = tx;
 		this.attributeSupport = attributeSupport;
 	}
@@ -106,6 +108,12 @@ public class AuditEventListener implements EventListener
 		return (event instanceof AuditEventTrigger) || (event instanceof AttributeTypeChangedEvent);
 	}
 
+	@Override
+	public Set<Class<? extends Event>> getWantedEventTypes()
+	{
+		return WANTED_EVENT_TYPES;
+	}
+
 	@Override
 	public boolean isAsync(Event event)
 	{
@@ -141,12 +149,7 @@ public class AuditEventListener implements EventListener
 				.tags(event.getTags())
 				.build();
 
-		// Make sure only one event is stored in the same time - AuditEntities and Tags are shared resources.
-		// Transaction retry is also addressing this problem - synchronized block is for code optimization.
-		synchronized (this)
-		{
-			tx.runInTransaction(() -> dao.create(auditEvent));
-		}
+		writer.write(auditEvent);
 		return true;
 	}
 
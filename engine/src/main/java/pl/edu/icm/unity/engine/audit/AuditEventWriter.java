@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import pl.edu.icm.unity.base.audit.AuditEvent;
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.api.AuditEventDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+
+/**
+ * Stores {@link AuditEvent}s in DB asynchronously. Events are put into a bounded queue, from which
+ * a single writer thread takes all events queued in the meantime (up to the maximum batch size)
+ * and stores them in a single transaction, using multi-row inserts.
+ * <p>
+ * When the queue is full the caller waits for a free slot for up to {@link #QUEUE_OFFER_TIMEOUT} ms and
+ * if it is still not available, stores the event by itself. Therefore events are never dropped
+ * and producers are slowed down to the pace of DB. Events left in the queue are stored on shutdown.
+ */
+@Component
+public class AuditEventWriter implements DisposableBean
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_AUDIT, AuditEventWriter.class);
+	static final int QUEUE_CAPACITY = 10000;
+	static final int MAX_BATCH_SIZE = 200;
+	static final long QUEUE_OFFER_TIMEOUT = 1000;
+	private static final long POLL_INTERVAL = 100;
+	private static final long SHUTDOWN_TIMEOUT = 10000;
+
+	private final AuditEventDAO dao;
+	private final TransactionalRunner tx;
+	private final BlockingQueue<AuditEvent> queue;
+	private final int maxBatchSize;
+	private final Thread writerThread;
+	private final Object writeLock = new Object();
+	private final AtomicLong storedEvents = new AtomicLong();
+	private final AtomicLong failedEvents = new AtomicLong();
+	private final AtomicLong backpressureWaits = new AtomicLong();
+	private final AtomicLong directWrites = new AtomicLong();
+	private volatile long lastBatchLatency;
+	private volatile boolean stopped;
+
+	@Autowired
+	public AuditEventWriter(AuditEventDAO dao, TransactionalRunner tx)
+	{
+		this(dao, tx, QUEUE_CAPACITY, MAX_BATCH_SIZE);
+	}
+
+	AuditEventWriter(AuditEventDAO dao, TransactionalRunner tx, int queueCapacity, int maxBatchSize)
+	{
+		this.dao = dao;
+		this.tx = tx;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.maxBatchSize = maxBatchSize;
+		this.writerThread = new Thread(this::writeQueuedEvents, "audit-events-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+	 * Queues event for storing. Blocks if the queue is full.
+	 */
+	public void write(AuditEvent event)
+	{
+		if (!stopped && queue.offer(event))
+			return;
+		if (!stopped)
+		{
+			backpressureWaits.incrementAndGet();
+			log.debug("Audit events queue is full ({} events), waiting", queue.size());
+			try
+			{
+				if (queue.offer(event, QUEUE_OFFER_TIMEOUT, TimeUnit.MILLISECONDS))
+					return;
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		directWrites.incrementAndGet();
+		store(List.of(event));
+	}
+
+	/**
+	 * Stores all currently queued events in the calling thread.
+	 */
+	public void flush()
+	{
+		List<AuditEvent> batch = new ArrayList<>(maxBatchSize);
+		while (queue.drainTo(batch, maxBatchSize) > 0)
+		{
+			store(batch);
+			batch = new ArrayList<>(maxBatchSize);
+		}
+	}
+
+	@Override
+	public void destroy() throws InterruptedException
+	{
+		stopped = true;
+		writerThread.join(SHUTDOWN_TIMEOUT);
+		flush();
+		log.info("Audit events writer stopped, stored events: {}, failed: {}",
+				storedEvents.get(), failedEvents.get());
+	}
+
+	public int getQueueSize()
+	{
+		return queue.size();
+	}
+
+	public long getStoredEventsNumber()
+	{
+		return storedEvents.get();
+	}
+
+	public long getFailedEventsNumber()
+	{
+		return failedEvents.get();
+	}
+
+	/**
+	 * @return how many times producers had to wait as the queue was full
+	 */
+	public long getBackpressureWaitsNumber()
+	{
+		return backpressureWaits.get();
+	}
+
+	/**
+	 * @return how many events were stored by producers, as the queue was full or the writer was stopped
+	 */
+	public long getDirectWritesNumber()
+	{
+		return directWrites.get();
+	}
+
+	/**
+	 * @return time of storing the last batch of events, in ms
+	 */
+	public long getLastBatchLatency()
+	{
+		return lastBatchLatency;
+	}
+
+	private void writeQueuedEvents()
+	{
+		while (!stopped)
+		{
+			try
+			{
+				AuditEvent first = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				if (first == null)
+					continue;
+				List<AuditEvent> batch = new ArrayList<>(maxBatchSize);
+				batch.add(first);
+				queue.drainTo(batch, maxBatchSize - 1);
+				store(batch);
+			} catch (InterruptedException e)
+			{
+				log.debug("Audit events writer interrupted");
+			} catch (Exception e)
+			{
+				log.error("Storing of audit events failed", e);
+			}
+		}
+	}
+
+	private void store(List<AuditEvent> batch)
+	{
+		// Make sure only one batch is stored in the same time - AuditEntities and Tags are shared resources.
+		synchronized (writeLock)
+		{
+			long start = System.currentTimeMillis();
+			try
+			{
+				tx.runInTransaction(() -> dao.createList(batch));
+				storedEvents.addAndGet(batch.size());
+			} catch (Exception e)
+			{
+				log.warn("Storing batch of " + batch.size() + " audit events failed, storing them one by one", e);
+				storeOneByOne(batch);
+			}
+			lastBatchLatency = System.currentTimeMillis() - start;
+		}
+		log.debug("Stored {} audit events in {}ms, queued: {}, stored: {}, failed: {}, backpressure waits: {}, "
+				+ "direct writes: {}", batch.size(), lastBatchLatency, queue.size(), storedEvents.get(),
+				failedEvents.get(), backpressureWaits.get(), directWrites.get());
+	}
+
+	private void storeOneByOne(List<AuditEvent> batch)
+	{
+		for (AuditEvent event: batch)
+		{
+			try
+			{
+				tx.runInTransaction(() -> dao.create(event));
+				storedEvents.incrementAndGet();
+			} catch (Exception e)
+			{
+				failedEvents.incrementAndGet();
+				log.error("Storing of audit event " + event + " failed", e);
+			}
+		}
+	}
+}
@@ -19,6 +19,7 @@ import pl.edu.icm.unity.base.authn.CredentialDefinition;
 import pl.edu.icm.unity.base.authn.DynamicExpressionPolicyConfiguration;
 import pl.edu.icm.unity.base.entity.EntityParam;
 import pl.edu.icm.unity.base.exceptions.EngineException;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.authn.AuthenticatedEntity;
 import pl.edu.icm.unity.engine.api.authn.AuthenticationException;
@@ -151,7 +152,7 @@ class AuthenticationProcessorImpl implements AuthenticationProcessor
 
 	private boolean evaluateCondition(String condition, Object input) throws EngineException
 	{
-		Serializable compiled = MVEL.compileExpression(condition);
+		Serializable compiled = MVELCompiledExpressionsCache.getCompiledExpression(condition);
 
 		Boolean result = null;
 		try
@@ -4,12 +4,18 @@
  */
 package pl.edu.icm.unity.engine.authz;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.Logger;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -19,31 +25,42 @@ import pl.edu.icm.unity.base.attribute.AttributeExt;
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.exceptions.InternalException;
 import pl.edu.icm.unity.base.group.Group;
+import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.exceptions.IllegalTypeException;
 import pl.edu.icm.unity.engine.api.group.IllegalGroupValueException;
 import pl.edu.icm.unity.engine.attribute.AttributesHelper;
 import pl.edu.icm.unity.store.api.GroupDAO;
+import pl.edu.icm.unity.store.api.tx.TxManager;
 
 /**
- * Returns roles for a user in a provided group. Results are cached.
+ * Returns roles for a user in a provided group. Results are cached per entity: for each entity
+ * roles defined in subsequent groups are remembered, so that resolution of roles in other groups 
+ * sharing the same parents doesn't query DB again. Cache of a single entity can be cleared
+ * when its roles or memberships are changed. Roles read in a transaction served by a database replica
+ * are not cached, as the replica may lag behind the primary database.
  * 
  * @author K. Benedyczak
  */
 class CachingRolesResolver
 {
+	private static final Logger log = Log.getLogger(Log.U_SERVER_CORE, CachingRolesResolver.class);
 	private final Map<String, AuthzRole> roles; 
 	private final AttributesHelper dbAttributes;
-	private final Cache<CacheKey, Set<AuthzRole>> rolesCache;
+	private final Cache<Long, Map<String, Set<AuthzRole>>> rolesCache;
 	private final long cacheTTL;
+	private final boolean singleQuery;
 	private final GroupDAO groupsDAO;
+	private final TxManager txManager;
 	
 	CachingRolesResolver(Map<String, AuthzRole> roles, AttributesHelper dbAttributes, long cacheTTL, 
-			GroupDAO groupsDAO)
+			boolean singleQuery, GroupDAO groupsDAO, TxManager txManager)
 	{
 		this.roles = roles;
 		this.dbAttributes = dbAttributes;
 		this.cacheTTL = cacheTTL;
+		this.singleQuery = singleQuery;
 		this.groupsDAO = groupsDAO;
+		this.txManager = txManager;
 		this.rolesCache = CacheBuilder.newBuilder()
 				.expireAfterWrite(cacheTTL, TimeUnit.MILLISECONDS)
 				.build();
@@ -51,37 +68,79 @@ class CachingRolesResolver
 
 	Set<AuthzRole> establishRoles(long entityId, Group group)
 	{
-		if (cacheTTL <= 0)
-			return establishRolesNoCache(entityId, group);
+		Map<String, Set<AuthzRole>> rolesByGroup = cacheTTL <= 0 ? new HashMap<>() : getCachedRoles(entityId);
+		List<String> path = getPathGroups(group);
+		List<String> missing = path.stream()
+				.filter(g -> !rolesByGroup.containsKey(g))
+				.collect(Collectors.toList());
+		if (!missing.isEmpty())
+			rolesByGroup.putAll(establishRolesNoCache(entityId, missing));
 		
-		CacheKey cKey = new CacheKey(group, entityId);
-		Set<AuthzRole> cached = rolesCache.getIfPresent(cKey);
-		if (cached != null)
-			return cached;
-		Set<AuthzRole> actual = establishRolesNoCache(entityId, group);
-		rolesCache.put(cKey, actual);
-		return actual;
+		Set<AuthzRole> ret = new HashSet<>();
+		for (String pathGroup: path)
+			ret.addAll(rolesByGroup.get(pathGroup));
+		return ret;
 	}
 	
 	void clearCache()
 	{
 		rolesCache.invalidateAll();
 	}
+
+	void clearCache(long entityId)
+	{
+		rolesCache.invalidate(entityId);
+	}
 	
-	private Set<AuthzRole> establishRolesNoCache(long entityId, Group group)
+	/**
+	 * The returned map is removed from cache as a whole upon invalidation, so roles loaded 
+	 * concurrently with invalidation are put into a detached map. The same applies to roles loaded
+	 * from a replica.
+	 */
+	private Map<String, Set<AuthzRole>> getCachedRoles(long entityId)
+	{
+		Map<String, Set<AuthzRole>> cached = rolesCache.getIfPresent(entityId);
+		if (txManager.isServedByReplica())
+			return cached == null ? new HashMap<>() : new HashMap<>(cached);
+		if (cached != null)
+			return cached;
+		Map<String, Set<AuthzRole>> created = new ConcurrentHashMap<>();
+		rolesCache.put(entityId, created);
+		return created;
+	}
+	
+	private List<String> getPathGroups(Group group)
+	{
+		List<String> ret = new ArrayList<>();
+		String current = group.getName();
+		do
+		{
+			ret.add(current);
+			current = new Group(current).getParentPath();
+		} while (current != null);
+		return ret;
+	}
+	
+	/**
+	 * @return roles defined directly in each of given groups (possibly empty)
+	 */
+	private Map<String, Set<AuthzRole>> establishRolesNoCache(long entityId, List<String> groups)
 	{
 		try
 		{
-			Group current = group;
-			Set<AuthzRole> ret = new HashSet<>();
-			do
+			Map<String, Set<AuthzRole>> ret = new HashMap<>();
+			if (singleQuery)
+			{
+				groups.forEach(group -> ret.put(group, Collections.emptySet()));
+				for (AttributeExt role: dbAttributes.getAllAttributes(entityId, groups, true, 
+						RoleAttributeTypeProvider.AUTHORIZATION_ROLE))
+					ret.put(role.getGroupPath(), getRolesFromAttribute(role));
+			} else
 			{
-				Attribute role = getAuthzRoleAttribute(entityId, current);
-				if (role != null)
-					ret.addAll(getRolesFromAttribute(role));
-				String parent = current.getParentPath();
-				current = parent == null ? null : new Group(parent);
-			} while (current != null);
+				for (String group: groups)
+					ret.put(group, getRolesFromAttribute(getAuthzRoleAttribute(entityId, group)));
+			}
+			log.trace("Established roles of entity {} in groups {}: {}", entityId, groups, ret);
 			return ret;
 		} catch (EngineException e)
 		{
@@ -107,10 +166,8 @@ class CachingRolesResolver
 		return ret;
 	}
 	
-	private AttributeExt getAuthzRoleAttribute(long entityId, Group group) throws EngineException 
+	private AttributeExt getAuthzRoleAttribute(long entityId, String groupPath) throws EngineException 
 	{
-		String groupPath = group.getName();
-		
 		if (!groupsDAO.exists(groupPath))
 			return null;
 		
@@ -126,35 +183,4 @@ class CachingRolesResolver
 			throw new InternalException("Can't establish attributes for authorization pipeline - group problem", e);
 		}
 	}
-	
-	private static class CacheKey
-	{
-		private final Group group;
-		private final long entityId;
-		
-		CacheKey(Group group, long entityId)
-		{
-			this.group = group;
-			this.entityId = entityId;
-		}
-
-		@Override
-		public int hashCode()
-		{
-			return Objects.hash(entityId, group);
-		}
-
-		@Override
-		public boolean equals(Object obj)
-		{
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			CacheKey other = (CacheKey) obj;
-			return entityId == other.entityId && Objects.equals(group, other.group);
-		}
-	}
 }
@@ -102,4 +102,16 @@ public interface InternalAuthorizationManager
 	 * Empties authZ cache.
 	 */
 	void clearCache();
+
+	/**
+	 * Empties authZ cache. Must be invoked in a transaction: cache is cleared immediately and once again 
+	 * after the transaction is committed.
+	 */
+	void clearCacheInTransaction();
+
+	/**
+	 * Removes cached authZ roles of a given entity. Must be invoked in a transaction: cache is cleared 
+	 * immediately and once again after the transaction is committed.
+	 */
+	void clearCache(long entityId);
 }
@@ -17,6 +17,7 @@ import pl.edu.icm.unity.engine.api.authn.LoginSession;
 import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
 import pl.edu.icm.unity.engine.attribute.AttributesHelper;
 import pl.edu.icm.unity.store.api.GroupDAO;
+import pl.edu.icm.unity.store.api.tx.TxManager;
 import pl.edu.icm.unity.base.tx.Transactional;
 
 import java.util.*;
@@ -45,14 +46,17 @@ public class InternalAuthorizationManagerImpl implements InternalAuthorizationMa
 	private Map<String, AuthzRole> roles = new LinkedHashMap<>(); 
 
 	private CachingRolesResolver rolesResolver;
+	private TxManager txManager;
 			
 	@Autowired
 	public InternalAuthorizationManagerImpl(AttributesHelper dbAttributes, UnityServerConfiguration config, 
-			GroupDAO groupDAO)
+			GroupDAO groupDAO, TxManager txManager)
 	{
+		this.txManager = txManager;
 		setupRoleCapabilities();
 		rolesResolver = new CachingRolesResolver(roles, dbAttributes, 
-				config.getLongValue(UnityServerConfiguration.AUTHZ_CACHE_MS), groupDAO);
+				config.getLongValue(UnityServerConfiguration.AUTHZ_CACHE_MS), 
+				config.getBooleanValue(UnityServerConfiguration.AUTHZ_SINGLE_QUERY), groupDAO, txManager);
 	}
 	
 	/**
@@ -341,6 +345,20 @@ public class InternalAuthorizationManagerImpl implements InternalAuthorizationMa
 		rolesResolver.clearCache();
 	}
 
+	@Override
+	public void clearCacheInTransaction()
+	{
+		rolesResolver.clearCache();
+		txManager.addPostCommitAction(() -> rolesResolver.clearCache());
+	}
+
+	@Override
+	public void clearCache(long entityId)
+	{
+		rolesResolver.clearCache(entityId);
+		txManager.addPostCommitAction(() -> rolesResolver.clearCache(entityId));
+	}
+
 	@Override
 	@Transactional
 	public Set<AuthzRole> getRoles() throws AuthorizationException
@@ -94,6 +94,16 @@ public class InternalNoAuthzImpl implements InternalAuthorizationManager
 	{
 	}
 
+	@Override
+	public void clearCacheInTransaction()
+	{
+	}
+
+	@Override
+	public void clearCache(long entityId)
+	{
+	}
+
 	@Override
 	public Set<AuthzRole> getRoles() throws AuthorizationException
 	{
@@ -101,7 +101,7 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 	{
 		try
 		{
-			return tx.runInTransactionRetThrowing(() -> 
+			return tx.runInReadOnlyTransactionRetThrowing(() -> 
 			{
 				authz.checkAuthorization(AuthzCapability.readHidden, AuthzCapability.read);
 				return dataProvider.getCompositeMultiGroupContents(rootGroup, groupFilter);
@@ -160,7 +160,7 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		return groupEntityAttributes;
 	}
 	
-	@Transactional
+	@Transactional(readOnly = true)
 	@Override
 	public GroupMembershipData getBulkMembershipData(String group, Set<Long> filter) throws EngineException
 	{
@@ -168,7 +168,7 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		return dataProvider.getCompositeGroupContents(group, Optional.ofNullable(filter));
 	}
 	
-	@Transactional
+	@Transactional(readOnly = true)
 	@Override
 	public GroupMembershipData getBulkMembershipData(String group) throws EngineException
 	{
@@ -176,7 +176,7 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		return dataProvider.getCompositeGroupContents(group, Optional.empty());
 	}
 
-	@Transactional
+	@Transactional(readOnly = true)
 	@Override
 	public GroupStructuralData getBulkStructuralData(String group) throws EngineException
 	{
@@ -200,15 +200,10 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 		GroupMembershipDataImpl data = (GroupMembershipDataImpl) dataO;
 		Stopwatch watch = Stopwatch.createStarted();
 		
-		Map<Long, Map<String, AttributeExt>> ret = new HashMap<>();
-		for (Long entityId: data.entitiesData.getEntityInfo().keySet())
-		{
-			Set<String> memberships = data.entitiesData.getMemberships().get(entityId);
-			if (memberships != null && memberships.contains(group))
-			{
-				ret.put(entityId, data.entitiesData.getDirectAttributes().get(entityId).get(group));
-			}
-		}
+		Set<Long> members = data.entitiesData.getGroupMembers(group);
+		Map<Long, Map<String, AttributeExt>> ret = new HashMap<>(members.size() * 2);
+		for (Long entityId: members)
+			ret.put(entityId, data.entitiesData.getDirectAttributes().get(entityId).get(group));
 		log.debug("Bulk direct attributes assembly of {}: {}", group, watch.toString());
 		return ret;
 	}
@@ -217,13 +212,10 @@ class BulkQueryServiceImpl implements BulkGroupQueryService
 			GlobalSystemData globalSystemData)
 	{
 		Stopwatch watch = Stopwatch.createStarted();
-		Map<Long, Map<String, AttributeExt>> ret = new HashMap<>();
-		for (Long entityId: entitiesData.getEntityInfo().keySet())
-		{
-			Set<String> memberships = entitiesData.getMemberships().get(entityId);
-			if (memberships != null && memberships.contains(group))
-				ret.put(entityId, getAllAttributesAsMap(entityId, group, entitiesData, globalSystemData));
-		}
+		Set<Long> members = entitiesData.getGroupMembers(group);
+		Map<Long, Map<String, AttributeExt>> ret = new HashMap<>(members.size() * 2);
+		for (Long entityId: members)
+			ret.put(entityId, getAllAttributesAsMap(entityId, group, entitiesData, globalSystemData));
 		log.debug("Bulk attributes assembly of {}: {}", group, watch.toString());
 		return ret;
 	}
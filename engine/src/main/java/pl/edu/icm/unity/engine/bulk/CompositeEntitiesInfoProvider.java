@@ -22,10 +22,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.Sets;
 
 import pl.edu.icm.unity.base.attribute.AttributeExt;
-import pl.edu.icm.unity.base.authn.CredentialRequirements;
 import pl.edu.icm.unity.base.entity.EntityInformation;
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.group.Group;
@@ -34,16 +32,11 @@ import pl.edu.icm.unity.base.identity.Identity;
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.bulk.GroupMembershipData;
 import pl.edu.icm.unity.engine.api.bulk.GroupStructuralData;
-import pl.edu.icm.unity.engine.credential.CredentialRepository;
-import pl.edu.icm.unity.engine.credential.CredentialReqRepository;
 import pl.edu.icm.unity.store.api.AttributeDAO;
-import pl.edu.icm.unity.store.api.AttributeTypeDAO;
 import pl.edu.icm.unity.store.api.EntityDAO;
 import pl.edu.icm.unity.store.api.GroupDAO;
 import pl.edu.icm.unity.store.api.IdentityDAO;
 import pl.edu.icm.unity.store.api.MembershipDAO;
-import pl.edu.icm.unity.store.api.generic.AttributeClassDB;
-import pl.edu.icm.unity.store.api.generic.EnquiryFormDB;
 import pl.edu.icm.unity.store.types.StoredAttribute;
 import pl.edu.icm.unity.store.types.StoredIdentity;
 
@@ -53,25 +46,17 @@ class CompositeEntitiesInfoProvider
 	private static final Logger log = Log.getLogger(Log.U_SERVER_BULK_OPS, CompositeEntitiesInfoProvider.class);
 	static int USERS_THRESHOLD_ALLOWING_EFFECTIVE_GET_OF_SELECTED_USERS = 500;
 	@Autowired
-	private AttributeTypeDAO attributeTypeDAO;
-	@Autowired
 	private AttributeDAO attributeDAO;
 	@Autowired
 	private MembershipDAO membershipDAO;
 	@Autowired
-	private AttributeClassDB acDB;
-	@Autowired
 	private GroupDAO groupDAO;
 	@Autowired
 	private EntityDAO entityDAO;
 	@Autowired
 	private IdentityDAO identityDAO;
 	@Autowired
-	private CredentialRepository credentialRepository;
-	@Autowired
-	private CredentialReqRepository credentialReqRepository;
-	@Autowired
-	private EnquiryFormDB enquiryDB;
+	private GlobalSystemDataCache globalDataCache;
 
 	public GroupMembershipData getCompositeGroupContents(String group, Optional<Set<Long>> filter) throws EngineException
 	{
@@ -81,7 +66,7 @@ class CompositeEntitiesInfoProvider
 				: getMembers(group).stream().filter(i -> filterSet.contains(i))
 						.collect(Collectors.toSet()));
 
-		GlobalSystemData globalData = loadGlobalData();
+		GlobalSystemData globalData = globalDataCache.get();
 		EntitiesData entitiesData = getEntitiesDataOfSingleGroup(group, gm -> members.contains(gm.getEntityId()));
 		
 		GroupMembershipDataImpl ret = new GroupMembershipDataImpl(group, globalData, entitiesData);
@@ -109,7 +94,7 @@ class CompositeEntitiesInfoProvider
 	{
 		Stopwatch watch = Stopwatch.createStarted();
 
-		GlobalSystemData globalData = loadGlobalData();
+		GlobalSystemData globalData = globalDataCache.get();
 		
 		Predicate<String> groupTester = groupFilter.isEmpty() ? 
 				grp -> Group.isChildOrSame(grp, rootGroup) :
@@ -118,20 +103,12 @@ class CompositeEntitiesInfoProvider
 				.filter(groupTester)
 				.collect(Collectors.toSet());
 		
-		Map<Long, Set<String>> allMemberships = getFilteredMemberships(a -> true);
-		Set<Long> relevantMembers = allMemberships.entrySet().stream()
-			.filter(entry -> !Sets.intersection(entry.getValue(), acceptedGroups).isEmpty())
-			.map(entry -> entry.getKey())
-			.collect(Collectors.toSet());
-		Predicate<Long> entityTester = entityId -> relevantMembers.contains(entityId);
-		Map<Long, Set<String>> memberships = allMemberships.entrySet().stream()
-				.filter(entry -> entityTester.test(entry.getKey()))
-				.collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
+		List<String> membersGroups = getTopmostGroups(acceptedGroups);
 		EntitiesData entitiesData = EntitiesData.builder()
-				.withMemberships(memberships)
-				.withEntityInfo(getEntityInfo(entityTester))
-				.withIdentities(getIdentities(entityTester))
-				.withDirectAttributes(getAllAttributes(entityTester))				
+				.withMemberships(getMembershipsOfMembers(membersGroups))
+				.withEntityInfo(getEntityInfo(membersGroups))
+				.withIdentities(getIdentities(membersGroups))
+				.withDirectAttributes(getAttributes(membersGroups))				
 				.build();
 		MultiGroupMembershipData ret = new MultiGroupMembershipData(acceptedGroups, globalData, entitiesData);
 		log.debug("Bulk multi-group membership data retrieval: {}", watch.toString());
@@ -149,27 +126,6 @@ class CompositeEntitiesInfoProvider
 		return ret;
 	}
 	
-	private GlobalSystemData loadGlobalData() throws EngineException
-	{
-		Stopwatch watch = Stopwatch.createStarted();
-		GlobalSystemData ret = GlobalSystemData.builder()
-				.withAttributeTypes(attributeTypeDAO.getAllAsMap())
-				.withAttributeClasses(acDB.getAllAsMap())
-				.withGroups(groupDAO.getAllAsMap())
-				.withCredentials(credentialRepository.getCredentialDefinitions())
-				.withCredentialRequirements(getCredentialRequirements())
-				.withEnquiryForms(enquiryDB.getAllAsMap())
-				.build();
-		log.debug("loading global data {}", watch.toString());
-		return ret;
-	}
-	
-	private Map<String, CredentialRequirements> getCredentialRequirements() throws EngineException
-	{
-		return credentialReqRepository.getCredentialRequirements().stream()
-			.collect(Collectors.toMap(cr -> cr.getName(), cr -> cr));
-	}
-
 	private Map<Long, Map<String, Map<String, AttributeExt>>> getAttributes(String group)
 	{
 		Stopwatch w = Stopwatch.createStarted();
@@ -178,16 +134,14 @@ class CompositeEntitiesInfoProvider
 		return mapAttributesByEntities(all.stream());
 	}
 
-	private Map<Long, Map<String, Map<String, AttributeExt>>> getAllAttributes(Predicate<Long> entityTester)
+	private Map<Long, Map<String, Map<String, AttributeExt>>> getAttributes(List<String> membersGroups)
 	{
 		Stopwatch w = Stopwatch.createStarted();
-		Stream<StoredAttribute> all = attributeDAO.getAll().stream()
-				.filter(sa -> entityTester.test(sa.getEntityId()));
-		log.debug("getAllAttrs {}", w.toString());
-		return mapAttributesByEntities(all);
+		List<StoredAttribute> all = attributeDAO.getAttributesOfMembersOfGroups(membersGroups);
+		log.debug("getAttrs of members of {} groups {}", membersGroups.size(), w.toString());
+		return mapAttributesByEntities(all.stream());
 	}
 	
-	
 	private Map<Long, Map<String, Map<String, AttributeExt>>> mapAttributesByEntities(Stream<StoredAttribute> all)
 	{
 		Map<Long, Map<String, Map<String, AttributeExt>>> ret = new HashMap<>();
@@ -212,11 +166,10 @@ class CompositeEntitiesInfoProvider
 			.collect(Collectors.toMap(EntityInformation::getId, identity()));
 	}
 
-	private Map<Long, EntityInformation> getEntityInfo(Predicate<Long> entityTester)
+	private Map<Long, EntityInformation> getEntityInfo(List<String> membersGroups)
 	{
-		return entityDAO.getAll().stream()
-				.filter(ei -> entityTester.test(ei.getId()))
-				.collect(Collectors.toMap(entity -> entity.getId(), entity->entity));
+		return entityDAO.getByGroups(membersGroups).stream()
+				.collect(Collectors.toMap(EntityInformation::getId, identity()));
 	}
 	
 	private Map<Long, List<Identity>> getIdentities(String group)
@@ -227,12 +180,12 @@ class CompositeEntitiesInfoProvider
 		return mapIdentitiesByEntity(all.stream());
 	}
 
-	private Map<Long, List<Identity>> getIdentities(Predicate<Long> entityTester)
+	private Map<Long, List<Identity>> getIdentities(List<String> membersGroups)
 	{
 		Stopwatch w = Stopwatch.createStarted();
-		Stream<StoredIdentity> all = identityDAO.getAll().stream().filter(si -> entityTester.test(si.getEntityId()));
-		log.debug("getAllIdentities {}", w.toString());
-		return mapIdentitiesByEntity(all);
+		List<StoredIdentity> all = identityDAO.getByGroups(membersGroups);
+		log.debug("getIdentities of members of {} groups {}", membersGroups.size(), w.toString());
+		return mapIdentitiesByEntity(all.stream());
 	}
 	
 	private Map<Long, List<Identity>> mapIdentitiesByEntity(Stream<StoredIdentity> all)
@@ -269,6 +222,41 @@ class CompositeEntitiesInfoProvider
 		return ret;
 	}
 
+	private Map<Long, Set<String>> getMembershipsOfMembers(List<String> membersGroups)
+	{
+		Stopwatch w = Stopwatch.createStarted();
+		List<GroupMembership> all = membershipDAO.getMembershipsOfMembersOfGroups(membersGroups);
+		log.debug("getMemberships of members of {} groups {}", membersGroups.size(), w.toString());
+		Map<Long, Set<String>> ret = new HashMap<>();
+		for (GroupMembership membership : all)
+			ret.computeIfAbsent(membership.getEntityId(), key -> new HashSet<>()).add(membership.getGroup());
+		return ret;
+	}
+
+	/**
+	 * Members of a group are always members of its parent group, so it is enough to query for members 
+	 * of those groups, which have no parent in the given set.
+	 */
+	static List<String> getTopmostGroups(Set<String> groups)
+	{
+		return groups.stream()
+				.filter(group -> !hasParentIn(group, groups))
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	private static boolean hasParentIn(String group, Set<String> groups)
+	{
+		String parent = new Group(group).getParentPath();
+		while (parent != null)
+		{
+			if (groups.contains(parent))
+				return true;
+			parent = new Group(parent).getParentPath();
+		}
+		return false;
+	}
+
 	private Map<Long, Set<String>> getMemberships(Set<Long> entityIds)
 	{
 		Stopwatch w = Stopwatch.createStarted();
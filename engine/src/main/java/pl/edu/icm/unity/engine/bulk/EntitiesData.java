@@ -5,6 +5,8 @@
 package pl.edu.icm.unity.engine.bulk;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -22,6 +24,7 @@ class EntitiesData
 	private Map<Long, List<Identity>> identities;
 	private Map<Long, Map<String, Map<String, AttributeExt>>> directAttributes;
 	private Map<Long, Set<String>> memberships;
+	private Map<String, Set<Long>> groupMembers;
 	
 	private EntitiesData() 
 	{
@@ -52,6 +55,16 @@ class EntitiesData
 		return memberships;
 	}
 
+	/**
+	 * @return ids of entities which are members of the given group and for which entity information is
+	 *         available. Backed by an inverted index of memberships, so the cost is proportional to the
+	 *         group size, not to the number of all loaded entities.
+	 */
+	Set<Long> getGroupMembers(String group)
+	{
+		return groupMembers.getOrDefault(group, Collections.emptySet());
+	}
+
 	static class Builder
 	{
 		EntitiesData obj = new EntitiesData();
@@ -87,8 +100,26 @@ class EntitiesData
 		EntitiesData build()
 		{
 			EntitiesData ret = obj;
+			ret.groupMembers = buildGroupMembersIndex(ret.memberships, ret.entityInfo);
 			obj = new EntitiesData();
 			return ret;
 		}
+		
+		private static Map<String, Set<Long>> buildGroupMembersIndex(Map<Long, Set<String>> memberships, 
+				Map<Long, EntityInformation> entityInfo)
+		{
+			if (memberships == null || entityInfo == null)
+				return Collections.emptyMap();
+			Map<String, Set<Long>> ret = new HashMap<>();
+			for (Map.Entry<Long, Set<String>> entry: memberships.entrySet())
+			{
+				if (!entityInfo.containsKey(entry.getKey()))
+					continue;
+				for (String group: entry.getValue())
+					ret.computeIfAbsent(group, key -> new HashSet<>()).add(entry.getKey());
+			}
+			ret.replaceAll((group, members) -> Collections.unmodifiableSet(members));
+			return Collections.unmodifiableMap(ret);
+		}
 	}
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.bulk;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Stopwatch;
+
+import pl.edu.icm.unity.base.authn.CredentialRequirements;
+import pl.edu.icm.unity.base.exceptions.EngineException;
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
+import pl.edu.icm.unity.engine.credential.CredentialRepository;
+import pl.edu.icm.unity.engine.credential.CredentialReqRepository;
+import pl.edu.icm.unity.store.api.AttributeTypeDAO;
+import pl.edu.icm.unity.store.api.GroupDAO;
+import pl.edu.icm.unity.store.api.SystemDefinitionsVersion;
+import pl.edu.icm.unity.store.api.generic.AttributeClassDB;
+import pl.edu.icm.unity.store.api.generic.EnquiryFormDB;
+import pl.edu.icm.unity.store.api.tx.TxManager;
+
+/**
+ * Provides {@link GlobalSystemData} shared by all bulk queries. The snapshot is loaded again only when
+ * any of the definitions it is built from was modified, what is detected with {@link SystemDefinitionsVersion}:
+ * both with the version of this server and with the objects changes log, which reflects changes of other
+ * cluster nodes. As the log can rarely miss a change, the snapshot is also reloaded after the configured time.
+ * Data loaded in transactions served by the database replica is not cached, as the replica can lag behind
+ * the version observed by this server. Such transactions reuse the snapshot only if the replica has reached
+ * the same position of the changes log.
+ * Returned snapshot is shared, so it must not be modified.
+ */
+@Component
+class GlobalSystemDataCache
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_BULK_OPS, GlobalSystemDataCache.class);
+
+	private final AttributeTypeDAO attributeTypeDAO;
+	private final AttributeClassDB acDB;
+	private final GroupDAO groupDAO;
+	private final CredentialRepository credentialRepository;
+	private final CredentialReqRepository credentialReqRepository;
+	private final EnquiryFormDB enquiryDB;
+	private final SystemDefinitionsVersion definitionsVersion;
+	private final TxManager txManager;
+	private final long maxSnapshotAge;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong rebuilds = new AtomicLong();
+	private final AtomicLong uncachedLoads = new AtomicLong();
+	private volatile VersionedData cached;
+
+	@Autowired
+	GlobalSystemDataCache(AttributeTypeDAO attributeTypeDAO, AttributeClassDB acDB, GroupDAO groupDAO,
+			CredentialRepository credentialRepository, CredentialReqRepository credentialReqRepository,
+			EnquiryFormDB enquiryDB, SystemDefinitionsVersion definitionsVersion, TxManager txManager, 
+			UnityServerConfiguration config)
+	{
+		this.attributeTypeDAO = attributeTypeDAO;
+		this.acDB = acDB;
+		this.groupDAO = groupDAO;
+		this.credentialRepository = credentialRepository;
+		this.credentialReqRepository = credentialReqRepository;
+		this.enquiryDB = enquiryDB;
+		this.definitionsVersion = definitionsVersion;
+		this.txManager = txManager;
+		this.maxSnapshotAge = config.getLongValue(UnityServerConfiguration.SYSTEM_DEFINITIONS_CACHE_MS);
+	}
+
+	/**
+	 * Must be invoked in a transaction.
+	 */
+	GlobalSystemData get() throws EngineException
+	{
+		if (maxSnapshotAge <= 0 || definitionsVersion.isModifiedInCurrentTransaction())
+		{
+			uncachedLoads.incrementAndGet();
+			return load();
+		}
+		long version = definitionsVersion.getVersion();
+		long lastChangeId = definitionsVersion.getLastChangeId();
+		long now = System.currentTimeMillis();
+		VersionedData current = cached;
+		if (current != null && current.isValid(version, lastChangeId, now - maxSnapshotAge))
+		{
+			hits.incrementAndGet();
+			return current.data;
+		}
+		if (txManager.isServedByReplica())
+		{
+			uncachedLoads.incrementAndGet();
+			return load();
+		}
+		GlobalSystemData data = load();
+		cached = new VersionedData(version, lastChangeId, now, data);
+		rebuilds.incrementAndGet();
+		log.debug("Global system data snapshot rebuilt for version {} and change {}, hits: {}, rebuilds: {}, "
+				+ "uncached loads: {}", version, lastChangeId, hits.get(), rebuilds.get(), uncachedLoads.get());
+		return data;
+	}
+
+	long getHitsNumber()
+	{
+		return hits.get();
+	}
+
+	long getRebuildsNumber()
+	{
+		return rebuilds.get();
+	}
+
+	/**
+	 * @return how many times data was loaded without caching, as the calling transaction has modified definitions
+	 * or it is served by the database replica, or caching is disabled
+	 */
+	long getUncachedLoadsNumber()
+	{
+		return uncachedLoads.get();
+	}
+
+	private GlobalSystemData load() throws EngineException
+	{
+		Stopwatch watch = Stopwatch.createStarted();
+		GlobalSystemData ret = GlobalSystemData.builder()
+				.withAttributeTypes(attributeTypeDAO.getAllAsMap())
+				.withAttributeClasses(acDB.getAllAsMap())
+				.withGroups(groupDAO.getAllAsMap())
+				.withCredentials(credentialRepository.getCredentialDefinitions())
+				.withCredentialRequirements(getCredentialRequirements())
+				.withEnquiryForms(enquiryDB.getAllAsMap())
+				.build();
+		log.debug("loading global data {}", watch.toString());
+		return ret;
+	}
+
+	private Map<String, CredentialRequirements> getCredentialRequirements() throws EngineException
+	{
+		return credentialReqRepository.getCredentialRequirements().stream()
+			.collect(Collectors.toMap(cr -> cr.getName(), cr -> cr));
+	}
+
+	private static class VersionedData
+	{
+		private final long version;
+		private final long lastChangeId;
+		private final long loadTime;
+		private final GlobalSystemData data;
+
+		VersionedData(long version, long lastChangeId, long loadTime, GlobalSystemData data)
+		{
+			this.version = version;
+			this.lastChangeId = lastChangeId;
+			this.loadTime = loadTime;
+			this.data = data;
+		}
+
+		boolean isValid(long version, long lastChangeId, long minLoadTime)
+		{
+			return this.version == version && this.lastChangeId == lastChangeId && loadTime >= minLoadTime;
+		}
+	}
+}
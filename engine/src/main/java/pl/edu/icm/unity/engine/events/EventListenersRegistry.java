@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.events;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import pl.edu.icm.unity.base.event.Event;
+import pl.edu.icm.unity.engine.api.event.EventListener;
+
+/**
+ * Immutable set of registered {@link EventListener}s. Each modification creates a new registry,
+ * so it can be read without locking. Listeners are indexed by the types of events they may want
+ * (see {@link EventListener#getWantedEventTypes()}). The index is filled lazily, upon the first event
+ * of a given class.
+ */
+class EventListenersRegistry
+{
+	static final EventListenersRegistry EMPTY = new EventListenersRegistry(Collections.emptyMap());
+	private static final EventListener[] NO_LISTENERS = new EventListener[0];
+
+	private final Map<String, EventListener> listenersById;
+	private final Set<EventListener> listeners;
+	private final Map<Class<?>, EventListener[]> candidatesByEventType = new ConcurrentHashMap<>();
+
+	private EventListenersRegistry(Map<String, EventListener> listenersById)
+	{
+		this.listenersById = listenersById;
+		this.listeners = Collections.unmodifiableSet(new LinkedHashSet<>(listenersById.values()));
+	}
+
+	EventListenersRegistry withListener(EventListener listener)
+	{
+		Map<String, EventListener> updated = new LinkedHashMap<>(listenersById);
+		updated.put(listener.getId(), listener);
+		return new EventListenersRegistry(Collections.unmodifiableMap(updated));
+	}
+
+	EventListenersRegistry withoutListener(EventListener listener)
+	{
+		Map<String, EventListener> updated = new LinkedHashMap<>(listenersById);
+		updated.remove(listener.getId());
+		return new EventListenersRegistry(Collections.unmodifiableMap(updated));
+	}
+
+	EventListener getById(String id)
+	{
+		return listenersById.get(id);
+	}
+
+	Set<EventListener> getAll()
+	{
+		return listeners;
+	}
+
+	/**
+	 * @return listeners which may want events of the given type. The returned array must not be modified.
+	 */
+	EventListener[] getCandidates(Class<? extends Event> eventType)
+	{
+		return candidatesByEventType.computeIfAbsent(eventType, this::findCandidates);
+	}
+
+	private EventListener[] findCandidates(Class<?> eventType)
+	{
+		EventListener[] candidates = listeners.stream()
+				.filter(listener -> isPotentiallyWanted(listener, eventType))
+				.toArray(EventListener[]::new);
+		return candidates.length == 0 ? NO_LISTENERS : candidates;
+	}
+
+	private static boolean isPotentiallyWanted(EventListener listener, Class<?> eventType)
+	{
+		for (Class<? extends Event> wanted: listener.getWantedEventTypes())
+			if (wanted.isAssignableFrom(eventType))
+				return true;
+		return false;
+	}
+}
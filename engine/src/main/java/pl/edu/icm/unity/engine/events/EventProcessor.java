@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.engine.events;
 
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -12,6 +13,7 @@ import pl.edu.icm.unity.base.event.Event;
 import pl.edu.icm.unity.base.event.EventExecution;
 import pl.edu.icm.unity.base.event.PersistableEvent;
 import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
 import pl.edu.icm.unity.engine.api.event.EventListener;
 import pl.edu.icm.unity.engine.api.event.EventListenersManagement;
 import pl.edu.icm.unity.engine.api.event.EventPublisher;
@@ -19,57 +21,67 @@ import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
 import pl.edu.icm.unity.store.api.EventDAO;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
 
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Takes events from producers and dispatches them to all registered {@link EventListener}s.
+ * Statistics of heavy-weight events processing are logged on debug level every minute.
  * This class is thread safe.
  */
 @Component
-public class EventProcessor implements EventPublisher, EventListenersManagement
+public class EventProcessor implements EventPublisher, EventListenersManagement, DisposableBean
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_EVENT, EventProcessor.class);
-	private Set<EventListener> listeners = new HashSet<>();
-	private Map<String, EventListener> listenersById = new HashMap<>();
-	private ReadWriteLock lock = new ReentrantReadWriteLock();
+	static final long STATISTICS_LOG_INTERVAL_MS = 60000;
+	private volatile EventListenersRegistry listeners = EventListenersRegistry.EMPTY;
 	
 	private ExecutorService executorService;
 	private EventDAO dbEvents;
 	private EventsProcessingThread asyncProcessor;
 	private TransactionalRunner tx;
+	private ScheduledFuture<?> statisticsLogger;
 	
 	@Autowired
 	public EventProcessor(ExecutorsService executorsService, EventDAO dbEvents,
-			TransactionalRunner tx)
+			TransactionalRunner tx, UnityServerConfiguration config)
 	{
 		executorService = executorsService.getExecutionService();
 		this.dbEvents = dbEvents;
 		this.tx = tx;
-		this.asyncProcessor = new EventsProcessingThread(this, dbEvents, tx);
+		this.asyncProcessor = new EventsProcessingThread(this, dbEvents, tx, 
+				config.getIntValue(UnityServerConfiguration.EVENTS_PROCESSING_THREADS),
+				config.getIntValue(UnityServerConfiguration.EVENTS_PROCESSING_BATCH_SIZE));
 		this.asyncProcessor.start();
+		this.statisticsLogger = executorsService.getScheduledService().scheduleWithFixedDelay(
+				this::logStatistics, STATISTICS_LOG_INTERVAL_MS, STATISTICS_LOG_INTERVAL_MS, 
+				TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy() throws InterruptedException
+	{
+		statisticsLogger.cancel(false);
+		asyncProcessor.shutdown();
 	}
 
 	@Override
 	public void fireEvent(Event event)
 	{
-		List<EventListener> interestedListeners = getInterestedListeners(event);
-		if (interestedListeners == null)
-			return;
-		
-		if (log.isDebugEnabled())
-			log.debug("Fire event: {}", event);
-		for (EventListener listener: interestedListeners)
+		boolean logged = false;
+		for (EventListener listener: listeners.getCandidates(event.getClass()))
 		{
+			if (!listener.isWanted(event))
+				continue;
+			if (!logged && log.isDebugEnabled())
+			{
+				log.debug("Fire event: {}", event);
+				logged = true;
+			}
 			Callable<Void> task = listener.isLightweight() ? 
 					new VolatileListenerInvoker(listener, event) :
 					new ReliableListenerInvoker(listener, event);
@@ -93,76 +105,51 @@ public class EventProcessor implements EventPublisher, EventListenersManagement
 		}
 	}
 
-	public void addEventListener(EventListener eventListener)
+	public synchronized void addEventListener(EventListener eventListener)
 	{
-		lock.writeLock().lock();
 		eventListener.init();
-		try
-		{
-			listeners.add(eventListener);
-			listenersById.put(eventListener.getId(), eventListener);
-		} finally
-		{
-			lock.writeLock().unlock();
-		}
+		listeners = listeners.withListener(eventListener);
 	}
 	
 	public synchronized void removeEventListener(EventListener eventListener)
 	{
-		lock.writeLock().lock();
-		try
-		{
-			listeners.remove(eventListener);
-			listenersById.remove(eventListener.getId());
-		} finally
-		{
-			lock.writeLock().unlock();
-		}
+		listeners = listeners.withoutListener(eventListener);
 	}
 	
 	@Override
 	public Set<EventListener> getListeners()
 	{
-		return listeners;
+		return listeners.getAll();
 	}
 	
 	public int getPendingEventsNumber()
 	{
-		return tx.runInTransactionRet(() -> dbEvents.getEligibleForProcessing(new Date(System.currentTimeMillis() +
-				EventsProcessingThread.MAX_DELAY*100000)).size());
+		return (int) getStatistics().pending;
 	}
 	
-	EventListener getListenerById(String id)
+	public EventsProcessingStatistics getStatistics()
 	{
-		lock.readLock().lock();
-		try
-		{
-			return listenersById.get(id);
-		} finally
-		{
-			lock.readLock().unlock();
-		}
+		return asyncProcessor.getStatistics();
 	}
 	
-	private List<EventListener> getInterestedListeners(Event event)
+	private void logStatistics()
 	{
-		List<EventListener> interestedListeners;
-		lock.readLock().lock();
+		if (!log.isDebugEnabled())
+			return;
 		try
 		{
-			interestedListeners = new ArrayList<EventListener>(listeners.size());
-			for (EventListener listener: listeners)
-			{
-				if (listener.isWanted(event))
-					interestedListeners.add(listener);
-			}
-			return interestedListeners;
-		} finally
+			log.debug("{}", getStatistics());
+		} catch (Exception e)
 		{
-			lock.readLock().unlock();
+			log.debug("Can not get events processing statistics", e);
 		}
 	}
 	
+	EventListener getListenerById(String id)
+	{
+		return listeners.getById(id);
+	}
+	
 	/**
 	 * Invokes the volatile listener
 	 * @author K. Benedyczak
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.events;
+
+/**
+ * Snapshot of heavy-weight events processing, as observed by {@link EventsProcessingThread}.
+ */
+public class EventsProcessingStatistics
+{
+	public final long processed;
+	public final long failed;
+	public final int inProgress;
+	/**
+	 * How long the longest waiting event of the last claimed batch was waiting for processing, in ms
+	 */
+	public final long lastLag;
+	/**
+	 * Number of events in the DB queue, including the ones in progress and the ones waiting for a retry
+	 */
+	public final long pending;
+
+	EventsProcessingStatistics(long processed, long failed, int inProgress, long lastLag, long pending)
+	{
+		this.processed = processed;
+		this.failed = failed;
+		this.inProgress = inProgress;
+		this.lastLag = lastLag;
+		this.pending = pending;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "EventsProcessingStatistics [processed=" + processed + ", failed=" + failed
+				+ ", inProgress=" + inProgress + ", lastLag=" + lastLag + "ms, pending=" + pending + "]";
+	}
+}
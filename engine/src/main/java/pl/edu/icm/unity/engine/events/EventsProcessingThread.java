@@ -4,8 +4,21 @@
  */
 package pl.edu.icm.unity.engine.events;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Logger;
 
@@ -16,8 +29,17 @@ import pl.edu.icm.unity.store.api.EventDAO;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
 
 /**
- * Processes heavy-weight events: takes pending ones from DB and tries to invoke them one by one.
- * 
+ * Processes heavy-weight events: claims batches of pending ones from DB and dispatches them to a pool
+ * of workers. Events of each listener are handled sequentially by a single worker, so a slow listener
+ * delays only its own events. Events of a listener which is being handled are not claimed until
+ * the handling is finished.
+ * <p>
+ * Events are claimed by postponing their next processing time by {@link #CLAIM_DURATION},
+ * so they are not processed concurrently by other cluster nodes. Each time a worker starts handling
+ * an event, the claim of this and all the remaining events of the listener is extended. If the claim
+ * has already expired (e.g. a previous event was handled for too long), the remaining events are left 
+ * to be claimed again. If processing is not finished in time (e.g. node crashed) the event is processed again.
+ *
  * @author K. Benedyczak
  */
 public class EventsProcessingThread extends Thread
@@ -26,43 +48,194 @@ public class EventsProcessingThread extends Thread
 	public static final long INTERVAL = 30000;
 	public static final long DELAY = 30000;
 	public static final long MAX_DELAY = 3600000;
-	private EventDAO dbEvents;
-	private EventProcessor eventProcessor;
-	private TransactionalRunner tx;
-	
-	public EventsProcessingThread(EventProcessor processor, EventDAO dbEvents, TransactionalRunner tx)
+	public static final long CLAIM_DURATION = 600000;
+	private static final long SHUTDOWN_TIMEOUT = 10000;
+	private final EventDAO dbEvents;
+	private final EventProcessor eventProcessor;
+	private final TransactionalRunner tx;
+	private final ExecutorService workers;
+	private final int batchSize;
+	private final long claimDuration;
+	private final Semaphore wakeUpSignal = new Semaphore(0);
+	private final Set<String> busyListeners = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger inProgressEvents = new AtomicInteger();
+	private final AtomicLong processedEvents = new AtomicLong();
+	private final AtomicLong failedEvents = new AtomicLong();
+	private volatile long lastLag;
+	private volatile boolean stopped;
+
+	public EventsProcessingThread(EventProcessor processor, EventDAO dbEvents, TransactionalRunner tx,
+			int workersNumber, int batchSize)
+	{
+		this(processor, dbEvents, tx, workersNumber, batchSize, CLAIM_DURATION);
+	}
+
+	EventsProcessingThread(EventProcessor processor, EventDAO dbEvents, TransactionalRunner tx,
+			int workersNumber, int batchSize, long claimDuration)
 	{
+		super("events-dispatcher");
 		this.tx = tx;
 		setDaemon(true);
 		this.dbEvents = dbEvents;
 		this.eventProcessor = processor;
+		this.batchSize = batchSize;
+		this.claimDuration = claimDuration;
+		AtomicInteger workerNumber = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(workersNumber, runnable ->
+		{
+			Thread worker = new Thread(runnable, "events-processing-" + workerNumber.incrementAndGet());
+			worker.setDaemon(true);
+			return worker;
+		});
 	}
-	
+
 	public void run()
 	{
-		while(true)
+		while(!stopped)
 		{
-			synchronized(this)
+			try
+			{
+				wakeUpSignal.tryAcquire(INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {}
+			if (stopped)
+				break;
+			wakeUpSignal.drainPermits();
+			try
 			{
+				dispatchEligibleEvents();
+			} catch (Exception e)
+			{
+				log.error("Dispatching of events for processing failed", e);
+			}
+		}
+	}
+
+	public void wakeUp()
+	{
+		wakeUpSignal.release();
+	}
+
+	/**
+	 * Stops dispatching of events and waits for the workers to finish handling of already dispatched ones.
+	 * Events which are not handled in time are processed again after their claim expires.
+	 */
+	public void shutdown() throws InterruptedException
+	{
+		stopped = true;
+		wakeUp();
+		workers.shutdown();
+		if (!workers.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS))
+			log.warn("Events processing workers were not stopped in time, events in progress: {}",
+					inProgressEvents.get());
+	}
+
+	EventsProcessingStatistics getStatistics()
+	{
+		long pending = tx.runInTransactionRet(() -> dbEvents.getCount());
+		return new EventsProcessingStatistics(processedEvents.get(), failedEvents.get(), inProgressEvents.get(),
+				lastLag, pending);
+	}
+
+	private void dispatchEligibleEvents()
+	{
+		Date now = new Date();
+		List<EventExecution> eligible = tx.runInTransactionRet(() ->
+			dbEvents.getEligibleForProcessing(now, Set.copyOf(busyListeners), batchSize));
+		if (eligible.isEmpty())
+			return;
+		Date claimedUntil = new Date(now.getTime() + claimDuration);
+		Map<String, List<EventExecution>> claimedByListener = tx.runInTransactionRet(() -> 
+			claim(eligible, now, claimedUntil));
+		lastLag = getLag(eligible.get(0), now.getTime());
+		for (Map.Entry<String, List<EventExecution>> listenerEvents: claimedByListener.entrySet())
+		{
+			String listenerId = listenerEvents.getKey();
+			List<EventExecution> events = listenerEvents.getValue();
+			busyListeners.add(listenerId);
+			inProgressEvents.addAndGet(events.size());
+			workers.execute(() -> processListenerEvents(listenerId, events, claimedUntil));
+		}
+		log.debug("Dispatched {} events of {} listeners, lag: {}ms, in progress: {}",
+				eligible.size(), claimedByListener.size(), lastLag, inProgressEvents.get());
+		if (eligible.size() == batchSize)
+			wakeUp();
+	}
+
+	private Map<String, List<EventExecution>> claim(List<EventExecution> eligible, Date now, Date claimedUntil)
+	{
+		Map<String, List<EventExecution>> claimedByListener = new HashMap<>();
+		for (EventExecution event: eligible)
+		{
+			if (dbEvents.claimForProcessing(event.getId(), now, claimedUntil))
+				claimedByListener.computeIfAbsent(event.getListenerId(), id -> new ArrayList<>()).add(event);
+		}
+		return claimedByListener;
+	}
+
+	private long getLag(EventExecution event, long now)
+	{
+		Date waitingSince = event.getFailures() == 0 && event.getEvent().getTimestamp() != null ?
+				event.getEvent().getTimestamp() : event.getNextProcessing();
+		return now - waitingSince.getTime();
+	}
+
+	private void processListenerEvents(String listenerId, List<EventExecution> events, Date claimedUntil)
+	{
+		int started = 0;
+		try
+		{
+			Optional<Date> claim = Optional.of(claimedUntil);
+			for (EventExecution event: events)
+			{
+				List<EventExecution> remaining = events.subList(started, events.size());
+				claim = extendClaim(remaining, claim.get());
+				if (claim.isEmpty())
+				{
+					log.warn("Claim of {} events of listener {} expired before they were handled, "
+							+ "they will be processed again", remaining.size(), listenerId);
+					break;
+				}
+				started++;
 				try
 				{
-					wait(INTERVAL);
-				} catch (InterruptedException e) {}
-
-				tx.runInTransaction(() -> {
-					List<EventExecution> events = dbEvents.getEligibleForProcessing(new Date());
-					for (EventExecution event: events)
-						handleHeavyweightEvent(event);
-				});
+					handleHeavyweightEvent(event);
+				} catch (Exception e)
+				{
+					log.error("Handling of event " + event.getId() + " failed", e);
+				} finally
+				{
+					inProgressEvents.decrementAndGet();
+				}
 			}
+		} finally
+		{
+			inProgressEvents.addAndGet(started - events.size());
+			busyListeners.remove(listenerId);
+			wakeUp();
 		}
 	}
-	
-	public synchronized void wakeUp()
+
+	/**
+	 * @return the extended claim or empty if the claim has expired
+	 */
+	private Optional<Date> extendClaim(List<EventExecution> events, Date claimedUntil)
 	{
-		notify();
+		Date now = new Date();
+		if (!now.before(claimedUntil))
+			return Optional.empty();
+		Date extendedUntil = new Date(now.getTime() + claimDuration);
+		List<Long> ids = events.stream().map(EventExecution::getId).collect(Collectors.toList());
+		try
+		{
+			boolean extended = tx.runInTransactionRet(() -> dbEvents.extendClaim(ids, now, extendedUntil));
+			return extended ? Optional.of(extendedUntil) : Optional.empty();
+		} catch (Exception e)
+		{
+			log.error("Extending claim of events " + ids + " failed", e);
+			return Optional.empty();
+		}
 	}
-	
+
 	private void handleHeavyweightEvent(EventExecution event)
 	{
 		EventListener listener = eventProcessor.getListenerById(event.getListenerId());
@@ -71,7 +244,7 @@ public class EventsProcessingThread extends Thread
 			log.info("Dropping event for not existing listener " + event.getListenerId());
 			return;
 		}
-		
+
 		boolean result;
 		try
 		{
@@ -88,24 +261,26 @@ public class EventsProcessingThread extends Thread
 
 		if (result)
 		{
-			dbEvents.deleteByKey(event.getId());
+			processedEvents.incrementAndGet();
+			tx.runInTransaction(() -> dbEvents.deleteByKey(event.getId()));
 			log.debug("Event " + event.getId() + " successfully handled");
 		} else
 		{
+			failedEvents.incrementAndGet();
 			int failures = event.getFailures() + 1;
 			if (listener.getMaxFailures() <= failures)
 			{
 				log.warn("Dropping event for " + event.getListenerId() + " after too many failures");
-				dbEvents.deleteByKey(event.getId());
+				tx.runInTransaction(() -> dbEvents.deleteByKey(event.getId()));
 				return;
 			}
 			Date newExecution = new Date(System.currentTimeMillis() + getDelay(failures));
-			dbEvents.updateExecution(event.getId(), newExecution, failures);
+			tx.runInTransaction(() -> dbEvents.updateExecution(event.getId(), newExecution, failures));
 		}
 	}
-	
+
 	private long getDelay(int failures)
 	{
-		return failures < 10 ? failures * DELAY : MAX_DELAY; 
+		return failures < 10 ? failures * DELAY : MAX_DELAY;
 	}
 }
@@ -29,6 +29,7 @@ import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
@@ -47,6 +48,7 @@ import eu.unicore.util.httpclient.HttpClientProperties;
 import eu.unicore.util.httpclient.ServerHostnameCheckingMode;
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.engine.api.PKIManagement;
+import pl.edu.icm.unity.engine.api.files.RemoteFileVersion;
 
 /**
  * Wraps configuration of HTTP client which can use custom truststore and makes
@@ -78,23 +80,52 @@ class RemoteFileNetworkClient
 	}
 
 	ContentsWithType download(URL url, String customTruststore) throws EngineException, IOException
+	{
+		return download(getDefaultClient(url, customTruststore), url);
+	}
+
+	/**
+	 * @return contents with null body if the server responded that the file was not modified since 
+	 * the known version
+	 */
+	ContentsWithType downloadIfModified(URL url, String customTruststore, RemoteFileVersion knownVersion) 
+			throws EngineException, IOException
+	{
+		return download(getDefaultClient(url, customTruststore), url, knownVersion);
+	}
+
+	private HttpClient getDefaultClient(URL url, String customTruststore) throws EngineException
 	{
 		HttpClientProperties properties = new DefaultClientConfiguration().getHttpClientProperties();
-		HttpClient client = new ApacheHttpClientBuilder(pkiManagement)
+		return new ApacheHttpClientBuilder(pkiManagement)
 				.withCustomTruststore(customTruststore)
 				.withSocketReadTimeout(properties.getIntValue(SO_TIMEOUT))
 				.withConnectionTimeout(properties.getIntValue(CONNECT_TIMEOUT))
 				.withDefaultRetries()
 				.withURL(url)
 				.build();
-		return download(client, url);
 	}
 			
 	private ContentsWithType download(HttpClient client, URL url) throws EngineException, IOException
+	{
+		return download(client, url, RemoteFileVersion.UNKNOWN);
+	}
+
+	private ContentsWithType download(HttpClient client, URL url, RemoteFileVersion knownVersion) 
+			throws EngineException, IOException
 	{
 		HttpGet request = new HttpGet(url.toString());
+		if (knownVersion.etag != null)
+			request.setHeader(HttpHeaders.IF_NONE_MATCH, knownVersion.etag);
+		if (knownVersion.lastModified != null)
+			request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, knownVersion.lastModified);
 		ClassicHttpResponse response = client.executeOpen(null, request, HttpClientContext.create());
 		int statusCode = response.getCode();
+		if (statusCode == HttpStatus.SC_NOT_MODIFIED)
+		{
+			response.close();
+			return new ContentsWithType(null, null, getVersion(response, knownVersion));
+		}
 		if (statusCode != HttpStatus.SC_OK)
 		{
 			StringBuilder errorMessage = new StringBuilder()
@@ -119,18 +150,36 @@ class RemoteFileNetworkClient
 		}
 		Header contentTypeHeader = response.getFirstHeader("Content-Type");
 		String contentType = contentTypeHeader != null ? contentTypeHeader.getValue() : null;
-		return new ContentsWithType(IOUtils.toByteArray(response.getEntity().getContent()), contentType);
+		return new ContentsWithType(IOUtils.toByteArray(response.getEntity().getContent()), contentType,
+				getVersion(response, RemoteFileVersion.UNKNOWN));
+	}
+
+	private RemoteFileVersion getVersion(ClassicHttpResponse response, RemoteFileVersion defaultVersion)
+	{
+		Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+		Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+		if (etag == null && lastModified == null)
+			return defaultVersion;
+		return new RemoteFileVersion(etag != null ? etag.getValue() : null, 
+				lastModified != null ? lastModified.getValue() : null);
 	}
 	
 	static class ContentsWithType
 	{
 		final byte[] contents;
 		final String mimeType;
+		final RemoteFileVersion version;
 
 		ContentsWithType(byte[] contents, String mimeType)
+		{
+			this(contents, mimeType, RemoteFileVersion.UNKNOWN);
+		}
+
+		ContentsWithType(byte[] contents, String mimeType, RemoteFileVersion version)
 		{
 			this.contents = contents;
 			this.mimeType = mimeType;
+			this.version = version;
 		}
 	}
 	
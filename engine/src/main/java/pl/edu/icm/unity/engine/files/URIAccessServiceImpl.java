@@ -18,8 +18,10 @@ import pl.edu.icm.unity.base.file.FileData;
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.PKIManagement;
 import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
+import pl.edu.icm.unity.engine.api.files.ConditionalFileData;
 import pl.edu.icm.unity.engine.api.files.IllegalURIException;
 import pl.edu.icm.unity.engine.api.files.RemoteFileData;
+import pl.edu.icm.unity.engine.api.files.RemoteFileVersion;
 import pl.edu.icm.unity.engine.api.files.URIAccessException;
 import pl.edu.icm.unity.engine.api.files.URIAccessService;
 import pl.edu.icm.unity.engine.api.files.URIHelper;
@@ -108,6 +110,32 @@ public class URIAccessServiceImpl implements URIAccessService
 		}
 	}
 
+	@Override
+	@Transactional
+	public ConditionalFileData readURIIfModified(URI uri, String customTruststore, RemoteFileVersion knownVersion)
+	{
+		try
+		{
+			URIHelper.validateURI(uri);
+			if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme()))
+				return ConditionalFileData.modified(readUriInternal("", uri, customTruststore), 
+						RemoteFileVersion.UNKNOWN);
+			URL url = uri.toURL();
+			ContentsWithType contents = fileNetworkClient.downloadIfModified(url, customTruststore, knownVersion);
+			if (contents.contents == null)
+			{
+				log.debug("Remote file {} was not modified", uri);
+				return ConditionalFileData.notModified(contents.version);
+			}
+			return ConditionalFileData.modified(new FileData(url.toString(), contents.contents, new Date()), 
+					contents.version);
+		} catch (EngineException | IOException e)
+		{
+			log.trace("Can not read uri: " + uri, e);
+			throw new URIAccessException("Can not read uri", e);
+		}
+	}
+
 	@Transactional
 	@Override
 	public FileData readImageURI(URI uri)
@@ -194,6 +194,7 @@ public class GroupsManagementImpl implements GroupsManagement
 		try
 		{
 			dbGroups.delete(path);
+			authz.clearCacheInTransaction();
 		}
 		catch (EntityNotFoundException e)
 		{
@@ -236,6 +237,7 @@ public class GroupsManagementImpl implements GroupsManagement
 			groupHelper.addMemberFromParent(path, entity, idp, translationProfile, new Date());
 
 			attributesHelper.addAttributesList(attributes, entityId, true);
+			authz.clearCache(entityId);
 		}); 
 		
 		//careful - must be after the transaction is committed
@@ -270,6 +272,7 @@ public class GroupsManagementImpl implements GroupsManagement
 				dbAttributes.deleteAttributesInGroup(entityId, group);
 			}
 		}
+		authz.clearCache(entityId);
 	}
 
 	@Override
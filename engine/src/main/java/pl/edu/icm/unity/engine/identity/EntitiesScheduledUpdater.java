@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.engine.identity;
 
 import java.util.Date;
+import java.util.List;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,7 @@ import pl.edu.icm.unity.base.tx.Transactional;
 public class EntitiesScheduledUpdater
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_CORE, EntitiesScheduledUpdater.class);
+	static final int BATCH_SIZE = 100;
 	private UnityServerConfiguration config;
 	private EntityDAO entityDAO;
 	private EventPublisher eventPublisher;
@@ -57,30 +59,34 @@ public class EntitiesScheduledUpdater
 	
 	
 	/**
-	 * Performs all scheduled operations due by now
+	 * Performs all scheduled operations due by now. Only the due entities are loaded, in batches.
 	 * @return the time when the earliest scheduled operation should take place. If there is no such operation 
 	 * returned time is very far in future.
 	 */
 	private Date performScheduledEntityOperations()
 	{
 		Date now = new Date();
-		Date ret = new Date(Long.MAX_VALUE);
-		for (EntityInformation entityInfo: entityDAO.getAll())
+		int performed = 0;
+		List<EntityInformation> due;
+		do
 		{
-			if (isSetAndAfter(now, entityInfo.getScheduledOperationTime()))
+			due = entityDAO.getWithOperationDue(now, BATCH_SIZE);
+			for (EntityInformation entityInfo: due)
 			{
-				EntityScheduledOperation op = entityInfo.getScheduledOperation();
-				performScheduledOperationAndProduceEvent(op, entityInfo);
-			} else if (isSetAndAfter(now, entityInfo.getRemovalByUserTime()))
-			{
-				performScheduledOperationAndProduceEvent(EntityScheduledOperation.REMOVE, entityInfo);
+				if (isSetAndAfter(now, entityInfo.getScheduledOperationTime()))
+				{
+					EntityScheduledOperation op = entityInfo.getScheduledOperation();
+					performScheduledOperationAndProduceEvent(op, entityInfo);
+				} else
+				{
+					performScheduledOperationAndProduceEvent(EntityScheduledOperation.REMOVE, entityInfo);
+				}
 			}
-			
-			Date nextOp = entityInfo.getScheduledOperationTime();
-			if (nextOp != null && nextOp.before(ret))
-				ret = nextOp;
-		}
-		return ret;
+			performed += due.size();
+		} while (due.size() == BATCH_SIZE);
+		if (performed > 0)
+			log.debug("Performed {} scheduled operations on entities", performed);
+		return entityDAO.getNextOperationTime().orElse(new Date(Long.MAX_VALUE));
 	}
 	
 	private void performScheduledOperationAndProduceEvent(EntityScheduledOperation op,
@@ -4,57 +4,82 @@
  */
 package pl.edu.icm.unity.engine.identity;
 
-import java.util.Map;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import pl.edu.icm.unity.base.identity.Identity;
 import pl.edu.icm.unity.base.identity.IdentityType;
 import pl.edu.icm.unity.base.utils.Log;
-import pl.edu.icm.unity.engine.api.identity.IdentityTypeDefinition;
 import pl.edu.icm.unity.store.api.IdentityDAO;
 import pl.edu.icm.unity.store.api.IdentityTypeDAO;
-import pl.edu.icm.unity.base.tx.Transactional;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
 import pl.edu.icm.unity.store.types.StoredIdentity;
 
 /**
- * Removes expired identities. 
+ * Removes expired identities. Only identities of types which can expire are checked. The expired ones are 
+ * selected by the indexed expiration time and removed in batches, each in a separate transaction.
  * @author K. Benedyczak
  */
 @Component
 public class IdentityCleaner
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_CORE, IdentityCleaner.class);
+	static final int BATCH_SIZE = 500;
 	private IdentityDAO identityDAO;
 	private IdentityTypeHelper idTypeHelper;
 	private IdentityTypeDAO idTypeDAO;
+	private TransactionalRunner tx;
 
 	@Autowired
 	public IdentityCleaner(IdentityDAO identityDAO, IdentityTypeHelper idTypeHelper,
-			IdentityTypeDAO idTypeDAO)
+			IdentityTypeDAO idTypeDAO, TransactionalRunner tx)
 	{
 		this.identityDAO = identityDAO;
 		this.idTypeHelper = idTypeHelper;
 		this.idTypeDAO = idTypeDAO;
+		this.tx = tx;
 	}
 
-	@Transactional
-	public void removeExpiredIdentities()
+	/**
+	 * @return number of removed identities
+	 */
+	public int removeExpiredIdentities()
 	{
-		Map<String, IdentityType> types = idTypeDAO.getAllAsMap();
-		for (StoredIdentity sidentity: identityDAO.getAll())
+		long start = System.currentTimeMillis();
+		Date now = new Date(start);
+		List<IdentityType> expirableTypes = tx.runInTransactionRet(() -> idTypeDAO.getAll().stream()
+				.filter(type -> idTypeHelper.getTypeDefinition(type).canExpire())
+				.collect(Collectors.toList()));
+		int removed = 0;
+		for (IdentityType identityType: expirableTypes)
 		{
-			Identity identity = sidentity.getIdentity();
-			IdentityType identityType = types.get(identity.getTypeId());
-			IdentityTypeDefinition typeDefinition = idTypeHelper.getTypeDefinition(identityType);
-			if (typeDefinition.isExpired(identity))
+			int removedInBatch;
+			do
 			{
-				log.info("Removing expired identity " + identity);
-				identityDAO.delete(StoredIdentity.toInDBIdentityValue(identityType.getName(), 
-						identity.getComparableValue()));
-			}
+				removedInBatch = tx.runInTransactionRet(() -> removeExpiredBatch(identityType.getName(), now));
+				removed += removedInBatch;
+			} while (removedInBatch == BATCH_SIZE);
 		}
+		long time = System.currentTimeMillis() - start;
+		if (removed > 0)
+			log.info("Removed {} expired identities in {}ms", removed, time);
+		else
+			log.debug("No expired identities found in {}ms", time);
+		return removed;
+	}
+
+	private int removeExpiredBatch(String identityType, Date now)
+	{
+		List<StoredIdentity> batch = identityDAO.getExpiredOfType(identityType, now, BATCH_SIZE);
+		for (StoredIdentity sidentity: batch)
+		{
+			log.info("Removing expired identity " + sidentity.getIdentity());
+			identityDAO.delete(sidentity.getName());
+		}
+		return batch.size();
 	}
 }
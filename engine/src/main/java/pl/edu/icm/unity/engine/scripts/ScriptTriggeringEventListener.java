@@ -6,6 +6,7 @@ package pl.edu.icm.unity.engine.scripts;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +29,7 @@ import pl.edu.icm.unity.engine.api.initializers.ScriptConfiguration;
 public class ScriptTriggeringEventListener implements EventListener
 {
 	public static final String ID = ScriptTriggeringEventListener.class.getName();
+	private static final Set<Class<? extends Event>> WANTED_EVENT_TYPES = Set.of(PersistableEvent.class);
 	
 	private MainGroovyExecutor groovyExecutor;
 
@@ -55,6 +57,12 @@ public class ScriptTriggeringEventListener implements EventListener
 		return (event instanceof PersistableEvent); //optimization - we anyway need to do another map get.
 	}
 
+	@Override
+	public Set<Class<? extends Event>> getWantedEventTypes()
+	{
+		return WANTED_EVENT_TYPES;
+	}
+
 	@Override
 	public boolean handleEvent(Event abstractEvent)
 	{
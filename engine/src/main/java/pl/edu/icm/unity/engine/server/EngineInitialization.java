@@ -74,6 +74,7 @@ import pl.edu.icm.unity.engine.translation.TranslationProfileChecker;
 import pl.edu.icm.unity.engine.translation.in.SystemInputTranslationProfileProvider;
 import pl.edu.icm.unity.engine.translation.out.SystemOutputTranslationProfileProvider;
 import pl.edu.icm.unity.engine.utils.LifecycleBase;
+import pl.edu.icm.unity.engine.utils.ObjectChangesWatcher;
 import pl.edu.icm.unity.stdext.attr.EnumAttribute;
 import pl.edu.icm.unity.stdext.credential.pass.PasswordToken;
 import pl.edu.icm.unity.stdext.identity.UsernameIdentity;
@@ -81,6 +82,9 @@ import pl.edu.icm.unity.store.api.AttributeTypeDAO;
 import pl.edu.icm.unity.store.api.IdentityTypeDAO;
 import pl.edu.icm.unity.store.api.generic.AuthenticationFlowDB;
 import pl.edu.icm.unity.store.api.generic.AuthenticatorConfigurationDB;
+import pl.edu.icm.unity.store.api.generic.EndpointDB;
+import pl.edu.icm.unity.store.api.generic.ProcessingRuleDB;
+import pl.edu.icm.unity.store.api.generic.RealmDB;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
 
 import java.io.File;
@@ -168,6 +172,8 @@ public class EngineInitialization extends LifecycleBase
 	@Autowired
 	private EntitiesScheduledUpdater entitiesUpdater;
 	@Autowired
+	private ObjectChangesWatcher objectChangesWatcher;
+	@Autowired
 	private AttributeStatementsCleaner attributeStatementsCleaner;
 	@Autowired
 	private NotificationChannelsLoader notificationChannelLoader;
@@ -263,6 +269,15 @@ public class EngineInitialization extends LifecycleBase
 		executors.getScheduledService().scheduleWithFixedDelay(bulkOperationsUpdater, interval + 10, interval,
 				TimeUnit.SECONDS);
 
+		// the above periodic updates are a fallback: changes are normally detected in the changes log
+		objectChangesWatcher.addUpdater(endpointsUpdater, EndpointDB.OBJECT_TYPE, RealmDB.OBJECT_TYPE,
+				AuthenticatorConfigurationDB.OBJECT_TYPE, AuthenticationFlowDB.OBJECT_TYPE);
+		objectChangesWatcher.addUpdater(bulkOperationsUpdater, ProcessingRuleDB.OBJECT_TYPE);
+		objectChangesWatcher.skipRecordedChanges();
+		int changesCheckInterval = config.getIntValue(UnityServerConfiguration.CHANGES_CHECK_INTERVAL);
+		executors.getScheduledService().scheduleWithFixedDelay(objectChangesWatcher, changesCheckInterval,
+				changesCheckInterval, TimeUnit.SECONDS);
+
 		Runnable attributeStatementsUpdater = new Runnable()
 		{
 			@Override
@@ -289,9 +304,7 @@ public class EngineInitialization extends LifecycleBase
 				log.debug("Clearing expired identities");
 				try
 				{
-					tx.runInTransaction(() -> {
-						identityCleaner.removeExpiredIdentities();
-					});
+					identityCleaner.removeExpiredIdentities();
 				} catch (Exception e)
 				{
 					log.error("Can't clean expired identities", e);
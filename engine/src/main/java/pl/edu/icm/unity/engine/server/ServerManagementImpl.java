@@ -116,7 +116,7 @@ class ServerManagementImpl implements ServerManagement
 	{
 		authz.checkAuthorization(AuthzCapability.maintenance);
 		
-		tx.runInTransaction(() -> {
+		tx.runInBatchTransaction(() -> {
 			try
 			{
 			
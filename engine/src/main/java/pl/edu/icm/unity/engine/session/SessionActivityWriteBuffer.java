@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.session;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.api.TokenDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+
+/**
+ * Write-behind buffer of session activity. Last used timestamps of sessions are collected in memory
+ * and periodically flushed to DB as activity deadlines of session tokens, with a single batched update.
+ * Session token contents are not rewritten.
+ * <p>
+ * Queue depth and flush latency are exposed for monitoring and logged on debug level after each flush.
+ */
+class SessionActivityWriteBuffer
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_AUTHN, SessionActivityWriteBuffer.class);
+
+	private final String tokenType;
+	private final TokenDAO tokenDAO;
+	private final TransactionalRunner tx;
+	private final Map<String, PendingActivity> pending = new ConcurrentHashMap<>();
+	private final AtomicLong flushedUpdates = new AtomicLong();
+	private final AtomicLong failedFlushes = new AtomicLong();
+	private volatile long lastFlushLatency;
+
+	SessionActivityWriteBuffer(String tokenType, TokenDAO tokenDAO, TransactionalRunner tx)
+	{
+		this.tokenType = tokenType;
+		this.tokenDAO = tokenDAO;
+		this.tx = tx;
+	}
+
+	/**
+	 * Records activity of a session which is known to be valid.
+	 */
+	void record(String sessionId, long lastUsed, long maxInactivity)
+	{
+		pending.merge(sessionId, new PendingActivity(lastUsed, maxInactivity), PendingActivity::latest);
+	}
+
+	/**
+	 * Records activity of a session only if it has an activity waiting to be flushed,
+	 * i.e. the session was recently verified to be valid.
+	 * @return true if activity was recorded
+	 */
+	boolean recordIfPending(String sessionId, long lastUsed)
+	{
+		return pending.computeIfPresent(sessionId,
+				(id, current) -> current.latest(new PendingActivity(lastUsed, current.maxInactivity))) != null;
+	}
+
+	void discard(String sessionId)
+	{
+		pending.remove(sessionId);
+	}
+
+	synchronized void flush()
+	{
+		if (pending.isEmpty())
+			return;
+		long start = System.currentTimeMillis();
+		Map<String, PendingActivity> toFlush = new HashMap<>();
+		List<String> ids = new ArrayList<>(pending.keySet());
+		for (String id: ids)
+		{
+			PendingActivity activity = pending.remove(id);
+			if (activity != null)
+				toFlush.put(id, activity);
+		}
+		Map<String, Date> deadlines = new HashMap<>();
+		toFlush.forEach((id, activity) -> deadlines.put(id, activity.getDeadline()));
+		try
+		{
+			tx.runInTransaction(() -> tokenDAO.updateActivityDeadlines(tokenType, deadlines));
+		} catch (Exception e)
+		{
+			failedFlushes.incrementAndGet();
+			log.warn("Writing activity of " + deadlines.size() + " sessions to DB failed, "
+					+ "will retry in the next round", e);
+			toFlush.forEach((id, activity) -> pending.merge(id, activity, PendingActivity::latest));
+			return;
+		}
+		lastFlushLatency = System.currentTimeMillis() - start;
+		flushedUpdates.addAndGet(deadlines.size());
+		log.debug("Flushed activity of {} sessions in {}ms, queue depth: {}, total flushed: {}",
+				deadlines.size(), lastFlushLatency, pending.size(), flushedUpdates.get());
+	}
+
+	int getQueueDepth()
+	{
+		return pending.size();
+	}
+
+	long getLastFlushLatency()
+	{
+		return lastFlushLatency;
+	}
+
+	long getFlushedUpdates()
+	{
+		return flushedUpdates.get();
+	}
+
+	long getFailedFlushes()
+	{
+		return failedFlushes.get();
+	}
+
+	private static class PendingActivity
+	{
+		private final long lastUsed;
+		private final long maxInactivity;
+
+		PendingActivity(long lastUsed, long maxInactivity)
+		{
+			this.lastUsed = lastUsed;
+			this.maxInactivity = maxInactivity;
+		}
+
+		PendingActivity latest(PendingActivity other)
+		{
+			return other.lastUsed > lastUsed ? other : this;
+		}
+
+		Date getDeadline()
+		{
+			return new Date(lastUsed + maxInactivity);
+		}
+	}
+}
@@ -34,6 +34,7 @@ import pl.edu.icm.unity.engine.audit.AuditEventTrigger;
 import pl.edu.icm.unity.engine.audit.AuditPublisher;
 import pl.edu.icm.unity.stdext.attr.StringAttribute;
 import pl.edu.icm.unity.store.api.EntityDAO;
+import pl.edu.icm.unity.store.api.TokenDAO;
 import pl.edu.icm.unity.base.tx.Transactional;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
 
@@ -58,6 +59,7 @@ public class SessionManagementImpl implements SessionManagement
 	private static final Logger log = Log.getLogger(Log.U_SERVER_AUTHN, SessionManagementImpl.class);
 	public static final long DB_ACTIVITY_WRITE_DELAY = 3000;
 	public static final String SESSION_TOKEN_TYPE = "session";
+	private static final int REMOVAL_BATCH_SIZE = 100;
 	private final TokensManagement tokensManagement;
 	private final LoginToHttpSessionBinder sessionBinder;
 	private final SessionParticipantTypesRegistry participantTypesRegistry;
@@ -65,18 +67,14 @@ public class SessionManagementImpl implements SessionManagement
 	private final AttributesHelper attributeHelper;
 	private final AuditPublisher auditPublisher;
 	private final TransactionalRunner tx;
-
-	/**
-	 * map of timestamps indexed by session ids, when the last activity update was written to DB.
-	 */
-	private Map<String, Long> recentUsageUpdates = new WeakHashMap<>();
+	private final SessionActivityWriteBuffer activityBuffer;
 
 	@Autowired
 	public SessionManagementImpl(TokensManagement tokensManagement, ExecutorsService execService,
 			LoginToHttpSessionBinder sessionBinder,
 			SessionParticipantTypesRegistry participantTypesRegistry,
 			EntityDAO entityDAO, AttributesHelper attributeHelper, AuditPublisher auditPublisher,
-			TransactionalRunner tx)
+			TransactionalRunner tx, TokenDAO tokenDAO)
 	{
 		this.tokensManagement = tokensManagement;
 		this.sessionBinder = sessionBinder;
@@ -85,8 +83,11 @@ public class SessionManagementImpl implements SessionManagement
 		this.attributeHelper = attributeHelper;
 		this.auditPublisher = auditPublisher;
 		this.tx = tx;
+		this.activityBuffer = new SessionActivityWriteBuffer(SESSION_TOKEN_TYPE, tokenDAO, tx);
 		execService.getScheduledService().scheduleWithFixedDelay(new TerminateInactiveSessions(), 
 				20, 30, TimeUnit.SECONDS);
+		execService.getScheduledService().scheduleWithFixedDelay(activityBuffer::flush, 
+				DB_ACTIVITY_WRITE_DELAY, DB_ACTIVITY_WRITE_DELAY, TimeUnit.MILLISECONDS);
 	}
 
 	@Override
@@ -115,7 +116,7 @@ public class SessionManagementImpl implements SessionManagement
 					ret.setAuthenticationTime(authenticationTime);
 					byte[] contents = ret.getTokenContents();
 					tokensManagement.updateToken(SESSION_TOKEN_TYPE,
-							ret.getId(), null, contents);
+							ret.getId(), null, getActivityDeadline(ret), contents);
 
 					if (log.isDebugEnabled())
 						log.info("Using existing session " + ret.getId()
@@ -179,7 +180,8 @@ public class SessionManagementImpl implements SessionManagement
 		try
 		{
 			tokensManagement.addToken(SESSION_TOKEN_TYPE, id, new EntityParam(loggedEntity), 
-					ls.getTokenContents(), ls.getStarted(), ls.getExpires());
+					ls.getTokenContents(), ls.getStarted(), ls.getExpires(), 
+					getActivityDeadline(ls));
 			updateLoginAttributes(loggedEntity, ls.getStarted());
 			auditLogSession(ls, loggedEntity, firstFactorOptionId, secondFactorOptionId, realm);
 		} catch (Exception e)
@@ -232,6 +234,7 @@ public class SessionManagementImpl implements SessionManagement
 
 	private void removeSessionTransactional(String id, boolean soft)
 	{
+		activityBuffer.discard(id);
 		sessionBinder.removeLoginSession(id, soft);
 		try
 		{
@@ -288,22 +291,35 @@ public class SessionManagementImpl implements SessionManagement
 		return ret;
 	}
 	
+	/**
+	 * Activity is only recorded in {@link SessionActivityWriteBuffer}, which writes it to DB 
+	 * in batches every {@link #DB_ACTIVITY_WRITE_DELAY}. Session validity is checked in DB
+	 * only when there is no pending activity of the session, i.e. at most once per flush period. 
+	 */
 	@Override
-	@Transactional
 	public void updateSessionActivity(String id)
 	{
-		Long lastWrite = recentUsageUpdates.get(id);
-		if (lastWrite != null)
+		long now = System.currentTimeMillis();
+		if (!activityBuffer.recordIfPending(id, now))
 		{
-			if (System.currentTimeMillis() < lastWrite + DB_ACTIVITY_WRITE_DELAY)
-				return;
+			Token token = tokensManagement.getTokenById(SESSION_TOKEN_TYPE, id);
+			LoginSession session = token2session(token);
+			if (session.isExpiredAt(now))
+				throw new SessionExpiredException();
+			activityBuffer.record(id, now, session.getMaxInactivity());
+			log.trace("Session activity of {} will be written to DB", id);
 		}
-		
-		if (!updateSession(id, session -> session.setLastUsed(new Date())))
-			throw new SessionExpiredException();
-
-		log.trace("Updated in db session activity timestamp for " + id);
-		recentUsageUpdates.put(id, System.currentTimeMillis());
+		updateCurrentSessionActivityIfMatching(id, now);
+	}
+	
+	int getPendingActivityUpdates()
+	{
+		return activityBuffer.getQueueDepth();
+	}
+	
+	void flushActivityUpdates()
+	{
+		activityBuffer.flush();
 	}
 	
 	@Override
@@ -335,10 +351,24 @@ public class SessionManagementImpl implements SessionManagement
 		updateCurrentSessionIfMatching(session);
 		
 		byte[] contents = session.getTokenContents();
-		tokensManagement.updateToken(SESSION_TOKEN_TYPE, id, null, contents);
+		tokensManagement.updateToken(SESSION_TOKEN_TYPE, id, null, getActivityDeadline(session), contents);
 		return true;
 	}
 	
+	private static Date getActivityDeadline(LoginSession session)
+	{
+		return new Date(session.getLastUsed().getTime() + session.getMaxInactivity());
+	}
+	
+	private void updateCurrentSessionActivityIfMatching(String id, long lastUsed)
+	{
+		if (!InvocationContext.hasCurrent())
+			return;
+		LoginSession current = InvocationContext.getCurrent().getLoginSession();
+		if (current != null && id.equals(current.getId()))
+			current.setLastUsed(new Date(lastUsed));
+	}
+	
 	private void updateCurrentSessionIfMatching(LoginSession changed)
 	{
 		if (!InvocationContext.hasCurrent())
@@ -369,49 +399,73 @@ public class SessionManagementImpl implements SessionManagement
 		attributeHelper.addSystemAttribute(entityId, lastAuthn, true);
 	}
 	
+	/**
+	 * Fetches only sessions which activity deadline has passed (indexed lookup) and removes them
+	 * in batches, each batch in a single transaction. If a batch fails, its sessions are removed
+	 * one by one, so that a single problematic session doesn't block removal of others.
+	 */
 	private class TerminateInactiveSessions implements Runnable
 	{
 		@Override
 		public void run()
 		{
+			activityBuffer.flush();
+			long now = System.currentTimeMillis();
 			List<Token> tokens;
 			try
 			{
-				tokens = tokensManagement.getAllTokens(SESSION_TOKEN_TYPE);
+				tokens = tokensManagement.getInactiveTokens(SESSION_TOKEN_TYPE, new Date(now));
 			} catch (Exception e)
 			{
 				log.warn("Encounterd an error when trying to obtain session tokens from DB. "
 						+ "Cleanup will be tried again in the next round.", e);
 				return;
 			}
-			long now = System.currentTimeMillis();
+			List<LoginSession> expired = new ArrayList<>();
 			for (Token t: tokens)
 			{
 				try
 				{
-					removeSessionIfExpired(now, t);
+					LoginSession session = token2session(t);
+					if (session.isExpiredAt(now))
+						expired.add(session);
 				} catch (Exception e)
 				{
-					log.warn("Removing expired session " + t.getValue() + " failed", e);
+					log.warn("Can not parse session " + t.getValue() + ", skipping its expiration", e);
 				}
 			}
+			for (int i = 0; i < expired.size(); i += REMOVAL_BATCH_SIZE)
+				removeBatch(now, expired.subList(i, Math.min(i + REMOVAL_BATCH_SIZE, expired.size())));
 		}
 		
-		private void removeSessionIfExpired(long now, Token t)
+		private void removeBatch(long now, List<LoginSession> batch)
 		{
-			LoginSession session = token2session(t);
-			long inactiveFor = now - session.getLastUsed().getTime(); 
-			if (inactiveFor > session.getMaxInactivity())
-			{
+			for (LoginSession session: batch)
 				log.info("Expiring login session " + session + " inactive for: " + 
-						inactiveFor);
-				try
-				{
-					tx.runInTransaction(() -> removeSessionTransactional(session.getId(), false));
-				} catch (Exception e)
+						(now - session.getLastUsed().getTime()));
+			try
+			{
+				tx.runInTransaction(() -> 
 				{
-					log.error("Can't expire the session " + session, e);
-				}
+					for (LoginSession session: batch)
+						removeSessionTransactional(session.getId(), false);
+				});
+			} catch (Exception e)
+			{
+				log.debug("Batch removal of expired sessions failed, falling back to removal one by one", e);
+				for (LoginSession session: batch)
+					removeSingle(session);
+			}
+		}
+		
+		private void removeSingle(LoginSession session)
+		{
+			try
+			{
+				tx.runInTransaction(() -> removeSessionTransactional(session.getId(), false));
+			} catch (Exception e)
+			{
+				log.error("Can't expire the session " + session, e);
 			}
 		}
 	}
@@ -22,6 +22,7 @@ import pl.edu.icm.unity.base.attribute.AttributeType;
 import pl.edu.icm.unity.base.attribute.IllegalAttributeValueException;
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.group.Group;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.registration.GroupSelection;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -156,7 +157,7 @@ public class AddAttributeActionFactory extends AbstractRegistrationTranslationAc
 		{
 			unityAttribute = parameters[0];
 			group = parameters[1];
-			expressionCompiled = MVEL.compileExpression(parameters[2]);
+			expressionCompiled = MVELCompiledExpressionsCache.getCompiledExpression(parameters[2]);
 		}
 		
 		private Set<String> getGroups(RegistrationContext context)
@@ -13,6 +13,7 @@ import org.mvel2.MVEL;
 import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -101,7 +102,7 @@ public class AddAttributeClassActionFactory extends AbstractRegistrationTranslat
 		private void setParameters(String[] parameters)
 		{
 			group = parameters[0];
-			expression = MVEL.compileExpression(parameters[1]);
+			expression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 		}
 	}
 }
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.identity.IdentityParam;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -111,7 +112,7 @@ public class AddIdentityActionFactory extends AbstractRegistrationTranslationAct
 		{
 			identityType = parameters[0];
 			typeDefinition = idTypeSupport.getTypeDefinition(identityType);
-			expressionCompiled = MVEL.compileExpression(parameters[1]);
+			expressionCompiled = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 		}
 	}
 }
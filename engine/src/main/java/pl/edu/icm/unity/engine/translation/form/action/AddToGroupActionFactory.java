@@ -14,6 +14,7 @@ import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.group.Group;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
@@ -111,7 +112,7 @@ public class AddToGroupActionFactory extends AbstractRegistrationTranslationActi
 		
 		private void setParameters(String[] parameters)
 		{
-			expression = MVEL.compileExpression(parameters[0]);
+			expression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[0]);
 			rawExpression = parameters[0];
 		}
 	}
@@ -17,6 +17,7 @@ import org.springframework.stereotype.Component;
 import pl.edu.icm.unity.base.attribute.Attribute;
 import pl.edu.icm.unity.base.attribute.AttributeType;
 import pl.edu.icm.unity.base.attribute.IllegalAttributeValueException;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -130,7 +131,7 @@ public class MapAttributeActionFactory extends AbstractInputTranslationActionFac
 		{
 			unityAttribute = parameters[0];
 			group = parameters[1];
-			expressionCompiled = MVEL.compileExpression(parameters[2]);
+			expressionCompiled = MVELCompiledExpressionsCache.getCompiledExpression(parameters[2]);
 			mode = AttributeEffectMode.valueOf(parameters[3]);
 		}
 	}
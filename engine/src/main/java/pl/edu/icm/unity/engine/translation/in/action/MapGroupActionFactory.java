@@ -13,6 +13,7 @@ import org.mvel2.MVEL;
 import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -99,7 +100,7 @@ public class MapGroupActionFactory extends AbstractInputTranslationActionFactory
 
 		private void setParameters(String[] parameters)
 		{
-			expressionCompiled = MVEL.compileExpression(parameters[0]);
+			expressionCompiled = MVELCompiledExpressionsCache.getCompiledExpression(parameters[0]);
 			if (parameters.length > 1 && parameters[1] != null)
 				groupEffect = GroupEffectMode.valueOf(parameters[1]);
 			else
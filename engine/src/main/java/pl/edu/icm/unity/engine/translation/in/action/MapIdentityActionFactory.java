@@ -16,6 +16,7 @@ import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.identity.IdentityParam;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -128,7 +129,7 @@ public class MapIdentityActionFactory extends AbstractInputTranslationActionFact
 		private void setParameters(String[] parameters)
 		{
 			unityType = parameters[0];
-			expressionCompiled = MVEL.compileExpression(parameters[1]);
+			expressionCompiled = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 			credentialRequirement = parameters[2];
 			mode = IdentityEffectMode.valueOf(parameters[3]);
 		}
@@ -17,6 +17,7 @@ import org.springframework.stereotype.Component;
 import pl.edu.icm.unity.base.attribute.Attribute;
 import pl.edu.icm.unity.base.attribute.AttributeType;
 import pl.edu.icm.unity.base.exceptions.EngineException;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -175,7 +176,7 @@ public class CreateAttributeActionFactory extends AbstractOutputTranslationActio
 		private void setParameters(String[] parameters)
 		{
 			attrNameString = parameters[0];
-			valuesExpression = MVEL.compileExpression(parameters[1]);
+			valuesExpression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 			attrMandatory = Boolean.valueOf(parameters[2]);
 			if (parameters.length > 3)
 				attrDisplayname = parameters[3];
@@ -13,6 +13,7 @@ import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.identity.IdentityParam;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -93,7 +94,7 @@ public class CreateIdentityActionFactory extends AbstractOutputTranslationAction
 		private void setParameters(String[] parameters)
 		{
 			idTypeString = parameters[0];
-			idValueExpression = MVEL.compileExpression(parameters[1]);
+			idValueExpression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 		}
 	}
 
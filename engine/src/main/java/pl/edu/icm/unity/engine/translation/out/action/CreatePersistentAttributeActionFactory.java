@@ -18,6 +18,7 @@ import pl.edu.icm.unity.base.attribute.Attribute;
 import pl.edu.icm.unity.base.attribute.AttributeType;
 import pl.edu.icm.unity.base.attribute.IllegalAttributeValueException;
 import pl.edu.icm.unity.base.exceptions.EngineException;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -139,7 +140,7 @@ public class CreatePersistentAttributeActionFactory extends AbstractOutputTransl
 		private void setParameters(String[] parameters, AttributeTypeSupport attrsMan)
 		{
 			attrNameString = parameters[0];
-			valuesExpression = MVEL.compileExpression(parameters[1]);
+			valuesExpression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 			attrMandatory = Boolean.valueOf(parameters[2]);
 			group = parameters[3];
 
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.identity.IdentityParam;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -107,7 +108,7 @@ public class CreatePersistentIdentityActionFactory extends AbstractOutputTransla
 
 		private void setParameters(String[] parameters, IdentityTypesRegistry idTypesReg)
 		{
-			idValueExpression = MVEL.compileExpression(parameters[1]);
+			idValueExpression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[1]);
 
 			idType = idTypesReg.getByName(parameters[0]);
 			if (idType.isDynamic())
@@ -12,6 +12,7 @@ import org.mvel2.MVEL;
 import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition;
 import pl.edu.icm.unity.base.translation.TranslationActionType;
 import pl.edu.icm.unity.base.translation.ActionParameterDefinition.Type;
@@ -80,7 +81,7 @@ public class OutRedirectActionFactory extends AbstractOutputTranslationActionFac
 		
 		private void setParameters(String[] parameters)
 		{
-			urlExpression = MVEL.compileExpression(parameters[0]);
+			urlExpression = MVELCompiledExpressionsCache.getCompiledExpression(parameters[0]);
 		}
 	}
 }
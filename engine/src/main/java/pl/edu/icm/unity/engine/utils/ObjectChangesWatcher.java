@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.utils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.api.ObjectChangesDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.types.ObjectChange;
+
+/**
+ * Periodically checks the objects changes log and triggers the registered updaters, when objects of
+ * a type they are interested in were modified, also by other cluster nodes. The check is cheap (an indexed
+ * query for changes newer than the last seen one), so it can be executed frequently. 
+ * <p>
+ * As transactions can commit out of the sequence order, a change can be rarely missed. Therefore the 
+ * updaters should be still invoked periodically, with a longer interval.
+ */
+@Component
+public class ObjectChangesWatcher implements Runnable
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_CORE, ObjectChangesWatcher.class);
+	static final Duration CHANGES_RETENTION = Duration.ofHours(1);
+	static final Duration CLEANUP_INTERVAL = Duration.ofMinutes(10);
+	private final ObjectChangesDAO changesDAO;
+	private final TransactionalRunner tx;
+	private final List<WatchedTypes> watched = new CopyOnWriteArrayList<>();
+	private long lastSeenChange;
+	private long lastCleanup;
+
+	@Autowired
+	public ObjectChangesWatcher(ObjectChangesDAO changesDAO, TransactionalRunner tx)
+	{
+		this.changesDAO = changesDAO;
+		this.tx = tx;
+	}
+
+	public void addUpdater(ScheduledUpdaterBase updater, String... objectTypes)
+	{
+		watched.add(new WatchedTypes(updater, Set.of(objectTypes)));
+	}
+
+	/**
+	 * Ignores all changes which were recorded so far. Should be called after the initial state was loaded.
+	 */
+	public synchronized void skipRecordedChanges()
+	{
+		lastSeenChange = tx.runInTransactionRet(changesDAO::getLastChangeId);
+		lastCleanup = System.currentTimeMillis();
+	}
+
+	@Override
+	public void run()
+	{
+		try
+		{
+			checkChanges();
+		} catch (Exception e)
+		{
+			log.error("Can't process changes of the persisted objects", e);
+		}
+	}
+
+	synchronized void checkChanges()
+	{
+		List<ObjectChange> changes = tx.runInTransactionRet(() -> getNewChanges());
+		if (!changes.isEmpty())
+		{
+			lastSeenChange = changes.get(changes.size() - 1).getId();
+			Set<String> changedTypes = changes.stream()
+					.map(ObjectChange::getType)
+					.collect(Collectors.toSet());
+			log.debug("Detected {} changes of persisted objects of types {}", changes.size(), changedTypes);
+			for (WatchedTypes watchedTypes: watched)
+				if (watchedTypes.isAffectedBy(changedTypes))
+					watchedTypes.updater.run();
+		}
+		removeOldChanges();
+	}
+
+	private List<ObjectChange> getNewChanges()
+	{
+		List<ObjectChange> changes = changesDAO.getChangesAfter(lastSeenChange);
+		if (changes.isEmpty() && changesDAO.getLastChangeId() < lastSeenChange)
+		{
+			log.info("Objects changes log was reset, restarting its tracking");
+			lastSeenChange = 0;
+			changes = changesDAO.getChangesAfter(lastSeenChange);
+		}
+		return changes;
+	}
+
+	private void removeOldChanges()
+	{
+		long now = System.currentTimeMillis();
+		if (now - lastCleanup < CLEANUP_INTERVAL.toMillis())
+			return;
+		lastCleanup = now;
+		tx.runInTransaction(() -> changesDAO.deleteOlderThan(new Date(now - CHANGES_RETENTION.toMillis())));
+	}
+
+	private static class WatchedTypes
+	{
+		private final ScheduledUpdaterBase updater;
+		private final Set<String> types;
+
+		WatchedTypes(ScheduledUpdaterBase updater, Set<String> types)
+		{
+			this.updater = updater;
+			this.types = types;
+		}
+
+		boolean isAffectedBy(Collection<String> changedTypes)
+		{
+			return changedTypes.contains(ObjectChange.ALL_TYPES) || 
+					changedTypes.stream().anyMatch(types::contains);
+		}
+	}
+}
@@ -66,6 +66,27 @@ public class TestTokens extends DBIntegrationTestBase
 		assertThat(tokens).hasSize(2);
 	}
 
+	@Test
+	public void onlyTokensIssuedToClientAreReturned() throws Exception
+	{
+		Identity id = idsMan.addEntity(new IdentityParam(UsernameIdentity.ID, "u1"), 
+				EngineInitialization.DEFAULT_CREDENTIAL_REQUIREMENT, EntityState.valid);
+		Identity client = idsMan.addEntity(new IdentityParam(UsernameIdentity.ID, "client"), 
+				EngineInitialization.DEFAULT_CREDENTIAL_REQUIREMENT, EntityState.valid);
+		EntityParam ep = new EntityParam(id);
+		byte[] c = new byte[] {'a'};
+		Date exp = new Date(System.currentTimeMillis()+500000);
+		tokensMan.addToken("t", "123", ep, client.getEntityId(), c, new Date(), exp);
+		tokensMan.addToken("t", "1234", ep, id.getEntityId(), c, new Date(), exp);
+		tokensMan.addToken("t", "12345", ep, c, new Date(), exp);
+
+		List<Token> tokens = tokensMan.getOwnedTokens("t", ep, client.getEntityId());
+
+		assertThat(tokens).hasSize(1);
+		assertThat(tokens.get(0).getValue()).isEqualTo("123");
+		assertThat(tokens.get(0).getClientId()).isEqualTo(client.getEntityId());
+	}
+
 	@Test
 	public void expiredTokenIsNotReturned() throws Exception
 	{
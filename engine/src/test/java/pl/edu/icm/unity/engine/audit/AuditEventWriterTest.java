@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.base.audit.AuditEntity;
+import pl.edu.icm.unity.base.audit.AuditEvent;
+import pl.edu.icm.unity.base.audit.AuditEventAction;
+import pl.edu.icm.unity.base.audit.AuditEventType;
+import pl.edu.icm.unity.store.api.AuditEventDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner.TxRunnable;
+
+public class AuditEventWriterTest
+{
+	private AuditEventDAO dao;
+	private TransactionalRunner tx;
+	private CountDownLatch storeRelease;
+	private List<List<AuditEvent>> storedBatches;
+	private AuditEventWriter writer;
+
+	@BeforeEach
+	public void init() throws Exception
+	{
+		dao = mock(AuditEventDAO.class);
+		tx = mock(TransactionalRunner.class);
+		storeRelease = new CountDownLatch(0);
+		storedBatches = new ArrayList<>();
+		doAnswer(invocation ->
+		{
+			invocation.getArgument(0, TxRunnable.class).run();
+			return null;
+		}).when(tx).runInTransaction(any());
+		doAnswer(invocation ->
+		{
+			storeRelease.await();
+			synchronized (storedBatches)
+			{
+				storedBatches.add(new ArrayList<>(invocation.getArgument(0)));
+			}
+			return null;
+		}).when(dao).createList(anyList());
+	}
+
+	@AfterEach
+	public void cleanup() throws Exception
+	{
+		storeRelease.countDown();
+		writer.destroy();
+	}
+
+	@Test
+	public void eventsQueuedInTheMeantimeShouldBeStoredInOneBatch() throws Exception
+	{
+		storeRelease = new CountDownLatch(1);
+		writer = new AuditEventWriter(dao, tx, 100, 10);
+		writer.write(event("first"));
+		verify(dao, timeout(5000)).createList(anyList());
+
+		for (int i = 0; i < 5; i++)
+			writer.write(event("queued" + i));
+		storeRelease.countDown();
+
+		verify(dao, timeout(5000).times(2)).createList(anyList());
+		assertThat(storedBatches).hasSize(2);
+		assertThat(storedBatches.get(1)).hasSize(5);
+		assertThat(writer.getStoredEventsNumber()).isEqualTo(6);
+	}
+
+	@Test
+	public void producerShouldStoreEventWhenQueueIsFull() throws Exception
+	{
+		storeRelease = new CountDownLatch(1);
+		writer = new AuditEventWriter(dao, tx, 1, 10);
+		writer.write(event("first"));
+		verify(dao, timeout(5000)).createList(anyList());
+		writer.write(event("queued"));
+
+		Thread producer = new Thread(() -> writer.write(event("overflow")));
+		producer.start();
+		Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> writer.getDirectWritesNumber() == 1);
+		storeRelease.countDown();
+		producer.join();
+
+		verify(dao, timeout(5000).times(3)).createList(anyList());
+		assertThat(writer.getBackpressureWaitsNumber()).isEqualTo(1);
+		assertThat(writer.getQueueSize()).isZero();
+	}
+
+	@Test
+	public void queuedEventsShouldBeStoredOnShutdown() throws Exception
+	{
+		storeRelease = new CountDownLatch(1);
+		writer = new AuditEventWriter(dao, tx, 100, 2);
+		writer.write(event("first"));
+		verify(dao, timeout(5000)).createList(anyList());
+		for (int i = 0; i < 5; i++)
+			writer.write(event("queued" + i));
+
+		storeRelease.countDown();
+		writer.destroy();
+
+		assertThat(writer.getQueueSize()).isZero();
+		assertThat(writer.getStoredEventsNumber()).isEqualTo(6);
+	}
+
+	@Test
+	public void eventsOfFailedBatchShouldBeStoredOneByOne() throws Exception
+	{
+		doThrow(new IllegalStateException()).when(dao).createList(anyList());
+		writer = new AuditEventWriter(dao, tx, 100, 10);
+
+		writer.write(event("event"));
+
+		verify(dao, timeout(5000)).create(any());
+		verify(dao, times(1)).createList(anyList());
+		assertThat(writer.getFailedEventsNumber()).isZero();
+	}
+
+	private AuditEvent event(String name)
+	{
+		return AuditEvent.builder()
+				.name(name)
+				.type(AuditEventType.IDENTITY)
+				.timestamp(new Date())
+				.action(AuditEventAction.ADD)
+				.initiator(new AuditEntity(100L, "Initiator", "initiator@example.com"))
+				.build();
+	}
+}
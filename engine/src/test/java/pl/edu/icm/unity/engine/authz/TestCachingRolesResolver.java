@@ -6,14 +6,18 @@ package pl.edu.icm.unity.engine.authz;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,13 +32,16 @@ import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.group.Group;
 import pl.edu.icm.unity.engine.attribute.AttributesHelper;
 import pl.edu.icm.unity.store.api.GroupDAO;
+import pl.edu.icm.unity.store.api.tx.TxManager;
 
 public class TestCachingRolesResolver
 {
 	private AttributesHelper dbAttributes;
 	private GroupDAO groupDAO;
+	private TxManager txManager;
 	private Map<String, AuthzRole> rolesMap;
 	private AuthzRole r1;
+	private AuthzRole r2;
 
 	@BeforeEach
 	public void init()
@@ -42,15 +49,18 @@ public class TestCachingRolesResolver
 		dbAttributes = mock(AttributesHelper.class);
 		groupDAO = mock(GroupDAO.class);
 		when(groupDAO.exists(anyString())).thenReturn(true);
+		txManager = mock(TxManager.class);
 		rolesMap = new HashMap<>();
 		r1 = mock(AuthzRole.class);
 		rolesMap.put("role1", r1);
+		r2 = mock(AuthzRole.class);
+		rolesMap.put("role2", r2);
 	}
 	
 	@Test
 	public void shouldReturnFromDB() throws EngineException
 	{
-		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, groupDAO);
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, false, groupDAO, txManager);
 		
 		AttributeExt role = new AttributeExt(new Attribute(
 			RoleAttributeTypeProvider.AUTHORIZATION_ROLE, "string", "/", 
@@ -67,7 +77,7 @@ public class TestCachingRolesResolver
 	@Test
 	public void shouldReturnFromCache() throws EngineException
 	{
-		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, groupDAO);
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, false, groupDAO, txManager);
 		
 		AttributeExt role = new AttributeExt(new Attribute(
 				RoleAttributeTypeProvider.AUTHORIZATION_ROLE, "string", "/", 
@@ -88,7 +98,7 @@ public class TestCachingRolesResolver
 	@Test
 	public void shouldExpireCache() throws Exception
 	{
-		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 1, groupDAO);
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 1, false, groupDAO, txManager);
 
 		AttributeExt role = new AttributeExt(new Attribute(
 				RoleAttributeTypeProvider.AUTHORIZATION_ROLE, "string", "/", 
@@ -106,4 +116,89 @@ public class TestCachingRolesResolver
 		verify(dbAttributes, times(2)).getAttributeOneGroup(eq(1L), eq("/A"), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
 	}
 
+	@Test
+	public void shouldReuseCachedParentGroupRoles() throws EngineException
+	{
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, false, groupDAO, txManager);
+		when(dbAttributes.getAttributeOneGroup(
+				eq(1L), eq("/"), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE))).thenReturn(role("/", "role1"));
+		
+		resolver.establishRoles(1, new Group("/A"));
+		Set<AuthzRole> roles = resolver.establishRoles(1, new Group("/B"));
+		
+		assertThat(roles).containsExactly(r1);
+		verify(dbAttributes).getAttributeOneGroup(eq(1L), eq("/"), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+	}
+
+	@Test
+	public void shouldEstablishRolesInAllParentGroupsWithSingleQuery() throws EngineException
+	{
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, true, groupDAO, txManager);
+		when(dbAttributes.getAllAttributes(eq(1L), anyList(), eq(true), 
+				eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE)))
+			.thenReturn(List.of(role("/", "role1"), role("/A", "role2")));
+		
+		Set<AuthzRole> roles = resolver.establishRoles(1, new Group("/A/B"));
+		
+		assertThat(roles).containsExactlyInAnyOrder(r1, r2);
+		verify(dbAttributes).getAllAttributes(eq(1L), eq(List.of("/A/B", "/A", "/")), eq(true), 
+				eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+		verify(dbAttributes, never()).getAttributeOneGroup(anyLong(), anyString(), anyString());
+	}
+
+	@Test
+	public void shouldClearCacheOfSingleEntity() throws EngineException
+	{
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, false, groupDAO, txManager);
+		when(dbAttributes.getAttributeOneGroup(
+				anyLong(), eq("/"), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE))).thenReturn(role("/", "role1"));
+		resolver.establishRoles(1, new Group("/"));
+		resolver.establishRoles(2, new Group("/"));
+		
+		resolver.clearCache(1);
+		resolver.establishRoles(1, new Group("/"));
+		resolver.establishRoles(2, new Group("/"));
+		
+		verify(dbAttributes, times(2)).getAttributeOneGroup(eq(1L), eq("/"), 
+				eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+		verify(dbAttributes).getAttributeOneGroup(eq(2L), eq("/"), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+	}
+
+	@Test
+	public void shouldNotCacheRolesReadFromReplica() throws EngineException
+	{
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, false, groupDAO, txManager);
+		when(dbAttributes.getAttributeOneGroup(
+				eq(1L), eq("/"), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE))).thenReturn(role("/", "role1"));
+		when(txManager.isServedByReplica()).thenReturn(true);
+		resolver.establishRoles(1, new Group("/"));
+		
+		when(txManager.isServedByReplica()).thenReturn(false);
+		Set<AuthzRole> roles = resolver.establishRoles(1, new Group("/"));
+		
+		assertThat(roles).containsExactly(r1);
+		verify(dbAttributes, times(2)).getAttributeOneGroup(eq(1L), eq("/"), 
+				eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+	}
+
+	@Test
+	public void shouldUseCachedRolesInTransactionServedByReplica() throws EngineException
+	{
+		CachingRolesResolver resolver = new CachingRolesResolver(rolesMap, dbAttributes, 100000, false, groupDAO, txManager);
+		when(dbAttributes.getAttributeOneGroup(
+				eq(1L), eq("/"), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE))).thenReturn(role("/", "role1"));
+		resolver.establishRoles(1, new Group("/"));
+		
+		when(txManager.isServedByReplica()).thenReturn(true);
+		Set<AuthzRole> roles = resolver.establishRoles(1, new Group("/"));
+		
+		assertThat(roles).containsExactly(r1);
+		verify(dbAttributes).getAttributeOneGroup(eq(1L), eq("/"), eq(RoleAttributeTypeProvider.AUTHORIZATION_ROLE));
+	}
+
+	private AttributeExt role(String group, String role)
+	{
+		return new AttributeExt(new Attribute(RoleAttributeTypeProvider.AUTHORIZATION_ROLE, "string", group, 
+				Lists.newArrayList(role)), true);
+	}
 }
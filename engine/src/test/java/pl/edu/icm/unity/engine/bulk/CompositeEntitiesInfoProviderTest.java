@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class CompositeEntitiesInfoProviderTest
+{
+	@Test
+	void shouldReduceGroupsToThoseWithoutAncestorInSet()
+	{
+		Set<String> groups = Set.of("/A", "/A/B", "/A/B/C", "/D/E", "/D/E/F", "/G/H");
+
+		assertThat(CompositeEntitiesInfoProvider.getTopmostGroups(groups))
+				.containsExactly("/A", "/D/E", "/G/H");
+	}
+
+	@Test
+	void shouldReduceToRootWhenRootIsIncluded()
+	{
+		Set<String> groups = Set.of("/", "/A", "/A/B");
+
+		assertThat(CompositeEntitiesInfoProvider.getTopmostGroups(groups)).containsExactly("/");
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ *  See LICENSE file for licensing information.
+ */
+package pl.edu.icm.unity.engine.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.base.entity.EntityInformation;
+
+class EntitiesDataTest
+{
+	@Test
+	void shouldIndexMembersByGroup()
+	{
+		EntitiesData data = EntitiesData.builder()
+				.withEntityInfo(Map.of(
+						1L, new EntityInformation(1),
+						2L, new EntityInformation(2),
+						3L, new EntityInformation(3)))
+				.withMemberships(Map.of(
+						1L, Set.of("/", "/A"),
+						2L, Set.of("/", "/A", "/A/B"),
+						3L, Set.of("/")))
+				.build();
+
+		assertThat(data.getGroupMembers("/")).containsExactlyInAnyOrder(1L, 2L, 3L);
+		assertThat(data.getGroupMembers("/A")).containsExactlyInAnyOrder(1L, 2L);
+		assertThat(data.getGroupMembers("/A/B")).containsExactly(2L);
+	}
+
+	@Test
+	void shouldSkipMembersWithoutEntityInformation()
+	{
+		EntitiesData data = EntitiesData.builder()
+				.withEntityInfo(Map.of(1L, new EntityInformation(1)))
+				.withMemberships(Map.of(
+						1L, Set.of("/", "/A"),
+						2L, Set.of("/", "/A")))
+				.build();
+
+		assertThat(data.getGroupMembers("/A")).containsExactly(1L);
+	}
+
+	@Test
+	void shouldReturnEmptyForGroupWithoutMembers()
+	{
+		EntitiesData data = EntitiesData.builder()
+				.withEntityInfo(Map.of(1L, new EntityInformation(1)))
+				.withMemberships(Map.of(1L, Set.of("/")))
+				.build();
+
+		assertThat(data.getGroupMembers("/missing")).isEmpty();
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.base.group.Group;
+import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
+import pl.edu.icm.unity.engine.credential.CredentialRepository;
+import pl.edu.icm.unity.engine.credential.CredentialReqRepository;
+import pl.edu.icm.unity.store.api.AttributeTypeDAO;
+import pl.edu.icm.unity.store.api.GroupDAO;
+import pl.edu.icm.unity.store.api.SystemDefinitionsVersion;
+import pl.edu.icm.unity.store.api.generic.AttributeClassDB;
+import pl.edu.icm.unity.store.api.generic.EnquiryFormDB;
+import pl.edu.icm.unity.store.api.tx.TxManager;
+
+public class GlobalSystemDataCacheTest
+{
+	private GroupDAO groupDAO;
+	private SystemDefinitionsVersion definitionsVersion;
+	private UnityServerConfiguration config;
+	private TxManager txManager;
+	private GlobalSystemDataCache cache;
+
+	@BeforeEach
+	public void init()
+	{
+		groupDAO = mock(GroupDAO.class);
+		definitionsVersion = mock(SystemDefinitionsVersion.class);
+		config = mock(UnityServerConfiguration.class);
+		txManager = mock(TxManager.class);
+		when(groupDAO.getAllAsMap()).thenReturn(Map.of("/", new Group("/")));
+		when(config.getLongValue(UnityServerConfiguration.SYSTEM_DEFINITIONS_CACHE_MS)).thenReturn(60000L);
+		cache = createCache();
+	}
+
+	private GlobalSystemDataCache createCache()
+	{
+		return new GlobalSystemDataCache(mock(AttributeTypeDAO.class), mock(AttributeClassDB.class), groupDAO,
+				mock(CredentialRepository.class), mock(CredentialReqRepository.class), mock(EnquiryFormDB.class),
+				definitionsVersion, txManager, config);
+	}
+
+	@Test
+	public void shouldReuseSnapshotWhileVersionIsNotChanged() throws Exception
+	{
+		when(definitionsVersion.getVersion()).thenReturn(1L);
+
+		GlobalSystemData first = cache.get();
+		GlobalSystemData second = cache.get();
+
+		assertThat(second).isSameAs(first);
+		verify(groupDAO, times(1)).getAllAsMap();
+		assertThat(cache.getRebuildsNumber()).isEqualTo(1);
+		assertThat(cache.getHitsNumber()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldRebuildSnapshotAfterVersionChange() throws Exception
+	{
+		when(definitionsVersion.getVersion()).thenReturn(1L);
+		GlobalSystemData first = cache.get();
+
+		when(definitionsVersion.getVersion()).thenReturn(2L);
+		GlobalSystemData second = cache.get();
+
+		assertThat(second).isNotSameAs(first);
+		assertThat(cache.get()).isSameAs(second);
+		assertThat(cache.getRebuildsNumber()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldNotCacheDataLoadedInModifyingTransaction() throws Exception
+	{
+		when(definitionsVersion.getVersion()).thenReturn(1L);
+		GlobalSystemData cached = cache.get();
+
+		when(definitionsVersion.isModifiedInCurrentTransaction()).thenReturn(true);
+		GlobalSystemData uncached = cache.get();
+		when(definitionsVersion.isModifiedInCurrentTransaction()).thenReturn(false);
+
+		assertThat(uncached).isNotSameAs(cached);
+		assertThat(cache.get()).isSameAs(cached);
+		assertThat(cache.getUncachedLoadsNumber()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldRebuildSnapshotAfterChangeOfOtherNode() throws Exception
+	{
+		when(definitionsVersion.getVersion()).thenReturn(1L);
+		when(definitionsVersion.getLastChangeId()).thenReturn(10L);
+		GlobalSystemData first = cache.get();
+
+		when(definitionsVersion.getLastChangeId()).thenReturn(11L);
+		GlobalSystemData second = cache.get();
+
+		assertThat(second).isNotSameAs(first);
+		assertThat(cache.get()).isSameAs(second);
+		assertThat(cache.getRebuildsNumber()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldRebuildSnapshotAfterMaxAge() throws Exception
+	{
+		when(config.getLongValue(UnityServerConfiguration.SYSTEM_DEFINITIONS_CACHE_MS)).thenReturn(1L);
+		cache = createCache();
+		when(definitionsVersion.getVersion()).thenReturn(1L);
+		GlobalSystemData first = cache.get();
+
+		Thread.sleep(5);
+		GlobalSystemData second = cache.get();
+
+		assertThat(second).isNotSameAs(first);
+		assertThat(cache.getRebuildsNumber()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldNotCacheWhenDisabled() throws Exception
+	{
+		when(config.getLongValue(UnityServerConfiguration.SYSTEM_DEFINITIONS_CACHE_MS)).thenReturn(0L);
+		cache = createCache();
+		when(definitionsVersion.getVersion()).thenReturn(1L);
+
+		GlobalSystemData first = cache.get();
+		GlobalSystemData second = cache.get();
+
+		assertThat(second).isNotSameAs(first);
+		assertThat(cache.getUncachedLoadsNumber()).isEqualTo(2);
+		assertThat(cache.getRebuildsNumber()).isZero();
+	}
+
+	@Test
+	public void shouldNotCacheDataLoadedFromReplica() throws Exception
+	{
+		when(definitionsVersion.getVersion()).thenReturn(1L);
+		when(txManager.isServedByReplica()).thenReturn(true);
+		GlobalSystemData fromReplica = cache.get();
+
+		when(txManager.isServedByReplica()).thenReturn(false);
+		GlobalSystemData fromMain = cache.get();
+
+		assertThat(fromMain).isNotSameAs(fromReplica);
+		assertThat(cache.getUncachedLoadsNumber()).isEqualTo(1);
+		assertThat(cache.getRebuildsNumber()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldReuseSnapshotInReplicaTransactionAtSameChange() throws Exception
+	{
+		when(definitionsVersion.getVersion()).thenReturn(1L);
+		when(definitionsVersion.getLastChangeId()).thenReturn(10L);
+		GlobalSystemData fromMain = cache.get();
+
+		when(txManager.isServedByReplica()).thenReturn(true);
+		GlobalSystemData sameChange = cache.get();
+		when(definitionsVersion.getLastChangeId()).thenReturn(9L);
+		GlobalSystemData laggingReplica = cache.get();
+
+		assertThat(sameChange).isSameAs(fromMain);
+		assertThat(laggingReplica).isNotSameAs(fromMain);
+		assertThat(cache.getUncachedLoadsNumber()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.base.event.Event;
+import pl.edu.icm.unity.base.event.PersistableEvent;
+import pl.edu.icm.unity.engine.api.event.EventListener;
+
+public class EventListenersRegistryTest
+{
+	@Test
+	public void shouldReturnOnlyListenersOfMatchingEventType()
+	{
+		MockListener generic = new MockListener("generic", EventListener.ALL_EVENTS);
+		MockListener persistable = new MockListener("persistable", Set.of(PersistableEvent.class));
+		MockListener other = new MockListener("other", Set.of(OtherEvent.class));
+		EventListenersRegistry registry = EventListenersRegistry.EMPTY
+				.withListener(generic)
+				.withListener(persistable)
+				.withListener(other);
+
+		assertThat(registry.getCandidates(PersistableEvent.class)).containsExactly(generic, persistable);
+		assertThat(registry.getCandidates(OtherEvent.class)).containsExactly(generic, other);
+	}
+
+	@Test
+	public void shouldNotChangeRegistryWhenListenerIsAdded()
+	{
+		EventListenersRegistry empty = EventListenersRegistry.EMPTY;
+		MockListener listener = new MockListener("l1", EventListener.ALL_EVENTS);
+
+		EventListenersRegistry updated = empty.withListener(listener);
+
+		assertThat(empty.getCandidates(PersistableEvent.class)).isEmpty();
+		assertThat(updated.getCandidates(PersistableEvent.class)).containsExactly(listener);
+		assertThat(updated.getById("l1")).isSameAs(listener);
+	}
+
+	@Test
+	public void shouldNotReturnRemovedListener()
+	{
+		MockListener listener = new MockListener("l1", EventListener.ALL_EVENTS);
+		EventListenersRegistry registry = EventListenersRegistry.EMPTY.withListener(listener);
+		registry.getCandidates(PersistableEvent.class);
+
+		EventListenersRegistry updated = registry.withoutListener(listener);
+
+		assertThat(updated.getCandidates(PersistableEvent.class)).isEmpty();
+		assertThat(updated.getById("l1")).isNull();
+		assertThat(updated.getAll()).isEmpty();
+	}
+
+	private static class OtherEvent implements Event
+	{
+	}
+
+	static class MockListener implements EventListener
+	{
+		private final String id;
+		private final Set<Class<? extends Event>> wantedTypes;
+
+		MockListener(String id, Set<Class<? extends Event>> wantedTypes)
+		{
+			this.id = id;
+			this.wantedTypes = wantedTypes;
+		}
+
+		@Override
+		public boolean isLightweight()
+		{
+			return true;
+		}
+
+		@Override
+		public boolean isWanted(Event event)
+		{
+			return false;
+		}
+
+		@Override
+		public Set<Class<? extends Event>> getWantedEventTypes()
+		{
+			return wantedTypes;
+		}
+
+		@Override
+		public boolean isAsync(Event event)
+		{
+			return false;
+		}
+
+		@Override
+		public boolean handleEvent(Event event)
+		{
+			return true;
+		}
+
+		@Override
+		public String getId()
+		{
+			return id;
+		}
+
+		@Override
+		public int getMaxFailures()
+		{
+			return DEFAULT_MAX_FAILURES;
+		}
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.base.event.Event;
+import pl.edu.icm.unity.base.event.EventExecution;
+import pl.edu.icm.unity.base.event.PersistableEvent;
+import pl.edu.icm.unity.engine.api.event.EventListener;
+import pl.edu.icm.unity.store.api.EventDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner.TxRunnable;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner.TxRunnableRet;
+
+public class EventsProcessingThreadTest
+{
+	private EventDAO dbEvents;
+	private EventProcessor eventProcessor;
+	private TransactionalRunner tx;
+	private EventsProcessingThread processingThread;
+
+	@BeforeEach
+	public void init()
+	{
+		dbEvents = mock(EventDAO.class);
+		eventProcessor = mock(EventProcessor.class);
+		tx = mock(TransactionalRunner.class);
+		doAnswer(invocation ->
+		{
+			invocation.getArgument(0, TxRunnable.class).run();
+			return null;
+		}).when(tx).runInTransaction(any());
+		when(tx.runInTransactionRet(any())).thenAnswer(
+				invocation -> invocation.getArgument(0, TxRunnableRet.class).run());
+		when(dbEvents.claimForProcessing(anyLong(), any(), any())).thenReturn(true);
+		when(dbEvents.extendClaim(any(), any(), any())).thenReturn(true);
+		processingThread = new EventsProcessingThread(eventProcessor, dbEvents, tx, 2, 10);
+	}
+
+	@AfterEach
+	public void shutdown() throws InterruptedException
+	{
+		processingThread.shutdown();
+	}
+
+	@Test
+	public void slowListenerShouldNotBlockEventsOfOtherListeners() throws Exception
+	{
+		CountDownLatch slowListenerRelease = new CountDownLatch(1);
+		MockListener slowListener = new MockListener("slow", slowListenerRelease);
+		MockListener fastListener = new MockListener("fast", new CountDownLatch(0));
+		when(eventProcessor.getListenerById("slow")).thenReturn(slowListener);
+		when(eventProcessor.getListenerById("fast")).thenReturn(fastListener);
+		when(dbEvents.getEligibleForProcessing(any(), anySet(), anyInt()))
+				.thenReturn(List.of(event(1, "slow"), event(2, "fast")))
+				.thenReturn(List.of());
+
+		processingThread.start();
+		processingThread.wakeUp();
+
+		verify(dbEvents, timeout(5000)).deleteByKey(2);
+		assertThat(fastListener.handled.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(slowListener.handled.getCount()).isEqualTo(1);
+
+		slowListenerRelease.countDown();
+		verify(dbEvents, timeout(5000)).deleteByKey(1);
+		assertThat(processingThread.getStatistics().processed).isEqualTo(2);
+	}
+
+	@Test
+	public void failedEventShouldBeRescheduled() throws Exception
+	{
+		MockListener failingListener = new MockListener("failing", new CountDownLatch(0));
+		failingListener.result = false;
+		when(eventProcessor.getListenerById("failing")).thenReturn(failingListener);
+		when(dbEvents.getEligibleForProcessing(any(), anySet(), anyInt()))
+				.thenReturn(List.of(event(1, "failing")))
+				.thenReturn(List.of());
+
+		processingThread.start();
+		processingThread.wakeUp();
+
+		verify(dbEvents, timeout(5000)).updateExecution(eq(1L), any(), eq(1));
+		assertThat(processingThread.getStatistics().failed).isEqualTo(1);
+	}
+
+	@Test
+	public void eventsShouldNotBeHandledAfterClaimExpired() throws Exception
+	{
+		processingThread.shutdown();
+		long claimDuration = 300;
+		processingThread = new EventsProcessingThread(eventProcessor, dbEvents, tx, 2, 10, claimDuration);
+		CountDownLatch slowListenerRelease = new CountDownLatch(1);
+		MockListener slowListener = new MockListener("slow", slowListenerRelease);
+		when(eventProcessor.getListenerById("slow")).thenReturn(slowListener);
+		when(dbEvents.getEligibleForProcessing(any(), anySet(), anyInt()))
+				.thenReturn(List.of(event(1, "slow"), event(2, "slow")))
+				.thenReturn(List.of());
+
+		processingThread.start();
+		processingThread.wakeUp();
+		assertThat(slowListener.started.await(5, TimeUnit.SECONDS)).isTrue();
+		Thread.sleep(claimDuration * 2);
+		slowListenerRelease.countDown();
+
+		verify(dbEvents, timeout(5000)).deleteByKey(1);
+		verify(dbEvents).extendClaim(eq(List.of(1L, 2L)), any(), any());
+		verify(dbEvents, after(500).never()).extendClaim(eq(List.of(2L)), any(), any());
+		verify(dbEvents, never()).deleteByKey(2);
+		assertThat(processingThread.getStatistics().inProgress).isEqualTo(0);
+	}
+
+	@Test
+	public void claimOfRemainingEventsShouldBeExtendedWhenEventIsStarted() throws Exception
+	{
+		MockListener listener = new MockListener("listener", new CountDownLatch(0));
+		when(eventProcessor.getListenerById("listener")).thenReturn(listener);
+		when(dbEvents.getEligibleForProcessing(any(), anySet(), anyInt()))
+				.thenReturn(List.of(event(1, "listener"), event(2, "listener")))
+				.thenReturn(List.of());
+
+		processingThread.start();
+		processingThread.wakeUp();
+
+		verify(dbEvents, timeout(5000)).deleteByKey(2);
+		verify(dbEvents).extendClaim(eq(List.of(1L, 2L)), any(), any());
+		verify(dbEvents).extendClaim(eq(List.of(2L)), any(), any());
+	}
+
+	@Test
+	public void statisticsShouldIncludePendingEventsOfDB()
+	{
+		when(dbEvents.getCount()).thenReturn(5L);
+
+		EventsProcessingStatistics statistics = processingThread.getStatistics();
+
+		assertThat(statistics.pending).isEqualTo(5);
+		assertThat(statistics.inProgress).isEqualTo(0);
+	}
+
+	private EventExecution event(long id, String listenerId)
+	{
+		EventExecution ret = new EventExecution(new PersistableEvent("trigger", 1l, new Date(), "contents"),
+				new Date(0), listenerId, 0);
+		ret.setId(id);
+		return ret;
+	}
+
+	private static class MockListener implements EventListener
+	{
+		private final String id;
+		private final CountDownLatch release;
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch handled = new CountDownLatch(1);
+		private boolean result = true;
+
+		MockListener(String id, CountDownLatch release)
+		{
+			this.id = id;
+			this.release = release;
+		}
+
+		@Override
+		public boolean isLightweight()
+		{
+			return false;
+		}
+
+		@Override
+		public boolean isWanted(Event event)
+		{
+			return true;
+		}
+
+		@Override
+		public boolean handleEvent(Event event)
+		{
+			started.countDown();
+			try
+			{
+				release.await();
+			} catch (InterruptedException e)
+			{
+				return false;
+			}
+			handled.countDown();
+			return result;
+		}
+
+		@Override
+		public String getId()
+		{
+			return id;
+		}
+
+		@Override
+		public int getMaxFailures()
+		{
+			return 5;
+		}
+
+		@Override
+		public boolean isAsync(Event event)
+		{
+			return true;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import pl.edu.icm.unity.base.exceptions.EngineException;
+import pl.edu.icm.unity.engine.api.PKIManagement;
+import pl.edu.icm.unity.engine.api.files.RemoteFileVersion;
+import pl.edu.icm.unity.engine.files.RemoteFileNetworkClient.ContentsWithType;
+
+public class RemoteFileNetworkClientTest
+{
+	private static final String ETAG = "\"v1\"";
+	private HttpServer server;
+	private URL url;
+	private RemoteFileNetworkClient client = new RemoteFileNetworkClient(mock(PKIManagement.class));
+
+	@BeforeEach
+	public void startServer() throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/file", exchange -> {
+			if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+			{
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+				return;
+			}
+			byte[] body = "contents".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("ETag", ETAG);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream os = exchange.getResponseBody())
+			{
+				os.write(body);
+			}
+		});
+		server.start();
+		url = new URL("http://localhost:" + server.getAddress().getPort() + "/file");
+	}
+
+	@AfterEach
+	public void stopServer()
+	{
+		server.stop(0);
+	}
+
+	@Test
+	public void shouldReturnVersionOfDownloadedFile() throws EngineException, IOException
+	{
+		ContentsWithType contents = client.downloadIfModified(url, null, RemoteFileVersion.UNKNOWN);
+
+		assertThat(contents.contents).isEqualTo("contents".getBytes(StandardCharsets.UTF_8));
+		assertThat(contents.version.etag).isEqualTo(ETAG);
+	}
+
+	@Test
+	public void shouldNotDownloadNotModifiedFile() throws EngineException, IOException
+	{
+		RemoteFileVersion version = client.downloadIfModified(url, null, RemoteFileVersion.UNKNOWN).version;
+
+		ContentsWithType contents = client.downloadIfModified(url, null, version);
+
+		assertThat(contents.contents).isNull();
+		assertThat(contents.version).isEqualTo(version);
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.identity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.base.identity.Identity;
+import pl.edu.icm.unity.base.identity.IdentityType;
+import pl.edu.icm.unity.engine.api.identity.IdentityTypeDefinition;
+import pl.edu.icm.unity.store.api.IdentityDAO;
+import pl.edu.icm.unity.store.api.IdentityTypeDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner.TxRunnableRet;
+import pl.edu.icm.unity.store.types.StoredIdentity;
+
+public class IdentityCleanerTest
+{
+	private IdentityDAO identityDAO;
+	private IdentityTypeDefinition expiringType;
+	private IdentityCleaner cleaner;
+
+	@BeforeEach
+	public void init()
+	{
+		identityDAO = mock(IdentityDAO.class);
+		IdentityTypeDAO idTypeDAO = mock(IdentityTypeDAO.class);
+		IdentityTypeHelper idTypeHelper = mock(IdentityTypeHelper.class);
+		TransactionalRunner tx = mock(TransactionalRunner.class);
+		when(tx.runInTransactionRet(any())).thenAnswer(inv -> ((TxRunnableRet<?>) inv.getArgument(0)).run());
+
+		IdentityType transientType = new IdentityType("transient");
+		IdentityType staticType = new IdentityType("static");
+		when(idTypeDAO.getAll()).thenReturn(List.of(transientType, staticType));
+		expiringType = mock(IdentityTypeDefinition.class);
+		when(expiringType.canExpire()).thenReturn(true);
+		when(idTypeHelper.getTypeDefinition(transientType)).thenReturn(expiringType);
+		when(idTypeHelper.getTypeDefinition(staticType)).thenReturn(mock(IdentityTypeDefinition.class));
+		cleaner = new IdentityCleaner(identityDAO, idTypeHelper, idTypeDAO, tx);
+	}
+
+	@Test
+	public void shouldRemoveExpiredIdentitiesOfExpiringTypesOnly()
+	{
+		StoredIdentity expired = getIdentity("expired");
+		when(identityDAO.getExpiredOfType(eq("transient"), any(), eq(IdentityCleaner.BATCH_SIZE)))
+				.thenReturn(List.of(expired));
+
+		int removed = cleaner.removeExpiredIdentities();
+
+		assertThat(removed).isEqualTo(1);
+		verify(identityDAO).delete(expired.getName());
+		verify(identityDAO, never()).getExpiredOfType(eq("static"), any(), anyInt());
+	}
+
+	@Test
+	public void shouldRemoveNextBatchAfterFullBatch()
+	{
+		List<StoredIdentity> fullBatch = new ArrayList<>();
+		for (int i = 0; i < IdentityCleaner.BATCH_SIZE; i++)
+			fullBatch.add(getIdentity("id" + i));
+		StoredIdentity expired = getIdentity("expired");
+		when(identityDAO.getExpiredOfType(eq("transient"), any(), eq(IdentityCleaner.BATCH_SIZE)))
+				.thenReturn(fullBatch, List.of(expired));
+
+		int removed = cleaner.removeExpiredIdentities();
+
+		assertThat(removed).isEqualTo(IdentityCleaner.BATCH_SIZE + 1);
+		verify(identityDAO).delete(expired.getName());
+		verify(identityDAO, times(2)).getExpiredOfType(eq("transient"), any(), anyInt());
+	}
+
+	@Test
+	public void shouldNotCheckExpirationOfIdentitiesInMemory()
+	{
+		when(identityDAO.getExpiredOfType(eq("transient"), any(), eq(IdentityCleaner.BATCH_SIZE)))
+				.thenReturn(List.of());
+
+		int removed = cleaner.removeExpiredIdentities();
+
+		assertThat(removed).isZero();
+		verify(expiringType, never()).isExpired(any());
+		verify(identityDAO, never()).getAll();
+	}
+
+	private StoredIdentity getIdentity(String value)
+	{
+		return new StoredIdentity(new Identity("transient", value, 1, value));
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.store.api.TokenDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner.TxRunnable;
+
+public class SessionActivityWriteBufferTest
+{
+	private TokenDAO tokenDAO;
+	private TransactionalRunner tx;
+	private SessionActivityWriteBuffer buffer;
+
+	@BeforeEach
+	public void init()
+	{
+		tokenDAO = mock(TokenDAO.class);
+		tx = mock(TransactionalRunner.class);
+		doAnswer(invocation ->
+		{
+			invocation.getArgument(0, TxRunnable.class).run();
+			return null;
+		}).when(tx).runInTransaction(any());
+		buffer = new SessionActivityWriteBuffer("session", tokenDAO, tx);
+	}
+
+	@Test
+	public void shouldFlushLatestActivityInSingleUpdate()
+	{
+		buffer.record("s1", 1000, 100);
+		buffer.recordIfPending("s1", 2000);
+		buffer.record("s2", 1000, 100);
+
+		buffer.flush();
+
+		verify(tokenDAO).updateActivityDeadlines("session", Map.of(
+				"s1", new Date(2100),
+				"s2", new Date(1100)));
+		assertThat(buffer.getQueueDepth()).isZero();
+		assertThat(buffer.getFlushedUpdates()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldNotRecordActivityOfSessionWithoutPendingActivity()
+	{
+		boolean recorded = buffer.recordIfPending("s1", 2000);
+
+		assertThat(recorded).isFalse();
+		assertThat(buffer.getQueueDepth()).isZero();
+	}
+
+	@Test
+	public void shouldNotRecordActivityOfSessionAfterFlush()
+	{
+		buffer.record("s1", 1000, 100);
+		buffer.flush();
+
+		boolean recorded = buffer.recordIfPending("s1", 2000);
+
+		assertThat(recorded).isFalse();
+	}
+
+	@Test
+	public void shouldNotFlushDiscardedActivity()
+	{
+		buffer.record("s1", 1000, 100);
+		buffer.discard("s1");
+
+		buffer.flush();
+
+		verify(tokenDAO, never()).updateActivityDeadlines(anyString(), anyMap());
+	}
+
+	@Test
+	public void shouldKeepActivityWhenFlushFailed()
+	{
+		doThrow(new IllegalStateException()).when(tokenDAO).updateActivityDeadlines(anyString(), anyMap());
+		buffer.record("s1", 1000, 100);
+
+		buffer.flush();
+
+		assertThat(buffer.getQueueDepth()).isEqualTo(1);
+		assertThat(buffer.getFailedFlushes()).isEqualTo(1);
+	}
+}
@@ -15,11 +15,13 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.Collection;
+import java.util.Date;
 import java.util.Map;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
 
 import pl.edu.icm.unity.base.attribute.AttributeExt;
 import pl.edu.icm.unity.base.authn.AuthenticationMethod;
@@ -30,10 +32,12 @@ import pl.edu.icm.unity.base.entity.EntityState;
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.identity.Identity;
 import pl.edu.icm.unity.base.identity.IdentityParam;
+import pl.edu.icm.unity.base.token.Token;
 import pl.edu.icm.unity.engine.DBIntegrationTestBase;
 import pl.edu.icm.unity.engine.api.authn.LoginSession;
 import pl.edu.icm.unity.engine.api.session.SessionManagement;
 import pl.edu.icm.unity.engine.api.session.SessionManagement.AttributeUpdater;
+import pl.edu.icm.unity.engine.api.token.TokensManagement;
 import pl.edu.icm.unity.engine.server.EngineInitialization;
 import pl.edu.icm.unity.engine.session.SessionManagementImpl.SessionExpiredException;
 import pl.edu.icm.unity.stdext.identity.UsernameIdentity;
@@ -43,6 +47,8 @@ public class TestSessions extends DBIntegrationTestBase
 {
 	@Autowired
 	protected SessionManagement sessionMan;
+	@Autowired
+	private TokensManagement tokensMan;
 
 
 
@@ -200,6 +206,42 @@ public class TestSessions extends DBIntegrationTestBase
 		
 		assertThat(error).isInstanceOfAny(SessionExpiredException.class, IllegalArgumentException.class);
 	}
+
+	@Test
+	public void sessionIsInactiveOnlyAfterMaxInactivity() throws Exception
+	{
+		IdentityParam toAdd = new IdentityParam(UsernameIdentity.ID, "u1");
+		Identity id = idsMan.addEntity(toAdd, EngineInitialization.DEFAULT_CREDENTIAL_REQUIREMENT, 
+				EntityState.valid);
+		AuthenticationRealm realm = new AuthenticationRealm("test", "", 3, 33, RememberMePolicy.disallow , 1, 100);
+		LoginSession s = sessionMan.getCreateSession(id.getEntityId(), realm, "u1", null, null, authenticatorOnlyKey("auth1"), null, null, null, null);
+		long lastUsed = s.getLastUsed().getTime();
+		
+		assertThat(tokensMan.getInactiveTokens(SessionManagementImpl.SESSION_TOKEN_TYPE, new Date(lastUsed + 99000)))
+			.isEmpty();
+		assertThat(tokensMan.getInactiveTokens(SessionManagementImpl.SESSION_TOKEN_TYPE, new Date(lastUsed + 101000)))
+			.extracting(Token::getValue)
+			.containsExactly(s.getId());
+	}
+	
+	@Test
+	public void sessionActivityIsWrittenToDBOnFlush() throws Exception
+	{
+		IdentityParam toAdd = new IdentityParam(UsernameIdentity.ID, "u1");
+		Identity id = idsMan.addEntity(toAdd, EngineInitialization.DEFAULT_CREDENTIAL_REQUIREMENT, 
+				EntityState.valid);
+		AuthenticationRealm realm = new AuthenticationRealm("test", "", 3, 33, RememberMePolicy.disallow , 1, 100);
+		LoginSession s = sessionMan.getCreateSession(id.getEntityId(), realm, "u1", null, null, authenticatorOnlyKey("auth1"), null, null, null, null);
+		Thread.sleep(10);
+		SessionManagementImpl sessionManImpl = AopTestUtils.getUltimateTargetObject(sessionMan);
+		
+		sessionMan.updateSessionActivity(s.getId());
+		assertThat(sessionManImpl.getPendingActivityUpdates()).isGreaterThanOrEqualTo(1);
+		sessionManImpl.flushActivityUpdates();
+		
+		LoginSession ret = sessionMan.getSession(s.getId());
+		assertThat(ret.getLastUsed()).isAfter(s.getLastUsed());
+	}
 	
 	private void checkLastAuthnAttributeWasRecentlySet(long entityId) throws EngineException
 	{
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.engine.utils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.store.api.ObjectChangesDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner.TxRunnableRet;
+import pl.edu.icm.unity.store.types.ObjectChange;
+
+public class ObjectChangesWatcherTest
+{
+	private ObjectChangesDAO changesDAO;
+	private ScheduledUpdaterBase endpointsUpdater;
+	private ScheduledUpdaterBase rulesUpdater;
+	private ObjectChangesWatcher watcher;
+
+	@BeforeEach
+	public void init()
+	{
+		changesDAO = mock(ObjectChangesDAO.class);
+		TransactionalRunner tx = mock(TransactionalRunner.class);
+		when(tx.runInTransactionRet(any())).thenAnswer(inv -> ((TxRunnableRet<?>) inv.getArgument(0)).run());
+		endpointsUpdater = mock(ScheduledUpdaterBase.class);
+		rulesUpdater = mock(ScheduledUpdaterBase.class);
+		watcher = new ObjectChangesWatcher(changesDAO, tx);
+		watcher.addUpdater(endpointsUpdater, "endpoint", "realm");
+		watcher.addUpdater(rulesUpdater, "rule");
+		when(changesDAO.getLastChangeId()).thenReturn(10L);
+		watcher.skipRecordedChanges();
+	}
+
+	@Test
+	public void shouldTriggerOnlyUpdatersOfChangedTypes()
+	{
+		when(changesDAO.getChangesAfter(10)).thenReturn(List.of(getChange(11, "realm"), getChange(12, "other")));
+
+		watcher.checkChanges();
+
+		verify(endpointsUpdater).run();
+		verify(rulesUpdater, never()).run();
+	}
+
+	@Test
+	public void shouldContinueAfterLastSeenChange()
+	{
+		when(changesDAO.getChangesAfter(10)).thenReturn(List.of(getChange(11, "rule")));
+		watcher.checkChanges();
+		when(changesDAO.getChangesAfter(11)).thenReturn(List.of());
+		when(changesDAO.getLastChangeId()).thenReturn(11L);
+
+		watcher.checkChanges();
+
+		verify(rulesUpdater).run();
+		verify(changesDAO).getChangesAfter(11);
+	}
+
+	@Test
+	public void shouldTriggerAllUpdatersWhenAllTypesChanged()
+	{
+		when(changesDAO.getChangesAfter(10)).thenReturn(List.of(getChange(11, ObjectChange.ALL_TYPES)));
+
+		watcher.checkChanges();
+
+		verify(endpointsUpdater).run();
+		verify(rulesUpdater).run();
+	}
+
+	@Test
+	public void shouldRestartTrackingWhenLogWasReset()
+	{
+		when(changesDAO.getChangesAfter(anyLong())).thenReturn(List.of());
+		when(changesDAO.getLastChangeId()).thenReturn(2L);
+		when(changesDAO.getChangesAfter(0)).thenReturn(List.of(getChange(1, "endpoint")));
+
+		watcher.checkChanges();
+
+		verify(endpointsUpdater).run();
+	}
+
+	private ObjectChange getChange(long id, String type)
+	{
+		return new ObjectChange(id, type, "name", new Date());
+	}
+}
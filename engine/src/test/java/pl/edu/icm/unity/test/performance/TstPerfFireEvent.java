@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.test.performance;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.base.event.Event;
+import pl.edu.icm.unity.base.event.PersistableEvent;
+import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
+import pl.edu.icm.unity.engine.api.event.EventListener;
+import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
+import pl.edu.icm.unity.engine.audit.AuditEventTrigger;
+import pl.edu.icm.unity.engine.events.EventProcessor;
+import pl.edu.icm.unity.store.api.EventDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+
+/**
+ * Measures cost of firing an event which no listener wants, as the number of registered listeners grows.
+ * Half of the listeners declare other event types, the other half rejects the event in isWanted.
+ */
+public class TstPerfFireEvent
+{
+	private static final int EVENTS = 10000000;
+	private static final int TEST_REPETITIONS = 10;
+
+	@Disabled
+	@Test
+	public void testFireEvent() throws Exception
+	{
+		String outputFile = "target/test-" + getClass().getSimpleName() + ".csv";
+		for (int listeners: new int[] {0, 10, 100, 1000})
+		{
+			TimeHelper timer = new TimeHelper(outputFile);
+			EventProcessor processor = createProcessor(listeners);
+			PersistableEvent event = new PersistableEvent("trigger");
+			//warm-up
+			fire(processor, event, EVENTS / 10);
+
+			for (int i = 0; i < TEST_REPETITIONS; i++)
+			{
+				timer.startTimer();
+				fire(processor, event, EVENTS);
+				timer.stopTimer(EVENTS, "Fire event, listeners: " + listeners);
+			}
+			timer.calculateResults("Fire event, listeners: " + listeners);
+		}
+	}
+
+	private void fire(EventProcessor processor, Event event, int count)
+	{
+		for (int i = 0; i < count; i++)
+			processor.fireEvent(event);
+	}
+
+	private EventProcessor createProcessor(int listeners)
+	{
+		UnityServerConfiguration config = mock(UnityServerConfiguration.class);
+		when(config.getIntValue(UnityServerConfiguration.EVENTS_PROCESSING_THREADS)).thenReturn(1);
+		when(config.getIntValue(UnityServerConfiguration.EVENTS_PROCESSING_BATCH_SIZE)).thenReturn(1);
+		ExecutorsService executors = mock(ExecutorsService.class);
+		when(executors.getScheduledService()).thenReturn(Executors.newSingleThreadScheduledExecutor());
+		EventProcessor processor = new EventProcessor(executors, mock(EventDAO.class),
+				mock(TransactionalRunner.class), config);
+		for (int i = 0; i < listeners; i++)
+			processor.addEventListener(new NotInterestedListener("listener" + i,
+					i % 2 == 0 ? EventListener.ALL_EVENTS : Set.of(AuditEventTrigger.class)));
+		return processor;
+	}
+
+	private static class NotInterestedListener implements EventListener
+	{
+		private final String id;
+		private final Set<Class<? extends Event>> wantedTypes;
+
+		NotInterestedListener(String id, Set<Class<? extends Event>> wantedTypes)
+		{
+			this.id = id;
+			this.wantedTypes = wantedTypes;
+		}
+
+		@Override
+		public boolean isLightweight()
+		{
+			return true;
+		}
+
+		@Override
+		public boolean isWanted(Event event)
+		{
+			return false;
+		}
+
+		@Override
+		public Set<Class<? extends Event>> getWantedEventTypes()
+		{
+			return wantedTypes;
+		}
+
+		@Override
+		public boolean isAsync(Event event)
+		{
+			return false;
+		}
+
+		@Override
+		public boolean handleEvent(Event event)
+		{
+			return true;
+		}
+
+		@Override
+		public String getId()
+		{
+			return id;
+		}
+
+		@Override
+		public int getMaxFailures()
+		{
+			return DEFAULT_MAX_FAILURES;
+		}
+	}
+}
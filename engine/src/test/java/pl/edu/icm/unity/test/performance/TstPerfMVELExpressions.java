@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.test.performance;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.mvel2.MVEL;
+
+import pl.edu.icm.unity.base.mvel.MVELCompiledExpressionsCache;
+
+/**
+ * Compares evaluation of a typical authentication flow condition, when the condition is compiled on each
+ * evaluation and when the compiled form is taken from {@link MVELCompiledExpressionsCache}.
+ */
+public class TstPerfMVELExpressions
+{
+	private static final String CONDITION = "attr contains 'mfa' && groups contains '/staff' "
+			+ "&& idsByType['email'] != null";
+	private static final int EVALUATIONS = 200000;
+	private static final int TEST_REPETITIONS = 10;
+
+	@Disabled
+	@Test
+	public void testConditionEvaluation() throws Exception
+	{
+		String outputFile = "target/test-" + getClass().getSimpleName() + ".csv";
+		TimeHelper timer = new TimeHelper(outputFile);
+		Map<String, Object> input = Map.of(
+				"attr", Map.of("mfa", List.of("true")),
+				"groups", List.of("/", "/staff"),
+				"idsByType", Map.of("email", List.of("user@example.com")));
+		//warm-up
+		evaluateCompilingEachTime(input, EVALUATIONS / 10);
+		evaluateCached(input, EVALUATIONS / 10);
+
+		for (int i = 0; i < TEST_REPETITIONS; i++)
+		{
+			timer.startTimer();
+			evaluateCompilingEachTime(input, EVALUATIONS);
+			timer.stopTimer(EVALUATIONS, "Compile per evaluation");
+		}
+		timer.calculateResults("Compile per evaluation");
+
+		for (int i = 0; i < TEST_REPETITIONS; i++)
+		{
+			timer.startTimer();
+			evaluateCached(input, EVALUATIONS);
+			timer.stopTimer(EVALUATIONS, "Cached compiled expression");
+		}
+		timer.calculateResults("Cached compiled expression");
+	}
+
+	private void evaluateCompilingEachTime(Object input, int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			Serializable compiled = MVEL.compileExpression(CONDITION);
+			MVEL.executeExpression(compiled, input, new HashMap<>());
+		}
+	}
+
+	private void evaluateCached(Object input, int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			Serializable compiled = MVELCompiledExpressionsCache.getCompiledExpression(CONDITION);
+			MVEL.executeExpression(compiled, input, new HashMap<>());
+		}
+	}
+}
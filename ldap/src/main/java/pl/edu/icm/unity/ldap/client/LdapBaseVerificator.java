@@ -39,11 +39,12 @@ public abstract class LdapBaseVerificator extends AbstractRemoteVerificator
 	protected LdapBaseVerificator(String name, String description, 
 			RemoteAuthnResultTranslator processor,
 			PKIManagement pkiManagement, String exchangeId,
-			RemoteAuthnResponseProcessor remoteAuthnProcessor)
+			RemoteAuthnResponseProcessor remoteAuthnProcessor,
+			LdapConnectionPools connectionPools)
 	{
 		super(name, description, exchangeId, processor);
 		this.remoteAuthnProcessor = remoteAuthnProcessor;
-		this.client = new LdapClient(name);
+		this.client = new LdapClient(name, connectionPools);
 		this.pkiManagement = pkiManagement;
 	}
 
@@ -41,9 +41,11 @@ public class LdapCertVerificator extends LdapBaseVerificator implements Certific
 	
 	@Autowired
 	public LdapCertVerificator(RemoteAuthnResultTranslator processor,
-			PKIManagement pkiManagement, RemoteAuthnResponseProcessor remoteAuthnProcessor)
+			PKIManagement pkiManagement, RemoteAuthnResponseProcessor remoteAuthnProcessor,
+			LdapConnectionPools connectionPools)
 	{
-		super(NAME, DESCRIPTION, processor, pkiManagement, CertificateExchange.ID, remoteAuthnProcessor);
+		super(NAME, DESCRIPTION, processor, pkiManagement, CertificateExchange.ID, remoteAuthnProcessor,
+				connectionPools);
 	}
 	
 	
@@ -18,39 +18,32 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
-import javax.net.ssl.SSLContext;
-
 import org.apache.logging.log4j.Logger;
 
 import com.unboundid.ldap.sdk.Attribute;
 import com.unboundid.ldap.sdk.DereferencePolicy;
-import com.unboundid.ldap.sdk.ExtendedResult;
-import com.unboundid.ldap.sdk.FailoverServerSet;
 import com.unboundid.ldap.sdk.Filter;
 import com.unboundid.ldap.sdk.LDAPConnection;
-import com.unboundid.ldap.sdk.LDAPConnectionOptions;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
 import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPInterface;
 import com.unboundid.ldap.sdk.ReadOnlySearchRequest;
 import com.unboundid.ldap.sdk.ResultCode;
 import com.unboundid.ldap.sdk.SearchRequest;
 import com.unboundid.ldap.sdk.SearchResult;
 import com.unboundid.ldap.sdk.SearchResultEntry;
 import com.unboundid.ldap.sdk.SearchScope;
-import com.unboundid.ldap.sdk.extensions.StartTLSExtendedRequest;
 
-import eu.emi.security.authn.x509.X509CertChainValidator;
-import eu.unicore.security.canl.SSLContextCreator;
-import eu.unicore.util.httpclient.ServerHostnameCheckingMode;
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.authn.remote.RemoteAttribute;
 import pl.edu.icm.unity.engine.api.authn.remote.RemoteGroupMembership;
 import pl.edu.icm.unity.engine.api.authn.remote.RemoteIdentity;
 import pl.edu.icm.unity.engine.api.authn.remote.RemotelyAuthenticatedInput;
+import pl.edu.icm.unity.ldap.client.LdapResolvedUsersCache.ResolvedUser;
 import pl.edu.icm.unity.ldap.client.config.GroupSpecification;
 import pl.edu.icm.unity.ldap.client.config.LdapClientConfiguration;
 import pl.edu.icm.unity.ldap.client.config.SearchSpecification;
 import pl.edu.icm.unity.ldap.client.config.LdapProperties.BindAs;
-import pl.edu.icm.unity.ldap.client.config.common.LDAPConnectionProperties.ConnectionMode;
 import pl.edu.icm.unity.stdext.identity.X500Identity;
 
 /**
@@ -68,6 +61,14 @@ import pl.edu.icm.unity.stdext.identity.X500Identity;
  * bind as the user. If this succeeds, the code again binds as system user, and proceeds to retrieve user
  * attributes as above. 
  * <p>
+ * When binding as system user and {@link LdapConnectionPools} are provided, connections authenticated as 
+ * the system user are taken from a pool. The user password is checked by binding as the user on a pooled 
+ * connection, which is then authenticated again as the system user. 
+ * <p>
+ * If enabled in configuration, user's DN, attributes and groups are cached for a limited time, so that 
+ * repeated authentications of the same user require only the bind with user's password. When resolving 
+ * a user without the bind, the cached DN is confirmed by reading the user's entry. 
+ * <p>
  * The attributes searching is pretty straightforward. The most of the code in this class is responsible for
  * flexible group retrieval. Both 'memberOf' style and 'member' means of expressing group membership are supported,
  * with some additional options. Most notably it is possible to use a full DN of the group or its attribute 
@@ -81,16 +82,25 @@ public class LdapClient
 
 	private String idpName;
 	private final LdapGroupHelper groupHelper;
+	private final LdapConnectionPools connectionPools;
+	private final LdapResolvedUsersCache resolvedUsersCache;
 	
-	public LdapClient(String idpName)
+	public LdapClient(String idpName, LdapConnectionPools connectionPools)
 	{
 		this.idpName = idpName;
 		this.groupHelper = new LdapGroupHelper();
+		this.connectionPools = connectionPools;
+		this.resolvedUsersCache = new LdapResolvedUsersCache();
+	}
+	
+	public LdapClient(String idpName)
+	{
+		this(idpName, null);
 	}
 	
 	public LdapClient()
 	{
-		this.groupHelper = new LdapGroupHelper();
+		this(null, null);
 	}
 
 	/**
@@ -100,35 +110,42 @@ public class LdapClient
 			LdapClientConfiguration configuration) throws LDAPException, LdapAuthenticationException, 
 			KeyManagementException, NoSuchAlgorithmException
 	{
-		LDAPConnection connection = createConnection(configuration);
-		
-		String user = LdapUtils.extractUsername(userOrig, configuration.getUserExtractPattern());
-		
-		String dn = establishUserDN(user, configuration, connection);
-		log.info("Established user's DN is: " + dn);
-		
-		bindAsUser(connection, dn, password, configuration);
-		if (configuration.isBindOnly())
+		try (LdapSession session = openSession(configuration))
 		{
-			RemotelyAuthenticatedInput ret = new RemotelyAuthenticatedInput(idpName);
-			ret.addIdentity(new RemoteIdentity(dn, X500Identity.ID));
+			String user = LdapUtils.extractUsername(userOrig, configuration.getUserExtractPattern());
+			
+			Optional<ResolvedUser> cached = resolvedUsersCache.get(configuration, user);
+			String dn = getUserDN(user, configuration, session, cached);
+			log.info("Established user's DN is: " + dn);
+			
+			bindAsUser(session, dn, password);
+			if (configuration.isBindOnly())
+			{
+				RemotelyAuthenticatedInput ret = new RemotelyAuthenticatedInput(idpName);
+				ret.addIdentity(new RemoteIdentity(dn, X500Identity.ID));
+				return ret;
+			}
+			
+			Optional<RemotelyAuthenticatedInput> cachedInput = cached.flatMap(ResolvedUser::getInput);
+			if (cachedInput.isPresent())
+				return withAuthenticationTime(cachedInput.get(), dn);
+			
+			if (configuration.getBindAs() == BindAs.system)
+				bindAsSystem(session, configuration);
+			
+			LDAPInterface connection = session.getConnection();
+			SearchResultEntry entry = findBaseEntry(configuration, dn, connection);
+			
+			RemotelyAuthenticatedInput ret = assembleBaseResult(entry);
+			findGroupsMembership(connection, entry, configuration, ret.getGroups());
+			
+			performAdditionalQueries(connection, configuration, user, ret);
+			ret.setRawAttributes(ret.getAttributes());
+			resolvedUsersCache.putResolved(configuration, user, dn, ret);
+			
+			ret.setAuthenticationTime(Instant.now());
 			return ret;
 		}
-		
-		if (configuration.getBindAs() == BindAs.system)
-			bindAsSystem(connection, configuration);
-		
-		SearchResultEntry entry = findBaseEntry(configuration, dn, connection);
-		
-		RemotelyAuthenticatedInput ret = assembleBaseResult(entry);
-		findGroupsMembership(connection, entry, configuration, ret.getGroups());
-		
-		performAdditionalQueries(connection, configuration, user, ret);
-		ret.setRawAttributes(ret.getAttributes());
-		
-		connection.close();
-		ret.setAuthenticationTime(Instant.now());
-		return ret;
 	}
 
 	/**
@@ -156,32 +173,41 @@ public class LdapClient
 		
 		String user = LdapUtils.extractUsername(userOrig, configuration.getUserExtractPattern());
 		
-		LDAPConnection connection = createConnection(configuration);
-		
-		String dn = establishUserDN(user, configuration, connection);
-		log.info("Established user's DN is: " + dn);
-		
-		if (configuration.isBindOnly())
+		try (LdapSession session = openSession(configuration))
 		{
-			RemotelyAuthenticatedInput ret = new RemotelyAuthenticatedInput(idpName);
-			ret.addIdentity(new RemoteIdentity(dn, X500Identity.ID));
+			Optional<ResolvedUser> cached = resolvedUsersCache.get(configuration, user);
+			String dn = getUserDN(user, configuration, session, cached);
+			log.info("Established user's DN is: " + dn);
+			if (cached.isPresent())
+				confirmCachedUserEntry(session, configuration, user, dn);
+			
+			if (configuration.isBindOnly())
+			{
+				RemotelyAuthenticatedInput ret = new RemotelyAuthenticatedInput(idpName);
+				ret.addIdentity(new RemoteIdentity(dn, X500Identity.ID));
+				return ret;
+			}
+			
+			Optional<RemotelyAuthenticatedInput> cachedInput = cached.flatMap(ResolvedUser::getInput);
+			if (cachedInput.isPresent())
+				return withAuthenticationTime(cachedInput.get(), dn);
+			
+			if (configuration.getBindAs() == BindAs.system)
+				bindAsSystem(session, configuration);
+			
+			LDAPInterface connection = session.getConnection();
+			SearchResultEntry entry = findBaseEntry(configuration, dn, connection);
+			
+			RemotelyAuthenticatedInput ret = assembleBaseResult(entry);
+			findGroupsMembership(connection, entry, configuration, ret.getGroups());
+			
+			performAdditionalQueries(connection, configuration, user, ret);
+			ret.setRawAttributes(ret.getAttributes());
+			resolvedUsersCache.putResolved(configuration, user, dn, ret);
+			
+			ret.setAuthenticationTime(Instant.now());
 			return ret;
 		}
-		
-		if (configuration.getBindAs() == BindAs.system)
-			bindAsSystem(connection, configuration);
-		
-		SearchResultEntry entry = findBaseEntry(configuration, dn, connection);
-		
-		RemotelyAuthenticatedInput ret = assembleBaseResult(entry);
-		findGroupsMembership(connection, entry, configuration, ret.getGroups());
-		
-		performAdditionalQueries(connection, configuration, user, ret);
-		ret.setRawAttributes(ret.getAttributes());
-		
-		connection.close();
-		ret.setAuthenticationTime(Instant.now());
-		return ret;
 	}
 	
 	public Optional<String> searchAttribute(String userOrig, String attributeName, LdapClientConfiguration configuration) 
@@ -196,13 +222,14 @@ public class LdapClient
 		
 		String user = LdapUtils.extractUsername(userOrig, configuration.getUserExtractPattern());
 		
-		LDAPConnection connection = createConnection(configuration);
-		
-		String dn = establishUserDN(user, configuration, connection);
-		log.info("Established user's DN is: " + dn);
-		bindAsSystem(connection, configuration);
-		SearchResultEntry entry = findBaseEntry(configuration, dn, connection);
-		connection.close();
+		SearchResultEntry entry;
+		try (LdapSession session = openSession(configuration))
+		{
+			String dn = establishUserDN(user, configuration, session);
+			log.info("Established user's DN is: " + dn);
+			bindAsSystem(session, configuration);
+			entry = findBaseEntry(configuration, dn, session.getConnection());
+		}
 		Attribute attribute = entry.getAttribute(attributeName);
 		if (attribute != null)
 		{
@@ -217,27 +244,28 @@ public class LdapClient
 	 * configured template or can be discovered with a custom search run as admin user. 
 	 * @param username
 	 * @param configuration
-	 * @param connection
+	 * @param session
 	 * @return
 	 * @throws LDAPException
 	 * @throws LdapAuthenticationException
 	 */
 	private String establishUserDN(String username, LdapClientConfiguration configuration, 
-			LDAPConnection connection) throws LDAPException, LdapAuthenticationException
+			LdapSession session) throws LDAPException, LdapAuthenticationException
 	{
 		SearchSpecification searchForUser = configuration.getSearchForUserSpec(); 
 		if (searchForUser == null)
 			return configuration.getBindDN(username);
 
-		bindAsSystem(connection, configuration);
+		bindAsSystem(session, configuration);
 		int timeLimit = configuration.getSearchTimeLimit();
 		int sizeLimit = configuration.getResultEntriesLimit();
 		DereferencePolicy derefPolicy = configuration.getDereferencePolicy();
-		SearchResult result = performSearch(connection, searchForUser, username, 
+		SearchResult result = performSearch(session.getConnection(), searchForUser, username, 
 				timeLimit, sizeLimit, derefPolicy);
 		if (result.getEntryCount() == 0)
 		{
 			log.debug("Search for the user DN returned no results");
+			resolvedUsersCache.putUnknown(configuration, username);
 			throw new LdapAuthenticationException("User was not found");
 		} else if (result.getEntryCount() > 1)
 		{
@@ -245,75 +273,81 @@ public class LdapClient
 			throw new LdapAuthenticationException("Too many users found");
 		} else
 		{
-			return result.getSearchEntries().get(0).getDN();			
+			String dn = result.getSearchEntries().get(0).getDN();
+			resolvedUsersCache.putDN(configuration, username, dn);
+			return dn;
 		}
 	}
 	
+	private String getUserDN(String username, LdapClientConfiguration configuration, LdapSession session,
+			Optional<ResolvedUser> cached) throws LDAPException, LdapAuthenticationException
+	{
+		if (cached.isEmpty())
+			return establishUserDN(username, configuration, session);
+		Optional<String> cachedDN = cached.get().getDN();
+		if (cachedDN.isEmpty())
+		{
+			log.debug("User {} was not found in LDAP recently, using cached result", username);
+			throw new LdapAuthenticationException("User was not found");
+		}
+		return cachedDN.get();
+	}
+	
 	/**
-	 * Creates an ladp connection and secures it. Failover settings from configuration are taken into account.
-	 * @param configuration
-	 * @return
-	 * @throws KeyManagementException
-	 * @throws NoSuchAlgorithmException
-	 * @throws LDAPException
+	 * There is no bind as the user when searching, so a cached DN is confirmed by a read of the user's entry. 
+	 * Otherwise a user removed from LDAP would be still resolved until the cached entry expires.
 	 */
-	private LDAPConnection createConnection(LdapClientConfiguration configuration) 
-			throws KeyManagementException, NoSuchAlgorithmException, LDAPException
+	private void confirmCachedUserEntry(LdapSession session, LdapClientConfiguration configuration, 
+			String username, String dn) throws LdapAuthenticationException, LDAPException
 	{
-		LDAPConnectionOptions connectionOptions = new LDAPConnectionOptions();
-		connectionOptions.setConnectTimeoutMillis(configuration.getSocketTimeout());
-		connectionOptions.setFollowReferrals(configuration.isFollowReferral());
-		connectionOptions.setReferralHopLimit(configuration.getFollowReferrals());
-		connectionOptions.setResponseTimeoutMillis(configuration.getSocketReadTimeout());
-		
-		FailoverServerSet failoverSet;
-		if (configuration.getConnectionMode() == ConnectionMode.SSL)
-		{
-			X509CertChainValidator validator = configuration.getConnectionValidator();
-			ServerHostnameCheckingMode certificateCheckingMode = configuration.isTrustAllCerts() ? 
-					ServerHostnameCheckingMode.NONE : ServerHostnameCheckingMode.FAIL;
-			SSLContext ctx = SSLContextCreator.createSSLContext(null, validator, 
-					"TLS", "LDAP client", log, certificateCheckingMode);
-			log.debug("Will connect over TLS to: {}:{}", configuration.getServersAddresses(), configuration.getPorts());
-			failoverSet = new FailoverServerSet(configuration.getServersAddresses(), 
-					configuration.getPorts(), ctx.getSocketFactory(), connectionOptions);
-		} else
+		bindAsSystem(session, configuration);
+		SearchResultEntry entry;
+		try
+		{
+			entry = session.getConnection().searchForEntry(new SearchRequest(dn, SearchScope.BASE, 
+					configuration.getDereferencePolicy(), 1, configuration.getSearchTimeLimit(), false, 
+					configuration.getParsedValidUserFilter(), SearchRequest.NO_ATTRIBUTES));
+		} catch (LDAPException e)
 		{
-			log.debug("Will connect to: {}:{}", configuration.getServersAddresses(), configuration.getPorts());
-			failoverSet = new FailoverServerSet(configuration.getServersAddresses(), 
-				configuration.getPorts(), connectionOptions);
+			if (!ResultCode.NO_SUCH_OBJECT.equals(e.getResultCode()))
+				throw e;
+			entry = null;
 		}
-		
-		LDAPConnection connection = failoverSet.getConnection();
-		
-		log.debug("Established connection to LDAP server: {}:{} (secured: {})", connection.getConnectedAddress(), 
-				connection.getConnectedPort(), connection.getSSLSession() != null);
-		if (configuration.getConnectionMode() == ConnectionMode.startTLS)
-		{
-			X509CertChainValidator validator = configuration.getConnectionValidator();
-			SSLContext ctx = SSLContextCreator.createSSLContext(null, validator, 
-					"TLSv1.2", "LDAP client", log, ServerHostnameCheckingMode.FAIL);
-			ExtendedResult extendedResult = connection.processExtendedOperation(
-					new StartTLSExtendedRequest(ctx));
-
-			if (extendedResult.getResultCode() != ResultCode.SUCCESS)
-			{
-				connection.close();
-				throw new LDAPException(extendedResult.getResultCode(), "Unable to esablish " +
-						"a secure TLS connection to the LDAP server: " + 
-						extendedResult.toString());
-			}
-			log.debug("Connection upgraded to TLS");
+		if (entry == null)
+		{
+			log.debug("Cached LDAP user {} is not present anymore or is not matching the valid users filter", 
+					dn);
+			resolvedUsersCache.invalidate(configuration, username);
+			throw new LdapAuthenticationException("User was not found");
 		}
-		return connection;
+	}
+	
+	private RemotelyAuthenticatedInput withAuthenticationTime(RemotelyAuthenticatedInput cachedInput, String dn)
+	{
+		log.debug("Using cached attributes and groups of LDAP user {}", dn);
+		cachedInput.setAuthenticationTime(Instant.now());
+		return cachedInput;
+	}
+	
+	/**
+	 * Pooled connections are used only when binding as system user, otherwise connections
+	 * are authenticated as the user being resolved.
+	 */
+	private LdapSession openSession(LdapClientConfiguration configuration) 
+			throws KeyManagementException, NoSuchAlgorithmException, LDAPException, LdapAuthenticationException
+	{
+		if (connectionPools != null && configuration.getBindAs() == BindAs.system 
+				&& configuration.getConnectionPoolSize() > 0)
+			return new PooledSession(connectionPools.getPool(configuration));
+		return new DedicatedSession(LdapConnectionFactory.createConnection(configuration));
 	}
 
-	private void bindAsUser(LDAPConnection connection, String dn, String password, 
-			LdapClientConfiguration configuration) throws LdapAuthenticationException, LDAPException
+	private void bindAsUser(LdapSession session, String dn, String password) 
+			throws LdapAuthenticationException, LDAPException
 	{
 		try
 		{
-			connection.bind(dn, password);
+			session.bindAsUser(dn, password);
 		} catch (LDAPException e)
 		{
 			if (ResultCode.INVALID_CREDENTIALS.equals(e.getResultCode()))
@@ -325,14 +359,14 @@ public class LdapClient
 		log.info("LDAP bind as user " + dn + " was successful");
 	}
 
-	private void bindAsSystem(LDAPConnection connection, LdapClientConfiguration configuration) 
+	private void bindAsSystem(LdapSession session, LdapClientConfiguration configuration) 
 			throws LdapAuthenticationException, LDAPException
 	{
 		String systemDN = configuration.getSystemDN();
 		String systemPassword = configuration.getSystemPassword();
 		try
 		{
-			connection.bind(systemDN, systemPassword);
+			session.bindAsSystem(systemDN, systemPassword);
 		} catch (LDAPException e)
 		{
 			if (ResultCode.INVALID_CREDENTIALS.equals(e.getResultCode()))
@@ -346,7 +380,7 @@ public class LdapClient
 	}
 
 	private SearchResultEntry findBaseEntry(LdapClientConfiguration configuration, String dn,
-			LDAPConnection connection) throws LdapAuthenticationException, LDAPException
+			LDAPInterface connection) throws LdapAuthenticationException, LDAPException
 	{
 		String[] queriedAttributes = configuration.getRetrievalLdapAttributes().stream().toArray(String[]::new);
 		SearchScope searchScope = configuration.getSearchScope();
@@ -378,7 +412,7 @@ public class LdapClient
 		return ret;
 	}
 	
-	private void findGroupsMembership(LDAPConnection connection, SearchResultEntry userEntry,
+	private void findGroupsMembership(LDAPInterface connection, SearchResultEntry userEntry,
 			LdapClientConfiguration configuration, Map<String, RemoteGroupMembership> ret) 
 					throws LDAPException
 	{
@@ -397,7 +431,7 @@ public class LdapClient
 	 * @param configuration
 	 * @throws LDAPException 
 	 */
-	private void searchGroupsForMember(LDAPConnection connection, Map<String, RemoteGroupMembership> ret,
+	private void searchGroupsForMember(LDAPInterface connection, Map<String, RemoteGroupMembership> ret,
 			SearchResultEntry userEntry, LdapClientConfiguration configuration) throws LDAPException
 	{
 		String base = configuration.getGroupsBaseName();
@@ -455,7 +489,7 @@ public class LdapClient
 	}	
 
 	
-	private void performAdditionalQueries(LDAPConnection connection, LdapClientConfiguration configuration, 
+	private void performAdditionalQueries(LDAPInterface connection, LdapClientConfiguration configuration, 
 			String user, RemotelyAuthenticatedInput principalData) throws LDAPException
 	{
 		int timeLimit = configuration.getSearchTimeLimit();
@@ -471,7 +505,7 @@ public class LdapClient
 		}
 	}
 	
-	private SearchResult performSearch(LDAPConnection connection, SearchSpecification searchSpec,
+	private SearchResult performSearch(LDAPInterface connection, SearchSpecification searchSpec,
 			String username, int timeLimit, int sizeLimit, DereferencePolicy derefPolicy) throws LDAPException
 	{
 		String[] queriedAttributes = searchSpec.getSplitedAttributes();
@@ -507,7 +541,85 @@ public class LdapClient
 			principalData.addAttribute(new RemoteAttribute(e.getKey(), e.getValue().toArray()));
 		}
 	}
-}
+	
+	/**
+	 * Connection(s) used to perform a single operation of the client.
+	 */
+	private interface LdapSession extends AutoCloseable
+	{
+		LDAPInterface getConnection();
+		void bindAsUser(String dn, String password) throws LDAPException;
+		void bindAsSystem(String systemDN, String systemPassword) throws LDAPException;
+		@Override
+		void close();
+	}
+	
+	private static class DedicatedSession implements LdapSession
+	{
+		private final LDAPConnection connection;
+
+		DedicatedSession(LDAPConnection connection)
+		{
+			this.connection = connection;
+		}
+
+		@Override
+		public LDAPInterface getConnection()
+		{
+			return connection;
+		}
+
+		@Override
+		public void bindAsUser(String dn, String password) throws LDAPException
+		{
+			connection.bind(dn, password);
+		}
 
+		@Override
+		public void bindAsSystem(String systemDN, String systemPassword) throws LDAPException
+		{
+			connection.bind(systemDN, systemPassword);
+		}
 
+		@Override
+		public void close()
+		{
+			connection.close();
+		}
+	}
+	
+	/**
+	 * Pooled connections are authenticated as the system user, which is restored after the user's bind.
+	 */
+	private static class PooledSession implements LdapSession
+	{
+		private final LDAPConnectionPool pool;
 
+		PooledSession(LDAPConnectionPool pool)
+		{
+			this.pool = pool;
+		}
+
+		@Override
+		public LDAPInterface getConnection()
+		{
+			return pool;
+		}
+
+		@Override
+		public void bindAsUser(String dn, String password) throws LDAPException
+		{
+			pool.bindAndRevertAuthentication(dn, password);
+		}
+
+		@Override
+		public void bindAsSystem(String systemDN, String systemPassword)
+		{
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
+}
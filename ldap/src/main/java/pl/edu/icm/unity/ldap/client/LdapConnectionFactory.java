@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.ldap.client;
+
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.logging.log4j.Logger;
+
+import com.unboundid.ldap.sdk.ExtendedResult;
+import com.unboundid.ldap.sdk.FailoverServerSet;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionOptions;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.extensions.StartTLSExtendedRequest;
+
+import eu.emi.security.authn.x509.X509CertChainValidator;
+import eu.unicore.security.canl.SSLContextCreator;
+import eu.unicore.util.httpclient.ServerHostnameCheckingMode;
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.ldap.client.config.LdapClientConfiguration;
+import pl.edu.icm.unity.ldap.client.config.common.LDAPConnectionProperties.ConnectionMode;
+
+/**
+ * Creates LDAP connections, secured as configured. Failover settings from configuration are taken into account.
+ */
+class LdapConnectionFactory
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_LDAP, LdapConnectionFactory.class);
+
+	static LDAPConnection createConnection(LdapClientConfiguration configuration)
+			throws KeyManagementException, NoSuchAlgorithmException, LDAPException
+	{
+		LDAPConnection connection = createServerSet(configuration).getConnection();
+
+		log.debug("Established connection to LDAP server: {}:{} (secured: {})", connection.getConnectedAddress(),
+				connection.getConnectedPort(), connection.getSSLSession() != null);
+		if (configuration.getConnectionMode() == ConnectionMode.startTLS)
+		{
+			ExtendedResult extendedResult = connection.processExtendedOperation(
+					new StartTLSExtendedRequest(createStartTLSContext(configuration)));
+
+			if (extendedResult.getResultCode() != ResultCode.SUCCESS)
+			{
+				connection.close();
+				throw new LDAPException(extendedResult.getResultCode(), "Unable to esablish " +
+						"a secure TLS connection to the LDAP server: " +
+						extendedResult.toString());
+			}
+			log.debug("Connection upgraded to TLS");
+		}
+		return connection;
+	}
+
+	/**
+	 * @return set of configured servers, with SSL socket factory if SSL mode is configured.
+	 * Start TLS is not handled.
+	 */
+	static FailoverServerSet createServerSet(LdapClientConfiguration configuration)
+			throws KeyManagementException, NoSuchAlgorithmException
+	{
+		LDAPConnectionOptions connectionOptions = new LDAPConnectionOptions();
+		connectionOptions.setConnectTimeoutMillis(configuration.getSocketTimeout());
+		connectionOptions.setFollowReferrals(configuration.isFollowReferral());
+		connectionOptions.setReferralHopLimit(configuration.getFollowReferrals());
+		connectionOptions.setResponseTimeoutMillis(configuration.getSocketReadTimeout());
+
+		if (configuration.getConnectionMode() == ConnectionMode.SSL)
+		{
+			X509CertChainValidator validator = configuration.getConnectionValidator();
+			ServerHostnameCheckingMode certificateCheckingMode = configuration.isTrustAllCerts() ?
+					ServerHostnameCheckingMode.NONE : ServerHostnameCheckingMode.FAIL;
+			SSLContext ctx = SSLContextCreator.createSSLContext(null, validator,
+					"TLS", "LDAP client", log, certificateCheckingMode);
+			log.debug("Will connect over TLS to: {}:{}", configuration.getServersAddresses(), configuration.getPorts());
+			return new FailoverServerSet(configuration.getServersAddresses(),
+					configuration.getPorts(), ctx.getSocketFactory(), connectionOptions);
+		} else
+		{
+			log.debug("Will connect to: {}:{}", configuration.getServersAddresses(), configuration.getPorts());
+			return new FailoverServerSet(configuration.getServersAddresses(),
+				configuration.getPorts(), connectionOptions);
+		}
+	}
+
+	static SSLContext createStartTLSContext(LdapClientConfiguration configuration)
+			throws KeyManagementException, NoSuchAlgorithmException
+	{
+		X509CertChainValidator validator = configuration.getConnectionValidator();
+		return SSLContextCreator.createSSLContext(null, validator,
+				"TLSv1.2", "LDAP client", log, ServerHostnameCheckingMode.FAIL);
+	}
+}
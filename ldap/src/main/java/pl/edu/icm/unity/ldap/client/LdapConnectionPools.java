@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.ldap.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.unboundid.ldap.sdk.GetEntryLDAPConnectionPoolHealthCheck;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.PostConnectProcessor;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SimpleBindRequest;
+import com.unboundid.ldap.sdk.StartTLSPostConnectProcessor;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.ldap.client.config.LdapClientConfiguration;
+import pl.edu.icm.unity.ldap.client.config.common.LDAPConnectionProperties;
+import pl.edu.icm.unity.ldap.client.config.common.LDAPConnectionProperties.ConnectionMode;
+
+/**
+ * Pools of LDAP connections authenticated as the system user. Pools are shared by all LDAP clients
+ * with the same connection settings, as LDAP verificators and importers are created in many
+ * places and have no lifecycle. Pools which are not used for some time are closed.
+ */
+@Component
+public class LdapConnectionPools implements DisposableBean
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_LDAP, LdapConnectionPools.class);
+	private static final Duration UNUSED_POOL_EXPIRATION = Duration.ofHours(1);
+	private static final Duration MAX_CONNECTION_AGE = Duration.ofMinutes(30);
+	private final Cache<List<Object>, LDAPConnectionPool> pools = CacheBuilder.newBuilder()
+			.expireAfterAccess(UNUSED_POOL_EXPIRATION)
+			.removalListener(LdapConnectionPools::closePool)
+			.build();
+
+	LDAPConnectionPool getPool(LdapClientConfiguration configuration)
+			throws LDAPException, LdapAuthenticationException
+	{
+		try
+		{
+			return pools.get(getPoolKey(configuration), () -> createPool(configuration));
+		} catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof LDAPException)
+			{
+				LDAPException ldapException = (LDAPException) e.getCause();
+				if (ResultCode.INVALID_CREDENTIALS.equals(ldapException.getResultCode()))
+					throw new LdapAuthenticationException("Wrong username or credentials of the "
+							+ "system LDAP client "
+							+ "(system, not the ones provided by the user)", ldapException);
+				throw ldapException;
+			}
+			throw new LDAPException(ResultCode.CONNECT_ERROR, "Can not create LDAP connection pool",
+					e.getCause());
+		}
+	}
+
+	@Override
+	public void destroy()
+	{
+		pools.invalidateAll();
+	}
+
+	private LDAPConnectionPool createPool(LdapClientConfiguration configuration) throws Exception
+	{
+		PostConnectProcessor postConnectProcessor = configuration.getConnectionMode() == ConnectionMode.startTLS ?
+				new StartTLSPostConnectProcessor(LdapConnectionFactory.createStartTLSContext(configuration)) :
+				null;
+		LDAPConnectionPool pool = new LDAPConnectionPool(LdapConnectionFactory.createServerSet(configuration),
+				new SimpleBindRequest(configuration.getSystemDN(), configuration.getSystemPassword()),
+				1, configuration.getConnectionPoolSize(), postConnectProcessor, true);
+		long timeout = configuration.getSocketTimeout() > 0 ?
+				configuration.getSocketTimeout() : LDAPConnectionProperties.DEFAULT_SOCKET_TIMEOUT;
+		pool.setConnectionPoolName("LDAP " + Arrays.toString(configuration.getServersAddresses()));
+		pool.setHealthCheck(new GetEntryLDAPConnectionPoolHealthCheck(null, timeout,
+				false, false, false, false, true, true));
+		pool.setHealthCheckIntervalMillis(configuration.getConnectionPoolHealthCheckInterval() * 1000L);
+		pool.setRetryFailedOperationsDueToInvalidConnections(true);
+		pool.setMaxConnectionAgeMillis(MAX_CONNECTION_AGE.toMillis());
+		pool.setCreateIfNecessary(false);
+		pool.setMaxWaitTimeMillis(timeout);
+		log.info("Created pool of up to {} connections to LDAP servers {}:{}",
+				configuration.getConnectionPoolSize(), Arrays.toString(configuration.getServersAddresses()),
+				Arrays.toString(configuration.getPorts()));
+		return pool;
+	}
+
+	/**
+	 * All settings used to create a pool
+	 */
+	private static List<Object> getPoolKey(LdapClientConfiguration configuration)
+	{
+		return Arrays.asList(
+				List.of(configuration.getServersAddresses()),
+				Arrays.toString(configuration.getPorts()),
+				configuration.getConnectionMode(),
+				configuration.isTrustAllCerts(),
+				configuration.getClientTrustStore(),
+				configuration.getSocketTimeout(),
+				configuration.getSocketReadTimeout(),
+				configuration.isFollowReferral(),
+				configuration.getFollowReferrals(),
+				configuration.getSystemDN(),
+				configuration.getSystemPassword(),
+				configuration.getConnectionPoolSize(),
+				configuration.getConnectionPoolHealthCheckInterval());
+	}
+
+	private static void closePool(RemovalNotification<List<Object>, LDAPConnectionPool> notification)
+	{
+		LDAPConnectionPool pool = notification.getValue();
+		log.debug("Closing LDAP connection pool {}", pool.getConnectionPoolName());
+		pool.close();
+	}
+}
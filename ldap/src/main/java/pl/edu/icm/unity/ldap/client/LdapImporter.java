@@ -31,11 +31,12 @@ public class LdapImporter implements UserImportSPI
 
 	private LdapClient client;
 
-	public LdapImporter(PKIManagement pkiManagement, Properties properties, String idpName)
+	public LdapImporter(PKIManagement pkiManagement, Properties properties, String idpName,
+			LdapConnectionPools connectionPools)
 	{
 		LdapProperties ldapProperties = new LdapProperties(properties);
 		clientConfiguration = new LdapClientConfiguration(ldapProperties, pkiManagement);
-		client = new LdapClient(idpName);
+		client = new LdapClient(idpName, connectionPools);
 		if (clientConfiguration.getBindAs() == BindAs.user)
 		{
 			throw new ConfigurationException("LDAP import can be only performed "
@@ -25,11 +25,13 @@ public class LdapImporterFactory implements UserImportSPIFactory
 	public static final String NAME = "ldap";
 	
 	private final PKIManagement pkiManagement;
+	private final LdapConnectionPools connectionPools;
 
 	@Autowired
-	public LdapImporterFactory(PKIManagement pkiManagement)
+	public LdapImporterFactory(PKIManagement pkiManagement, LdapConnectionPools connectionPools)
 	{
 		this.pkiManagement = pkiManagement;
+		this.connectionPools = connectionPools;
 	}
 
 	@Override
@@ -41,7 +43,7 @@ public class LdapImporterFactory implements UserImportSPIFactory
 	@Override
 	public UserImportSPI getInstance(Properties configuration, String idpName)
 	{
-		return new LdapImporter(pkiManagement, configuration, idpName);
+		return new LdapImporter(pkiManagement, configuration, idpName, connectionPools);
 	}
 
 }
@@ -44,9 +44,11 @@ public class LdapPasswordVerificator extends LdapBaseVerificator implements Pass
 	
 	@Autowired
 	public LdapPasswordVerificator(RemoteAuthnResultTranslator processor,
-			PKIManagement pkiManagement, RemoteAuthnResponseProcessor remoteAuthnProcessor)
+			PKIManagement pkiManagement, RemoteAuthnResponseProcessor remoteAuthnProcessor,
+			LdapConnectionPools connectionPools)
 	{
-		super(NAME, DESCRIPTION, processor, pkiManagement, PasswordExchange.ID, remoteAuthnProcessor);
+		super(NAME, DESCRIPTION, processor, pkiManagement, PasswordExchange.ID, remoteAuthnProcessor,
+				connectionPools);
 	}
 	
 	@Override
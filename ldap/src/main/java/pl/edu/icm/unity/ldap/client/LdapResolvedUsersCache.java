@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.ldap.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import pl.edu.icm.unity.engine.api.authn.remote.RemotelyAuthenticatedInput;
+import pl.edu.icm.unity.ldap.client.config.LdapClientConfiguration;
+
+/**
+ * Caches information about users resolved from LDAP: user's DN, or lack of the user, and user's attributes
+ * and groups. Entries expire after the time set in configuration, caching is disabled when it is 0.
+ * The cache is built for a single configuration instance and it is built again, without any entries, 
+ * when a different configuration is used. Therefore entries of a previous configuration are never used 
+ * and are not kept in memory.
+ * <p>
+ * Cached results are copied, as they are modified by the consumers.
+ */
+class LdapResolvedUsersCache
+{
+	private static final int MAX_ENTRIES = 10000;
+	private volatile ConfiguredCache configuredCache;
+
+	Optional<ResolvedUser> get(LdapClientConfiguration configuration, String username)
+	{
+		if (!isEnabled(configuration))
+			return Optional.empty();
+		return Optional.ofNullable(getCache(configuration).getIfPresent(username));
+	}
+
+	void putDN(LdapClientConfiguration configuration, String username, String dn)
+	{
+		put(configuration, username, dn, null);
+	}
+
+	void putUnknown(LdapClientConfiguration configuration, String username)
+	{
+		put(configuration, username, null, null);
+	}
+
+	void putResolved(LdapClientConfiguration configuration, String username, String dn,
+			RemotelyAuthenticatedInput input)
+	{
+		put(configuration, username, dn, copyOf(input));
+	}
+
+	private void put(LdapClientConfiguration configuration, String username, String dn,
+			RemotelyAuthenticatedInput input)
+	{
+		if (!isEnabled(configuration))
+			return;
+		getCache(configuration).put(username, new ResolvedUser(dn, input));
+	}
+
+	void invalidate(LdapClientConfiguration configuration, String username)
+	{
+		if (!isEnabled(configuration))
+			return;
+		getCache(configuration).invalidate(username);
+	}
+
+	private Cache<String, ResolvedUser> getCache(LdapClientConfiguration configuration)
+	{
+		ConfiguredCache current = configuredCache;
+		if (current != null && current.configuration == configuration)
+			return current.cache;
+		synchronized (this)
+		{
+			if (configuredCache == null || configuredCache.configuration != configuration)
+				configuredCache = new ConfiguredCache(configuration);
+			return configuredCache.cache;
+		}
+	}
+
+	private static boolean isEnabled(LdapClientConfiguration configuration)
+	{
+		return configuration.getResolvedUsersCacheTTL() > 0;
+	}
+
+	private static RemotelyAuthenticatedInput copyOf(RemotelyAuthenticatedInput input)
+	{
+		RemotelyAuthenticatedInput ret = new RemotelyAuthenticatedInput(input.getIdpName());
+		ret.setIdentities(new ArrayList<>(input.getIdentities().values()));
+		ret.setAttributes(new ArrayList<>(input.getAttributes().values()));
+		ret.setGroups(new ArrayList<>(input.getGroups().values()));
+		ret.setRawAttributes(ret.getAttributes());
+		return ret;
+	}
+
+	static class ResolvedUser
+	{
+		private final String dn;
+		private final RemotelyAuthenticatedInput input;
+
+		private ResolvedUser(String dn, RemotelyAuthenticatedInput input)
+		{
+			this.dn = dn;
+			this.input = input;
+		}
+
+		/**
+		 * @return user's DN or empty if the user was not found
+		 */
+		Optional<String> getDN()
+		{
+			return Optional.ofNullable(dn);
+		}
+
+		/**
+		 * @return copy of user's information or empty if it was not retrieved yet
+		 */
+		Optional<RemotelyAuthenticatedInput> getInput()
+		{
+			return input == null ? Optional.empty() : Optional.of(copyOf(input));
+		}
+	}
+
+	private static class ConfiguredCache
+	{
+		private final LdapClientConfiguration configuration;
+		private final Cache<String, ResolvedUser> cache;
+
+		private ConfiguredCache(LdapClientConfiguration configuration)
+		{
+			this.configuration = configuration;
+			this.cache = CacheBuilder.newBuilder()
+					.maximumSize(MAX_ENTRIES)
+					.expireAfterWrite(Duration.ofSeconds(configuration.getResolvedUsersCacheTTL()))
+					.build();
+		}
+	}
+}
@@ -38,6 +38,9 @@ public class LdapConfiguration extends LDAPCommonConfiguration
 
 	private boolean bindOnly;
 	private BindAs bindAs;
+	private int connectionPoolSize;
+	private int connectionPoolHealthCheckInterval;
+	private int resolvedUsersCacheTTL;
 	private TranslationProfile translationProfile;
 
 
@@ -61,6 +64,9 @@ public class LdapConfiguration extends LDAPCommonConfiguration
 		super();
 		setBindOnly(LdapProperties.DEFAULT_BIND_ONLY);
 		setBindAs(LdapProperties.DEFAULT_BIND_AS);
+		setConnectionPoolSize(LdapProperties.DEFAULT_CONNECTION_POOL_SIZE);
+		setConnectionPoolHealthCheckInterval(LdapProperties.DEFAULT_CONNECTION_POOL_HEALTH_CHECK_INTERVAL);
+		setResolvedUsersCacheTTL(LdapProperties.DEFAULT_RESOLVED_USERS_CACHE_TTL);
 		setTranslationProfile(TranslationProfileGenerator
 				.generateIncludeInputProfile(LdapProperties.DEFAULT_TRANSLATION_PROFILE));
 		searchSpecifications = new ArrayList<>();
@@ -85,6 +91,22 @@ public class LdapConfiguration extends LDAPCommonConfiguration
 			setBindAs(ldapProp.getEnumValue(LdapProperties.BIND_AS, BindAs.class));
 		}
 		
+		if (ldapProp.isSet(LdapProperties.CONNECTION_POOL_SIZE))
+		{
+			setConnectionPoolSize(ldapProp.getIntValue(LdapProperties.CONNECTION_POOL_SIZE));
+		}
+
+		if (ldapProp.isSet(LdapProperties.CONNECTION_POOL_HEALTH_CHECK_INTERVAL))
+		{
+			setConnectionPoolHealthCheckInterval(
+					ldapProp.getIntValue(LdapProperties.CONNECTION_POOL_HEALTH_CHECK_INTERVAL));
+		}
+
+		if (ldapProp.isSet(LdapProperties.RESOLVED_USERS_CACHE_TTL))
+		{
+			setResolvedUsersCacheTTL(ldapProp.getIntValue(LdapProperties.RESOLVED_USERS_CACHE_TTL));
+		}
+		
 		if (ldapProp.isSet(LdapProperties.GROUPS_SEARCH_IN_LDAP))
 		{
 			setDelegateGroupFiltering(ldapProp.getBooleanValue(LdapProperties.GROUPS_SEARCH_IN_LDAP));
@@ -214,6 +236,10 @@ public class LdapConfiguration extends LDAPCommonConfiguration
 
 		raw.put(LdapProperties.PREFIX + LdapProperties.BIND_AS, bindAs.toString());
 		raw.put(LdapProperties.PREFIX + LdapProperties.BIND_ONLY, String.valueOf(bindOnly));
+		raw.put(LdapProperties.PREFIX + LdapProperties.CONNECTION_POOL_SIZE, String.valueOf(connectionPoolSize));
+		raw.put(LdapProperties.PREFIX + LdapProperties.CONNECTION_POOL_HEALTH_CHECK_INTERVAL,
+				String.valueOf(connectionPoolHealthCheckInterval));
+		raw.put(LdapProperties.PREFIX + LdapProperties.RESOLVED_USERS_CACHE_TTL, String.valueOf(resolvedUsersCacheTTL));
 
 		if (bindAs.equals(BindAs.system) || getUserDNResolving().equals(UserDNResolving.ldapSearch))
 		{
@@ -479,6 +505,36 @@ public class LdapConfiguration extends LDAPCommonConfiguration
 		this.bindAs = bindAs;
 	}
 
+	public int getConnectionPoolSize()
+	{
+		return connectionPoolSize;
+	}
+
+	public void setConnectionPoolSize(int connectionPoolSize)
+	{
+		this.connectionPoolSize = connectionPoolSize;
+	}
+
+	public int getConnectionPoolHealthCheckInterval()
+	{
+		return connectionPoolHealthCheckInterval;
+	}
+
+	public void setConnectionPoolHealthCheckInterval(int connectionPoolHealthCheckInterval)
+	{
+		this.connectionPoolHealthCheckInterval = connectionPoolHealthCheckInterval;
+	}
+
+	public int getResolvedUsersCacheTTL()
+	{
+		return resolvedUsersCacheTTL;
+	}
+
+	public void setResolvedUsersCacheTTL(int resolvedUsersCacheTTL)
+	{
+		this.resolvedUsersCacheTTL = resolvedUsersCacheTTL;
+	}
+
 	public TranslationProfile getTranslationProfile()
 	{
 		return translationProfile;
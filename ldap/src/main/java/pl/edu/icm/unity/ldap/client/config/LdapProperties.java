@@ -53,11 +53,18 @@ public class LdapProperties extends LDAPConnectionProperties
 	public static final String GROUP_DEFINITION_NAME_ATTR = "nameAttribute";
 	public static final String GROUP_DEFINITION_MATCHBY_MEMBER_ATTR = "matchByMemberAttribute";
 	
+	public static final String CONNECTION_POOL_SIZE = "connectionPoolSize";
+	public static final String CONNECTION_POOL_HEALTH_CHECK_INTERVAL = "connectionPoolHealthCheckInterval";
+	public static final String RESOLVED_USERS_CACHE_TTL = "resolvedUsersCacheTTL";
+	
 	public static final String DEFAULT_TRANSLATION_PROFILE = "sys:ldap";
 	
 	public static final BindAs DEFAULT_BIND_AS = BindAs.user;
 	public static final boolean DEFAULT_BIND_ONLY = false;
 	public static final boolean DEFAULT_GROUPS_SEARCH_IN_LDAP = true;
+	public static final int DEFAULT_CONNECTION_POOL_SIZE = 10;
+	public static final int DEFAULT_CONNECTION_POOL_HEALTH_CHECK_INTERVAL = 60;
+	public static final int DEFAULT_RESOLVED_USERS_CACHE_TTL = 0;
 	
 	@DocumentationReferenceMeta
 	public final static Map<String, PropertyMD> META=new HashMap<String, PropertyMD>();
@@ -108,6 +115,24 @@ public class LdapProperties extends LDAPConnectionProperties
 		META.put(SYSTEM_PASSWORD, new PropertyMD().setCategory(main).setDescription("Relevant and mandatory only if " +
 				BIND_AS + " is set to " + BindAs.system + ". The value must be the password of the system "
 				+ "user to authenticate as before performing any queries."));
+		META.put(CONNECTION_POOL_SIZE, new PropertyMD(String.valueOf(DEFAULT_CONNECTION_POOL_SIZE))
+				.setNonNegative().setCategory(main).setDescription("Relevant only if " + BIND_AS + " is set to " 
+				+ BindAs.system + ". Maximum number of connections, authenticated as the system user, "
+				+ "which are kept open and reused by all authentications and imports using the same LDAP "
+				+ "servers and system credentials. User's password is verified on a pooled connection, "
+				+ "which is then authenticated again as the system user. Set to 0 to open "
+				+ "a new connection for each authentication."));
+		META.put(CONNECTION_POOL_HEALTH_CHECK_INTERVAL, new PropertyMD(
+				String.valueOf(DEFAULT_CONNECTION_POOL_HEALTH_CHECK_INTERVAL)).setPositive()
+				.setCategory(main).setDescription("Interval in seconds between background checks "
+				+ "of the pooled connections. Connections which are not working are replaced, "
+				+ "possibly with connections to another of the configured servers."));
+		META.put(RESOLVED_USERS_CACHE_TTL, new PropertyMD(String.valueOf(DEFAULT_RESOLVED_USERS_CACHE_TTL))
+				.setNonNegative().setCategory(main).setDescription("Time in seconds for which the DN of "
+				+ "a user, user's attributes and groups which were retrieved from LDAP are cached. "
+				+ "Also users which were not found by the DN search are remembered. The password "
+				+ "of the user is always verified by the LDAP server. Changes in LDAP may be "
+				+ "noticed only after this time passes. Set to 0 to disable caching."));
 		
 		META.put(GROUPS_BASE_NAME, new PropertyMD().setCategory(groups).setDescription("Base DN under which all groups are defined. " +
 				"Groups need not to be immediatelly under this DN. If not defined, then groups " +
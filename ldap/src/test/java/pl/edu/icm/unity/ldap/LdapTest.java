@@ -6,6 +6,8 @@ package pl.edu.icm.unity.ldap;
 
 import com.unboundid.ldap.listener.InMemoryDirectoryServer;
 import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
 import eu.emi.security.authn.x509.impl.KeystoreCredential;
 import eu.unicore.util.httpclient.ServerHostnameCheckingMode;
 import org.junit.jupiter.api.AfterAll;
@@ -18,6 +20,7 @@ import pl.edu.icm.unity.engine.api.authn.remote.RemoteGroupMembership;
 import pl.edu.icm.unity.engine.api.authn.remote.RemotelyAuthenticatedInput;
 import pl.edu.icm.unity.ldap.client.LdapAuthenticationException;
 import pl.edu.icm.unity.ldap.client.LdapClient;
+import pl.edu.icm.unity.ldap.client.LdapConnectionPools;
 import pl.edu.icm.unity.ldap.client.LdapUtils;
 import pl.edu.icm.unity.ldap.client.config.LdapClientConfiguration;
 import pl.edu.icm.unity.ldap.client.config.LdapProperties;
@@ -523,6 +526,163 @@ public class LdapTest
 		assertTrue(containsAttribute(ret.getAttributes(), "sn", "User2 Surname"));
 	}
 	
+	@Test
+	public void shouldReusePooledConnectionsWhenUsingBindsAsSystem() throws Exception
+	{
+		LdapClientConfiguration clientConfig = getPooledBindAsSystemConfig();
+		LdapConnectionPools pools = new LdapConnectionPools();
+		LdapClient client = new LdapClient("test", pools);
+		try
+		{
+			client.bindAndSearch("user2", "user1", clientConfig);
+			RemotelyAuthenticatedInput ret = client.bindAndSearch("user2", "user1", clientConfig);
+
+			assertEquals(1, ret.getAttributes().size());
+			assertTrue(containsAttribute(ret.getAttributes(), "sn", "User2 Surname"));
+		} finally
+		{
+			pools.destroy();
+		}
+	}
+
+	@Test
+	public void shouldRevertToSystemBindOfPooledConnectionAfterWrongPassword() throws Exception
+	{
+		LdapClientConfiguration clientConfig = getPooledBindAsSystemConfig();
+		LdapConnectionPools pools = new LdapConnectionPools();
+		LdapClient client = new LdapClient("test", pools);
+		try
+		{
+			assertThrows(LdapAuthenticationException.class,
+					() -> client.bindAndSearch("user2", "wrong", clientConfig));
+			RemotelyAuthenticatedInput ret = client.search("user2", clientConfig);
+
+			assertTrue(containsAttribute(ret.getAttributes(), "sn", "User2 Surname"));
+		} finally
+		{
+			pools.destroy();
+		}
+	}
+
+	@Test
+	public void shouldUseCachedAttributesButAlwaysVerifyPassword() throws Exception
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+SERVERS+"1", hostname);
+		p.setProperty(PREFIX+PORTS+"1", port);
+		p.setProperty(PREFIX+USER_DN_TEMPLATE, "cn={USERNAME},ou=users,dc=unity-example,dc=com");
+		p.setProperty(PREFIX+ATTRIBUTES+"1", "sn");
+		p.setProperty(PREFIX+BIND_AS, "system");
+		p.setProperty(PREFIX+SYSTEM_DN, "cn=user1,ou=users,dc=unity-example,dc=com");
+		p.setProperty(PREFIX+SYSTEM_PASSWORD, "user1");
+		p.setProperty(PREFIX+RESOLVED_USERS_CACHE_TTL, "60");
+		p.setProperty(PREFIX+TRANSLATION_PROFILE, "dummy");
+		LdapClientConfiguration clientConfig = new LdapClientConfiguration(new LdapProperties(p), pkiManagement);
+		LdapClient client = new LdapClient("test");
+		addUser("cached", "Cached Surname");
+		try
+		{
+			client.bindAndSearch("cached", "cached", clientConfig);
+			ds.modify(getUserDN("cached"), new Modification(ModificationType.REPLACE, "sn", "Changed"));
+
+			RemotelyAuthenticatedInput ret = client.bindAndSearch("cached", "cached", clientConfig);
+
+			assertTrue(containsAttribute(ret.getAttributes(), "sn", "Cached Surname"));
+			assertThrows(LdapAuthenticationException.class,
+					() -> client.bindAndSearch("cached", "wrong", clientConfig));
+		} finally
+		{
+			ds.delete(getUserDN("cached"));
+		}
+	}
+
+	@Test
+	public void shouldNotResolveCachedUserRemovedFromLdap() throws Exception
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+SERVERS+"1", hostname);
+		p.setProperty(PREFIX+PORTS+"1", port);
+		p.setProperty(PREFIX+USER_DN_TEMPLATE, "cn={USERNAME},ou=users,dc=unity-example,dc=com");
+		p.setProperty(PREFIX+ATTRIBUTES+"1", "sn");
+		p.setProperty(PREFIX+BIND_AS, "system");
+		p.setProperty(PREFIX+SYSTEM_DN, "cn=user1,ou=users,dc=unity-example,dc=com");
+		p.setProperty(PREFIX+SYSTEM_PASSWORD, "user1");
+		p.setProperty(PREFIX+RESOLVED_USERS_CACHE_TTL, "60");
+		p.setProperty(PREFIX+TRANSLATION_PROFILE, "dummy");
+		LdapClientConfiguration clientConfig = new LdapClientConfiguration(new LdapProperties(p), pkiManagement);
+		LdapClient client = new LdapClient("test");
+		addUser("removed", "Removed Surname");
+		RemotelyAuthenticatedInput ret = client.search("removed", clientConfig);
+		assertTrue(containsAttribute(ret.getAttributes(), "sn", "Removed Surname"));
+
+		ds.delete(getUserDN("removed"));
+
+		assertThrows(LdapAuthenticationException.class, () -> client.search("removed", clientConfig));
+	}
+
+	@Test
+	public void shouldCacheNotFoundUser() throws Exception
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+SERVERS+"1", hostname);
+		p.setProperty(PREFIX+PORTS+"1", port);
+		p.setProperty(PREFIX+USER_DN_SEARCH_KEY, "1");
+		p.setProperty(PREFIX+ATTRIBUTES+"1", "sn");
+		p.setProperty(PREFIX+SYSTEM_DN, "cn=user1,ou=users,dc=unity-example,dc=com");
+		p.setProperty(PREFIX+SYSTEM_PASSWORD, "user1");
+		p.setProperty(PREFIX+ADV_SEARCH_PFX+"1."+ADV_SEARCH_BASE, "ou=users,dc=unity-example,dc=com");
+		p.setProperty(PREFIX+ADV_SEARCH_PFX+"1."+ADV_SEARCH_FILTER, "(sn={USERNAME})");
+		p.setProperty(PREFIX+RESOLVED_USERS_CACHE_TTL, "60");
+		p.setProperty(PREFIX+TRANSLATION_PROFILE, "dummy");
+		LdapClientConfiguration clientConfig = new LdapClientConfiguration(new LdapProperties(p), pkiManagement);
+		LdapClient client = new LdapClient("test");
+		assertThrows(LdapAuthenticationException.class,
+				() -> client.bindAndSearch("Late Surname", "late", clientConfig));
+		addUser("late", "Late Surname");
+		try
+		{
+			assertThrows(LdapAuthenticationException.class,
+					() -> client.bindAndSearch("Late Surname", "late", clientConfig));
+			RemotelyAuthenticatedInput ret = new LdapClient("test").bindAndSearch("Late Surname", "late", 
+					clientConfig);
+			assertTrue(containsAttribute(ret.getAttributes(), "sn", "Late Surname"));
+		} finally
+		{
+			ds.delete(getUserDN("late"));
+		}
+	}
+
+	private static String getUserDN(String cn)
+	{
+		return "cn=" + cn + ",ou=users,dc=unity-example,dc=com";
+	}
+
+	private static void addUser(String cn, String surname) throws LDAPException
+	{
+		ds.add("dn: " + getUserDN(cn), 
+				"objectClass: inetOrgPerson",
+				"objectClass: organizationalPerson",
+				"objectClass: person",
+				"objectClass: top",
+				"cn: " + cn,
+				"sn: " + surname,
+				"userPassword: " + cn);
+	}
+
+	private LdapClientConfiguration getPooledBindAsSystemConfig()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+SERVERS+"1", hostname);
+		p.setProperty(PREFIX+PORTS+"1", port);
+		p.setProperty(PREFIX+USER_DN_TEMPLATE, "cn={USERNAME},ou=users,dc=unity-example,dc=com");
+		p.setProperty(PREFIX+ATTRIBUTES+"1", "sn");
+		p.setProperty(PREFIX+BIND_AS, "system");
+		p.setProperty(PREFIX+SYSTEM_DN, "cn=user1,ou=users,dc=unity-example,dc=com");
+		p.setProperty(PREFIX+SYSTEM_PASSWORD, "user1");
+		p.setProperty(PREFIX+CONNECTION_POOL_SIZE, "2");
+		p.setProperty(PREFIX+TRANSLATION_PROFILE, "dummy");
+		return new LdapClientConfiguration(new LdapProperties(p), pkiManagement);
+	}
 	
 	@Test
 	public void shouldReturnAttributesWithUserTemplateAndAnonymousConnect() throws Exception
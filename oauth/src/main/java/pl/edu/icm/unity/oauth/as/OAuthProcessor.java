@@ -174,7 +174,8 @@ public class OAuthProcessor
 					ctx.getRequest().getState(), ctx.getRequest().impliedResponseMode());
 			Date expiration = new Date(now.getTime() + config.getCodeTokenValidity() * 1000);
 			tokensMan.addToken(INTERNAL_CODE_TOKEN, authzCode.getValue(), 
-					new EntityParam(identity), internalToken.getSerialized(), now, expiration);
+					new EntityParam(identity), internalToken.getClientId(), internalToken.getSerialized(), 
+					now, expiration);
 		} else if (GrantFlow.implicit == ctx.getFlow())
 		{
 			if (responseType.contains(OIDCResponseTypeValue.ID_TOKEN) && responseType.size() == 1)
@@ -212,7 +213,7 @@ public class OAuthProcessor
 
 			signAndRecordIdToken(idToken, tokenSigner, responseType, internalToken);
 			tokensMan.addToken(INTERNAL_CODE_TOKEN, authzCode.getValue(), 
-					new EntityParam(identity), internalToken.getSerialized(), 
+					new EntityParam(identity), internalToken.getClientId(), internalToken.getSerialized(), 
 					now, codeExpiration);
 			
 			//access token - sometimes
@@ -45,7 +45,7 @@ public class OAuthAccessTokenRepository
 			Date now, Date expiration) throws IllegalIdentityValueException, IllegalTypeException, JsonProcessingException
 	{
 		tokensMan.addToken(INTERNAL_ACCESS_TOKEN, getTokenUniqueKey(accessToken), 
-				owner, internalToken.getSerialized(), now, expiration);
+				owner, internalToken.getClientId(), internalToken.getSerialized(), now, expiration);
 	}
 	
 	public void updateAccessTokenExpiration(Token rawToken, Date newExpiryDate)
@@ -107,14 +107,8 @@ public class OAuthAccessTokenRepository
 
 	public void removeOwnedByClient(long clientId, long userId) throws EngineException
 	{
-		List<Token> ownedTokens = tokensMan.getOwnedTokens(INTERNAL_ACCESS_TOKEN, new EntityParam(userId));
-		for (Token token : ownedTokens)
-		{
-			OAuthToken oauthToken = OAuthToken.getInstanceFromJson(token.getContents());
-			if (oauthToken.getClientId() == clientId)
-			{
-				tokensMan.removeToken(token.getType(), token.getValue());
-			}
-		}
+		List<Token> clientTokens = tokensMan.getOwnedTokens(INTERNAL_ACCESS_TOKEN, new EntityParam(userId), clientId);
+		for (Token token : clientTokens)
+			tokensMan.removeToken(token.getType(), token.getValue());
 	}
 }
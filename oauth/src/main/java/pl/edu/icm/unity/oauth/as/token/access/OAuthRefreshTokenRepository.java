@@ -98,7 +98,7 @@ public class OAuthRefreshTokenRepository
 					BaseOAuthResource.tokenToLog(refreshToken.getValue()), refreshExpiration);
 
 			tokensMan.addToken(INTERNAL_REFRESH_TOKEN, refreshToken.getValue(), new EntityParam(owner),
-					newToken.getSerialized(), now, refreshExpiration);
+					newToken.getClientId(), newToken.getSerialized(), now, refreshExpiration);
 		}
 		return Optional.ofNullable(refreshToken);
 	}
@@ -112,7 +112,7 @@ public class OAuthRefreshTokenRepository
 			log.debug("Rotation refresh token {}", oldRefreshToken.getRefreshToken());
 			tokensMan.removeToken(INTERNAL_REFRESH_TOKEN, oldRefreshToken.getRefreshToken());
 			tokensMan.addToken(INTERNAL_USED_REFRESH_TOKEN, oldRefreshToken.getRefreshToken(), new EntityParam(owner),
-					oldRefreshToken.getSerialized(), now, null);
+					oldRefreshToken.getClientId(), oldRefreshToken.getSerialized(), now, null);
 			return createRefreshToken(config, now, newToken, owner,
 					oldRefreshToken.getFirstRefreshRollingToken());
 		}
@@ -178,11 +178,12 @@ public class OAuthRefreshTokenRepository
 
 	public void clearHistoryForClient(String historyId, long clientId, long userId) throws EngineException
 	{
-		List<Token> usedTokens = tokensMan.getOwnedTokens(INTERNAL_USED_REFRESH_TOKEN, new EntityParam(userId));
+		List<Token> usedTokens = tokensMan.getOwnedTokens(INTERNAL_USED_REFRESH_TOKEN, new EntityParam(userId), 
+				clientId);
 		for (Token token : usedTokens)
 		{
 			OAuthToken oauthToken = OAuthToken.getInstanceFromJson(token.getContents());
-			if (oauthToken.getClientId() == clientId && oauthToken.getFirstRefreshRollingToken().equals(historyId))
+			if (oauthToken.getFirstRefreshRollingToken().equals(historyId))
 			{
 				tokensMan.removeToken(token.getType(), token.getValue());
 			}
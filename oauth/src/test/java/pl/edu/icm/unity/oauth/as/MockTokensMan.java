@@ -36,6 +36,23 @@ public class MockTokensMan implements TokensManagement
 		tokens.put(type+value, t);
 	}
 
+	@Override
+	public void addToken(String type, String value, EntityParam owner, byte[] contents,
+			Date created, Date expires, Date activityDeadline) throws 
+			IllegalIdentityValueException, IllegalTypeException
+	{
+		addToken(type, value, owner, contents, created, expires);
+		tokens.get(type+value).setActivityDeadline(activityDeadline);
+	}
+
+	@Override
+	public void addToken(String type, String value, EntityParam owner, long clientId, byte[] contents,
+			Date created, Date expires) throws IllegalIdentityValueException, IllegalTypeException
+	{
+		addToken(type, value, owner, contents, created, expires);
+		tokens.get(type+value).setClientId(clientId);
+	}
+
 	@Override
 	public void removeToken(String type, String value) 
 	{
@@ -51,6 +68,14 @@ public class MockTokensMan implements TokensManagement
 		tokens.put(type+value, t);
 	}
 
+	@Override
+	public void updateToken(String type, String value, Date expires, Date activityDeadline, byte[] contents)
+	{
+		updateToken(type, value, expires, contents);
+		if (activityDeadline != null)
+			getTokenById(type, value).setActivityDeadline(activityDeadline);
+	}
+
 	@Override
 	public Token getTokenById(String type, String value) 
 	{
@@ -67,6 +92,15 @@ public class MockTokensMan implements TokensManagement
 				.collect(Collectors.toList());
 	}
 
+	@Override
+	public List<Token> getOwnedTokens(String type, EntityParam entity, long clientId)
+			throws IllegalIdentityValueException, IllegalTypeException
+	{
+		return getOwnedTokens(type, entity).stream()
+				.filter(t -> t.getClientId() != null && t.getClientId() == clientId)
+				.collect(Collectors.toList());
+	}
+
 	@Override
 	public List<Token> getAllTokens(String type)
 	{
@@ -90,4 +124,13 @@ public class MockTokensMan implements TokensManagement
 	{
 		return null;
 	}
+
+	@Override
+	public List<Token> getInactiveTokens(String type, Date time)
+	{
+		return tokens.values().stream()
+				.filter(t -> t.getType().equals(type) && t.getActivityDeadline() != null 
+						&& t.getActivityDeadline().before(time))
+				.collect(Collectors.toList());
+	}
 }
\ No newline at end of file
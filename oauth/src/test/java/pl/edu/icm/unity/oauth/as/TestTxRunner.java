@@ -45,4 +45,23 @@ public class TestTxRunner implements TransactionalRunner
 	{
 		return code.run();
 	}
+
+	@Override
+	public <T> T runInReadOnlyTransactionRet(TxRunnableRet<T> code)
+	{
+		return code.run();
+	}
+
+	@Override
+	public <T> T runInReadOnlyTransactionRetThrowing(TxRunnableThrowingRet<T> code)
+			throws EngineException
+	{
+		return code.run();
+	}
+
+	@Override
+	public void runInBatchTransaction(TxRunnable code)
+	{
+		code.run();
+	}
 }
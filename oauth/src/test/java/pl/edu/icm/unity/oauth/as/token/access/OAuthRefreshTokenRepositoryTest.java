@@ -44,14 +44,14 @@ public class OAuthRefreshTokenRepositoryTest
 		token.setFirstRefreshRollingToken("ref");
 		token.setClientId(99l);
 		tokensManagement.addToken(OAuthRefreshTokenRepository.INTERNAL_REFRESH_TOKEN, "ref", new EntityParam(0l),
-				token.getSerialized(), null, null);
+				99l, token.getSerialized(), null, null);
 
 		OAuthToken htoken = new OAuthToken();
 		htoken.setRefreshToken("ref_his");
 		htoken.setFirstRefreshRollingToken("ref");
 		htoken.setClientId(99l);
 		tokensManagement.addToken(OAuthRefreshTokenRepository.INTERNAL_USED_REFRESH_TOKEN, "ref_his",
-				new EntityParam(0l), htoken.getSerialized(), null, null);
+				new EntityParam(0l), 99l, htoken.getSerialized(), null, null);
 
 		OAuthRefreshTokenRepository rep = new OAuthRefreshTokenRepository(tokensManagement, null);
 		rep.removeRefreshToken("ref", token, 0);
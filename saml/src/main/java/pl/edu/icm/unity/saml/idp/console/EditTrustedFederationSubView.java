@@ -35,9 +35,13 @@ import pl.edu.icm.unity.engine.api.files.FileStorageService;
 import pl.edu.icm.unity.engine.api.files.URIAccessService;
 import pl.edu.icm.unity.saml.idp.console.SimpleIDPMetaConverter.SAMLEntity;
 import pl.edu.icm.unity.saml.metadata.srv.CachedMetadataLoader;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
 import io.imunity.vaadin.endpoint.common.exceptions.FormValidationException;
+import org.apache.xmlbeans.XmlException;
 import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
@@ -200,11 +204,11 @@ class EditTrustedFederationSubView extends VerticalLayout implements UnitySubVie
 
 		try
 		{
-			Optional<EntitiesDescriptorDocument> cached = metaDownloader.getCached(url.getValue());
+			Optional<LoadedMetadata> cached = metaDownloader.getCached(url.getValue());
 			if(cached.isPresent())
 			{
 				List<SAMLEntity> entries = convert
-					.getEntries(cached.get().getEntitiesDescriptor());
+					.getEntries(parse(cached.get()).getEntitiesDescriptor());
 				samlEntities.setItems(entries);
 				samlEntitiesListWithToolbar.setVisible(true);
 			}
@@ -220,15 +224,15 @@ class EditTrustedFederationSubView extends VerticalLayout implements UnitySubVie
 			{
 				try
 				{
-					EntitiesDescriptorDocument entDoc = metaDownloader.getCached(url.getValue())
+					LoadedMetadata metadata = metaDownloader.getCached(url.getValue())
 							.orElse(null);
-					if (entDoc == null)
+					if (metadata == null)
 					{
-						entDoc = metaDownloader.getFresh(url.getValue(),
+						metadata = metaDownloader.getFresh(url.getValue(),
 								httpsTruststore.getValue());
 					}
 					List<SAMLEntity> entries = convert
-							.getEntries(entDoc.getEntitiesDescriptor());
+							.getEntries(parse(metadata).getEntitiesDescriptor());
 					samlEntities.setItems(entries);
 					samlEntitiesListWithToolbar.setVisible(true);
 
@@ -268,6 +272,14 @@ class EditTrustedFederationSubView extends VerticalLayout implements UnitySubVie
 		return accordionPanel;
 	}
 
+	private static EntitiesDescriptorDocument parse(LoadedMetadata metadata) throws XmlException, IOException
+	{
+		try (InputStream is = metadata.openStream())
+		{
+			return EntitiesDescriptorDocument.Factory.parse(is);
+		}
+	}
+
 	@Override
 	public List<String> getBreadcrumbs()
 	{
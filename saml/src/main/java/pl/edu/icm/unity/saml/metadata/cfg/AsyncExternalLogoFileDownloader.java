@@ -16,11 +16,14 @@ import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
 import pl.edu.icm.unity.engine.api.files.RemoteFileData;
 import pl.edu.icm.unity.engine.api.files.URIAccessService;
 import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataToSPConfigConverter.ConvertedTrustedIdPs;
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataVerificator.MetadataValidationException;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
+import pl.edu.icm.unity.saml.sp.SAMLSPProperties.MetadataSignatureValidation;
 import pl.edu.icm.unity.saml.sp.config.BaseSamlConfiguration.RemoteMetadataSource;
 import pl.edu.icm.unity.saml.sp.config.TrustedIdPConfiguration;
 import pl.edu.icm.unity.saml.sp.config.TrustedIdPKey;
 import pl.edu.icm.unity.saml.sp.config.TrustedIdPs;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
 import java.io.File;
 import java.io.IOException;
@@ -50,6 +53,7 @@ public class AsyncExternalLogoFileDownloader
 	private final URIAccessService uriAccessService;
 
 	private final MetadataToSPConfigConverter converter;
+	private final StreamingMetadataReader metadataReader = new StreamingMetadataReader();
 	private final String workspaceDir;
 	private final String defaultLocale;
 	private final Duration socketReadTimeout;
@@ -70,9 +74,17 @@ public class AsyncExternalLogoFileDownloader
 	}
 
 	@SuppressWarnings("unchecked")
-	public CompletableFuture<Void> downloadLogoFilesAsync(EntitiesDescriptorDocument entitiesDescriptorDocument, String httpsTruststore)
+	public CompletableFuture<Void> downloadLogoFilesAsync(LoadedMetadata metadata, String httpsTruststore)
 	{
-		String federationId = entitiesDescriptorDocument.getEntitiesDescriptor().getID();
+		String federationId;
+		try
+		{
+			federationId = metadataReader.readRoot(metadata).getID();
+		} catch (MetadataValidationException e)
+		{
+			log.error("Can not establish federation of metadata, logos won't be downloaded", e);
+			return CompletableFuture.completedFuture(null);
+		}
 		if (!currentlyDownloadingFederation.add(federationId))
 		{
 			log.info("Logos of federation {} are being downloaded, won't start a new downloading process", federationId);
@@ -86,9 +98,11 @@ public class AsyncExternalLogoFileDownloader
 					.withUrl("url")
 					.withRefreshInterval(Duration.ZERO)
 					.build();
-			TrustedIdPs trustedIdPs = converter.convertToTrustedIdPs(entitiesDescriptorDocument, metadataSource);
+			ConvertedTrustedIdPs converted = converter.convertToTrustedIdPs(metadata, new Date(), 
+					MetadataSignatureValidation.ignore, null, metadataSource);
+			TrustedIdPs trustedIdPs = converted.trustedIdPs;
 			log.info("Will download logos for {} IdPs of federation {}", trustedIdPs.getKeys().size(),
-					entitiesDescriptorDocument.getEntitiesDescriptor().getName());
+					converted.federationName);
 			savedFilesNamesFutures = trustedIdPs.getEntrySet().stream()
 					.map(entry -> CompletableFuture.supplyAsync(() -> downloadFiles(entry, httpsTruststore), executorService))
 					.toArray(CompletableFuture[]::new);
@@ -101,19 +115,19 @@ public class AsyncExternalLogoFileDownloader
 		}
 		return CompletableFuture.allOf(savedFilesNamesFutures)
 			.thenRunAsync(
-				() -> cleanUp(entitiesDescriptorDocument, savedFilesNamesFutures),
+				() -> cleanUp(federationId, savedFilesNamesFutures),
 				executorService)
 			.whenComplete((result, error) -> currentlyDownloadingFederation.remove(federationId))
 			.whenComplete((result, error) -> log.info("Prefetched logos of federation {}", federationId));
 	}
 
-	private void cleanUp(EntitiesDescriptorDocument entitiesDescriptorDocument, CompletableFuture<Set<String>>[] savedFilesNamesFutures)
+	private void cleanUp(String federationId, CompletableFuture<Set<String>>[] savedFilesNamesFutures)
 	{
 		Set<String> downloadedFilesName = Arrays.stream(savedFilesNamesFutures)
 				.filter(future -> !future.isCompletedExceptionally())
 				.flatMap(this::getFileNamesAfterJobCompletion)
 				.collect(Collectors.toSet());
-		cleanUp(entitiesDescriptorDocument.getEntitiesDescriptor().getID(), downloadedFilesName);
+		cleanUp(federationId, downloadedFilesName);
 	}
 
 	private Stream<String> getFileNamesAfterJobCompletion(CompletableFuture<Set<String>> completableFuture)
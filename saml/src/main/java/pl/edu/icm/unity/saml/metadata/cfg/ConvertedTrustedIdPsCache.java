@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.cfg;
+
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataToSPConfigConverter.ConvertedTrustedIdPs;
+import pl.edu.icm.unity.saml.sp.config.BaseSamlConfiguration.RemoteMetadataSource;
+
+/**
+ * Caches trusted IdPs converted from remote metadata, so that metadata which is consumed by many SP endpoints,
+ * or which is provided again without changes, is not read and converted again. Only the converted form
+ * is cached, metadata itself is never kept in memory.
+ * <p>
+ * Entries are bound to the metadata contents, the metadata source configuration and the certificate
+ * which was used to verify the metadata, as the conversion result depends on all of them.
+ * Additionally the last conversion result of each metadata source is kept, so that when metadata is changed 
+ * only its new or changed entities need to be converted.
+ */
+class ConvertedTrustedIdPsCache
+{
+	private static final int MAX_ENTRIES = 20;
+	private static final Duration TTL = Duration.ofHours(1);
+	private final Cache<CacheKey, ConvertedTrustedIdPs> cache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_ENTRIES)
+			.expireAfterAccess(TTL)
+			.build();
+	private final Cache<RemoteMetadataSource, ConvertedTrustedIdPs> lastConverted = CacheBuilder.newBuilder()
+			.maximumSize(MAX_ENTRIES)
+			.expireAfterAccess(TTL)
+			.build();
+
+	Optional<ConvertedTrustedIdPs> get(String contentHash, RemoteMetadataSource metadataSource,
+			X509Certificate issuerCertificate)
+	{
+		return Optional.ofNullable(cache.getIfPresent(new CacheKey(contentHash, metadataSource, issuerCertificate)));
+	}
+
+	void put(String contentHash, RemoteMetadataSource metadataSource, X509Certificate issuerCertificate,
+			ConvertedTrustedIdPs converted)
+	{
+		cache.put(new CacheKey(contentHash, metadataSource, issuerCertificate), converted);
+		lastConverted.put(metadataSource, converted);
+	}
+
+	Optional<ConvertedTrustedIdPs> getLastConverted(RemoteMetadataSource metadataSource)
+	{
+		return Optional.ofNullable(lastConverted.getIfPresent(metadataSource));
+	}
+
+	private static class CacheKey
+	{
+		private final String contentHash;
+		private final RemoteMetadataSource metadataSource;
+		private final X509Certificate issuerCertificate;
+
+		private CacheKey(String contentHash, RemoteMetadataSource metadataSource,
+				X509Certificate issuerCertificate)
+		{
+			this.contentHash = contentHash;
+			this.metadataSource = metadataSource;
+			this.issuerCertificate = issuerCertificate;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(contentHash, metadataSource, issuerCertificate);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			CacheKey other = (CacheKey) obj;
+			return Objects.equals(contentHash, other.contentHash)
+					&& Objects.equals(metadataSource, other.metadataSource)
+					&& Objects.equals(issuerCertificate, other.issuerCertificate);
+		}
+	}
+}
@@ -11,15 +11,17 @@ import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.PKIManagement;
 import pl.edu.icm.unity.saml.idp.SAMLIdPConfiguration;
 import pl.edu.icm.unity.saml.metadata.cfg.MetadataVerificator.MetadataValidationException;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
+import pl.edu.icm.unity.saml.metadata.srv.MetadataRejectedException;
 import pl.edu.icm.unity.saml.metadata.srv.RemoteMetadataService;
 import pl.edu.icm.unity.saml.idp.TrustedServiceProvider;
 import pl.edu.icm.unity.saml.idp.TrustedServiceProviders;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
 import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -33,7 +35,7 @@ public class IdpRemoteMetaManager
 	private static final Logger log = Log.getLogger(Log.U_SERVER_SAML, IdpRemoteMetaManager.class);
 	private final PKIManagement pkiManagement;
 	private final MetaToIDPConfigConverter converter;
-	private final MetadataVerificator verificator;
+	private final StreamingMetadataReader metadataReader;
 	private final RemoteMetadataService metadataService;
 	private final Map<String, MetadataConsumer> registeredConsumers = new HashMap<>();
 	private SAMLIdPConfiguration configuration;
@@ -42,7 +44,7 @@ public class IdpRemoteMetaManager
 	                            RemoteMetadataService metadataService, MetaToIDPConfigConverter converter)
 	{
 		this.metadataService = metadataService;
-		this.verificator = new MetadataVerificator();
+		this.metadataReader = new StreamingMetadataReader();
 		this.pkiManagement = pkiManagement;
 		this.converter = converter;
 		setBaseConfiguration(configuration);
@@ -117,31 +119,28 @@ public class IdpRemoteMetaManager
 		configuration.load();
 	}
 
-	private Set<TrustedServiceProvider> parseMetadata(EntitiesDescriptorDocument metadata, RemoteMetadataSource metadataConfig)
-	{
-		Set<TrustedServiceProvider> trustedIdPs = converter.convertToTrustedSps(metadata, configuration);
-		log.trace("Converted metadata from {} to virtual configuration", metadataConfig.url);
-		return trustedIdPs;
-	}
-
-	private boolean isMetadataValid(EntitiesDescriptorDocument metadata, RemoteMetadataSource metadataConfig)
+	private Set<TrustedServiceProvider> parseMetadata(LoadedMetadata metadata, RemoteMetadataSource metadataConfig)
 	{
 		String issuerCertificateName = metadataConfig.issuerCertificate;
 		try
 		{
 			X509Certificate issuerCertificate = issuerCertificateName != null ?
 					pkiManagement.getCertificate(issuerCertificateName).value: null;
-			verificator.validate(metadata, new Date(), metadataConfig.signatureValidation, issuerCertificate);
-			return true;
+			Set<TrustedServiceProvider> trustedSps = new HashSet<>();
+			metadataReader.read(metadata, new Date(), metadataConfig.signatureValidation, issuerCertificate,
+					(federationMeta, entity, entityHash) -> 
+						trustedSps.addAll(converter.convertToTrustedSps(entity, configuration)));
+			log.trace("Converted metadata from {} to virtual configuration", metadataConfig.url);
+			return trustedSps;
 		} catch (MetadataValidationException e)
 		{
 			log.error("Metadata from " + metadataConfig.url + " is invalid, won't be used", e);
-			return false;
+			throw new MetadataRejectedException("Metadata from " + metadataConfig.url + " is not valid");
 		} catch (EngineException e)
 		{
 			log.error("Problem establishing certificate for metadata validation " +
 					issuerCertificateName, e);
-			return false;
+			throw new MetadataRejectedException("Metadata from " + metadataConfig.url + " is not valid");
 		}
 	}
 
@@ -154,10 +153,8 @@ public class IdpRemoteMetaManager
 			this.metadataConfig = metadataConfig;
 		}
 		
-		private void updateMetadata(EntitiesDescriptorDocument metadata, String consumerId)
+		private void updateMetadata(LoadedMetadata metadata, String consumerId)
 		{
-			if (!isMetadataValid(metadata, metadataConfig))
-				return;
 			Set<TrustedServiceProvider> trustedIdPs = parseMetadata(metadata, metadataConfig);
 			assembleCombinedConfiguration(trustedIdPs, consumerId);
 		}
@@ -62,70 +62,75 @@ public class MetaToIDPConfigConverter
 		EntitiesDescriptorType meta = metadata.getEntitiesDescriptor();
 		Set<TrustedServiceProvider> overrideConfigurations = new HashSet<>();
 		for (EntityDescriptorType descriptorType : meta.getEntityDescriptorArray())
+			overrideConfigurations.addAll(convertToTrustedSps(descriptorType, samlIdPConfiguration));
+		return overrideConfigurations;
+	}
+
+	protected Set<TrustedServiceProvider> convertToTrustedSps(EntityDescriptorType descriptorType, SAMLIdPConfiguration samlIdPConfiguration)
+	{
+		Set<TrustedServiceProvider> overrideConfigurations = new HashSet<>();
+		SPSSODescriptorType[] spDefs = descriptorType.getSPSSODescriptorArray();
+		RequestAcceptancePolicy trustMode = samlIdPConfiguration.spAcceptPolicy;
+		if (spDefs == null || spDefs.length == 0)
+			return overrideConfigurations;
+
+		SamlEntityId entityId = new SamlEntityId(descriptorType.getEntityID(), null);
+		for (SPSSODescriptorType spDef: spDefs)
 		{
-			SPSSODescriptorType[] spDefs = descriptorType.getSPSSODescriptorArray();
-			RequestAcceptancePolicy trustMode = samlIdPConfiguration.spAcceptPolicy;
-			if (spDefs == null || spDefs.length == 0)
+			TrustedServiceProvider spConfig = samlIdPConfiguration.trustedServiceProviders.getSPConfig(entityId);
+			if(spConfig != null && spConfig.allowedKey != null)
+			{
+				log.trace("SP of entity " + entityId +	" is configured in property, so cannot be overwrite.");
 				continue;
-
-			SamlEntityId entityId = new SamlEntityId(descriptorType.getEntityID(), null);
-			for (SPSSODescriptorType spDef: spDefs)
+			}
+			if (!MetaToConfigConverterHelper.supportsSaml2(spDef))
 			{
-				TrustedServiceProvider spConfig = samlIdPConfiguration.trustedServiceProviders.getSPConfig(entityId);
-				if(spConfig != null && spConfig.allowedKey != null)
-				{
-					log.trace("SP of entity " + entityId +	" is configured in property, so cannot be overwrite.");
-					continue;
-				}
-				if (!MetaToConfigConverterHelper.supportsSaml2(spDef))
-				{
-					log.trace("SP of entity " + entityId +	" doesn't support SAML2 - ignoring.");
-					continue;
-				}
+				log.trace("SP of entity " + entityId +	" doesn't support SAML2 - ignoring.");
+				continue;
+			}
 
-				KeyDescriptorType[] keys = spDef.getKeyDescriptorArray();
-				List<X509Certificate> certs = getSigningCerts(keys, entityId);
-				if (!certs.isEmpty())
+			KeyDescriptorType[] keys = spDef.getKeyDescriptorArray();
+			List<X509Certificate> certs = getSigningCerts(keys, entityId);
+			if (!certs.isEmpty())
+			{
+				try
 				{
-					try
-					{
-						updatePKICerts(certs, entityId, IDP_META_CERT);
-					} catch (EngineException e)
-					{
-						log.error("Adding remote SPs certs to local certs store failed, "
-								+ "skipping IdP: " + entityId, e);
-						continue;
-					}
-				} else if (trustMode == RequestAcceptancePolicy.strict)
+					updatePKICerts(certs, entityId, IDP_META_CERT);
+				} catch (EngineException e)
 				{
-					log.info("No signing certificate found for SP, skipping it as "
-							+ "the 'strict' trust model is used: " + entityId);
+					log.error("Adding remote SPs certs to local certs store failed, "
+							+ "skipping IdP: " + entityId, e);
 					continue;
 				}
+			} else if (trustMode == RequestAcceptancePolicy.strict)
+			{
+				log.info("No signing certificate found for SP, skipping it as "
+						+ "the 'strict' trust model is used: " + entityId);
+				continue;
+			}
 
-				Map<Integer, String> endpointURLs = getEndpointURLs(spDef.getAssertionConsumerServiceArray(),
-						SAMLConstants.BINDING_HTTP_POST);
-				String defaultEndpoint = getDefaultEndpoint(spDef.getAssertionConsumerServiceArray(),
-						SAMLConstants.BINDING_HTTP_POST);
-				if (defaultEndpoint == null || endpointURLs.isEmpty())
-					continue;
+			Map<Integer, String> endpointURLs = getEndpointURLs(spDef.getAssertionConsumerServiceArray(),
+					SAMLConstants.BINDING_HTTP_POST);
+			String defaultEndpoint = getDefaultEndpoint(spDef.getAssertionConsumerServiceArray(),
+					SAMLConstants.BINDING_HTTP_POST);
+			if (defaultEndpoint == null || endpointURLs.isEmpty())
+				continue;
 
-				EndpointType redirectSLOEndpoint = selectEndpointByBinding(spDef.getSingleLogoutServiceArray(),
-						SAMLConstants.BINDING_HTTP_REDIRECT);
-				EndpointType postSLOEndpoint = selectEndpointByBinding(spDef.getSingleLogoutServiceArray(),
-						SAMLConstants.BINDING_HTTP_POST);
-				EndpointType soapSLOEndpoint = selectEndpointByBinding(spDef.getSingleLogoutServiceArray(),
-						SAMLConstants.BINDING_SOAP);
+			EndpointType redirectSLOEndpoint = selectEndpointByBinding(spDef.getSingleLogoutServiceArray(),
+					SAMLConstants.BINDING_HTTP_REDIRECT);
+			EndpointType postSLOEndpoint = selectEndpointByBinding(spDef.getSingleLogoutServiceArray(),
+					SAMLConstants.BINDING_HTTP_POST);
+			EndpointType soapSLOEndpoint = selectEndpointByBinding(spDef.getSingleLogoutServiceArray(),
+					SAMLConstants.BINDING_SOAP);
 
-				UIInfoType uiInfo = MetaToConfigConverterHelper.parseMDUIInfo(spDef.getExtensions(), entityId.id);
-				I18nString name = MetaToConfigConverterHelper.getLocalizedNamesAsI18nString(msg, uiInfo, spDef, descriptorType);
-				I18nString logo = MetaToConfigConverterHelper.getLocalizedLogosAsI18nString(uiInfo);
+			UIInfoType uiInfo = MetaToConfigConverterHelper.parseMDUIInfo(spDef.getExtensions(), entityId.id);
+			I18nString name = MetaToConfigConverterHelper.getLocalizedNamesAsI18nString(msg, uiInfo, spDef, descriptorType);
+			I18nString logo = MetaToConfigConverterHelper.getLocalizedLogosAsI18nString(uiInfo);
 
-				TrustedServiceProvider trustedServiceProvider = generateOverriddenSP(entityId, defaultEndpoint, endpointURLs,
-						soapSLOEndpoint, postSLOEndpoint, redirectSLOEndpoint,
-						samlIdPConfiguration.trustedServiceProviders, certs, name, logo);
-				overrideConfigurations.add(trustedServiceProvider);
-			}
+			TrustedServiceProvider trustedServiceProvider = generateOverriddenSP(entityId, defaultEndpoint, endpointURLs,
+					soapSLOEndpoint, postSLOEndpoint, redirectSLOEndpoint,
+					samlIdPConfiguration.trustedServiceProviders, certs, name, logo);
+			overrideConfigurations.add(trustedServiceProvider);
 		}
 		return overrideConfigurations;
 	}
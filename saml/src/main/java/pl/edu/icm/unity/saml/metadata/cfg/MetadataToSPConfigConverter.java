@@ -12,14 +12,18 @@ import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -45,6 +49,10 @@ import pl.edu.icm.unity.engine.api.PKIManagement;
 import pl.edu.icm.unity.engine.api.pki.NamedCertificate;
 import pl.edu.icm.unity.saml.SAMLEndpointDefinition;
 import pl.edu.icm.unity.saml.SamlProperties.Binding;
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataVerificator.MetadataValidationException;
+import pl.edu.icm.unity.saml.metadata.cfg.StreamingMetadataReader.ReadMetadata;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
+import pl.edu.icm.unity.saml.sp.SAMLSPProperties.MetadataSignatureValidation;
 import pl.edu.icm.unity.saml.sp.config.BaseSamlConfiguration.RemoteMetadataSource;
 import pl.edu.icm.unity.saml.sp.config.TrustedIdPConfiguration;
 import pl.edu.icm.unity.saml.sp.config.TrustedIdPConfiguration.Builder;
@@ -78,6 +86,7 @@ class MetadataToSPConfigConverter
 	
 	private final PKIManagement pkiManagement;
 	private final String defaultLocaleCode;
+	private final StreamingMetadataReader metadataReader = new StreamingMetadataReader();
 	
 	@Autowired
 	MetadataToSPConfigConverter(@Qualifier("insecure") PKIManagement pkiManagement, MessageSource msg)
@@ -99,6 +108,51 @@ class MetadataToSPConfigConverter
 	}
 	
 	
+	/**
+	 * Converts metadata which is read entity by entity, so that the whole parsed metadata is never held in memory.
+	 * Metadata is validated while being read, see {@link StreamingMetadataReader}.
+	 */
+	ConvertedTrustedIdPs convertToTrustedIdPs(LoadedMetadata metadata, Date now, 
+			MetadataSignatureValidation sigValidation, X509Certificate issuerCertificate,
+			RemoteMetadataSource metadataSource) throws MetadataValidationException
+	{
+		return convertToTrustedIdPs(metadata, now, sigValidation, issuerCertificate, metadataSource, null);
+	}
+
+	/**
+	 * As {@link #convertToTrustedIdPs(LoadedMetadata, Date, MetadataSignatureValidation, X509Certificate, 
+	 * RemoteMetadataSource)}, but entities which were not changed since the previous conversion of metadata 
+	 * of the same source are not converted again. This is important for large federations, which sign 
+	 * again and publish their metadata periodically, even if only few entities were changed.
+	 * 
+	 * @param previous result of the previous conversion of metadata of the same source, may be null
+	 */
+	ConvertedTrustedIdPs convertToTrustedIdPs(LoadedMetadata metadata, Date now, 
+			MetadataSignatureValidation sigValidation, X509Certificate issuerCertificate,
+			RemoteMetadataSource metadataSource, ConvertedTrustedIdPs previous) throws MetadataValidationException
+	{
+		Collection<TrustedIdPConfiguration> trustedIdPs = new ArrayList<>();
+		Map<String, ConvertedEntity> entities = new HashMap<>();
+		Map<String, ConvertedEntity> previousEntities = previous == null ? Collections.emptyMap() : previous.entities;
+		AtomicInteger reused = new AtomicInteger();
+		ReadMetadata read = metadataReader.read(metadata, now, sigValidation, issuerCertificate, 
+				(federationMeta, entity, entityHash) -> 
+		{
+			ConvertedEntity converted = previousEntities.get(entityHash);
+			if (converted != null && converted.isConvertedFrom(federationMeta, entity))
+				reused.incrementAndGet();
+			else
+				converted = new ConvertedEntity(federationMeta, entity, 
+						parseEntity(federationMeta, entity, metadataSource));
+			entities.put(entityHash, converted);
+			trustedIdPs.addAll(converted.trustedIdPs);
+		});
+		log.debug("Read {} entities of metadata from {}, reused {} of them converted previously", 
+				entities.size(), metadataSource.url, reused.get());
+		return new ConvertedTrustedIdPs(new TrustedIdPs(trustedIdPs), read.root.getID(), read.root.getName(), 
+				read.validUntil, entities);
+	}
+	
 	private Collection<TrustedIdPConfiguration> convertToTrustedIdPs(EntitiesDescriptorType federationMeta, 
 			RemoteMetadataSource metadataSource)
 	{
@@ -583,4 +637,62 @@ class MetadataToSPConfigConverter
 		if (enName != null && !ret.containsKey(""))
 			ret.put("", enName);
 	}
+
+	/**
+	 * Trusted IdPs converted from metadata together with the information about metadata which is needed 
+	 * to use them later on, without the metadata itself. Trusted IdPs are also kept per entity, 
+	 * by the hash of the entity descriptor, so that they can be reused in the next conversion.
+	 */
+	static class ConvertedTrustedIdPs
+	{
+		final TrustedIdPs trustedIdPs;
+		final String federationId;
+		final String federationName;
+		final List<Calendar> validUntil;
+		private final Map<String, ConvertedEntity> entities;
+
+		ConvertedTrustedIdPs(TrustedIdPs trustedIdPs, String federationId, String federationName,
+				List<Calendar> validUntil)
+		{
+			this(trustedIdPs, federationId, federationName, validUntil, Collections.emptyMap());
+		}
+
+		private ConvertedTrustedIdPs(TrustedIdPs trustedIdPs, String federationId, String federationName,
+				List<Calendar> validUntil, Map<String, ConvertedEntity> entities)
+		{
+			this.trustedIdPs = trustedIdPs;
+			this.federationId = federationId;
+			this.federationName = federationName;
+			this.validUntil = validUntil;
+			this.entities = entities;
+		}
+	}
+	
+	/**
+	 * Trusted IdPs converted from a single entity. Those depend also on the enclosing entities descriptor, 
+	 * so its identification is remembered.
+	 */
+	private static class ConvertedEntity
+	{
+		private final String entityId;
+		private final String federationId;
+		private final String federationName;
+		private final Collection<TrustedIdPConfiguration> trustedIdPs;
+
+		private ConvertedEntity(EntitiesDescriptorType federationMeta, EntityDescriptorType entityMeta, 
+				Collection<TrustedIdPConfiguration> trustedIdPs)
+		{
+			this.entityId = entityMeta.getEntityID();
+			this.federationId = federationMeta.getID();
+			this.federationName = federationMeta.getName();
+			this.trustedIdPs = trustedIdPs;
+		}
+		
+		private boolean isConvertedFrom(EntitiesDescriptorType federationMeta, EntityDescriptorType entityMeta)
+		{
+			return Objects.equals(entityId, entityMeta.getEntityID())
+					&& Objects.equals(federationId, federationMeta.getID())
+					&& Objects.equals(federationName, federationMeta.getName());
+		}
+	}
 }
@@ -5,6 +5,8 @@
 package pl.edu.icm.unity.saml.metadata.cfg;
 
 import java.security.cert.X509Certificate;
+import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 
@@ -32,9 +34,8 @@ public class MetadataVerificator
 			X509Certificate issuerCertificate) throws MetadataValidationException
 	{
 		EntitiesDescriptorType meta = metaDoc.getEntitiesDescriptor();
-		if (meta.isSetValidUntil() && meta.getValidUntil().after(now))
-			throw new MetadataValidationException("Metadata or its part expired on " + 
-					meta.getValidUntil());
+		if (meta.isSetValidUntil())
+			checkNotExpired(meta.getValidUntil(), now);
 		
 		if (sigValidation == MetadataSignatureValidation.require && meta.isSetSignature())
 		{
@@ -66,9 +67,8 @@ public class MetadataVerificator
 	protected void validateSingle(EntityDescriptorType meta, Date now, MetadataSignatureValidation sigValidation, 
 			X509Certificate issuerCertificate) throws MetadataValidationException
 	{
-		if (meta.isSetValidUntil() && meta.getValidUntil().after(now))
-			throw new MetadataValidationException("Metadata or its part expired on " + 
-					meta.getValidUntil());
+		if (meta.isSetValidUntil())
+			checkNotExpired(meta.getValidUntil(), now);
 		if (sigValidation == MetadataSignatureValidation.require)
 		{
 			EntityDescriptorDocument tmp = EntityDescriptorDocument.Factory.newInstance();
@@ -77,6 +77,31 @@ public class MetadataVerificator
 		}
 	}
 
+	/**
+	 * Validates a single entity, which is the root element of the given document.
+	 */
+	void validate(EntityDescriptorDocument entityDoc, Date now, MetadataSignatureValidation sigValidation, 
+			X509Certificate issuerCertificate) throws MetadataValidationException
+	{
+		EntityDescriptorType meta = entityDoc.getEntityDescriptor();
+		if (meta.isSetValidUntil())
+			checkNotExpired(meta.getValidUntil(), now);
+		if (sigValidation == MetadataSignatureValidation.require)
+			validateSignature(issuerCertificate, meta.getEntityID(), (Document) entityDoc.getDomNode());
+	}
+
+	void checkNotExpired(Collection<Calendar> validUntil, Date now) throws MetadataValidationException
+	{
+		for (Calendar date: validUntil)
+			checkNotExpired(date, now);
+	}
+
+	private static void checkNotExpired(Calendar validUntil, Date now) throws MetadataValidationException
+	{
+		if (validUntil.after(now))
+			throw new MetadataValidationException("Metadata or its part expired on " + validUntil);
+	}
+
 	protected void validateSignature(X509Certificate issuerCertificate, String name, Document doc) 
 			throws MetadataValidationException
 	{
@@ -4,6 +4,7 @@
  */
 package pl.edu.icm.unity.saml.metadata.cfg;
 
+import com.google.common.base.Stopwatch;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
@@ -12,20 +13,26 @@ import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.PKIManagement;
 import pl.edu.icm.unity.saml.metadata.cfg.MetadataVerificator.MetadataValidationException;
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataToSPConfigConverter.ConvertedTrustedIdPs;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
+import pl.edu.icm.unity.saml.metadata.srv.MetadataRejectedException;
 import pl.edu.icm.unity.saml.metadata.srv.RemoteMetadataService;
 import pl.edu.icm.unity.saml.sp.config.BaseSamlConfiguration.RemoteMetadataSource;
 import pl.edu.icm.unity.saml.sp.config.SAMLSPConfiguration;
 import pl.edu.icm.unity.saml.sp.config.TrustedIdPs;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
 import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Manages the retrieval, loading and update of runtime configuration based on the remote SAML metadata. 
+ * <p>
+ * The combined trusted IdPs are published as an immutable snapshot, so that authentications reading it 
+ * are not blocked by (possibly long) assembly of updated metadata of large federations.
  * @author K. Benedyczak
  */
 public class SPRemoteMetaManager
@@ -35,21 +42,24 @@ public class SPRemoteMetaManager
 	private final MetadataToSPConfigConverter converter;
 	private final MetadataVerificator verificator;
 	private final RemoteMetadataService metadataService;
+	private final ConvertedTrustedIdPsCache convertedCache;
 	private final Map<String, MetadataConsumer> registeredConsumers = new HashMap<>();
-	private TrustedIdPs combinedTrustedIdPs;
+	private volatile TrustedIdPs combinedTrustedIdPs;
 	private SAMLSPConfiguration configuration;
 	private SPRemoteMetaManager(
 			PKIManagement pkiManagement,
 			MetadataToSPConfigConverter converter,
-			RemoteMetadataService metadataService)
+			RemoteMetadataService metadataService,
+			ConvertedTrustedIdPsCache convertedCache)
 	{
 		this.converter = converter;
 		this.metadataService = metadataService;
+		this.convertedCache = convertedCache;
 		this.verificator = new MetadataVerificator();
 		this.pkiManagement = pkiManagement;
 	}
 
-	public synchronized TrustedIdPs getTrustedIdPs()
+	public TrustedIdPs getTrustedIdPs()
 	{
 		return combinedTrustedIdPs;
 	}
@@ -111,8 +121,14 @@ public class SPRemoteMetaManager
 			//deregistration of a consumer happening at the same time as async refresh
 			return;
 		checkDuplicatedFederations(federationId, consumerId);
+		Stopwatch watch = Stopwatch.createStarted();
 		TrustedIdPs withUpdatedFederation = combinedTrustedIdPs.replaceFederation(idpsFromMeta, federationId);
-		combinedTrustedIdPs = withUpdatedFederation.overrideIdPs(configuration.individualTrustedIdPs);
+		TrustedIdPs updated = withUpdatedFederation.overrideIdPs(configuration.individualTrustedIdPs);
+		//web bindings view is used on each login, so it is built here rather than by the first user
+		updated.withWebBinding();
+		combinedTrustedIdPs = updated;
+		log.debug("Published {} trusted IdPs with updated federation {} in {}", updated.getKeys().size(), 
+				federationId, watch);
 	}
 
 	private void checkDuplicatedFederations(String federationId, String consumerId)
@@ -125,31 +141,42 @@ public class SPRemoteMetaManager
 		});
 	}
 
-	private TrustedIdPs parseMetadata(EntitiesDescriptorDocument metadata, RemoteMetadataSource metadataConfig)
-	{
-		TrustedIdPs trustedIdPs = converter.convertToTrustedIdPs(metadata, metadataConfig);
-		log.trace("Converted metadata from {} to virtual configuration", metadataConfig.url);
-		return trustedIdPs;
-	}
-
-	private boolean isMetadataValid(EntitiesDescriptorDocument metadata, RemoteMetadataSource metadataConfig)
+	/**
+	 * Metadata which was already converted for the same source configuration is not read again,
+	 * however its expiration is checked. Otherwise only its entities which were changed since the previous
+	 * conversion are converted.
+	 */
+	private ConvertedTrustedIdPs parseMetadata(LoadedMetadata metadata, RemoteMetadataSource metadataConfig)
 	{
 		String issuerCertificateName = metadataConfig.issuerCertificate;
 		try
 		{
 			X509Certificate issuerCertificate = issuerCertificateName != null ? 
 					pkiManagement.getCertificate(issuerCertificateName).value: null;
-			verificator.validate(metadata, new Date(), metadataConfig.signatureValidation, issuerCertificate);
-			return true;
+			Date now = new Date();
+			Optional<ConvertedTrustedIdPs> cached = convertedCache.get(metadata.getContentHash(), 
+					metadataConfig, issuerCertificate);
+			if (cached.isPresent())
+			{
+				verificator.checkNotExpired(cached.get().validUntil, now);
+				log.debug("Using trusted IdPs previously converted from metadata of {}", metadataConfig.url);
+				return cached.get();
+			}
+			ConvertedTrustedIdPs previous = convertedCache.getLastConverted(metadataConfig).orElse(null);
+			ConvertedTrustedIdPs converted = converter.convertToTrustedIdPs(metadata, now, 
+					metadataConfig.signatureValidation, issuerCertificate, metadataConfig, previous);
+			convertedCache.put(metadata.getContentHash(), metadataConfig, issuerCertificate, converted);
+			log.trace("Converted metadata from {} to virtual configuration", metadataConfig.url);
+			return converted;
 		} catch (MetadataValidationException e)
 		{
 			log.error("Metadata from " + metadataConfig.url + " is invalid, won't be used", e);
-			return false;
+			throw new MetadataRejectedException("Metadata from " + metadataConfig.url + " is not valid");
 		} catch (EngineException e)
 		{
 			log.error("Problem establishing certificate for metadata validation " + 
 					issuerCertificateName, e);
-			return false;
+			throw new MetadataRejectedException("Metadata from " + metadataConfig.url + " is not valid");
 		}
 	}
 	
@@ -163,12 +190,11 @@ public class SPRemoteMetaManager
 			this.metadataConfig = metadataConfig;
 		}
 		
-		private void onUpdatedMetadata(EntitiesDescriptorDocument metadata, String consumerId)
+		private void onUpdatedMetadata(LoadedMetadata metadata, String consumerId)
 		{
-			if (!isMetadataValid(metadata, metadataConfig))
-				return;
-			TrustedIdPs idpsFromMeta = parseMetadata(metadata, metadataConfig);
-			String federationId = metadata.getEntitiesDescriptor().getID();
+			ConvertedTrustedIdPs converted = parseMetadata(metadata, metadataConfig);
+			TrustedIdPs idpsFromMeta = converted.trustedIdPs;
+			String federationId = converted.federationId;
 			if (this.federationId == null)
 				this.federationId = federationId;
 			else if (!this.federationId.equals(federationId))
@@ -184,6 +210,7 @@ public class SPRemoteMetaManager
 		private final PKIManagement pkiManagement;
 		private final MetadataToSPConfigConverter converter;
 		private final RemoteMetadataService metadataService;
+		private final ConvertedTrustedIdPsCache convertedCache = new ConvertedTrustedIdPsCache();
 
 		Factory(@Qualifier("insecure") PKIManagement pkiManagement,
 				MetadataToSPConfigConverter converter,
@@ -196,7 +223,7 @@ public class SPRemoteMetaManager
 
 		public SPRemoteMetaManager getInstance()
 		{
-			return new SPRemoteMetaManager(pkiManagement, converter, metadataService);
+			return new SPRemoteMetaManager(pkiManagement, converter, metadataService, convertedCache);
 		}
 	}
 }
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.cfg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.cert.X509Certificate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.xmlbeans.XmlException;
+
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataVerificator.MetadataValidationException;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
+import pl.edu.icm.unity.saml.sp.SAMLSPProperties.MetadataSignatureValidation;
+import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
+import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorType;
+import xmlbeans.org.oasis.saml2.metadata.EntityDescriptorDocument;
+import xmlbeans.org.oasis.saml2.metadata.EntityDescriptorType;
+
+/**
+ * Reads SAML federation metadata entity by entity, so that the whole metadata is never loaded into memory.
+ * Each entity descriptor is parsed separately and passed to a handler, together with its enclosing
+ * entities descriptor, which is parsed without its contents, and with SHA-256 hash of the entity descriptor,
+ * so that handlers can recognize entities which were not changed since metadata was read previously.
+ * <p>
+ * Metadata is validated in the same way as with {@link MetadataVerificator}. If signature is required and
+ * the whole metadata is signed, the signature is verified with {@link StreamingSignatureVerifier} in a separate
+ * pass over metadata, before any entity is handled. Otherwise each entity is validated before it is handled,
+ * and if an entity is invalid the whole metadata is rejected, but the entities read before were already handled.
+ * Signatures of nested entities descriptors are not verified, so entities of a nested descriptor must be signed
+ * individually if signature is required and the whole metadata is not signed.
+ */
+class StreamingMetadataReader
+{
+	private static final XMLInputFactory INPUT_FACTORY = createXMLInputFactory();
+	private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+	private static final QName ENTITIES_DESCRIPTOR = EntitiesDescriptorDocument.type.getDocumentElementName();
+	private static final QName ENTITY_DESCRIPTOR = EntityDescriptorDocument.type.getDocumentElementName();
+	private final MetadataVerificator verificator;
+	private final StreamingSignatureVerifier signatureVerifier;
+
+	StreamingMetadataReader()
+	{
+		this.verificator = new MetadataVerificator();
+		this.signatureVerifier = new StreamingSignatureVerifier();
+	}
+
+	/**
+	 * @return root entities descriptor, without its contents, and expiration dates of the validated
+	 * parts of metadata.
+	 */
+	ReadMetadata read(LoadedMetadata metadata, Date now, MetadataSignatureValidation sigValidation,
+			X509Certificate issuerCertificate, EntityHandler handler) throws MetadataValidationException
+	{
+		boolean signatureVerified = false;
+		if (sigValidation == MetadataSignatureValidation.require)
+		{
+			if (issuerCertificate == null)
+				throw new MetadataValidationException("Metadata signature is required, "
+						+ "but the metadata issuer certificate is not set");
+			signatureVerified = signatureVerifier.verifyIfSigned(metadata.openStream(),
+					issuerCertificate.getPublicKey());
+		}
+		try (InputStream is = metadata.openStream())
+		{
+			XMLStreamReader reader = createXMLStreamReader(is);
+			try
+			{
+				reader.nextTag();
+				checkRoot(reader);
+				ReadingContext ctx = new ReadingContext(now, sigValidation, issuerCertificate,
+						signatureVerified, handler);
+				EntitiesDescriptorType root = readEntitiesDescriptor(reader, ctx, true);
+				return new ReadMetadata(root, ctx.validUntil);
+			} finally
+			{
+				reader.close();
+			}
+		} catch (XMLStreamException | XmlException | IOException e)
+		{
+			throw new MetadataValidationException("Can not parse metadata", e);
+		}
+	}
+
+	/**
+	 * Reads only the start of metadata, which is not validated in any way.
+	 * @return root entities descriptor, without its contents
+	 */
+	EntitiesDescriptorType readRoot(LoadedMetadata metadata) throws MetadataValidationException
+	{
+		try (InputStream is = metadata.openStream())
+		{
+			XMLStreamReader reader = createXMLStreamReader(is);
+			try
+			{
+				reader.nextTag();
+				checkRoot(reader);
+				return EntitiesDescriptorDocument.Factory.parse(new ByteArrayInputStream(
+						copy(reader, new ArrayDeque<>(), false))).getEntitiesDescriptor();
+			} finally
+			{
+				reader.close();
+			}
+		} catch (XMLStreamException | XmlException | IOException e)
+		{
+			throw new MetadataValidationException("Can not parse metadata", e);
+		}
+	}
+
+	private static void checkRoot(XMLStreamReader reader) throws MetadataValidationException
+	{
+		if (!ENTITIES_DESCRIPTOR.equals(reader.getName()))
+			throw new MetadataValidationException("Metadata root element is " + reader.getName()
+					+ " while " + ENTITIES_DESCRIPTOR + " is expected");
+	}
+
+	private EntitiesDescriptorType readEntitiesDescriptor(XMLStreamReader reader, ReadingContext ctx,
+			boolean root) throws XMLStreamException, XmlException, IOException, MetadataValidationException
+	{
+		byte[] withoutContents = copy(reader, ctx.namespaces, false);
+		EntitiesDescriptorDocument descriptorDoc = EntitiesDescriptorDocument.Factory.parse(
+				new ByteArrayInputStream(withoutContents));
+		EntitiesDescriptorType descriptor = descriptorDoc.getEntitiesDescriptor();
+		if (root || !ctx.signatureVerified)
+		{
+			verificator.validate(descriptorDoc, ctx.now, MetadataSignatureValidation.ignore, null);
+			addValidUntil(ctx, descriptor.isSetValidUntil() ? descriptor.getValidUntil() : null);
+		}
+		ctx.namespaces.push(getDeclaredNamespaces(reader));
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT)
+		{
+			if (ENTITIES_DESCRIPTOR.equals(reader.getName()))
+			{
+				readEntitiesDescriptor(reader, ctx, false);
+			} else if (ENTITY_DESCRIPTOR.equals(reader.getName()))
+			{
+				byte[] entityBytes = copy(reader, ctx.namespaces, true);
+				EntityDescriptorDocument entityDoc = EntityDescriptorDocument.Factory.parse(
+						new ByteArrayInputStream(entityBytes));
+				EntityDescriptorType entity = entityDoc.getEntityDescriptor();
+				if (!ctx.signatureVerified)
+				{
+					verificator.validate(entityDoc, ctx.now, ctx.sigValidation, ctx.issuerCertificate);
+					addValidUntil(ctx, entity.isSetValidUntil() ? entity.getValidUntil() : null);
+				}
+				ctx.handler.handle(descriptor, entity, DigestUtils.sha256Hex(entityBytes));
+			} else
+			{
+				skipElement(reader);
+			}
+		}
+		ctx.namespaces.pop();
+		return descriptor;
+	}
+
+	private static void addValidUntil(ReadingContext ctx, Calendar validUntil)
+	{
+		if (validUntil != null)
+			ctx.validUntil.add(validUntil);
+	}
+
+	/**
+	 * Copies the current element into a standalone document, with all namespaces which are in scope.
+	 * The reader is left at the end of the element if its contents is copied, otherwise at its start.
+	 */
+	private static byte[] copy(XMLStreamReader reader, Deque<Map<String, String>> namespaces,
+			boolean withContents) throws XMLStreamException
+	{
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(output, "UTF-8");
+		writer.writeStartDocument("UTF-8", "1.0");
+		Map<String, String> inScope = new LinkedHashMap<>();
+		namespaces.descendingIterator().forEachRemaining(inScope::putAll);
+		inScope.putAll(getDeclaredNamespaces(reader));
+		writeStartElement(reader, writer, inScope);
+		int depth = withContents ? 1 : 0;
+		while (depth > 0)
+		{
+			switch (reader.next())
+			{
+			case XMLStreamConstants.START_ELEMENT:
+				writeStartElement(reader, writer, getDeclaredNamespaces(reader));
+				depth++;
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				writer.writeEndElement();
+				depth--;
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				break;
+			case XMLStreamConstants.COMMENT:
+				writer.writeComment(reader.getText());
+				break;
+			case XMLStreamConstants.PROCESSING_INSTRUCTION:
+				writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+				break;
+			default:
+			}
+		}
+		if (!withContents)
+			writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		return output.toByteArray();
+	}
+
+	private static void writeStartElement(XMLStreamReader reader, XMLStreamWriter writer,
+			Map<String, String> namespaces) throws XMLStreamException
+	{
+		writer.writeStartElement(nullToEmpty(reader.getPrefix()), reader.getLocalName(),
+				nullToEmpty(reader.getNamespaceURI()));
+		for (Map.Entry<String, String> namespace: namespaces.entrySet())
+		{
+			if (namespace.getKey().isEmpty())
+				writer.writeDefaultNamespace(namespace.getValue());
+			else
+				writer.writeNamespace(namespace.getKey(), namespace.getValue());
+		}
+		for (int i = 0; i < reader.getAttributeCount(); i++)
+		{
+			String namespace = reader.getAttributeNamespace(i);
+			if (namespace == null || namespace.isEmpty())
+				writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+			else
+				writer.writeAttribute(nullToEmpty(reader.getAttributePrefix(i)), namespace,
+						reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+		}
+	}
+
+	private static Map<String, String> getDeclaredNamespaces(XMLStreamReader reader)
+	{
+		Map<String, String> ret = new LinkedHashMap<>();
+		for (int i = 0; i < reader.getNamespaceCount(); i++)
+			ret.put(nullToEmpty(reader.getNamespacePrefix(i)), nullToEmpty(reader.getNamespaceURI(i)));
+		return ret;
+	}
+
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException
+	{
+		int depth = 1;
+		while (depth > 0)
+		{
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+				depth++;
+			else if (event == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+	}
+
+	private static String nullToEmpty(String value)
+	{
+		return value == null ? "" : value;
+	}
+
+	static XMLStreamReader createXMLStreamReader(InputStream is) throws XMLStreamException
+	{
+		return INPUT_FACTORY.createXMLStreamReader(is);
+	}
+
+	private static XMLInputFactory createXMLInputFactory()
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	@FunctionalInterface
+	interface EntityHandler
+	{
+		void handle(EntitiesDescriptorType enclosingDescriptor, EntityDescriptorType entity, String entityHash);
+	}
+
+	static class ReadMetadata
+	{
+		final EntitiesDescriptorType root;
+		final List<Calendar> validUntil;
+
+		private ReadMetadata(EntitiesDescriptorType root, Set<Calendar> validUntil)
+		{
+			this.root = root;
+			this.validUntil = new ArrayList<>(validUntil);
+		}
+	}
+
+	private static class ReadingContext
+	{
+		private final Date now;
+		private final MetadataSignatureValidation sigValidation;
+		private final X509Certificate issuerCertificate;
+		private final boolean signatureVerified;
+		private final EntityHandler handler;
+		private final Deque<Map<String, String>> namespaces = new ArrayDeque<>();
+		private final Set<Calendar> validUntil = new HashSet<>();
+
+		private ReadingContext(Date now, MetadataSignatureValidation sigValidation,
+				X509Certificate issuerCertificate, boolean signatureVerified, EntityHandler handler)
+		{
+			this.now = now;
+			this.sigValidation = sigValidation;
+			this.issuerCertificate = issuerCertificate;
+			this.signatureVerified = signatureVerified;
+			this.handler = handler;
+		}
+	}
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.cfg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.stax.ext.Transformer;
+import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
+import org.apache.xml.security.stax.ext.stax.XMLSecEventFactory;
+import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
+import org.apache.xml.security.stax.impl.transformer.canonicalizer.Canonicalizer11_OmitCommentsTransformer;
+import org.apache.xml.security.stax.impl.transformer.canonicalizer.Canonicalizer20010315_Excl;
+import org.apache.xml.security.stax.impl.transformer.canonicalizer.Canonicalizer20010315_ExclOmitCommentsTransformer;
+import org.apache.xml.security.stax.impl.transformer.canonicalizer.Canonicalizer20010315_OmitCommentsTransformer;
+
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataVerificator.MetadataValidationException;
+
+/**
+ * Verifies the enveloped signature of the root element of metadata, reading the metadata as a stream
+ * of XML events. The digest of the root element is computed incrementally from its canonical form,
+ * so the memory needed for verification doesn't depend on the size of the metadata.
+ * <p>
+ * Only signatures of the form used to sign SAML metadata are supported: the signature must be the first child
+ * of the root element and must have a single reference to the root element, with the enveloped signature
+ * transform, optionally followed by a canonicalization transform. Canonicalization is performed with
+ * the streaming canonicalizers of Apache Santuario.
+ */
+class StreamingSignatureVerifier
+{
+	private static final String DSIG_NS = "http://www.w3.org/2000/09/xmldsig#";
+	private static final String ENVELOPED_SIGNATURE = DSIG_NS + "enveloped-signature";
+	private static final String EXCL_C14N = "http://www.w3.org/2001/10/xml-exc-c14n#";
+	private static final String C14N = "http://www.w3.org/TR/2001/REC-xml-c14n-20010315";
+	private static final String C14N_11 = "http://www.w3.org/2006/12/xml-c14n11";
+	private static final Map<String, String> DIGEST_ALGORITHMS = Map.of(
+			DSIG_NS + "sha1", "SHA-1",
+			"http://www.w3.org/2001/04/xmlenc#sha256", "SHA-256",
+			"http://www.w3.org/2001/04/xmldsig-more#sha384", "SHA-384",
+			"http://www.w3.org/2001/04/xmlenc#sha512", "SHA-512");
+	private static final Map<String, String> SIGNATURE_ALGORITHMS = Map.of(
+			DSIG_NS + "rsa-sha1", "SHA1withRSA",
+			"http://www.w3.org/2001/04/xmldsig-more#rsa-sha256", "SHA256withRSA",
+			"http://www.w3.org/2001/04/xmldsig-more#rsa-sha384", "SHA384withRSA",
+			"http://www.w3.org/2001/04/xmldsig-more#rsa-sha512", "SHA512withRSA",
+			"http://www.w3.org/2001/04/xmldsig-more#ecdsa-sha1", "SHA1withECDSAinP1363Format",
+			"http://www.w3.org/2001/04/xmldsig-more#ecdsa-sha256", "SHA256withECDSAinP1363Format",
+			"http://www.w3.org/2001/04/xmldsig-more#ecdsa-sha384", "SHA384withECDSAinP1363Format",
+			"http://www.w3.org/2001/04/xmldsig-more#ecdsa-sha512", "SHA512withECDSAinP1363Format",
+			DSIG_NS + "dsa-sha1", "SHA1withDSAinP1363Format");
+
+	/**
+	 * @return false if the root element is not signed
+	 * @throws MetadataValidationException if the signature is invalid or can not be verified
+	 */
+	boolean verifyIfSigned(InputStream metadata, PublicKey key) throws MetadataValidationException
+	{
+		try (InputStream is = metadata)
+		{
+			XMLStreamReader reader = StreamingMetadataReader.createXMLStreamReader(is);
+			try
+			{
+				return verifyIfSigned(reader, key);
+			} finally
+			{
+				reader.close();
+			}
+		} catch (XMLStreamException | XMLSecurityException | IOException e)
+		{
+			throw new MetadataValidationException("Verification of metadata's signature failed", e);
+		}
+	}
+
+	private boolean verifyIfSigned(XMLStreamReader reader, PublicKey key)
+			throws XMLStreamException, XMLSecurityException, MetadataValidationException
+	{
+		reader.nextTag();
+		XMLSecStartElement root = (XMLSecStartElement) XMLSecEventFactory.allocate(reader, null);
+		String rootId = reader.getAttributeValue(null, MetadataVerificator.ID_QNAME.getLocalName());
+		String name = reader.getAttributeValue(null, "Name");
+		List<XMLSecEvent> beforeSignature = new ArrayList<>();
+		beforeSignature.add(root);
+		while (reader.next() != XMLStreamConstants.START_ELEMENT)
+		{
+			if (reader.getEventType() == XMLStreamConstants.END_ELEMENT)
+				return false;
+			beforeSignature.add(XMLSecEventFactory.allocate(reader, root));
+		}
+		if (!DSIG_NS.equals(reader.getNamespaceURI()) || !"Signature".equals(reader.getLocalName()))
+			return false;
+
+		SignatureData signature = readSignature(reader, root);
+		checkReference(signature, rootId, name);
+		verifySignatureValue(signature, key, name);
+
+		MessageDigest digest = getDigest(signature.digestMethod);
+		Transformer canonicalizer = createCanonicalizer(signature.referenceCanonicalization,
+				signature.referenceInclusivePrefixes,
+				new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+		for (XMLSecEvent event: beforeSignature)
+			canonicalizer.transform(event);
+		XMLSecStartElement current = root;
+		while (current != null)
+		{
+			reader.next();
+			XMLSecEvent event = XMLSecEventFactory.allocate(reader, current);
+			canonicalizer.transform(event);
+			if (event.isStartElement())
+				current = (XMLSecStartElement) event;
+			else if (event.isEndElement())
+				current = current.getParentXMLSecStartElement();
+		}
+		canonicalizer.doFinal();
+
+		if (!MessageDigest.isEqual(digest.digest(), decode(signature.digestValue, name)))
+			throw new MetadataValidationException("Verification of metadata's signature failed for "
+					+ name + ": digest of the signed metadata doesn't match");
+		return true;
+	}
+
+	private SignatureData readSignature(XMLStreamReader reader, XMLSecStartElement root)
+			throws XMLStreamException, MetadataValidationException
+	{
+		SignatureData signature = new SignatureData();
+		XMLSecStartElement current = (XMLSecStartElement) XMLSecEventFactory.allocate(reader, root);
+		StringBuilder text = new StringBuilder();
+		while (current != root)
+		{
+			reader.next();
+			XMLSecEvent event = XMLSecEventFactory.allocate(reader, current);
+			if (isInSignedInfo(event, current))
+				signature.signedInfo.add(event);
+			if (event.isStartElement())
+			{
+				current = (XMLSecStartElement) event;
+				text.setLength(0);
+				readSignatureElement(reader, signature);
+			} else if (event.isEndElement())
+			{
+				if (isSignatureElement(current, "DigestValue"))
+					signature.digestValue = text.toString();
+				else if (isSignatureElement(current, "SignatureValue"))
+					signature.signatureValue = text.toString();
+				current = current.getParentXMLSecStartElement();
+			} else if (event.isCharacters())
+			{
+				text.append(event.asCharacters().getText());
+			}
+		}
+		return signature;
+	}
+
+	private void readSignatureElement(XMLStreamReader reader, SignatureData signature)
+			throws MetadataValidationException
+	{
+		String algorithm = reader.getAttributeValue(null, "Algorithm");
+		if (EXCL_C14N.equals(reader.getNamespaceURI()) && "InclusiveNamespaces".equals(reader.getLocalName()))
+		{
+			List<String> prefixes = getPrefixList(reader.getAttributeValue(null, "PrefixList"));
+			if (signature.transforms.isEmpty())
+				signature.signedInfoInclusivePrefixes = prefixes;
+			else
+				signature.referenceInclusivePrefixes = prefixes;
+			return;
+		}
+		if (!DSIG_NS.equals(reader.getNamespaceURI()))
+			return;
+		switch (reader.getLocalName())
+		{
+		case "CanonicalizationMethod":
+			signature.signedInfoCanonicalization = algorithm;
+			break;
+		case "SignatureMethod":
+			signature.signatureMethod = algorithm;
+			break;
+		case "Reference":
+			if (signature.referenceURI != null)
+				throw new MetadataValidationException("Metadata signature with more then one reference "
+						+ "is not supported");
+			signature.referenceURI = reader.getAttributeValue(null, "URI");
+			if (signature.referenceURI == null)
+				throw new MetadataValidationException("Metadata signature reference has no URI");
+			break;
+		case "Transform":
+			signature.transforms.add(algorithm);
+			break;
+		case "DigestMethod":
+			signature.digestMethod = algorithm;
+			break;
+		default:
+		}
+	}
+
+	private static boolean isInSignedInfo(XMLSecEvent event, XMLSecStartElement current)
+	{
+		if (event.isStartElement())
+			current = (XMLSecStartElement) event;
+		for (XMLSecStartElement element = current; element != null;
+				element = element.getParentXMLSecStartElement())
+			if (isSignatureElement(element, "SignedInfo"))
+				return true;
+		return false;
+	}
+
+	private static boolean isSignatureElement(XMLSecStartElement element, String localName)
+	{
+		return DSIG_NS.equals(element.getName().getNamespaceURI())
+				&& localName.equals(element.getName().getLocalPart());
+	}
+
+	private void verifySignatureValue(SignatureData signature, PublicKey key, String name)
+			throws MetadataValidationException, XMLStreamException, XMLSecurityException
+	{
+		String jcaAlgorithm = SIGNATURE_ALGORITHMS.get(signature.signatureMethod);
+		if (jcaAlgorithm == null)
+			throw new MetadataValidationException("Unsupported metadata signature algorithm "
+					+ signature.signatureMethod);
+		ByteArrayOutputStream canonicalSignedInfo = new ByteArrayOutputStream();
+		Transformer canonicalizer = createCanonicalizer(signature.signedInfoCanonicalization,
+				signature.signedInfoInclusivePrefixes, canonicalSignedInfo);
+		for (XMLSecEvent event: signature.signedInfo)
+			canonicalizer.transform(event);
+		canonicalizer.doFinal();
+		try
+		{
+			Signature verifier = Signature.getInstance(jcaAlgorithm);
+			verifier.initVerify(key);
+			verifier.update(canonicalSignedInfo.toByteArray());
+			if (!verifier.verify(decode(signature.signatureValue, name)))
+				throw new MetadataValidationException("Verification of metadata's signature failed for "
+						+ name);
+		} catch (GeneralSecurityException e)
+		{
+			throw new MetadataValidationException("Verification of metadata's signature failed for "
+					+ name, e);
+		}
+	}
+
+	private void checkReference(SignatureData signature, String rootId, String name)
+			throws MetadataValidationException
+	{
+		if (signature.referenceURI == null)
+			throw new MetadataValidationException("Metadata signature has no reference");
+		if (!signature.referenceURI.isEmpty() && !signature.referenceURI.equals("#" + rootId))
+			throw new MetadataValidationException("Signature of metadata " + name
+					+ " doesn't refer to the whole metadata, but to " + signature.referenceURI);
+		List<String> transforms = signature.transforms;
+		if (transforms.isEmpty() || !ENVELOPED_SIGNATURE.equals(transforms.get(0)) || transforms.size() > 2)
+			throw new MetadataValidationException("Unsupported transforms of metadata signature: "
+					+ transforms);
+		signature.referenceCanonicalization = transforms.size() == 2 ? transforms.get(1) : C14N;
+	}
+
+	private static MessageDigest getDigest(String algorithm) throws MetadataValidationException
+	{
+		String jcaAlgorithm = DIGEST_ALGORITHMS.get(algorithm);
+		if (jcaAlgorithm == null)
+			throw new MetadataValidationException("Unsupported metadata digest algorithm " + algorithm);
+		try
+		{
+			return MessageDigest.getInstance(jcaAlgorithm);
+		} catch (GeneralSecurityException e)
+		{
+			throw new MetadataValidationException("Unsupported metadata digest algorithm " + algorithm, e);
+		}
+	}
+
+	private static Transformer createCanonicalizer(String algorithm, List<String> inclusivePrefixes,
+			OutputStream output) throws MetadataValidationException, XMLSecurityException
+	{
+		Transformer canonicalizer;
+		if (EXCL_C14N.equals(algorithm))
+		{
+			canonicalizer = new Canonicalizer20010315_ExclOmitCommentsTransformer();
+			Map<String, Object> properties = new HashMap<>();
+			properties.put(Canonicalizer20010315_Excl.INCLUSIVE_NAMESPACES_PREFIX_LIST, inclusivePrefixes);
+			canonicalizer.setProperties(properties);
+		} else if (C14N.equals(algorithm))
+		{
+			canonicalizer = new Canonicalizer20010315_OmitCommentsTransformer();
+		} else if (C14N_11.equals(algorithm))
+		{
+			canonicalizer = new Canonicalizer11_OmitCommentsTransformer();
+		} else
+		{
+			throw new MetadataValidationException("Unsupported canonicalization of metadata signature "
+					+ algorithm);
+		}
+		canonicalizer.setOutputStream(output);
+		return canonicalizer;
+	}
+
+	private static List<String> getPrefixList(String prefixList)
+	{
+		return prefixList == null || prefixList.isBlank() ? List.of() : Arrays.asList(prefixList.trim().split("\\s+"));
+	}
+
+	private static byte[] decode(String base64, String name) throws MetadataValidationException
+	{
+		if (base64 == null)
+			throw new MetadataValidationException("Signature of metadata " + name + " is incomplete");
+		try
+		{
+			return Base64.getMimeDecoder().decode(base64);
+		} catch (IllegalArgumentException e)
+		{
+			throw new MetadataValidationException("Signature of metadata " + name + " is malformed", e);
+		}
+	}
+
+	private static class SignatureData
+	{
+		private final List<XMLSecEvent> signedInfo = new ArrayList<>();
+		private final List<String> transforms = new ArrayList<>();
+		private String signedInfoCanonicalization;
+		private List<String> signedInfoInclusivePrefixes = List.of();
+		private String signatureMethod;
+		private String referenceURI;
+		private String referenceCanonicalization;
+		private List<String> referenceInclusivePrefixes = List.of();
+		private String digestMethod;
+		private String digestValue;
+		private String signatureValue;
+	}
+}
@@ -4,55 +4,48 @@
  */
 package pl.edu.icm.unity.saml.metadata.srv;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Logger;
-import org.apache.xmlbeans.XmlException;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.file.FileData;
 import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.engine.api.files.ConditionalFileData;
 import pl.edu.icm.unity.engine.api.files.FileStorageService;
+import pl.edu.icm.unity.engine.api.files.RemoteFileVersion;
 import pl.edu.icm.unity.engine.api.files.URIAccessService;
 import pl.edu.icm.unity.engine.api.files.URIHelper;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
-import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Downloads on demand a remote metadata file and caches it on disk. 
- * Allows for returning recently loaded file. 
+ * Allows for returning recently loaded file. Metadata is returned in its raw form and is not parsed here: 
+ * consumers read it entity by entity and keep in memory only what they convert it to.
+ * <p>
+ * Version and content hash of the last loaded remote metadata are remembered, so that refreshes of 
+ * not modified metadata can skip its download (with a conditional HTTP request) or at least its processing.
  * 
  * @author K. Benedyczak
  */
 public class CachedMetadataLoader
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_SAML, CachedMetadataLoader.class);
-	private final Duration PARSED_META_CACHE_TTL = Duration.ofHours(1);
 	private static final String CACHE_DIR = "downloadedMetadata";
 	private final URIAccessService uriAccessService;
 	private final FileStorageService fileStorageService;
 	private final MetadataDownloader downloader;
-	private final Cache<String, EntitiesDescriptorDocument> parsedMetaCache;
-
+	private final Map<String, LoadedMetadataVersion> loadedVersions = new ConcurrentHashMap<>();
 	
 	public CachedMetadataLoader(URIAccessService uriAccessService, FileStorageService fileStorageService)
 	{
-		this.fileStorageService = fileStorageService;
-		this.uriAccessService = uriAccessService;
-		this.downloader = new MetadataDownloader(uriAccessService);
-		this.parsedMetaCache = CacheBuilder.newBuilder()
-				.expireAfterAccess(PARSED_META_CACHE_TTL).build();
+		this(uriAccessService, fileStorageService, new MetadataDownloader(uriAccessService));
 	}
 	
 	CachedMetadataLoader(URIAccessService uriAccessService, FileStorageService fileStorageService, MetadataDownloader metadataDownloader)
@@ -60,47 +53,65 @@ public class CachedMetadataLoader
 		this.fileStorageService = fileStorageService;
 		this.uriAccessService = uriAccessService;
 		this.downloader = metadataDownloader;
-		this.parsedMetaCache = CacheBuilder.newBuilder()
-				.expireAfterAccess(PARSED_META_CACHE_TTL).build();
 	}
 	
 	/**
 	 * If url is local file, then return metadata read from it, in other case try to
 	 * download a remote file, cache it and read what is cached.
 	 */
-	public EntitiesDescriptorDocument getFresh(String rawUri, String customTruststore)
-			throws EngineException, IOException, XmlException, InterruptedException
+	public LoadedMetadata getFresh(String rawUri, String customTruststore)
+			throws EngineException, IOException, InterruptedException
 	{
 		URI uri = URIHelper.parseURI(rawUri);
 
-		EntitiesDescriptorDocument doc;
 		if (!URIHelper.isWebReady(uri))
+			return loadFile(uriAccessService.readURI(uri));
+		
+		FileData data = downloader.download(uri, customTruststore);
+		LoadedMetadata metadata = loadFile(storeInWorkspace(uri, data.getContents()));
+		loadedVersions.put(rawUri, new LoadedMetadataVersion(RemoteFileVersion.UNKNOWN, 
+				metadata.getContentHash()));
+		return metadata;
+	}
+	
+	/**
+	 * As {@link #getFresh(String, String)}, but remote metadata which was not changed since it was 
+	 * previously loaded by this object is not returned nor cached again.
+	 * 
+	 * @return empty if the remote metadata was not changed
+	 */
+	public Optional<LoadedMetadata> getFreshIfChanged(String rawUri, String customTruststore)
+			throws EngineException, IOException, InterruptedException
+	{
+		URI uri = URIHelper.parseURI(rawUri);
+		if (!URIHelper.isWebReady(uri))
+			return Optional.of(getFresh(rawUri, customTruststore));
+		
+		LoadedMetadataVersion loaded = loadedVersions.get(rawUri);
+		RemoteFileVersion knownVersion = loaded == null ? RemoteFileVersion.UNKNOWN : loaded.version;
+		ConditionalFileData downloaded = downloader.downloadIfModified(uri, customTruststore, knownVersion);
+		if (downloaded.getFile().isEmpty())
+			return Optional.empty();
+		
+		byte[] contents = downloaded.getFile().get().getContents();
+		String contentHash = DigestUtils.sha256Hex(contents);
+		if (loaded != null && loaded.contentHash.equals(contentHash))
 		{
-			doc = EntitiesDescriptorDocument.Factory
-					.parse(new ByteArrayInputStream(uriAccessService.readURI(uri).getContents()));
-		} else
-		{
-			doc = loadFile(downloadAndCache(uri, customTruststore));
+			log.debug("Metadata downloaded from {} is the same as previously loaded", uri);
+			loadedVersions.put(rawUri, new LoadedMetadataVersion(downloaded.version, contentHash));
+			return Optional.empty();
 		}
-		addMetaToMemoryCache(rawUri, doc);
-		return doc;
-
+		storeInWorkspace(uri, contents);
+		loadedVersions.put(rawUri, new LoadedMetadataVersion(downloaded.version, contentHash));
+		return Optional.of(new LoadedMetadata(contents, contentHash));
 	}
 	
 
 	/**
-	 * @return null if there is no locally cached file or its handle
+	 * @return empty if there is no locally cached file
 	 */
-	public Optional<EntitiesDescriptorDocument> getCached(String uri)
-			throws XmlException, IOException, InterruptedException
+	public Optional<LoadedMetadata> getCached(String uri)
 	{
-		EntitiesDescriptorDocument cached = parsedMetaCache.getIfPresent(uri);
-		if (cached != null)
-		{
-			log.debug("Get metadata file for "+ uri + " from memory cache");
-			return Optional.of(cached);
-		}
-		
 		FileData data;
 		try
 		{
@@ -110,32 +121,19 @@ public class CachedMetadataLoader
 			return Optional.empty();
 		}
 		log.debug("Get metadata file for "+ uri + " from downloaded files cache");
-		EntitiesDescriptorDocument doc = loadFile(data);
-		addMetaToMemoryCache(uri, doc);
-		return Optional.of(doc);
+		return Optional.of(loadFile(data));
 	}
 	
-	private void addMetaToMemoryCache(String uri, EntitiesDescriptorDocument doc)
+	private LoadedMetadata loadFile(FileData file)
 	{
-		log.trace("Add metadata file for " + uri + " to memory cache");
-		parsedMetaCache.put(uri, doc);
-	}
-	
-	private EntitiesDescriptorDocument loadFile(FileData file) throws XmlException, IOException, InterruptedException
-	{
-		try (InputStream is = new BufferedInputStream(new ByteArrayInputStream(file.getContents())))
-		{
-			String metadata = IOUtils.toString(is, Charset.defaultCharset());
-			log.trace("Read metadata:\n{}", metadata);
-			EntitiesDescriptorDocument doc = EntitiesDescriptorDocument.Factory.parse(metadata);
-			return doc;
-		}
+		if (log.isTraceEnabled())
+			log.trace("Read metadata:\n{}", new String(file.getContents(), StandardCharsets.UTF_8));
+		return new LoadedMetadata(file.getContents());
 	}
 	
-	private FileData downloadAndCache(URI uri, String customTruststore) throws IOException, EngineException
+	private FileData storeInWorkspace(URI uri, byte[] contents) throws EngineException
 	{
-		FileData data = downloader.download(uri, customTruststore);
-		FileData savedFile = fileStorageService.storeFileInWorkspace(data.getContents(), getFileName(uri.toString()));
+		FileData savedFile = fileStorageService.storeFileInWorkspace(contents, getFileName(uri.toString()));
 		log.info("Store metadata from " + uri.toString() + " in " + savedFile.getName());
 		return savedFile;
 	}
@@ -144,4 +142,16 @@ public class CachedMetadataLoader
 	{
 		return Paths.get(CACHE_DIR, DigestUtils.md5Hex(uri)).toString();
 	}
+	
+	private static class LoadedMetadataVersion
+	{
+		private final RemoteFileVersion version;
+		private final String contentHash;
+
+		LoadedMetadataVersion(RemoteFileVersion version, String contentHash)
+		{
+			this.version = version;
+			this.contentHash = contentHash;
+		}
+	}
 }
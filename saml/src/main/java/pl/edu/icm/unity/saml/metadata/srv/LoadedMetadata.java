@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.srv;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Loaded metadata document. Metadata is kept in its raw form, which is much more compact than
+ * its parsed representation, and is parsed by consumers in a streaming way.
+ */
+public class LoadedMetadata
+{
+	private final byte[] contents;
+	private final String contentHash;
+
+	public LoadedMetadata(byte[] contents)
+	{
+		this(contents, DigestUtils.sha256Hex(contents));
+	}
+
+	LoadedMetadata(byte[] contents, String contentHash)
+	{
+		this.contents = contents;
+		this.contentHash = contentHash;
+	}
+
+	public InputStream openStream()
+	{
+		return new ByteArrayInputStream(contents);
+	}
+
+	/**
+	 * @return SHA-256 hash of the metadata contents
+	 */
+	public String getContentHash()
+	{
+		return contentHash;
+	}
+}
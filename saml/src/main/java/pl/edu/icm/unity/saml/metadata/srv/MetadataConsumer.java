@@ -7,8 +7,6 @@ package pl.edu.icm.unity.saml.metadata.srv;
 import java.time.Duration;
 import java.util.function.BiConsumer;
 
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
-
 /**
  * Information about remote metadata consumer
  * 
@@ -17,12 +15,12 @@ import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 class MetadataConsumer
 {
 	final Duration refreshInterval;
-	final BiConsumer<EntitiesDescriptorDocument, String> consumer;
+	final BiConsumer<LoadedMetadata, String> consumer;
 	final String id;
 	final boolean logoDownload;
 
 	public MetadataConsumer(Duration refreshInterval,
-			BiConsumer<EntitiesDescriptorDocument, String> consumer, String id, boolean logoDownload)
+			BiConsumer<LoadedMetadata, String> consumer, String id, boolean logoDownload)
 	{
 		this.refreshInterval = refreshInterval;
 		this.consumer = consumer;
@@ -12,6 +12,8 @@ import org.apache.logging.log4j.Logger;
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.file.FileData;
 import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.engine.api.files.ConditionalFileData;
+import pl.edu.icm.unity.engine.api.files.RemoteFileVersion;
 import pl.edu.icm.unity.engine.api.files.URIAccessService;
 
 class MetadataDownloader
@@ -31,4 +33,14 @@ class MetadataDownloader
 		 log.info("Downloaded metadata from " + uri.toString());
 		 return file;
 	}
+
+	ConditionalFileData downloadIfModified(URI uri, String customTruststore, RemoteFileVersion knownVersion)
+	{
+		ConditionalFileData file = uriAccessService.readURIIfModified(uri, customTruststore, knownVersion);
+		if (file.getFile().isPresent())
+			log.info("Downloaded metadata from " + uri.toString());
+		else
+			log.debug("Metadata from {} was not modified", uri);
+		return file;
+	}
 }
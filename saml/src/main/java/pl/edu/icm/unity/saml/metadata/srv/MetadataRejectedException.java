@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.srv;
+
+/**
+ * Thrown by metadata consumers which do not accept the provided metadata. Such metadata is provided 
+ * to consumers again with the next refresh.
+ */
+public class MetadataRejectedException extends RuntimeException
+{
+	public MetadataRejectedException(String message)
+	{
+		super(message);
+	}
+}
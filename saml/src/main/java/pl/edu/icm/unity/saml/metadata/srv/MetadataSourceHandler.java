@@ -6,14 +6,11 @@ package pl.edu.icm.unity.saml.metadata.srv;
 
 import com.google.common.base.Stopwatch;
 import org.apache.logging.log4j.Logger;
-import org.apache.xmlbeans.XmlException;
 
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
 import pl.edu.icm.unity.saml.metadata.cfg.AsyncExternalLogoFileDownloader;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
-import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -46,6 +43,7 @@ class MetadataSourceHandler
 
 	private Duration refreshInterval;
 	private Instant lastRefresh;
+	private boolean fullRefreshNeeded;
 	private Map<String, MetadataConsumer> consumersById = new HashMap<>();
 	private ScheduledFuture<?> scheduleWithFixedDelay;
 	
@@ -88,13 +86,7 @@ class MetadataSourceHandler
 	}
 
 	private void runLogoDownloadFromCachedMetadata() {
-		Optional<EntitiesDescriptorDocument> cached;
-		try {
-			cached = downloader.getCached(source.url);
-		} catch (XmlException | IOException | InterruptedException e) {
-			cached = Optional.empty();
-		}
-		cached.ifPresent(matadata -> asyncExternalLogoFileDownloader.downloadLogoFilesAsync(matadata, source.truststore));
+		downloader.getCached(source.url).ifPresent(matadata -> asyncExternalLogoFileDownloader.downloadLogoFilesAsync(matadata, source.truststore));
 	}
 
 	/**
@@ -128,6 +120,7 @@ class MetadataSourceHandler
 
 	private void startRefresh()
 	{
+		fullRefreshNeeded = true;
 		scheduleWithFixedDelay = executorsService.getScheduledService().scheduleWithFixedDelay(
 				this::refresh, 
 				INITIAL_REFRESH_DELAY.toMillis(), rerunInterval.toMillis(), TimeUnit.MILLISECONDS);
@@ -181,33 +174,50 @@ class MetadataSourceHandler
 		log.info("Refreshing metadata for {}, (current refresh interval is {}s)", 
 				source.url, refreshInterval.toSeconds());
 		Stopwatch watch = Stopwatch.createStarted();
-		EntitiesDescriptorDocument metadata;
+		LoadedMetadata metadata;
 		try
 		{
-			metadata = downloader.getFresh(source.url, source.truststore);
+			metadata = isFullRefreshNeeded() ? 
+					downloader.getFresh(source.url, source.truststore) :
+					downloader.getFreshIfChanged(source.url, source.truststore).orElse(null);
 		} catch (Exception e)
 		{
 			log.error("Error downloading fresh metadata from " + source.url, e);
 			return;
 		}
+		if (metadata == null)
+		{
+			log.info("Metadata of {} was not changed, refresh done in {}", source.url, watch);
+			return;
+		}
 		if(!isLogoDownloadDisabled())
 			asyncExternalLogoFileDownloader.downloadLogoFilesAsync(metadata, source.truststore);
-		notifyConsumers(metadata);
-		log.info("Metadata refresh for {} done in {}", source.url, watch);
+		boolean accepted = notifyConsumers(metadata);
+		setFullRefreshNeeded(!accepted);
+		if (accepted)
+			log.info("Metadata refresh for {} done in {}", source.url, watch);
+		else
+			log.info("Metadata refresh for {} done in {}, not all consumers accepted it, "
+					+ "it will be reloaded with the next refresh", source.url, watch);
 	}
 
-	private void feedWithCached(MetadataConsumer consumer)
+	/**
+	 * Consumers are always notified after the first refresh since (re)start and after a refresh 
+	 * which was not accepted by all of them, later on only if metadata was changed. 
+	 */
+	private synchronized boolean isFullRefreshNeeded()
 	{
-		Optional<EntitiesDescriptorDocument> metadata;
-		try
-		{
-			metadata = downloader.getCached(source.url);
-		} catch (Exception e)
-		{
-			log.error("Error loading cached metadata of " + source.url, e);
-			return;
-		}
+		return fullRefreshNeeded;
+	}
+
+	private synchronized void setFullRefreshNeeded(boolean fullRefreshNeeded)
+	{
+		this.fullRefreshNeeded = fullRefreshNeeded;
+	}
 
+	private void feedWithCached(MetadataConsumer consumer)
+	{
+		Optional<LoadedMetadata> metadata = downloader.getCached(source.url);
 		if (metadata.isPresent())
 		{
 			log.debug("Providing cached metadata for new consumer of {}", source.url);
@@ -220,25 +230,37 @@ class MetadataSourceHandler
 		}
 	}
 	
-	private void notifyConsumers(EntitiesDescriptorDocument metadata)
+	/**
+	 * @return true if all consumers accepted the metadata
+	 */
+	private boolean notifyConsumers(LoadedMetadata metadata)
 	{
 		Collection<MetadataConsumer> consumersCopy;
 		synchronized(this)
 		{
 			consumersCopy = new ArrayList<>(consumersById.values());
 		}
-		consumersCopy.forEach(consumer -> notifyConsumer(consumer, metadata));
+		boolean accepted = true;
+		for (MetadataConsumer consumer: consumersCopy)
+			accepted &= notifyConsumer(consumer, metadata);
+		return accepted;
 	}
 
-	private void notifyConsumer(MetadataConsumer consumer, EntitiesDescriptorDocument metadata)
+	private boolean notifyConsumer(MetadataConsumer consumer, LoadedMetadata metadata)
 	{
 		try
 		{
 			log.debug("Pushing metadata {} to consumer {}", source.url, consumer.id);
 			consumer.consumer.accept(metadata, consumer.id);
+			return true;
+		} catch (MetadataRejectedException e)
+		{
+			log.debug("Metadata {} was rejected by consumer {}: {}", source.url, consumer.id, e.getMessage());
+			return false;
 		} catch (Exception e)
 		{
 			log.error("Metadata consumer failed to accept new metadata", e);
+			return false;
 		}
 	}
 }
@@ -7,8 +7,6 @@ package pl.edu.icm.unity.saml.metadata.srv;
 import java.time.Duration;
 import java.util.function.BiConsumer;
 
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
-
 /**
  * Handles registration of metadata consumers and manages workers handling 
  * individual metadata retrievals.
@@ -19,8 +17,12 @@ public interface RemoteMetadataService
 {
 	String preregisterConsumer(String url);
 	
+	/**
+	 * Consumer should throw {@link MetadataRejectedException} if it doesn't accept the metadata 
+	 * (e.g. as it is invalid), so that the metadata is provided again with the next refresh, even if not changed.
+	 */
 	void registerConsumer(String key, Duration refreshInterval,
-			String customTruststore, BiConsumer<EntitiesDescriptorDocument, String> consumer, boolean logoDownload);
+			String customTruststore, BiConsumer<LoadedMetadata, String> consumer, boolean logoDownload);
 	
 	void unregisterConsumer(String id);
 	
@@ -13,7 +13,6 @@ import pl.edu.icm.unity.engine.api.files.FileStorageService;
 import pl.edu.icm.unity.engine.api.files.URIAccessService;
 import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
 import pl.edu.icm.unity.saml.metadata.cfg.AsyncExternalLogoFileDownloader;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
 import java.time.Duration;
 import java.util.HashMap;
@@ -68,7 +67,7 @@ class RemoteMetadataServiceImpl implements RemoteMetadataService
 	
 	@Override
 	public synchronized void registerConsumer(String key, Duration refreshInterval,
-			String customTruststore, BiConsumer<EntitiesDescriptorDocument, String> consumer, boolean logoDownload)
+			String customTruststore, BiConsumer<LoadedMetadata, String> consumer, boolean logoDownload)
 	{
 		String url = consumers2URL.get(key);
 		if (url == null)
@@ -15,6 +15,7 @@ public class TrustedIdPs
 {
 	private final Map<TrustedIdPKey, TrustedIdPConfiguration> trustedIdPs;
 	private final Map<String, Set<TrustedIdPConfiguration>> samlEntityIdToKey;
+	private volatile TrustedIdPs withWebBinding;
 	
 	public TrustedIdPs(Collection<TrustedIdPConfiguration> trustedIdPs)
 	{
@@ -41,11 +42,20 @@ public class TrustedIdPs
 			throw new IllegalArgumentException(String.join(";", duplicates));
 	}
 
+	/**
+	 * The returned view is created once and then reused, as this object is immutable.
+	 */
 	public TrustedIdPs withWebBinding()
 	{
-		return new TrustedIdPs(trustedIdPs.values().stream()
-				.filter(idp -> EndpointBindingCategory.WEB.matches(idp.binding))
-				.collect(Collectors.toList()));
+		TrustedIdPs ret = withWebBinding;
+		if (ret == null)
+		{
+			ret = new TrustedIdPs(trustedIdPs.values().stream()
+					.filter(idp -> EndpointBindingCategory.WEB.matches(idp.binding))
+					.collect(Collectors.toList()));
+			withWebBinding = ret;
+		}
+		return ret;
 	}
 
 	private Map<String, Set<TrustedIdPConfiguration>> buildEntityToKeyMap()
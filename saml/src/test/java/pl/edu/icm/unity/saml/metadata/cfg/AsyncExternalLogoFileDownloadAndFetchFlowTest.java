@@ -5,16 +5,16 @@
 
 package pl.edu.icm.unity.saml.metadata.cfg;
 
-import org.apache.xmlbeans.XmlException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import pl.edu.icm.unity.engine.DBIntegrationTestBase;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
 import pl.edu.icm.unity.saml.sp.config.TrustedIdPKey;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Objects;
 import java.util.Optional;
@@ -26,6 +26,7 @@ public class AsyncExternalLogoFileDownloadAndFetchFlowTest extends DBIntegration
 {
 	private static final String TINY_PNG_BASE64 =
 			"iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR42mNk+M8AAAMBAQDJ/AP4AAAAAElFTkSuQmCC";
+	private static final String FEDERATION_ID = "unity-1";
 
 	@Autowired
 	private ExternalLogoFileLoader externalLogoFileLoader;
@@ -41,13 +42,13 @@ public class AsyncExternalLogoFileDownloadAndFetchFlowTest extends DBIntegration
 	@Test
 	public void shouldFetchAndSaveLogoFile()
 	{
-		EntitiesDescriptorDocument metadata = loadMetadata("src/test/resources/metadata-of-signed-response.xml");
+		LoadedMetadata metadata = loadMetadata("src/test/resources/metadata-of-signed-response.xml");
 		TrustedIdPKey trustedIdPKey = TrustedIdPKey.metadataEntity("http://centos6-unity1:8080/simplesaml/saml2/idp/metadata.php", 1);
 
 		fileDownloader.downloadLogoFilesAsync(metadata, null).join();
 
-		checkIfFileSaved(metadata.getEntitiesDescriptor().getID(), trustedIdPKey);
-		checkIfStagingCleaned(metadata.getEntitiesDescriptor().getID());
+		checkIfFileSaved(FEDERATION_ID, trustedIdPKey);
+		checkIfStagingCleaned(FEDERATION_ID);
 	}
 
 	@Test
@@ -56,67 +57,67 @@ public class AsyncExternalLogoFileDownloadAndFetchFlowTest extends DBIntegration
 		String oldFileName = "old";
 		String oldFileExtension = "png";
 
-		EntitiesDescriptorDocument metadata = loadMetadata("src/test/resources/metadata-of-signed-response.xml");
+		LoadedMetadata metadata = loadMetadata("src/test/resources/metadata-of-signed-response.xml");
 		TrustedIdPKey trustedIdPKey = TrustedIdPKey.metadataEntity("http://centos6-unity1:8080/simplesaml/saml2/idp/metadata.php", 1);
-		createOldFiles(oldFileName, oldFileExtension, metadata);
+		createOldFiles(oldFileName, oldFileExtension);
 
 		fileDownloader.downloadLogoFilesAsync(metadata, null).join();
 
-		checkIfFileSaved(metadata.getEntitiesDescriptor().getID(), trustedIdPKey);
-		checkIfOldFileCleaned(metadata.getEntitiesDescriptor().getID(), oldFileName, oldFileExtension);
-		checkIfStagingCleaned(metadata.getEntitiesDescriptor().getID());
+		checkIfFileSaved(FEDERATION_ID, trustedIdPKey);
+		checkIfOldFileCleaned(FEDERATION_ID, oldFileName, oldFileExtension);
+		checkIfStagingCleaned(FEDERATION_ID);
 	}
 
 	@Test
 	public void shouldReplaceCachedLogoWhenExtensionChanges() throws IOException
 	{
-		EntitiesDescriptorDocument oldMetadata = loadMetadata("src/test/resources/metadata-of-signed-response.xml");
-		EntitiesDescriptorDocument newMetadata = loadMetadataWithLogoMimeType("image/jpeg");
+		LoadedMetadata oldMetadata = loadMetadata("src/test/resources/metadata-of-signed-response.xml");
+		LoadedMetadata newMetadata = loadMetadataWithLogoMimeType("image/jpeg");
 		TrustedIdPKey trustedIdPKey = TrustedIdPKey.metadataEntity("http://centos6-unity1:8080/simplesaml/saml2/idp/metadata.php", 1);
 		String baseName = LogoFilenameUtils.getLogoFileBasename(trustedIdPKey, "en");
 
 		fileDownloader.downloadLogoFilesAsync(oldMetadata, null).join();
-		assertThat(getLogoFile(oldMetadata, baseName, "png")).isFile();
+		assertThat(getLogoFile(baseName, "png")).isFile();
 
 		fileDownloader.downloadLogoFilesAsync(newMetadata, null).join();
 
-		assertThat(getLogoFile(newMetadata, baseName, "jpeg")).isFile();
-		assertThat(getLogoFile(newMetadata, baseName, "png")).doesNotExist();
-		assertThat(Files.readString(getLogoPointer(newMetadata, baseName).toPath())).isEqualTo("jpeg");
-		checkIfStagingCleaned(newMetadata.getEntitiesDescriptor().getID());
+		assertThat(getLogoFile(baseName, "jpeg")).isFile();
+		assertThat(getLogoFile(baseName, "png")).doesNotExist();
+		assertThat(Files.readString(getLogoPointer(baseName).toPath())).isEqualTo("jpeg");
+		checkIfStagingCleaned(FEDERATION_ID);
 	}
 
 	@Test
 	public void shouldKeepOtherLocaleLogoWhenOneLocaleExtensionChanges() throws IOException
 	{
-		EntitiesDescriptorDocument pngForBothLocales = loadMetadataWithEnAndDeLogos("image/png", "image/png");
-		EntitiesDescriptorDocument enJpegDePng = loadMetadataWithEnAndDeLogos("image/jpeg", "image/png");
+		LoadedMetadata pngForBothLocales = loadMetadataWithEnAndDeLogos("image/png", "image/png");
+		LoadedMetadata enJpegDePng = loadMetadataWithEnAndDeLogos("image/jpeg", "image/png");
 		TrustedIdPKey trustedIdPKey = TrustedIdPKey.metadataEntity("http://centos6-unity1:8080/simplesaml/saml2/idp/metadata.php", 1);
 		String enBaseName = LogoFilenameUtils.getLogoFileBasename(trustedIdPKey, "en");
 		String deBaseName = LogoFilenameUtils.getLogoFileBasename(trustedIdPKey, "de");
 
 		fileDownloader.downloadLogoFilesAsync(pngForBothLocales, null).join();
-		assertThat(getLogoFile(pngForBothLocales, enBaseName, "png")).isFile();
-		assertThat(getLogoFile(pngForBothLocales, deBaseName, "png")).isFile();
+		assertThat(getLogoFile(enBaseName, "png")).isFile();
+		assertThat(getLogoFile(deBaseName, "png")).isFile();
 
 		fileDownloader.downloadLogoFilesAsync(enJpegDePng, null).join();
 
-		assertThat(getLogoFile(enJpegDePng, enBaseName, "jpeg")).isFile();
-		assertThat(getLogoFile(enJpegDePng, enBaseName, "png")).doesNotExist();
-		assertThat(getLogoFile(enJpegDePng, deBaseName, "png")).isFile();
-		assertThat(Files.readString(getLogoPointer(enJpegDePng, enBaseName).toPath())).isEqualTo("jpeg");
-		assertThat(Files.readString(getLogoPointer(enJpegDePng, deBaseName).toPath())).isEqualTo("png");
-		checkIfStagingCleaned(enJpegDePng.getEntitiesDescriptor().getID());
+		assertThat(getLogoFile(enBaseName, "jpeg")).isFile();
+		assertThat(getLogoFile(enBaseName, "png")).doesNotExist();
+		assertThat(getLogoFile(deBaseName, "png")).isFile();
+		assertThat(Files.readString(getLogoPointer(enBaseName).toPath())).isEqualTo("jpeg");
+		assertThat(Files.readString(getLogoPointer(deBaseName).toPath())).isEqualTo("png");
+		checkIfStagingCleaned(FEDERATION_ID);
 	}
 
-	private static void createOldFiles(String oldFileName, String oldFileExtension, EntitiesDescriptorDocument metadata)
+	private static void createOldFiles(String oldFileName, String oldFileExtension)
 	{
 		try
 		{
-			File oldFile = new File("target/workspace/downloadedIdPLogos/" + LogoFilenameUtils.federationDirName(metadata.getEntitiesDescriptor().getID()) + "/" + oldFileName + "." + oldFileExtension);
+			File oldFile = new File("target/workspace/downloadedIdPLogos/" + LogoFilenameUtils.federationDirName(FEDERATION_ID) + "/" + oldFileName + "." + oldFileExtension);
 			oldFile.getParentFile().mkdirs();
 			oldFile.createNewFile();
-			File oldFilePointer = new File("target/workspace/downloadedIdPLogos/" + LogoFilenameUtils.federationDirName(metadata.getEntitiesDescriptor().getID()) + "/" + oldFileName);
+			File oldFilePointer = new File("target/workspace/downloadedIdPLogos/" + LogoFilenameUtils.federationDirName(FEDERATION_ID) + "/" + oldFileName);
 			oldFilePointer.getParentFile().mkdirs();
 			oldFilePointer.createNewFile();
 		} catch (IOException e)
@@ -150,42 +151,42 @@ public class AsyncExternalLogoFileDownloadAndFetchFlowTest extends DBIntegration
 			throw new IllegalStateException("Staging catalog not clean");
 	}
 
-	private File getLogoFile(EntitiesDescriptorDocument metadata, String baseName, String extension)
+	private File getLogoFile(String baseName, String extension)
 	{
 		return new File("target/workspace/downloadedIdPLogos/"
-				+ LogoFilenameUtils.federationDirName(metadata.getEntitiesDescriptor().getID()) + "/" + baseName + "." + extension);
+				+ LogoFilenameUtils.federationDirName(FEDERATION_ID) + "/" + baseName + "." + extension);
 	}
 
-	private File getLogoPointer(EntitiesDescriptorDocument metadata, String baseName)
+	private File getLogoPointer(String baseName)
 	{
 		return new File("target/workspace/downloadedIdPLogos/"
-				+ LogoFilenameUtils.federationDirName(metadata.getEntitiesDescriptor().getID()) + "/" + baseName);
+				+ LogoFilenameUtils.federationDirName(FEDERATION_ID) + "/" + baseName);
 	}
 
-	private EntitiesDescriptorDocument loadMetadata(String path)
+	private LoadedMetadata loadMetadata(String path)
 	{
 		try
 		{
-			return EntitiesDescriptorDocument.Factory.parse(new File(path));
-		} catch (XmlException | IOException e)
+			return new LoadedMetadata(Files.readAllBytes(new File(path).toPath()));
+		} catch (IOException e)
 		{
 			throw new RuntimeException("Can't load test XML", e);
 		}
 	}
 
-	private EntitiesDescriptorDocument loadMetadataWithLogoMimeType(String mimeType)
+	private LoadedMetadata loadMetadataWithLogoMimeType(String mimeType)
 	{
 		try
 		{
 			String metadata = Files.readString(new File("src/test/resources/metadata-of-signed-response.xml").toPath());
-			return EntitiesDescriptorDocument.Factory.parse(metadata.replace("data:image/png", "data:" + mimeType));
-		} catch (XmlException | IOException e)
+			return new LoadedMetadata(metadata.replace("data:image/png", "data:" + mimeType).getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e)
 		{
 			throw new RuntimeException("Can't load test XML", e);
 		}
 	}
 
-	private EntitiesDescriptorDocument loadMetadataWithEnAndDeLogos(String enMimeType, String deMimeType)
+	private LoadedMetadata loadMetadataWithEnAndDeLogos(String enMimeType, String deMimeType)
 	{
 		try
 		{
@@ -194,8 +195,8 @@ public class AsyncExternalLogoFileDownloadAndFetchFlowTest extends DBIntegration
 			String deLogo = "<mdui:Logo height=\"16\" width=\"16\" xml:lang=\"de\">data:"
 					+ deMimeType + ";base64," + TINY_PNG_BASE64 + "</mdui:Logo>";
 			metadata = metadata.replace("</mdui:UIInfo>", deLogo + "</mdui:UIInfo>");
-			return EntitiesDescriptorDocument.Factory.parse(metadata);
-		} catch (XmlException | IOException e)
+			return new LoadedMetadata(metadata.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e)
 		{
 			throw new RuntimeException("Can't load test XML", e);
 		}
@@ -15,11 +15,13 @@ import pl.edu.icm.unity.base.message.MessageSource;
 import pl.edu.icm.unity.engine.api.config.UnityServerConfiguration;
 import pl.edu.icm.unity.engine.api.files.URIAccessService;
 import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataToSPConfigConverter.ConvertedTrustedIdPs;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
 import pl.edu.icm.unity.saml.sp.config.TrustedIdPs;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorType;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -36,7 +38,7 @@ import static org.mockito.Mockito.when;
 public class AsyncExternalLogoFileDownloaderTest
 {
 	@Test
-	public void shouldBlockAnotherInvocationOfDownloadLogosWhenLogosAreCurrentlyDownloading()
+	public void shouldBlockAnotherInvocationOfDownloadLogosWhenLogosAreCurrentlyDownloading() throws Exception
 	{
 		UnityServerConfiguration configuration = mock(UnityServerConfiguration.class);
 		when(configuration.getValue(eq(UnityServerConfiguration.WORKSPACE_DIRECTORY))).thenReturn(".");
@@ -55,21 +57,23 @@ public class AsyncExternalLogoFileDownloaderTest
 				metadataConverter
 		);
 
-		EntitiesDescriptorDocument entitiesDescriptorDocument = mock(EntitiesDescriptorDocument.class);
-		EntitiesDescriptorType entitiesDescriptorType = mock(EntitiesDescriptorType.class);
-
-		when(entitiesDescriptorDocument.getEntitiesDescriptor()).thenReturn(entitiesDescriptorType);
-		when(entitiesDescriptorType.getID()).thenReturn("federationId");
+		LoadedMetadata metadata = new LoadedMetadata(
+				"<md:EntitiesDescriptor xmlns:md=\"urn:oasis:names:tc:SAML:2.0:metadata\" ID=\"federationId\"/>"
+				.getBytes(StandardCharsets.UTF_8));
+		ConvertedTrustedIdPs converted = new ConvertedTrustedIdPs(new TrustedIdPs(Set.of()), "federationId", 
+				"federation", List.of());
 
 		CompletableFuture<Void> waitingTask = new CompletableFuture<>();
-		doAnswer(new AnswerAfterFuture(waitingTask,  new Returns(new TrustedIdPs(Set.of())))).when(metadataConverter).convertToTrustedIdPs(any(), any());
+		doAnswer(new AnswerAfterFuture(waitingTask,  new Returns(converted))).when(metadataConverter)
+				.convertToTrustedIdPs(any(LoadedMetadata.class), any(), any(), any(), any());
 
 		CompletableFuture.allOf(
-			CompletableFuture.runAsync(() -> asyncExternalLogoFileDownloader.downloadLogoFilesAsync(entitiesDescriptorDocument, null)),
-			CompletableFuture.runAsync(() -> asyncExternalLogoFileDownloader.downloadLogoFilesAsync(entitiesDescriptorDocument, null))
+			CompletableFuture.runAsync(() -> asyncExternalLogoFileDownloader.downloadLogoFilesAsync(metadata, null)),
+			CompletableFuture.runAsync(() -> asyncExternalLogoFileDownloader.downloadLogoFilesAsync(metadata, null))
 		).thenRun(() -> waitingTask.complete(null));
 
-		verify(metadataConverter, timeout(5000).times(1)).convertToTrustedIdPs(any(), any());
+		verify(metadataConverter, timeout(5000).times(1))
+				.convertToTrustedIdPs(any(LoadedMetadata.class), any(), any(), any(), any());
 	}
 
 	static class AnswerAfterFuture implements Answer<Object>, ValidableAnswer, Serializable
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.cfg;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.base.translation.ProfileType;
+import pl.edu.icm.unity.base.translation.TranslationProfile;
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataToSPConfigConverter.ConvertedTrustedIdPs;
+import pl.edu.icm.unity.saml.sp.config.BaseSamlConfiguration.RemoteMetadataSource;
+import pl.edu.icm.unity.saml.sp.config.TrustedIdPs;
+
+public class ConvertedTrustedIdPsCacheTest
+{
+	private final ConvertedTrustedIdPsCache cache = new ConvertedTrustedIdPsCache();
+	private final ConvertedTrustedIdPs converted = new ConvertedTrustedIdPs(new TrustedIdPs(Set.of()),
+			"federationId", "federation", List.of());
+
+	@Test
+	public void shouldReturnConvertedForSameContentsAndSource() throws Exception
+	{
+		cache.put("hash", source("url"), MetadataTestSigner.getCertificate(), converted);
+
+		assertThat(cache.get("hash", source("url"), MetadataTestSigner.getCertificate())).contains(converted);
+	}
+
+	@Test
+	public void shouldNotReturnConvertedForOtherContents() throws Exception
+	{
+		cache.put("hash", source("url"), MetadataTestSigner.getCertificate(), converted);
+
+		assertThat(cache.get("otherHash", source("url"), MetadataTestSigner.getCertificate())).isEmpty();
+	}
+
+	@Test
+	public void shouldNotReturnConvertedForOtherSource() throws Exception
+	{
+		cache.put("hash", source("url"), MetadataTestSigner.getCertificate(), converted);
+
+		assertThat(cache.get("hash", source("otherUrl"), MetadataTestSigner.getCertificate())).isEmpty();
+	}
+
+	@Test
+	public void shouldNotReturnConvertedForOtherCertificate() throws Exception
+	{
+		cache.put("hash", source("url"), MetadataTestSigner.getCertificate(), converted);
+
+		assertThat(cache.get("hash", source("url"), null)).isEmpty();
+	}
+
+	@Test
+	public void shouldReturnLastConvertedOfSource() throws Exception
+	{
+		ConvertedTrustedIdPs last = new ConvertedTrustedIdPs(new TrustedIdPs(Set.of()), "federationId", 
+				"federation", List.of());
+		cache.put("hash", source("url"), MetadataTestSigner.getCertificate(), converted);
+		cache.put("otherHash", source("url"), null, last);
+
+		assertThat(cache.getLastConverted(source("url"))).containsSame(last);
+		assertThat(cache.getLastConverted(source("otherUrl"))).isEmpty();
+	}
+
+	private static RemoteMetadataSource source(String url)
+	{
+		return RemoteMetadataSource.builder()
+				.withUrl(url)
+				.withTranslationProfile(new TranslationProfile("name", "description", ProfileType.INPUT, List.of()))
+				.withRefreshInterval(Duration.ZERO)
+				.build();
+	}
+}
@@ -20,12 +20,14 @@ import pl.edu.icm.unity.saml.idp.SAMLIdPConfiguration;
 import pl.edu.icm.unity.saml.idp.SamlEntityId;
 import pl.edu.icm.unity.saml.idp.TrustedServiceProvider;
 import pl.edu.icm.unity.saml.idp.TrustedServiceProviders;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
 import pl.edu.icm.unity.saml.metadata.srv.RemoteMetadataService;
 import pl.edu.icm.unity.saml.sp.config.BaseSamlConfiguration;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -92,8 +94,8 @@ public class IdpRemoteMetaManagerTest extends DBIntegrationTestBase
 					pkiManagement, mockMetaService,
 					new MetaToIDPConfigConverter(pkiManagement, msg));
 
-		EntitiesDescriptorDocument meta = EntitiesDescriptorDocument.Factory.parse(
-				new File("src/test/resources/unity-as-sp-meta.xml"));
+		LoadedMetadata meta = new LoadedMetadata(
+				Files.readAllBytes(Paths.get("src/test/resources/unity-as-sp-meta.xml")));
 		mockMetaService.publishMetadata(meta);
 		
 		//when
@@ -136,8 +138,8 @@ public class IdpRemoteMetaManagerTest extends DBIntegrationTestBase
 					new MetaToIDPConfigConverter(pkiManagement, msg));
 
 		//when
-		EntitiesDescriptorDocument meta = EntitiesDescriptorDocument.Factory.parse(
-				new File("src/test/resources/unity-as-sp-meta.xml"));
+		LoadedMetadata meta = new LoadedMetadata(
+				Files.readAllBytes(Paths.get("src/test/resources/unity-as-sp-meta.xml")));
 		mockMetaService.publishMetadata(meta);
 
 		//expect
@@ -147,17 +149,17 @@ public class IdpRemoteMetaManagerTest extends DBIntegrationTestBase
 	
 	private static class MockMetadataService implements RemoteMetadataService
 	{
-		private BiConsumer<EntitiesDescriptorDocument, String> consumer;
+		private BiConsumer<LoadedMetadata, String> consumer;
 
 		@Override
 		public void registerConsumer(String key, Duration refreshInterval,
 				String customTruststore,
-				BiConsumer<EntitiesDescriptorDocument, String> consumer, boolean logoDownload)
+				BiConsumer<LoadedMetadata, String> consumer, boolean logoDownload)
 		{
 			this.consumer = consumer;
 		}
 
-		void publishMetadata(EntitiesDescriptorDocument doc)
+		void publishMetadata(LoadedMetadata doc)
 		{
 			consumer.accept(doc, "1");
 		}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.cfg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import eu.emi.security.authn.x509.X509Credential;
+import eu.unicore.security.dsig.DigSignatureUtil;
+import pl.edu.icm.unity.engine.DBIntegrationTestBase;
+
+/**
+ * Signs test metadata with the demo credential.
+ */
+class MetadataTestSigner
+{
+	private static final String XMLNS_NS = "http://www.w3.org/2000/xmlns/";
+	private static final String METADATA_NS = "urn:oasis:names:tc:SAML:2.0:metadata";
+
+	static X509Certificate getCertificate() throws Exception
+	{
+		return DBIntegrationTestBase.getDemoCredential().getCertificate();
+	}
+
+	static byte[] signRoot(byte[] metadata) throws Exception
+	{
+		Document doc = parse(metadata);
+		sign(doc, doc.getDocumentElement());
+		return serialize(doc);
+	}
+
+	static byte[] signEntities(byte[] metadata) throws Exception
+	{
+		Document doc = parse(metadata);
+		NodeList nodes = doc.getElementsByTagNameNS(METADATA_NS, "EntityDescriptor");
+		List<Element> entities = new ArrayList<>();
+		for (int i = 0; i < nodes.getLength(); i++)
+			entities.add((Element) nodes.item(i));
+		int id = 0;
+		for (Element entity: entities)
+		{
+			if (!entity.hasAttribute("ID"))
+				entity.setAttribute("ID", "entity-" + id++);
+			Document entityDoc = newDocumentBuilder().newDocument();
+			Element standaloneEntity = (Element) entityDoc.importNode(entity, true);
+			entityDoc.appendChild(standaloneEntity);
+			copyNamespacesInScope(entity, standaloneEntity);
+			sign(entityDoc, standaloneEntity);
+			entity.getParentNode().replaceChild(doc.importNode(standaloneEntity, true), entity);
+		}
+		return serialize(doc);
+	}
+
+	private static void copyNamespacesInScope(Element source, Element target)
+	{
+		for (Node parent = source.getParentNode(); parent instanceof Element; parent = parent.getParentNode())
+		{
+			NamedNodeMap attributes = parent.getAttributes();
+			for (int i = 0; i < attributes.getLength(); i++)
+			{
+				Attr attribute = (Attr) attributes.item(i);
+				if (XMLNS_NS.equals(attribute.getNamespaceURI())
+						&& !target.hasAttributeNS(XMLNS_NS, attribute.getLocalName()))
+					target.setAttributeNS(XMLNS_NS, attribute.getName(), attribute.getValue());
+			}
+		}
+	}
+
+	private static void sign(Document doc, Element element) throws Exception
+	{
+		X509Credential credential = DBIntegrationTestBase.getDemoCredential();
+		new DigSignatureUtil().genEnvelopedSignature(credential.getKey(),
+				credential.getCertificate().getPublicKey(), credential.getCertificateChain(),
+				doc, element.getFirstChild(), MetadataVerificator.ID_QNAME);
+	}
+
+	private static Document parse(byte[] metadata) throws Exception
+	{
+		return newDocumentBuilder().parse(new ByteArrayInputStream(metadata));
+	}
+
+	private static DocumentBuilder newDocumentBuilder() throws Exception
+	{
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		return factory.newDocumentBuilder();
+	}
+
+	private static byte[] serialize(Document doc) throws Exception
+	{
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		TransformerFactory.newInstance().newTransformer().transform(new DOMSource(doc), new StreamResult(output));
+		return output.toByteArray();
+	}
+}
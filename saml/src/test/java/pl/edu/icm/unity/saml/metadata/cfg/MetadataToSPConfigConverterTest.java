@@ -8,10 +8,16 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static pl.edu.icm.unity.saml.sp.config.TrustedIdPKey.metadataEntity;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.Date;
 
 import org.junit.jupiter.api.Test;
 
@@ -19,8 +25,12 @@ import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.translation.TranslationProfile;
 import pl.edu.icm.unity.engine.api.PKIManagement;
 import pl.edu.icm.unity.saml.SamlProperties.Binding;
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataToSPConfigConverter.ConvertedTrustedIdPs;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
+import pl.edu.icm.unity.saml.sp.SAMLSPProperties.MetadataSignatureValidation;
 import pl.edu.icm.unity.saml.sp.config.BaseSamlConfiguration.RemoteMetadataSource;
 import pl.edu.icm.unity.saml.sp.config.TrustedIdPConfiguration;
+import pl.edu.icm.unity.saml.sp.config.TrustedIdPKey;
 import pl.edu.icm.unity.saml.sp.config.TrustedIdPs;
 import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
@@ -118,4 +128,87 @@ public class MetadataToSPConfigConverterTest
 		TrustedIdPs trustedIdps = converter.convertToTrustedIdPs(metadata, metadataSrc);
 		assertThrows(IllegalArgumentException.class, () -> trustedIdps.get(metadataEntity("https://idp.scc.kit.edu/idp/shibboleth", 1)));
 	}
+
+	@Test
+	public void shouldConvertMetadataReadEntityByEntity() throws Exception
+	{
+		PKIManagement pkiManagement = mock(PKIManagement.class);
+		when(pkiManagement.getCertificate(any())).thenThrow(IllegalArgumentException.class);
+		MetadataToSPConfigConverter converter = new MetadataToSPConfigConverter(pkiManagement , "en");
+		LoadedMetadata metadata = new LoadedMetadata(
+				Files.readAllBytes(Paths.get("src/test/resources/metadata.switchaai-one.xml")));
+		RemoteMetadataSource metadataSrc = RemoteMetadataSource.builder()
+				.withRegistrationForm("regForm")
+				.withTranslationProfile(translationProfile1)
+				.withUrl("dummy")
+				.withRefreshInterval(Duration.ZERO)
+				.build();
+		
+		ConvertedTrustedIdPs converted = converter.convertToTrustedIdPs(metadata, new Date(), 
+				MetadataSignatureValidation.ignore, null, metadataSrc);
+		
+		TrustedIdPs fromDocument = converter.convertToTrustedIdPs(
+				EntitiesDescriptorDocumentParser.loadMetadata("src/test/resources/metadata.switchaai-one.xml"), 
+				metadataSrc);
+		assertThat(converted.trustedIdPs.getKeys()).isEqualTo(fromDocument.getKeys());
+		TrustedIdPConfiguration trustedIdP = converted.trustedIdPs.get(metadataEntity("https://fake.idp.eu", 1));
+		assertThat(trustedIdP.samlId).isEqualTo("https://fake.idp.eu");
+		assertThat(trustedIdP.registrationForm).isEqualTo("regForm");
+		assertThat(converted.federationId).isEqualTo("SWITCHaai-20140606235901-fed2");
+		assertThat(converted.federationName).isEqualTo("urn:mace:switch.ch:SWITCHaai");
+		assertThat(converted.validUntil).hasSize(1);
+	}
+
+	@Test
+	public void shouldReuseUnchangedEntitiesConvertedPreviously() throws Exception
+	{
+		PKIManagement pkiManagement = mock(PKIManagement.class);
+		when(pkiManagement.getCertificate(any())).thenThrow(IllegalArgumentException.class);
+		MetadataToSPConfigConverter converter = new MetadataToSPConfigConverter(pkiManagement , "en");
+		String metadata = Files.readString(Paths.get("src/test/resources/metadata.switchaai-one.xml"));
+		RemoteMetadataSource metadataSrc = RemoteMetadataSource.builder()
+				.withTranslationProfile(translationProfile1)
+				.withUrl("dummy")
+				.withRefreshInterval(Duration.ZERO)
+				.build();
+		ConvertedTrustedIdPs previous = converter.convertToTrustedIdPs(loaded(metadata), new Date(), 
+				MetadataSignatureValidation.ignore, null, metadataSrc);
+		
+		ConvertedTrustedIdPs converted = converter.convertToTrustedIdPs(
+				loaded(metadata.replace("2014-06-11T21:59:01Z", "2014-06-12T21:59:01Z")), new Date(), 
+				MetadataSignatureValidation.ignore, null, metadataSrc, previous);
+		
+		TrustedIdPKey key = metadataEntity("https://fake.idp.eu", 1);
+		assertThat(converted.trustedIdPs.get(key)).isSameAs(previous.trustedIdPs.get(key));
+		verify(pkiManagement, times(1)).addVolatileCertificate(any(), any());
+	}
+
+	@Test
+	public void shouldConvertChangedEntity() throws Exception
+	{
+		PKIManagement pkiManagement = mock(PKIManagement.class);
+		when(pkiManagement.getCertificate(any())).thenThrow(IllegalArgumentException.class);
+		MetadataToSPConfigConverter converter = new MetadataToSPConfigConverter(pkiManagement , "en");
+		String metadata = Files.readString(Paths.get("src/test/resources/metadata.switchaai-one.xml"));
+		RemoteMetadataSource metadataSrc = RemoteMetadataSource.builder()
+				.withTranslationProfile(translationProfile1)
+				.withUrl("dummy")
+				.withRefreshInterval(Duration.ZERO)
+				.build();
+		ConvertedTrustedIdPs previous = converter.convertToTrustedIdPs(loaded(metadata), new Date(), 
+				MetadataSignatureValidation.ignore, null, metadataSrc);
+		
+		ConvertedTrustedIdPs converted = converter.convertToTrustedIdPs(
+				loaded(metadata.replace("University of Fribourg", "Changed University")), new Date(), 
+				MetadataSignatureValidation.ignore, null, metadataSrc, previous);
+		
+		TrustedIdPConfiguration trustedIdP = converted.trustedIdPs.get(metadataEntity("https://fake.idp.eu", 1));
+		assertThat(trustedIdP.name.getValue("en")).isEqualTo("Changed University");
+		verify(pkiManagement, times(2)).addVolatileCertificate(any(), any());
+	}
+
+	private static LoadedMetadata loaded(String metadata)
+	{
+		return new LoadedMetadata(metadata.getBytes(StandardCharsets.UTF_8));
+	}
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.cfg;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.Logger;
+import org.awaitility.Awaitility;
+import org.awaitility.Durations;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+
+import pl.edu.icm.unity.base.i18n.I18nString;
+import pl.edu.icm.unity.base.translation.TranslationProfile;
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.engine.DBIntegrationTestBase;
+import pl.edu.icm.unity.engine.api.PKIManagement;
+import pl.edu.icm.unity.saml.SamlProperties.Binding;
+import pl.edu.icm.unity.saml.sp.config.BaseSamlConfiguration.RemoteMetadataSource;
+import pl.edu.icm.unity.saml.sp.config.SAMLSPConfiguration;
+import pl.edu.icm.unity.saml.sp.config.TrustedIdPConfiguration;
+import pl.edu.icm.unity.saml.sp.config.TrustedIdPKey;
+import pl.edu.icm.unity.saml.sp.config.TrustedIdPs;
+
+/**
+ * Measures latency of trusted IdP lookups performed concurrently with metadata (re)loading.
+ * A large federation metadata file is generated from a single IdP metadata, and is refreshed 
+ * every second while lookups are performed.
+ */
+public class SPRemoteMetaManagerLookupPerfTest extends DBIntegrationTestBase
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_SAML, SPRemoteMetaManagerLookupPerfTest.class);
+	private static final String METADATA_TEMPLATE = "src/test/resources/metadata.switchaai-one.xml";
+	private static final String TEMPLATE_IDP_ID = "https://fake.idp.eu";
+	private static final int FEDERATION_IDPS = 5000;
+	private static final int LOOKUP_THREADS = 8;
+	private static final Duration TEST_DURATION = Duration.ofSeconds(30);
+	private static final TrustedIdPKey IDP_KEY = new TrustedIdPKey("idp1");
+	private static final TrustedIdPKey FEDERATION_IDP_KEY = TrustedIdPKey.metadataEntity(
+			getFederationIdPId(FEDERATION_IDPS / 2), 1);
+
+	@Autowired
+	private SPRemoteMetaManager.Factory spRemoteMetaManagerFactory;
+	@Autowired
+	@Qualifier("insecure")
+	private PKIManagement pkiManagement;
+
+	@Test
+	@Disabled
+	public void measureLookupLatencyDuringRefresh() throws Exception
+	{
+		File metadata = generateFederationMetadata();
+		SPRemoteMetaManager manager = spRemoteMetaManagerFactory.getInstance();
+		SAMLSPConfiguration config1 = getConfiguration("https://idp1.example.com", metadata);
+		SAMLSPConfiguration config2 = getConfiguration("https://idp2.example.com", metadata);
+		manager.setBaseConfiguration(config1);
+		Awaitility.await()
+			.atMost(Durations.ONE_MINUTE)
+			.until(() -> manager.getTrustedIdPs().get(FEDERATION_IDP_KEY) != null);
+
+		AtomicBoolean finished = new AtomicBoolean(false);
+		ExecutorService executor = Executors.newFixedThreadPool(LOOKUP_THREADS + 1);
+		List<Future<long[]>> lookups = new ArrayList<>();
+		for (int i = 0; i < LOOKUP_THREADS; i++)
+			lookups.add(executor.submit(() -> lookup(manager, finished)));
+		Future<Integer> refreshes = executor.submit(() ->
+		{
+			int count = 0;
+			while (!finished.get())
+			{
+				manager.setBaseConfiguration(count % 2 == 0 ? config2 : config1);
+				count++;
+				Thread.sleep(100);
+			}
+			return count;
+		});
+
+		Thread.sleep(TEST_DURATION.toMillis());
+		finished.set(true);
+		List<Long> allLatencies = new ArrayList<>();
+		for (Future<long[]> lookup: lookups)
+			Arrays.stream(lookup.get()).forEach(allLatencies::add);
+		log.info("Configuration reloads: {}", refreshes.get());
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+		manager.unregisterAll();
+
+		long[] sorted = allLatencies.stream().mapToLong(Long::longValue).sorted().toArray();
+		log.info("Lookups: {}, throughput: {}/s, latency p50: {}ns, p99: {}ns, p99.9: {}ns, max: {}ns",
+				sorted.length, sorted.length / TEST_DURATION.toSeconds(),
+				percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999),
+				sorted[sorted.length - 1]);
+	}
+
+	private long[] lookup(SPRemoteMetaManager manager, AtomicBoolean finished)
+	{
+		long[] latencies = new long[1_000_000];
+		int i = 0;
+		while (!finished.get() && i < latencies.length)
+		{
+			long start = System.nanoTime();
+			TrustedIdPs trustedIdPs = manager.getTrustedIdPs().withWebBinding();
+			trustedIdPs.get(IDP_KEY);
+			trustedIdPs.get(FEDERATION_IDP_KEY);
+			latencies[i++] = System.nanoTime() - start;
+		}
+		return Arrays.copyOf(latencies, i);
+	}
+
+	private static long percentile(long[] sorted, double percentile)
+	{
+		return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length))];
+	}
+
+	private static File generateFederationMetadata() throws Exception
+	{
+		String template = Files.readString(new File(METADATA_TEMPLATE).toPath(), StandardCharsets.UTF_8);
+		int entityStart = template.indexOf("<EntityDescriptor");
+		int entityEnd = template.indexOf("</EntityDescriptor>") + "</EntityDescriptor>".length();
+		String entity = template.substring(entityStart, entityEnd);
+		StringBuilder metadata = new StringBuilder(template.substring(0, entityStart));
+		for (int i = 0; i < FEDERATION_IDPS; i++)
+			metadata.append(entity.replace(TEMPLATE_IDP_ID, getFederationIdPId(i))).append("\n");
+		metadata.append(template.substring(entityEnd));
+		File ret = File.createTempFile("federation-metadata", ".xml");
+		ret.deleteOnExit();
+		Files.writeString(ret.toPath(), metadata, StandardCharsets.UTF_8);
+		log.info("Generated metadata of {} IdPs, size {}KB", FEDERATION_IDPS, ret.length() / 1024);
+		return ret;
+	}
+
+	private static String getFederationIdPId(int i)
+	{
+		return "https://idp" + i + ".federation.example.com";
+	}
+
+	private SAMLSPConfiguration getConfiguration(String idpSamlId, File metadata) throws Exception
+	{
+		return SAMLSPConfiguration.builder()
+				.withRequesterCredential(pkiManagement.getCredential("MAIN"))
+				.withRequesterSamlId("me")
+				.withPublishMetadata(false)
+				.withTrustedMetadataSources(List.of(
+						RemoteMetadataSource.builder()
+							.withUrl(metadata.toURI().toString())
+							.withRegistrationForm("metaRegForm")
+							.withTranslationProfile(mock(TranslationProfile.class))
+							.withRefreshInterval(Duration.ofSeconds(1))
+							.build()))
+				.withIndividualTrustedIdPs(new TrustedIdPs(List.of(
+						TrustedIdPConfiguration.builder()
+							.withBinding(Binding.HTTP_POST)
+							.withIdpEndpointURL(idpSamlId + "/SSO")
+							.withSamlId(idpSamlId)
+							.withName(new I18nString("Name"))
+							.withLogoURI(new I18nString())
+							.withTranslationProfile(mock(TranslationProfile.class))
+							.withCertificateNames(Set.of("MAIN"))
+							.withKey(IDP_KEY)
+							.build())))
+				.build();
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.cfg;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataVerificator.MetadataValidationException;
+import pl.edu.icm.unity.saml.metadata.cfg.StreamingMetadataReader.ReadMetadata;
+import pl.edu.icm.unity.saml.metadata.srv.LoadedMetadata;
+import pl.edu.icm.unity.saml.sp.SAMLSPProperties.MetadataSignatureValidation;
+import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorType;
+
+public class StreamingMetadataReaderTest
+{
+	private static final String METADATA =
+			"<md:EntitiesDescriptor xmlns:md=\"urn:oasis:names:tc:SAML:2.0:metadata\" "
+			+ "xmlns:mdui=\"urn:oasis:names:tc:SAML:metadata:ui\" "
+			+ "ID=\"federation\" Name=\"urn:test:federation\" validUntil=\"2064-11-24T13:00:28Z\">"
+			+ entity("https://idp1.example.com")
+			+ "<md:EntitiesDescriptor Name=\"urn:test:nested\">"
+			+ entity("https://idp2.example.com")
+			+ "</md:EntitiesDescriptor>"
+			+ entity("https://idp3.example.com")
+			+ "</md:EntitiesDescriptor>";
+	private final StreamingMetadataReader reader = new StreamingMetadataReader();
+
+	@Test
+	public void shouldPassEntitiesWithEnclosingDescriptors() throws Exception
+	{
+		List<String> entities = new ArrayList<>();
+
+		ReadMetadata read = reader.read(metadata(METADATA.getBytes(StandardCharsets.UTF_8)), new Date(),
+				MetadataSignatureValidation.ignore, null,
+				(descriptor, entity, hash) -> entities.add(descriptor.getName() + " " + entity.getEntityID()));
+
+		assertThat(entities).containsExactly(
+				"urn:test:federation https://idp1.example.com",
+				"urn:test:nested https://idp2.example.com",
+				"urn:test:federation https://idp3.example.com");
+		assertThat(read.root.getID()).isEqualTo("federation");
+		assertThat(read.root.getEntityDescriptorArray()).isEmpty();
+		assertThat(read.validUntil).hasSize(1);
+	}
+
+	@Test
+	public void shouldRejectUnsignedMetadataWhenSignatureIsRequired() throws Exception
+	{
+		List<String> entities = new ArrayList<>();
+
+		Throwable error = catchThrowable(() -> reader.read(metadata(METADATA.getBytes(StandardCharsets.UTF_8)),
+				new Date(), MetadataSignatureValidation.require, MetadataTestSigner.getCertificate(),
+				(descriptor, entity, hash) -> entities.add(entity.getEntityID())));
+
+		assertThat(error).isInstanceOf(MetadataValidationException.class);
+		assertThat(entities).isEmpty();
+	}
+
+	@Test
+	public void shouldPassAllEntitiesOfMetadataWithSignedRoot() throws Exception
+	{
+		byte[] signed = MetadataTestSigner.signRoot(METADATA.getBytes(StandardCharsets.UTF_8));
+		List<String> entities = new ArrayList<>();
+
+		reader.read(metadata(signed), new Date(), MetadataSignatureValidation.require,
+				MetadataTestSigner.getCertificate(), (descriptor, entity, hash) -> entities.add(entity.getEntityID()));
+
+		assertThat(entities).containsExactly("https://idp1.example.com", "https://idp2.example.com",
+				"https://idp3.example.com");
+	}
+
+	@Test
+	public void shouldPassAllSignedEntities() throws Exception
+	{
+		byte[] signed = MetadataTestSigner.signEntities(METADATA.getBytes(StandardCharsets.UTF_8));
+		List<String> entities = new ArrayList<>();
+
+		reader.read(metadata(signed), new Date(), MetadataSignatureValidation.require,
+				MetadataTestSigner.getCertificate(), (descriptor, entity, hash) -> entities.add(entity.getEntityID()));
+
+		assertThat(entities).containsExactly("https://idp1.example.com", "https://idp2.example.com",
+				"https://idp3.example.com");
+	}
+
+	@Test
+	public void shouldRejectModifiedSignedEntity() throws Exception
+	{
+		String signed = new String(MetadataTestSigner.signEntities(METADATA.getBytes(StandardCharsets.UTF_8)),
+				StandardCharsets.UTF_8);
+		byte[] modified = signed.replace("https://idp2.example.com", "https://other.example.com")
+				.getBytes(StandardCharsets.UTF_8);
+		List<String> entities = new ArrayList<>();
+
+		Throwable error = catchThrowable(() -> reader.read(metadata(modified), new Date(),
+				MetadataSignatureValidation.require, MetadataTestSigner.getCertificate(),
+				(descriptor, entity, hash) -> entities.add(entity.getEntityID())));
+
+		assertThat(error).isInstanceOf(MetadataValidationException.class);
+		assertThat(entities).containsExactly("https://idp1.example.com");
+	}
+
+	@Test
+	public void shouldReadRootWithoutEntities() throws Exception
+	{
+		EntitiesDescriptorType root = reader.readRoot(metadata(METADATA.getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(root.getID()).isEqualTo("federation");
+		assertThat(root.getName()).isEqualTo("urn:test:federation");
+		assertThat(root.getEntityDescriptorArray()).isEmpty();
+	}
+
+	@Test
+	public void shouldRejectMetadataWithOtherRoot()
+	{
+		String entity = entity("https://idp1.example.com")
+				.replace("<md:EntityDescriptor ",
+						"<md:EntityDescriptor xmlns:md=\"urn:oasis:names:tc:SAML:2.0:metadata\" "
+						+ "xmlns:mdui=\"urn:oasis:names:tc:SAML:metadata:ui\" ");
+
+		Throwable error = catchThrowable(() -> reader.read(metadata(entity.getBytes(StandardCharsets.UTF_8)),
+				new Date(), MetadataSignatureValidation.ignore, null, (descriptor, e, hash) -> {}));
+
+		assertThat(error).isInstanceOf(MetadataValidationException.class);
+	}
+
+	@Test
+	public void shouldPassChangedHashOfChangedEntityOnly() throws Exception
+	{
+		Map<String, String> hashes = readHashes(METADATA.getBytes(StandardCharsets.UTF_8));
+		
+		Map<String, String> changedHashes = readHashes(METADATA
+				.replace("https://idp2.example.com/sso", "https://idp2.example.com/other")
+				.getBytes(StandardCharsets.UTF_8));
+
+		assertThat(changedHashes.get("https://idp1.example.com")).isEqualTo(hashes.get("https://idp1.example.com"));
+		assertThat(changedHashes.get("https://idp2.example.com")).isNotEqualTo(hashes.get("https://idp2.example.com"));
+		assertThat(changedHashes.get("https://idp3.example.com")).isEqualTo(hashes.get("https://idp3.example.com"));
+	}
+
+	@Test
+	public void shouldPassSameHashesOfEntitiesOfSignedAgainMetadata() throws Exception
+	{
+		byte[] signed = MetadataTestSigner.signRoot(METADATA.getBytes(StandardCharsets.UTF_8));
+		byte[] signedAgain = MetadataTestSigner.signRoot(METADATA.replace("2064-11-24T13:00:28Z", "2064-11-25T13:00:28Z")
+				.getBytes(StandardCharsets.UTF_8));
+
+		assertThat(readHashes(signedAgain)).isEqualTo(readHashes(signed));
+	}
+
+	private Map<String, String> readHashes(byte[] contents) throws Exception
+	{
+		Map<String, String> hashes = new HashMap<>();
+		reader.read(metadata(contents), new Date(), MetadataSignatureValidation.ignore, null,
+				(descriptor, entity, hash) -> hashes.put(entity.getEntityID(), hash));
+		return hashes;
+	}
+
+	private static LoadedMetadata metadata(byte[] contents)
+	{
+		return new LoadedMetadata(contents);
+	}
+
+	private static String entity(String entityId)
+	{
+		return "<md:EntityDescriptor entityID=\"" + entityId + "\">"
+				+ "<md:IDPSSODescriptor protocolSupportEnumeration=\"urn:oasis:names:tc:SAML:2.0:protocol\">"
+				+ "<md:Extensions><mdui:UIInfo><mdui:DisplayName xml:lang=\"en\">" + entityId
+				+ "</mdui:DisplayName></mdui:UIInfo></md:Extensions>"
+				+ "<md:SingleSignOnService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-Redirect\" "
+				+ "Location=\"" + entityId + "/sso\"/>"
+				+ "</md:IDPSSODescriptor></md:EntityDescriptor>";
+	}
+}
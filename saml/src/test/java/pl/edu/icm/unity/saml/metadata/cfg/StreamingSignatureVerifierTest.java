@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.saml.metadata.cfg;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.saml.metadata.cfg.MetadataVerificator.MetadataValidationException;
+
+public class StreamingSignatureVerifierTest
+{
+	private final StreamingSignatureVerifier verifier = new StreamingSignatureVerifier();
+
+	@Test
+	public void shouldAcceptValidSignature() throws Exception
+	{
+		byte[] signed = MetadataTestSigner.signRoot(loadMetadata());
+
+		boolean verified = verifier.verifyIfSigned(new ByteArrayInputStream(signed),
+				MetadataTestSigner.getCertificate().getPublicKey());
+
+		assertThat(verified).isTrue();
+	}
+
+	@Test
+	public void shouldReturnFalseForUnsignedMetadata() throws Exception
+	{
+		boolean verified = verifier.verifyIfSigned(new ByteArrayInputStream(loadMetadata()),
+				MetadataTestSigner.getCertificate().getPublicKey());
+
+		assertThat(verified).isFalse();
+	}
+
+	@Test
+	public void shouldRejectModifiedMetadata() throws Exception
+	{
+		String signed = new String(MetadataTestSigner.signRoot(loadMetadata()), StandardCharsets.UTF_8);
+		byte[] modified = signed.replace("https://fake.idp.eu", "https://other.idp.eu")
+				.getBytes(StandardCharsets.UTF_8);
+
+		Throwable error = catchThrowable(() -> verifier.verifyIfSigned(new ByteArrayInputStream(modified),
+				MetadataTestSigner.getCertificate().getPublicKey()));
+
+		assertThat(error).isInstanceOf(MetadataValidationException.class);
+	}
+
+	@Test
+	public void shouldRejectSignatureOfOtherKey() throws Exception
+	{
+		byte[] signed = MetadataTestSigner.signRoot(loadMetadata());
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		PublicKey otherKey = generator.generateKeyPair().getPublic();
+
+		Throwable error = catchThrowable(() -> verifier.verifyIfSigned(new ByteArrayInputStream(signed), otherKey));
+
+		assertThat(error).isInstanceOf(MetadataValidationException.class);
+	}
+
+	private static byte[] loadMetadata() throws Exception
+	{
+		return Files.readAllBytes(Paths.get("src/test/resources/metadata.switchaai-one.xml"));
+	}
+}
@@ -8,6 +8,8 @@ package pl.edu.icm.unity.saml.metadata.srv;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.FileInputStream;
@@ -17,7 +19,6 @@ import java.util.Date;
 import java.util.Optional;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.xmlbeans.XmlException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -25,9 +26,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import pl.edu.icm.unity.base.exceptions.EngineException;
 import pl.edu.icm.unity.base.file.FileData;
+import pl.edu.icm.unity.engine.api.files.ConditionalFileData;
 import pl.edu.icm.unity.engine.api.files.FileStorageService;
+import pl.edu.icm.unity.engine.api.files.RemoteFileVersion;
 import pl.edu.icm.unity.engine.api.files.URIAccessService;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
 @ExtendWith(MockitoExtension.class)
 public class CachedMetadataLoaderTest
@@ -38,9 +40,10 @@ public class CachedMetadataLoaderTest
 	private FileStorageService fileStorageService;
 	@Mock
 	private MetadataDownloader downloader;
+	private static final String URL = "http://metadata.aai.switch.ch/metadata.switchaai.xml";
 
 	@Test
-	public void shouldCacheMeta() throws EngineException, IOException, XmlException, InterruptedException
+	public void shouldCacheMeta() throws EngineException, IOException, InterruptedException
 	{
 		CachedMetadataLoader loader = new CachedMetadataLoader(uriAccessService, fileStorageService, downloader);
 		String xmlText = IOUtils.toString(new FileInputStream("src/test/resources/unity-as-sp-meta.xml"),
@@ -49,11 +52,82 @@ public class CachedMetadataLoaderTest
 				.thenReturn(new FileData("name", xmlText.getBytes(), new Date()));
 		when(fileStorageService.storeFileInWorkspace(any(), any()))
 				.thenReturn(new FileData("name", xmlText.getBytes(), new Date()));
-		EntitiesDescriptorDocument fresh = loader.getFresh("http://metadata.aai.switch.ch/metadata.switchaai.xml",
+		when(fileStorageService.readFileFromWorkspace(any()))
+				.thenReturn(new FileData("name", xmlText.getBytes(), new Date()));
+		LoadedMetadata fresh = loader.getFresh("http://metadata.aai.switch.ch/metadata.switchaai.xml",
 				"truststore");
-		Optional<EntitiesDescriptorDocument> cached = loader
+		Optional<LoadedMetadata> cached = loader
 				.getCached("http://metadata.aai.switch.ch/metadata.switchaai.xml");
-		assertThat(fresh).isEqualTo(cached.get());
+		assertThat(cached.get().getContentHash()).isEqualTo(fresh.getContentHash());
+	}
+
+	@Test
+	public void shouldReturnEmptyWhenNothingCached() throws EngineException
+	{
+		CachedMetadataLoader loader = new CachedMetadataLoader(uriAccessService, fileStorageService, downloader);
+		when(fileStorageService.readFileFromWorkspace(any())).thenThrow(new EngineException("no file"));
+
+		Optional<LoadedMetadata> cached = loader.getCached(URL);
+
+		assertThat(cached).isEmpty();
 	}
 
+	@Test
+	public void shouldSkipNotChangedMeta() throws Exception
+	{
+		CachedMetadataLoader loader = new CachedMetadataLoader(uriAccessService, fileStorageService, downloader);
+		byte[] xml = IOUtils.toByteArray(new FileInputStream("src/test/resources/unity-as-sp-meta.xml"));
+		FileData file = new FileData("name", xml, new Date());
+		when(downloader.download(any(), eq("truststore"))).thenReturn(file);
+		when(fileStorageService.storeFileInWorkspace(any(), any())).thenReturn(file);
+		RemoteFileVersion version = new RemoteFileVersion("\"v1\"", null);
+		when(downloader.downloadIfModified(any(), eq("truststore"), eq(RemoteFileVersion.UNKNOWN)))
+				.thenReturn(ConditionalFileData.modified(file, version));
+		loader.getFresh(URL, "truststore");
+		
+		Optional<LoadedMetadata> refreshed = loader.getFreshIfChanged(URL, "truststore");
+		
+		assertThat(refreshed).isEmpty();
+		verify(fileStorageService, times(1)).storeFileInWorkspace(any(), any());
+	}
+
+	@Test
+	public void shouldSkipNotModifiedMeta() throws Exception
+	{
+		CachedMetadataLoader loader = new CachedMetadataLoader(uriAccessService, fileStorageService, downloader);
+		byte[] xml = IOUtils.toByteArray(new FileInputStream("src/test/resources/unity-as-sp-meta.xml"));
+		FileData file = new FileData("name", xml, new Date());
+		when(fileStorageService.storeFileInWorkspace(any(), any())).thenReturn(file);
+		RemoteFileVersion version = new RemoteFileVersion("\"v1\"", null);
+		when(downloader.downloadIfModified(any(), eq("truststore"), eq(RemoteFileVersion.UNKNOWN)))
+				.thenReturn(ConditionalFileData.modified(file, version));
+		when(downloader.downloadIfModified(any(), eq("truststore"), eq(version)))
+				.thenReturn(ConditionalFileData.notModified(version));
+		
+		Optional<LoadedMetadata> first = loader.getFreshIfChanged(URL, "truststore");
+		Optional<LoadedMetadata> second = loader.getFreshIfChanged(URL, "truststore");
+		
+		assertThat(first).isPresent();
+		assertThat(second).isEmpty();
+	}
+
+	@Test
+	public void shouldReturnChangedMeta() throws Exception
+	{
+		CachedMetadataLoader loader = new CachedMetadataLoader(uriAccessService, fileStorageService, downloader);
+		String xml = IOUtils.toString(new FileInputStream("src/test/resources/unity-as-sp-meta.xml"),
+				StandardCharsets.UTF_8);
+		FileData file = new FileData("name", xml.getBytes(StandardCharsets.UTF_8), new Date());
+		FileData changedFile = new FileData("name", (xml + "\n").getBytes(StandardCharsets.UTF_8), new Date());
+		when(downloader.download(any(), eq("truststore"))).thenReturn(file);
+		when(fileStorageService.storeFileInWorkspace(any(), any())).thenReturn(file);
+		when(downloader.downloadIfModified(any(), eq("truststore"), eq(RemoteFileVersion.UNKNOWN)))
+				.thenReturn(ConditionalFileData.modified(changedFile, RemoteFileVersion.UNKNOWN));
+		loader.getFresh(URL, "truststore");
+		
+		Optional<LoadedMetadata> refreshed = loader.getFreshIfChanged(URL, "truststore");
+		
+		assertThat(refreshed).isPresent();
+		verify(fileStorageService, times(2)).storeFileInWorkspace(any(), any());
+	}
 }
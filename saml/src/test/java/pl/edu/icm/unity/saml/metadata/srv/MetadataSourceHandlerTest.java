@@ -10,6 +10,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -24,6 +25,9 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -42,7 +46,6 @@ import pl.edu.icm.unity.engine.api.files.FileStorageService;
 import pl.edu.icm.unity.engine.api.files.URIAccessService;
 import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
 import pl.edu.icm.unity.saml.metadata.cfg.AsyncExternalLogoFileDownloader;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
 public class MetadataSourceHandlerTest
 {
@@ -229,7 +232,7 @@ public class MetadataSourceHandlerTest
 		when(downloader.getFresh("http://url", null)).thenAnswer((a) -> {
 			String xml = IOUtils.toString(new FileInputStream("src/test/resources/unity-as-sp-meta.xml"),
 					StandardCharsets.UTF_8);
-			return EntitiesDescriptorDocument.Factory.parse(xml);
+			return new LoadedMetadata(xml.getBytes(StandardCharsets.UTF_8));
 		});
 		
 		MetadataSourceHandler handler = new MetadataSourceHandler(src, 
@@ -244,6 +247,49 @@ public class MetadataSourceHandlerTest
 		verify(downloader, atMost(inv)).getFresh("http://url", null);
 	}
 	
+	@Test
+	public void shouldNotNotifyAboutNotChangedMetadata() throws Exception
+	{
+		CachedMetadataLoader downloader = mock(CachedMetadataLoader.class);
+		when(downloader.getFresh("http://url", null)).thenAnswer((a) -> 
+			new LoadedMetadata(Files.readAllBytes(Paths.get("src/test/resources/unity-as-sp-meta.xml"))));
+		when(downloader.getFreshIfChanged("http://url", null)).thenReturn(Optional.empty());
+		MetadataSourceHandler handler = new MetadataSourceHandler(src, 
+				executorsService, downloader, Duration.ofMillis(10), asyncExternalLogoFileDownloader);
+		
+		AtomicInteger invCount = new AtomicInteger(0);
+		MetadataConsumer consumer = new MetadataConsumer(ofMillis(10), (m,id) -> invCount.incrementAndGet(), "1", false);
+		handler.addConsumer(consumer);
+		
+		Awaitility.await().atMost(Durations.ONE_SECOND).untilAsserted(
+				() -> verify(downloader, atLeast(2)).getFreshIfChanged("http://url", null));
+		assertThat(invCount.get()).isEqualTo(1);
+	}
+	
+	@Test
+	public void shouldNotifyAgainAboutRejectedMetadata() throws Exception
+	{
+		CachedMetadataLoader downloader = mock(CachedMetadataLoader.class);
+		when(downloader.getFresh("http://url", null)).thenAnswer((a) -> 
+			new LoadedMetadata(Files.readAllBytes(Paths.get("src/test/resources/unity-as-sp-meta.xml"))));
+		when(downloader.getFreshIfChanged("http://url", null)).thenReturn(Optional.empty());
+		MetadataSourceHandler handler = new MetadataSourceHandler(src, 
+				executorsService, downloader, Duration.ofMillis(10), asyncExternalLogoFileDownloader);
+		
+		AtomicInteger invCount = new AtomicInteger(0);
+		MetadataConsumer consumer = new MetadataConsumer(ofMillis(10), (m,id) -> 
+		{
+			if (invCount.incrementAndGet() == 1)
+				throw new MetadataRejectedException("invalid");
+		}, "1", false);
+		handler.addConsumer(consumer);
+		
+		Awaitility.await().atMost(Durations.ONE_SECOND).untilAsserted(
+				() -> verify(downloader, atLeast(2)).getFreshIfChanged("http://url", null));
+		assertThat(invCount.get()).isEqualTo(2);
+		verify(downloader, times(2)).getFresh("http://url", null);
+	}
+	
 	@Test
 	public void shouldStartNotificationsAfterStopping() throws Exception
 	{
@@ -302,6 +348,19 @@ public class MetadataSourceHandlerTest
 	@Test
 	public void shouldImmediatellyNotifyWithCachedDataAfterRegistration() throws Exception
 	{
+		Map<String, byte[]> workspace = new ConcurrentHashMap<>();
+		doAnswer((a) -> 
+		{
+			workspace.put(a.getArgument(1), a.getArgument(0));
+			return new FileData(a.getArgument(1), a.getArgument(0), new Date());
+		}).when(fileStorageService).storeFileInWorkspace(any(), any());
+		doAnswer((a) -> 
+		{
+			byte[] contents = workspace.get(a.getArgument(0));
+			if (contents == null)
+				throw new EngineException("no file");
+			return new FileData(a.getArgument(0), contents, new Date());
+		}).when(fileStorageService).readFileFromWorkspace(any());
 		CachedMetadataLoader downloader = new CachedMetadataLoader(uriAccessService, fileStorageService);
 		MetadataSourceHandler handler = new MetadataSourceHandler(src, 
 				executorsService, downloader, Duration.ofMillis(10000), asyncExternalLogoFileDownloader);
@@ -28,7 +28,6 @@ import org.mockito.ArgumentMatchers;
 
 import pl.edu.icm.unity.engine.api.utils.ExecutorsService;
 import pl.edu.icm.unity.saml.metadata.cfg.AsyncExternalLogoFileDownloader;
-import xmlbeans.org.oasis.saml2.metadata.EntitiesDescriptorDocument;
 
 public class RemoteMetadataServiceTest
 {
@@ -44,10 +43,10 @@ public class RemoteMetadataServiceTest
 		when(executorsService.getScheduledService()).thenReturn(pool);
 		downloader = mock(CachedMetadataLoader.class);
 		asyncExternalLogoFileDownloader = mock(AsyncExternalLogoFileDownloader.class);
-		when(downloader.getFresh("url", null)).thenAnswer((a) -> {
+		when(downloader.getFresh(ArgumentMatchers.anyString(), ArgumentMatchers.isNull())).thenAnswer((a) -> {
 			String xml = IOUtils.toString(new FileInputStream("src/test/resources/unity-as-sp-meta.xml"),
 					StandardCharsets.UTF_8);
-			return EntitiesDescriptorDocument.Factory.parse(xml);
+			return new LoadedMetadata(xml.getBytes(StandardCharsets.UTF_8));
 		});
 	}
 	
@@ -88,7 +87,7 @@ public class RemoteMetadataServiceTest
 		when(downloader.getCached("url")).thenAnswer((a) -> {
 			String xml = IOUtils.toString(new FileInputStream("src/test/resources/unity-as-sp-meta.xml"),
 					StandardCharsets.UTF_8);
-			return Optional.of(EntitiesDescriptorDocument.Factory.parse(xml));
+			return Optional.of(new LoadedMetadata(xml.getBytes(StandardCharsets.UTF_8)));
 		});
 		
 		String key = service.preregisterConsumer("url");
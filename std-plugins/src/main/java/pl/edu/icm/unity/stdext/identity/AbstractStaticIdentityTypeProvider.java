@@ -41,6 +41,12 @@ public abstract class AbstractStaticIdentityTypeProvider extends AbstractIdentit
 	{
 		return false;
 	}
+
+	@Override
+	public boolean canExpire()
+	{
+		return false;
+	}
 	
 	@Override
 	public boolean isEmailVerifiable()
@@ -73,6 +73,12 @@ public class PersistentIdentity extends AbstractIdentityTypeProvider implements
 	{
 		return false;
 	}
+
+	@Override
+	public boolean canExpire()
+	{
+		return false;
+	}
 	
 	@Override
 	public String getHumanFriendlyDescription(MessageSource msg)
@@ -82,6 +82,12 @@ public class TargetedPersistentIdentity extends AbstractIdentityTypeProvider imp
 	{
 		return false;
 	}
+
+	@Override
+	public boolean canExpire()
+	{
+		return false;
+	}
 	
 	@Override
 	public String getHumanFriendlyDescription(MessageSource msg)
@@ -36,6 +36,11 @@ public interface AttributeDAO extends BasicCRUDDAO<StoredAttribute>
 	 */
 	List<StoredAttribute> getAttributesOfGroupMembers(String group);
 
+	/**
+	 * @return all attributes (in any group) of entities which are members of any of the given groups
+	 */
+	List<StoredAttribute> getAttributesOfMembersOfGroups(List<String> groups);
+
 	/**
 	 * @return selected attributes (in any group) of members of the given group,
 	 * Attributes can be null or empty, meaning no restriction.
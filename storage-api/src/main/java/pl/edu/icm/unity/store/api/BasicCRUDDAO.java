@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.store.api;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Basic DAO with typical CRUD operations.
@@ -28,5 +29,15 @@ public interface BasicCRUDDAO<T>
 
 	List<T> getAll();
 	
+	/**
+	 * Returns all elements as a stream. Implementations may load elements lazily, in batches, so that 
+	 * the whole table is never held in memory. The returned stream must be consumed 
+	 * in the transaction in which it was created.
+	 */
+	default Stream<T> streamAll()
+	{
+		return getAll().stream();
+	}
+	
 	long getCount();
 }
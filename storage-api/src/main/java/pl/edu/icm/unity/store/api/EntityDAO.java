@@ -4,7 +4,9 @@
  */
 package pl.edu.icm.unity.store.api;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 import pl.edu.icm.unity.base.entity.EntityInformation;
 
@@ -18,4 +20,20 @@ public interface EntityDAO extends BasicCRUDDAO<EntityInformation>
 	String NAME = "entity";
 	
 	List<EntityInformation> getByGroup(String group);
+	
+	/**
+	 * @return entities which are members of any of the given groups
+	 */
+	List<EntityInformation> getByGroups(List<String> groups);
+	
+	/**
+	 * @return up to limit entities with a scheduled operation or removal by user due by the given time, 
+	 * the ones due earliest first
+	 */
+	List<EntityInformation> getWithOperationDue(Date time, int limit);
+	
+	/**
+	 * @return the earliest time of a scheduled operation or removal by user among all entities
+	 */
+	Optional<Date> getNextOperationTime();
 }
@@ -6,6 +6,7 @@ package pl.edu.icm.unity.store.api;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import pl.edu.icm.unity.base.event.EventExecution;
 
@@ -20,4 +21,26 @@ public interface EventDAO extends BasicCRUDDAO<EventExecution>
 	
 	List<EventExecution> getEligibleForProcessing(Date date);
 	void updateExecution(long id, Date newExecution, int failures);
+	
+	/**
+	 * @return at most limit events eligible for processing at the given date, the longest waiting first.
+	 * Events of the excluded listeners are skipped.
+	 */
+	List<EventExecution> getEligibleForProcessing(Date date, Set<String> excludedListeners, int limit);
+	
+	/**
+	 * Atomically postpones the next processing of the event to the claimedUntil date, but only if 
+	 * the event is still eligible for processing at the given date. This allows for claiming an event 
+	 * for processing, without locking, also among cluster nodes.
+	 * @return true if the event was claimed 
+	 */
+	boolean claimForProcessing(long id, Date date, Date claimedUntil);
+	
+	/**
+	 * Postpones the next processing of the claimed events to the claimedUntil date, but only of those
+	 * which are still not eligible for processing at the given date. The caller must make sure that its 
+	 * claims have not expired, as claims of other cluster nodes can't be distinguished. 
+	 * @return true if claims of all the events were extended
+	 */
+	boolean extendClaim(List<Long> ids, Date date, Date claimedUntil);
 }
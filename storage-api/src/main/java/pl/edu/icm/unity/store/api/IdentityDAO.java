@@ -4,6 +4,7 @@
  */
 package pl.edu.icm.unity.store.api;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -22,6 +23,15 @@ public interface IdentityDAO extends NamedCRUDDAO<StoredIdentity>
 	List<Identity> getByEntity(long entityId);
 	List<StoredIdentity> getByEntityFull(long entityId);
 	List<StoredIdentity> getByGroup(String group);
+	/**
+	 * @return identities of entities which are members of any of the given groups
+	 */
+	List<StoredIdentity> getByGroups(List<String> groups);
 	long getCountByType(List<String> types);
+	/**
+	 * @return up to limit identities of the given type which expired before the given time. Only identities 
+	 * with expiration information in their metadata can be returned.
+	 */
+	List<StoredIdentity> getExpiredOfType(String type, Date time, int limit);
 	Set<Long> getIdByTypeAndValues(String type, List<String> values);
 }
@@ -33,6 +33,11 @@ public interface MembershipDAO
 
 	List<GroupMembership> getEntityMemberships(Set<Long> entityId);
 
+	/**
+	 * @return all memberships of entities which are members of any of the given groups
+	 */
+	List<GroupMembership> getMembershipsOfMembersOfGroups(List<String> groups);
+
 	List<GroupMembership> getMembers(String group);
 	
 	List<GroupMembership> getAll();
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.api;
+
+import java.util.Date;
+import java.util.List;
+
+import pl.edu.icm.unity.store.types.ObjectChange;
+
+/**
+ * Read access to the log of modifications of generic objects, as endpoints, realms or authenticators.
+ * Changes are recorded by the storage in the modifying transaction, and are numbered with a monotonic
+ * sequence. Therefore the log allows for a cheap detection of changes committed by other cluster nodes.
+ * <p>
+ * Note that concurrent transactions may commit their changes in a different order than the order of 
+ * the sequence, so the log should be used as a notification mechanism, not as an exact replication stream.
+ */
+public interface ObjectChangesDAO
+{
+	/**
+	 * @return the sequence number of the latest recorded change, 0 if there are no changes 
+	 */
+	long getLastChangeId();
+
+	/**
+	 * @return changes with sequence number greater than the given one, ordered by the sequence number 
+	 */
+	List<ObjectChange> getChangesAfter(long changeId);
+
+	void deleteOlderThan(Date time);
+}
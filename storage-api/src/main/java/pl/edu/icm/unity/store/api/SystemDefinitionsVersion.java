@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.api;
+
+/**
+ * Tracks modifications of system wide definitions: attribute types, attribute classes, groups, credentials,
+ * credential requirements and enquiry forms. Those are rarely modified, so data loaded from them can be reused
+ * as long as the version is not changed.
+ * <p>
+ * Version is maintained in memory of the current server. Modifications are also recorded in the objects changes 
+ * log, so modifications committed by other cluster nodes can be detected with {@link #getLastChangeId()}.
+ */
+public interface SystemDefinitionsVersion
+{
+	/**
+	 * @return version of the committed definitions. It is changed after each commit of a transaction
+	 * which modified any of the tracked definitions.
+	 */
+	long getVersion();
+
+	/**
+	 * Must be invoked in a transaction.
+	 * @return sequence number of the latest change recorded in the objects changes log, what includes
+	 * modifications of the tracked definitions committed by other cluster nodes. 
+	 * See {@link ObjectChangesDAO} for limitations.
+	 */
+	long getLastChangeId();
+
+	/**
+	 * @return true if the current transaction has modified any of the tracked definitions. Data loaded
+	 * in such transaction must not be reused, as it is not committed yet.
+	 */
+	boolean isModifiedInCurrentTransaction();
+}
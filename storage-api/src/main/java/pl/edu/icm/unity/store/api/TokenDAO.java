@@ -4,7 +4,9 @@
  */
 package pl.edu.icm.unity.store.api;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import pl.edu.icm.unity.base.token.Token;
 
@@ -20,6 +22,23 @@ public interface TokenDAO extends BasicCRUDDAO<Token>
 	List<Token> getByType(String type);
 	List<Token> getOwned(String type, long entityId);
 	List<Token> getExpired();
+
+	/**
+	 * @return tokens of the given type, owned by the given entity and issued to the given client
+	 */
+	List<Token> getOwnedByClient(String type, long entityId, long clientId);
+	
+	/**
+	 * @return tokens of the given type with activity deadline earlier then the given one
+	 */
+	List<Token> getInactive(String type, Date deadline);
+	
+	/**
+	 * Updates only the activity deadline of many tokens of the given type, using a single 
+	 * statement per chunk of tokens. Missing tokens are ignored.
+	 * @param deadlines map of new activity deadlines indexed with token values
+	 */
+	void updateActivityDeadlines(String type, Map<String, Date> deadlines);
 	
 	public class TokenNotFoundException extends IllegalArgumentException
 	{
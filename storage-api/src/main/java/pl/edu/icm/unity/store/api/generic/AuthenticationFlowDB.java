@@ -13,4 +13,5 @@ import pl.edu.icm.unity.base.authn.AuthenticationFlowDefinition;
  */
 public interface AuthenticationFlowDB extends NamedCRUDDAOWithTS<AuthenticationFlowDefinition>
 {
+	String OBJECT_TYPE = "authenticationFlow";
 }
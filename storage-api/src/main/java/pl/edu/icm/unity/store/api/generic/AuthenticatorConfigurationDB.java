@@ -12,4 +12,5 @@ import pl.edu.icm.unity.store.types.AuthenticatorConfiguration;
  */
 public interface AuthenticatorConfigurationDB extends NamedCRUDDAOWithTS<AuthenticatorConfiguration>
 {
+	String OBJECT_TYPE = "authenticator";
 }
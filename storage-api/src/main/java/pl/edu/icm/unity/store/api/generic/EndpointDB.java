@@ -13,4 +13,5 @@ import pl.edu.icm.unity.base.endpoint.Endpoint;
  */
 public interface EndpointDB extends NamedCRUDDAOWithTS<Endpoint>
 {
+	String OBJECT_TYPE = "endpointDefinition";
 }
@@ -13,4 +13,5 @@ import pl.edu.icm.unity.base.bulkops.ScheduledProcessingRule;
  */
 public interface ProcessingRuleDB extends NamedCRUDDAOWithTS<ScheduledProcessingRule>
 {
+	String OBJECT_TYPE = "processingRule";
 }
@@ -13,4 +13,5 @@ import pl.edu.icm.unity.base.authn.AuthenticationRealm;
  */
 public interface RealmDB extends NamedCRUDDAOWithTS<AuthenticationRealm>
 {
+	String OBJECT_TYPE = "authenticationRealm";
 }
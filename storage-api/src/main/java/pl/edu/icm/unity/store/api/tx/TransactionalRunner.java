@@ -25,6 +25,22 @@ public interface TransactionalRunner
 	void runInTransactionThrowing(TxRunnableThrowing code) throws EngineException;
 	
 	<T> T runInTransactionRetThrowing(TxRunnableThrowingRet<T> code) throws EngineException;
+
+	/**
+	 * The code must not modify the stored data. It can be executed using a database replica, if configured.
+	 */
+	<T> T runInReadOnlyTransactionRet(TxRunnableRet<T> code);
+
+	/**
+	 * See {@link #runInReadOnlyTransactionRet(TxRunnableRet)}
+	 */
+	<T> T runInReadOnlyTransactionRetThrowing(TxRunnableThrowingRet<T> code) throws EngineException;
+
+	/**
+	 * Runs the code in a transaction sending modifications in JDBC batches. Intended for bulk writes,
+	 * the code must not rely on the numbers of rows affected by modifications.
+	 */
+	void runInBatchTransaction(TxRunnable code);
 	
 	public interface TxRunnable
 	{
@@ -19,4 +19,10 @@ public interface TxManager
 	 * Add special actions to be executed after transaction is successfully committed.
 	 */
 	void addPostCommitAction(Runnable action);
+
+	/**
+	 * @return true if the current transaction reads from the database replica. Data read in such transaction
+	 * can be older than the data committed by the server.
+	 */
+	boolean isServedByReplica();
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.types;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Entry of the log of modifications of stored objects: identifies the modified object and the 
+ * position of the modification in the changes sequence.
+ */
+public class ObjectChange
+{
+	/**
+	 * Type recorded when objects of all types were modified at once.
+	 */
+	public static final String ALL_TYPES = "*";
+
+	private final long id;
+	private final String type;
+	private final String name;
+	private final Date timestamp;
+
+	public ObjectChange(long id, String type, String name, Date timestamp)
+	{
+		this.id = id;
+		this.type = type;
+		this.name = name;
+		this.timestamp = timestamp;
+	}
+
+	public long getId()
+	{
+		return id;
+	}
+
+	public String getType()
+	{
+		return type;
+	}
+
+	/**
+	 * @return name of the modified object, or null if all objects of the type were modified
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	public Date getTimestamp()
+	{
+		return timestamp;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Objects.hash(id, type, name, timestamp);
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		ObjectChange other = (ObjectChange) obj;
+		return id == other.id && Objects.equals(type, other.type) && Objects.equals(name, other.name)
+				&& Objects.equals(timestamp, other.timestamp);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ObjectChange [id=" + id + ", type=" + type + ", name=" + name + "]";
+	}
+}
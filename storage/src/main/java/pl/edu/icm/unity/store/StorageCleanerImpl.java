@@ -90,6 +90,7 @@ public class StorageCleanerImpl implements StorageCleaner
 	@Override
 	public void deletePreImport(List<String> content)
 	{
-		storeLoaderInternal.deletePreImport(content);	
+		storeLoaderInternal.deletePreImport(content);
+		clearCache();
 	}
 }
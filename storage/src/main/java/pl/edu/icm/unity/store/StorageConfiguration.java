@@ -44,6 +44,8 @@ public class StorageConfiguration extends PropertiesHelper
 	public static final String ENGINE = "engine";
 	public static final String IGNORE_ALTERNATIVE_DB_CONFIG = "ignoreAlternativeDbConfig";
 	public static final String MAX_ATTRIBUTE_SIZE = "attributeSizeLimit";
+	public static final String TOKEN_CACHE_TTL = "tokenCacheTTL";
+	public static final String TOKEN_CACHE_MAX_ENTRIES = "tokenCacheMaxEntries";
 	
 	public static final String WIPE_DB_AT_STARTUP = "wipeDbAtStartup";
 	
@@ -70,6 +72,15 @@ public class StorageConfiguration extends PropertiesHelper
 				setDescription("Controls maximum allowed size of an individual attribute as serialized for storage,"
 						+ " including metadata and all values. This limit is not affecting database"
 						+ " performance a lot, but allowing for very big values makes Unity more memory hungry."));
+		META.put(TOKEN_CACHE_TTL, new PropertyMD("0").setNonNegative().
+				setDescription("Time in seconds for which tokens (sessions, OAuth tokens, etc.) "
+						+ "read from the database are kept in memory. Cached tokens are updated on "
+						+ "write, but only on the node performing the change: in a cluster other nodes "
+						+ "may see a stale token (e.g. a session which was already logged out) for at "
+						+ "most this time. Zero disables the cache."));
+		META.put(TOKEN_CACHE_MAX_ENTRIES, new PropertyMD("100000").setPositive().
+				setDescription("Maximum number of tokens kept in the tokens cache. "
+						+ "Used only if the cache is enabled with " + TOKEN_CACHE_TTL + "."));
 		META.put(IGNORE_ALTERNATIVE_DB_CONFIG, new PropertyMD("false").setHidden().
 				setDescription("For unity tests: if set in the main configuration then the system "
 						+ "property with alternative DB config is ignored. It is useful "
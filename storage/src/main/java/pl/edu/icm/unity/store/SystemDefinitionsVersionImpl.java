@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import pl.edu.icm.unity.store.api.SystemDefinitionsVersion;
+import pl.edu.icm.unity.store.impl.objstore.ObjectChangesRDBMSStore;
+import pl.edu.icm.unity.store.tx.TransactionState;
+import pl.edu.icm.unity.store.tx.TransactionTL;
+
+/**
+ * Modifications are reported by the DAOs of the tracked definitions. The version is incremented after commit
+ * of the modifying transaction, so (with read committed isolation) data loaded after observing a version
+ * is never older than that version. Cleaning of the whole storage also changes the version.
+ * <p>
+ * Each modifying transaction records also a change in the objects changes log, for other cluster nodes.
+ */
+@Component
+public class SystemDefinitionsVersionImpl implements SystemDefinitionsVersion, CachingDAO
+{
+	public static final String CHANGE_TYPE = "systemDefinitions";
+	private final ObjectChangesRDBMSStore changesLog;
+	private final AtomicLong version = new AtomicLong();
+	private final ThreadLocal<TransactionState> modifyingTransaction = new ThreadLocal<>();
+
+	@Autowired
+	public SystemDefinitionsVersionImpl(ObjectChangesRDBMSStore changesLog)
+	{
+		this.changesLog = changesLog;
+	}
+
+	@Override
+	public long getVersion()
+	{
+		return version.get();
+	}
+
+	@Override
+	public long getLastChangeId()
+	{
+		return changesLog.getLastChangeId();
+	}
+
+	@Override
+	public boolean isModifiedInCurrentTransaction()
+	{
+		TransactionState modifying = modifyingTransaction.get();
+		return modifying != null && modifying == TransactionTL.getRootTransactionIfPresent();
+	}
+
+	/**
+	 * Records modification of tracked definitions in the current transaction.
+	 */
+	public void markModified()
+	{
+		TransactionState transaction = TransactionTL.getRootTransactionIfPresent();
+		if (transaction == null)
+		{
+			version.incrementAndGet();
+			return;
+		}
+		if (modifyingTransaction.get() == transaction)
+			return;
+		modifyingTransaction.set(transaction);
+		changesLog.recordChange(CHANGE_TYPE, null);
+		transaction.addPostCommitAction(version::incrementAndGet);
+		transaction.addFinalizationAction(modifyingTransaction::remove);
+	}
+
+	@Override
+	public void invalidateCache()
+	{
+		version.incrementAndGet();
+	}
+}
@@ -6,7 +6,9 @@ package pl.edu.icm.unity.store.export;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 
@@ -37,9 +39,10 @@ public abstract class AbstractIEBase<T>
 	}
 
 	/**
-	 * @return all objects to be exported
+	 * @return all objects to be exported. Stream is consumed during serialization, 
+	 * so objects can be loaded lazily.
 	 */
-	protected abstract List<T> getAllToExport();
+	protected abstract Stream<T> getAllToExport();
 	/**
 	 * Converts in-db object to JSON form
 	 * @param exportedObj
@@ -77,10 +80,13 @@ public abstract class AbstractIEBase<T>
 
 	public void serialize(JsonGenerator jg) throws IOException
 	{
-		List<T> all = getAllToExport();
 		jg.writeStartArray();
-		for (T obj: all)
-			serializeToJson(jg, obj);
+		try (Stream<T> all = getAllToExport())
+		{
+			Iterator<T> iterator = all.iterator();
+			while (iterator.hasNext())
+				serializeToJson(jg, iterator.next());
+		}
 		jg.writeEndArray();
 	}
 	
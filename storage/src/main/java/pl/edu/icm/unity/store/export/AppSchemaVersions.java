@@ -34,7 +34,8 @@ public enum AppSchemaVersions
 	V_SINCE_4_0_0(20, "4.0.0"),
 	V_SINCE_4_2_0(21, "4.2.0"),
 	V_SINCE_4_3_0(22, "4.3.0"),
-	V_SINCE_4_4_0(23, "4.4.0");
+	V_SINCE_4_4_0(23, "4.4.0"),
+	V_SINCE_4_5_0(24, "4.5.0");
 
 	
 	
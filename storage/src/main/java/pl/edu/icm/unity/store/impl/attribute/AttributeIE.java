@@ -4,9 +4,8 @@
  */
 package pl.edu.icm.unity.store.impl.attribute;
 
-import static java.util.stream.Collectors.toList;
-
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -42,12 +41,10 @@ public class AttributeIE extends AbstractIEBase<StoredAttributeWithKeywords>
 	}
 
 	@Override
-	protected List<StoredAttributeWithKeywords> getAllToExport()
+	protected Stream<StoredAttributeWithKeywords> getAllToExport()
 	{
 		return dao.getAllIds().stream()
-				.map(this::toStoredAttrWithKeywords)
-				.collect(toList());
-		
+				.map(this::toStoredAttrWithKeywords);
 	}
 	
 	private StoredAttributeWithKeywords toStoredAttrWithKeywords(Long attributeId)
@@ -125,6 +125,15 @@ public class AttributeRDBMSStore extends GenericRDBMSCRUD<StoredAttribute, Attri
 		return convertList(groupMembersAttributes);
 	}
 
+	@Override
+	public List<StoredAttribute> getAttributesOfMembersOfGroups(List<String> groups)
+	{
+		if (groups.isEmpty())
+			return new ArrayList<>();
+		AttributesMapper mapper = SQLTransactionTL.getSql().getMapper(AttributesMapper.class);
+		return convertList(mapper.getMembersOfGroupsAttributes(groups));
+	}
+
 	@Override
 	public List<StoredAttribute> getAttributesOfGroupMembers(List<String> attributes, List<String> groups)
 	{
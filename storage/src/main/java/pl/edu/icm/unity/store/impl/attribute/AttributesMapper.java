@@ -21,6 +21,7 @@ public interface AttributesMapper extends BasicCRUDMapper<AttributeBean>
 	List<AttributeBean> getAttributes(AttributeBean a);
 	
 	List<AttributeBean> getGroupMembersAttributes(String group);
+	List<AttributeBean> getMembersOfGroupsAttributes(List<String> groups);
 
 	List<AttributeBean> getGroupsMembersAttributes(List<String> groups);
 
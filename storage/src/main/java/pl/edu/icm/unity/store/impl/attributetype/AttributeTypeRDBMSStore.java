@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import pl.edu.icm.unity.base.attribute.AttributeType;
+import pl.edu.icm.unity.store.SystemDefinitionsVersionImpl;
 import pl.edu.icm.unity.store.rdbms.GenericNamedRDBMSCRUD;
 
 
@@ -20,10 +21,18 @@ public class AttributeTypeRDBMSStore extends GenericNamedRDBMSCRUD<AttributeType
 		implements AttributeTypeDAOInternal
 {
 	public static final String BEAN = DAO_ID + "rdbms";
+	private final SystemDefinitionsVersionImpl definitionsVersion;
 
 	@Autowired
-	AttributeTypeRDBMSStore(AttributeTypeRDBMSSerializer jsonSerializer)
+	AttributeTypeRDBMSStore(AttributeTypeRDBMSSerializer jsonSerializer, SystemDefinitionsVersionImpl definitionsVersion)
 	{
 		super(AttributeTypesMapper.class, jsonSerializer, "attribute type");
+		this.definitionsVersion = definitionsVersion;
+	}
+
+	@Override
+	protected void onModification()
+	{
+		definitionsVersion.markModified();
 	}
 }
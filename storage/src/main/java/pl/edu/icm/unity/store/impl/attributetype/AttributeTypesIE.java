@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.attributetype;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,9 +39,9 @@ public class AttributeTypesIE extends AbstractIEBase<AttributeType>
 	}
 	
 	@Override
-	protected List<AttributeType> getAllToExport()
+	protected Stream<AttributeType> getAllToExport()
 	{
-		return dbAttributes.getAll();
+		return dbAttributes.streamAll();
 	}
 
 	@Override
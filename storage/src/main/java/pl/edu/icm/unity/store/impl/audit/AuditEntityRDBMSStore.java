@@ -4,33 +4,63 @@
  */
 package pl.edu.icm.unity.store.impl.audit;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import pl.edu.icm.unity.base.audit.AuditEntity;
+import pl.edu.icm.unity.store.api.tx.TxManager;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 
 /**
  * RDBMS storage of {@link AuditEntity}. Helper repository to handle actions related to AuditEntity entries.
  * <p>
  * Package private access - public methods are exposed via AuditEventDAO.
+ * <p>
+ * Ids of recently used entities are cached, as the entries are never removed (besides of DB reset, 
+ * which invalidates the cache).
  *
  * @author R. Ledzinski
  */
 @Repository
 class AuditEntityRDBMSStore
 {
+	private static final int MAX_CACHED_ENTITIES = 10000;
+	private final Cache<AuditEntity, Long> knownEntityIds = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_ENTITIES)
+			.build();
+	private final TxManager txManager;
+
+	@Autowired
+	AuditEntityRDBMSStore(TxManager txManager)
+	{
+		this.txManager = txManager;
+	}
+
+	void invalidateCache()
+	{
+		knownEntityIds.invalidateAll();
+	}
+
 	Long findOrCreateEntity(AuditEntity auditEntity)
 	{
 		if (auditEntity == null) {
 			return null;
 		}
-		Long id = getAuditEntityId(auditEntity);
+		Long id = knownEntityIds.getIfPresent(auditEntity);
+		if (id != null)
+			return id;
+		id = getAuditEntityId(auditEntity);
 		if (id == null) {
 			id = createAuditEntity(auditEntity);
 		}
+		// id is cached only if the entity is surely in DB
+		Long storedId = id;
+		txManager.addPostCommitAction(() -> knownEntityIds.put(auditEntity, storedId));
 		return id;
 	}
-
 	private Long getAuditEntityId(AuditEntity auditEntity)
 	{
 		AuditEventMapper mapper = SQLTransactionTL.getSql().getMapper(AuditEventMapper.class);
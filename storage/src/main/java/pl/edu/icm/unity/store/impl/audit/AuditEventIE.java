@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.audit;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,9 +40,9 @@ public class AuditEventIE extends AbstractIEBase<AuditEvent>
 	}
 
 	@Override
-	protected List<AuditEvent> getAllToExport()
+	protected Stream<AuditEvent> getAllToExport()
 	{
-		return dao.getAll();
+		return dao.streamAll();
 	}
 
 	@Override
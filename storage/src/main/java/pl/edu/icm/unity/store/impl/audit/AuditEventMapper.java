@@ -25,7 +25,9 @@ public interface AuditEventMapper extends BasicCRUDMapper<AuditEventBean>
 	Set<String> getAllTags();
 	void createTag(@Param("tag") String tag);
 
-	void insertAuditTags(@Param("eventId") long eventId, @Param("tagList") Set<String> tags);
+	Long getTagId(@Param("tag") String tag);
+
+	void insertAuditTags(List<AuditEventTagBean> eventTags);
 
 	List<AuditEventBean> getOrderedLogs(@Param("from") Date from, @Param("until") Date until, @Param("limit") int limit,
 										@Param("order") String order, @Param("direction") String direction);
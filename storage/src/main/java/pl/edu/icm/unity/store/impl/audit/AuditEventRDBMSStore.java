@@ -4,8 +4,11 @@
  */
 package pl.edu.icm.unity.store.impl.audit;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.logging.log4j.Logger;
@@ -32,12 +35,15 @@ public class AuditEventRDBMSStore extends GenericRDBMSCRUD<AuditEvent, AuditEven
 	public static final String BEAN = DAO_ID + "rdbms";
 
 	private AuditTagRDBMSStore tagDAO;
+	private AuditEntityRDBMSStore entityDAO;
 
 	@Autowired
-	public AuditEventRDBMSStore(final AuditEventJsonSerializer jsonSerializer, AuditTagRDBMSStore tagDAO)
+	public AuditEventRDBMSStore(final AuditEventJsonSerializer jsonSerializer, AuditTagRDBMSStore tagDAO,
+			AuditEntityRDBMSStore entityDAO)
 	{
 		super(AuditEventMapper.class, jsonSerializer, NAME);
 		this.tagDAO = tagDAO;
+		this.entityDAO = entityDAO;
 	}
 
 	@Override
@@ -69,6 +75,36 @@ public class AuditEventRDBMSStore extends GenericRDBMSCRUD<AuditEvent, AuditEven
 		return id;
 	}
 
+	/**
+	 * Stores all events with a single multi-row insert. Tags of all events are also assigned with a single insert.
+	 */
+	@Override
+	public void createList(List<AuditEvent> objs)
+	{
+		if (objs.isEmpty())
+			return;
+		log.debug("Inserting {} audit events", objs.size());
+		AuditEventMapper mapper = SQLTransactionTL.getSql().getMapper(AuditEventMapper.class);
+		List<AuditEventBean> beans = new ArrayList<>(objs.size());
+		for (AuditEvent obj: objs)
+		{
+			AuditEventBean bean = jsonSerializer.toDB(obj);
+			assertContentsLimit(bean.getContents());
+			beans.add(bean);
+		}
+		mapper.createList(beans);
+
+		Map<Long, Set<String>> tagsByEventId = new HashMap<>();
+		for (int i = 0; i < objs.size(); i++)
+		{
+			Set<String> tags = objs.get(i).getTags();
+			if (tags != null && !tags.isEmpty())
+				tagsByEventId.put(beans.get(i).getId(), tags);
+		}
+		if (!tagsByEventId.isEmpty())
+			tagDAO.insertAuditTags(tagsByEventId);
+	}
+
 	@Override
 	public void updateByKey(final long key, final AuditEvent obj) {
 		throw new UnsupportedOperationException("Update operation is not supported for AuditEvents.");
@@ -84,5 +120,6 @@ public class AuditEventRDBMSStore extends GenericRDBMSCRUD<AuditEvent, AuditEven
 	public void invalidateCache() 
 	{
 		tagDAO.invalidateCache();
+		entityDAO.invalidateCache();
 	}
 }
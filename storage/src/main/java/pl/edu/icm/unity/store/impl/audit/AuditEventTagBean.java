@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.audit;
+
+/**
+ * In DB representation of a tag assigned to an audit event.
+ */
+class AuditEventTagBean
+{
+	private final long eventId;
+	private final long tagId;
+
+	AuditEventTagBean(long eventId, long tagId)
+	{
+		this.eventId = eventId;
+		this.tagId = tagId;
+	}
+
+	public long getEventId()
+	{
+		return eventId;
+	}
+
+	public long getTagId()
+	{
+		return tagId;
+	}
+}
@@ -7,22 +7,29 @@ package pl.edu.icm.unity.store.impl.audit;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
-import com.google.common.collect.Sets;
-
 import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.api.tx.TxManager;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 
 /**
  * RDBMS storage of AuditEvent Tags. Helper repository to handle actions on Tag related tables entries.
  * <p>
  * Package private access - public methods are exposed via AuditEventDAO.
+ * <p>
+ * Ids of tags are cached, as the tags are never removed (besides of DB reset, which invalidates the cache).
  *
  * @author R. Ledzinski
  */
@@ -30,63 +37,107 @@ import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 class AuditTagRDBMSStore
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, AuditTagRDBMSStore.class);
-	private Set<String> knownTags = Sets.newConcurrentHashSet();
+	private final Map<String, Long> knownTagIds = new ConcurrentHashMap<>();
+	private final TxManager txManager;
+
+	@Autowired
+	AuditTagRDBMSStore(TxManager txManager)
+	{
+		this.txManager = txManager;
+	}
 
 	void invalidateCache()
 	{
-		knownTags.clear();
+		knownTagIds.clear();
 	}
 
 	Set<String> getAllTags()
 	{
 		AuditEventMapper mapper = SQLTransactionTL.getSql().getMapper(AuditEventMapper.class);
-		Set<String> allTags = mapper.getAllTags();
-		knownTags.addAll(allTags);
-		return allTags;
+		return mapper.getAllTags();
 	}
 
 	void insertAuditTags(long eventId, Set<String> tagList)
 	{
+		insertAuditTags(Map.of(eventId, tagList));
+	}
+
+	/**
+	 * Assigns tags to events with a single insert.
+	 * @param tagsByEventId tags to be added, per event id
+	 */
+	void insertAuditTags(Map<Long, Set<String>> tagsByEventId)
+	{
+		Set<String> allTags = new HashSet<>();
+		tagsByEventId.values().forEach(allTags::addAll);
+		if (allTags.isEmpty())
+			return;
 		// Make sure all tags are in DB
-		insertTags(tagList);
-		// Add tags for given event
+		Map<String, Long> tagIds = getOrCreateTags(allTags);
+		List<AuditEventTagBean> eventTags = new ArrayList<>();
+		for (Map.Entry<Long, Set<String>> event: tagsByEventId.entrySet())
+			for (String tag: event.getValue())
+				eventTags.add(new AuditEventTagBean(event.getKey(), tagIds.get(tag)));
 		AuditEventMapper mapper = SQLTransactionTL.getSql().getMapper(AuditEventMapper.class);
-		mapper.insertAuditTags(eventId, tagList);
+		mapper.insertAuditTags(eventTags);
+	}
+
+	private Map<String, Long> getOrCreateTags(Set<String> tags)
+	{
+		Map<String, Long> tagIds = new HashMap<>();
+		Map<String, Long> resolved = new HashMap<>();
+		for (String tag: tags)
+		{
+			Long id = knownTagIds.get(tag);
+			if (id == null)
+			{
+				id = getOrCreateTag(tag);
+				resolved.put(tag, id);
+			}
+			tagIds.put(tag, id);
+		}
+		// ids are cached only if the tags are surely in DB
+		if (!resolved.isEmpty())
+			txManager.addPostCommitAction(() -> knownTagIds.putAll(resolved));
+		return tagIds;
+	}
+
+	private long getOrCreateTag(String tag)
+	{
+		AuditEventMapper mapper = SQLTransactionTL.getSql().getMapper(AuditEventMapper.class);
+		Long id = mapper.getTagId(tag);
+		if (id == null)
+		{
+			insertTag(tag);
+			id = mapper.getTagId(tag);
+		}
+		return id;
 	}
 
 	/**
 	 * Impl note: tx savepoints are used to workaround postgres specific problem, which rollback complete transaction
 	 * on error. As in the case of adding tag error is harmless we rollback only the failed insert.  
 	 */
-	private void insertTags(Set<String> tagList)
+	private void insertTag(String tag)
 	{
-		Set<String> missing = new HashSet<>(tagList);
-		missing.removeAll(knownTags);
-		if (missing.isEmpty())
-			return;
-
 		Connection connection = SQLTransactionTL.getSql().getConnection();
 		AuditEventMapper mapper = SQLTransactionTL.getSql().getMapper(AuditEventMapper.class);
 		try
 		{
-			for (String tag : missing)
+			Savepoint savepoint = connection.setSavepoint();
+			try
+			{
+				mapper.createTag(tag);
+				connection.releaseSavepoint(savepoint);
+			} catch (PersistenceException e)
 			{
-				Savepoint savepoint = connection.setSavepoint();
-				try
-				{
-					mapper.createTag(tag);
-					connection.releaseSavepoint(savepoint);
-				} catch (PersistenceException e)
-				{
-					log.debug("Can't add tag {}, it is already in db. "
-							+ "Can happen but shouldn't happen often", tag, e);
-					connection.rollback(savepoint);
-				}
+				log.debug("Can't add tag {}, it is already in db. "
+						+ "Can happen but shouldn't happen often", tag, e);
+				connection.rollback(savepoint);
 			}
 		} catch (SQLException e)
 		{
 			throw new PersistenceException(e);
 		}
-		knownTags.addAll(missing);
 	}
 }
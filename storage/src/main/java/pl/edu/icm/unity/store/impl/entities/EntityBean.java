@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.entities;
+
+import java.util.Date;
+
+import pl.edu.icm.unity.store.rdbms.BaseBean;
+
+/**
+ * In DB entity representation. Besides the contents holds the time of the earliest operation scheduled
+ * on the entity, stored in an indexed column.
+ */
+public class EntityBean extends BaseBean
+{
+	private Date nextOperationTime;
+
+	public EntityBean()
+	{
+	}
+
+	public EntityBean(byte[] contents, Date nextOperationTime)
+	{
+		super(null, contents);
+		this.nextOperationTime = nextOperationTime;
+	}
+
+	public Date getNextOperationTime()
+	{
+		return nextOperationTime;
+	}
+
+	public void setNextOperationTime(Date nextOperationTime)
+	{
+		this.nextOperationTime = nextOperationTime;
+	}
+}
@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.entities;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,9 +39,9 @@ public class EntityIE extends AbstractIEBase<EntityInformation>
 	}
 
 	@Override
-	protected List<EntityInformation> getAllToExport()
+	protected Stream<EntityInformation> getAllToExport()
 	{
-		return dbIds.getAll();
+		return dbIds.streamAll();
 	}
 
 	@Override
@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.store.impl.entities;
 
 import java.io.IOException;
+import java.util.Date;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -13,7 +14,6 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import pl.edu.icm.unity.base.entity.EntityInformation;
-import pl.edu.icm.unity.store.rdbms.BaseBean;
 import pl.edu.icm.unity.store.rdbms.RDBMSObjectSerializer;
 
 /**
@@ -22,18 +22,19 @@ import pl.edu.icm.unity.store.rdbms.RDBMSObjectSerializer;
  * @author K. Benedyczak
  */
 @Component
-class EntityJsonSerializer implements RDBMSObjectSerializer<EntityInformation, BaseBean>
+class EntityJsonSerializer implements RDBMSObjectSerializer<EntityInformation, EntityBean>
 {
 	@Autowired
 	private ObjectMapper jsonMapper;
 	
 	@Override
-	public BaseBean toDB(EntityInformation object)
+	public EntityBean toDB(EntityInformation object)
 	{
 		try
 		{
-			BaseBean bean = new BaseBean(null,
-					jsonMapper.writeValueAsBytes(EntityInformationBaseMapper.map(object)));
+			EntityBean bean = new EntityBean(
+					jsonMapper.writeValueAsBytes(EntityInformationBaseMapper.map(object)),
+					getNextOperationTime(object));
 			bean.setId(object.getId());
 			return bean;
 		} catch (JsonProcessingException e)
@@ -44,7 +45,7 @@ class EntityJsonSerializer implements RDBMSObjectSerializer<EntityInformation, B
 	}
 
 	@Override
-	public EntityInformation fromDB(BaseBean bean)
+	public EntityInformation fromDB(EntityBean bean)
 	{
 		DBEntityInformationBase entityInformationBase;
 		try
@@ -57,4 +58,19 @@ class EntityJsonSerializer implements RDBMSObjectSerializer<EntityInformation, B
 
 		return EntityInformationBaseMapper.map(entityInformationBase, bean.getId());
 	}
+
+	/**
+	 * @return the earliest of the times of the scheduled operation and of the removal requested by user,
+	 * or null if none is set
+	 */
+	static Date getNextOperationTime(EntityInformation object)
+	{
+		Date scheduled = object.getScheduledOperationTime();
+		Date removal = object.getRemovalByUserTime();
+		if (scheduled == null)
+			return removal;
+		if (removal == null)
+			return scheduled;
+		return removal.before(scheduled) ? removal : scheduled;
+	}
 }
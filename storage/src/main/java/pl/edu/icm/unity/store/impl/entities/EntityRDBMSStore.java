@@ -4,14 +4,16 @@
  */
 package pl.edu.icm.unity.store.impl.entities;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import pl.edu.icm.unity.base.entity.EntityInformation;
 import pl.edu.icm.unity.store.api.EntityDAO;
-import pl.edu.icm.unity.store.rdbms.BaseBean;
 import pl.edu.icm.unity.store.rdbms.GenericRDBMSCRUD;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 
@@ -21,7 +23,7 @@ import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
  * @author K. Benedyczak
  */
 @Repository(EntityRDBMSStore.BEAN)
-public class EntityRDBMSStore extends GenericRDBMSCRUD<EntityInformation, BaseBean> implements EntityDAO
+public class EntityRDBMSStore extends GenericRDBMSCRUD<EntityInformation, EntityBean> implements EntityDAO
 {
 	public static final String BEAN = DAO_ID + "rdbms";
 
@@ -43,7 +45,30 @@ public class EntityRDBMSStore extends GenericRDBMSCRUD<EntityInformation, BaseBe
 	public List<EntityInformation> getByGroup(String group)
 	{
 		EntitiesMapper mapper = SQLTransactionTL.getSql().getMapper(EntitiesMapper.class);
-		List<BaseBean> allInDB = mapper.getByGroup(group);
+		List<EntityBean> allInDB = mapper.getByGroup(group);
 		return convertList(allInDB);
 	}
+
+	@Override
+	public List<EntityInformation> getByGroups(List<String> groups)
+	{
+		if (groups.isEmpty())
+			return new ArrayList<>();
+		EntitiesMapper mapper = SQLTransactionTL.getSql().getMapper(EntitiesMapper.class);
+		return convertList(mapper.getByGroups(groups));
+	}
+
+	@Override
+	public List<EntityInformation> getWithOperationDue(Date time, int limit)
+	{
+		EntitiesMapper mapper = SQLTransactionTL.getSql().getMapper(EntitiesMapper.class);
+		return convertList(mapper.getWithOperationDue(time, limit));
+	}
+
+	@Override
+	public Optional<Date> getNextOperationTime()
+	{
+		EntitiesMapper mapper = SQLTransactionTL.getSql().getMapper(EntitiesMapper.class);
+		return Optional.ofNullable(mapper.getNextOperationTime());
+	}
 }
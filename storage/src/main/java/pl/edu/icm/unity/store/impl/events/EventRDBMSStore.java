@@ -6,6 +6,7 @@ package pl.edu.icm.unity.store.impl.events;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -58,4 +59,26 @@ public class EventRDBMSStore extends GenericRDBMSCRUD<EventExecution, EventBean>
 		EventsMapper mapper = SQLTransactionTL.getSql().getMapper(EventsMapper.class);
 		mapper.updateExecution(param);
 	}
+
+	@Override
+	public List<EventExecution> getEligibleForProcessing(Date date, Set<String> excludedListeners, int limit)
+	{
+		EventsMapper mapper = SQLTransactionTL.getSql().getMapper(EventsMapper.class);
+		List<EventBean> rawEvents = mapper.selectEventsBatchForProcessing(date, excludedListeners, limit);
+		return convertList(rawEvents);
+	}
+
+	@Override
+	public boolean claimForProcessing(long id, Date date, Date claimedUntil)
+	{
+		EventsMapper mapper = SQLTransactionTL.getSql().getMapper(EventsMapper.class);
+		return mapper.claimForProcessing(id, date, claimedUntil) == 1;
+	}
+
+	@Override
+	public boolean extendClaim(List<Long> ids, Date date, Date claimedUntil)
+	{
+		EventsMapper mapper = SQLTransactionTL.getSql().getMapper(EventsMapper.class);
+		return mapper.extendClaim(ids, date, claimedUntil) == ids.size();
+	}
 }
@@ -6,6 +6,9 @@ package pl.edu.icm.unity.store.impl.events;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+
+import org.apache.ibatis.annotations.Param;
 
 import pl.edu.icm.unity.store.rdbms.BasicCRUDMapper;
 
@@ -17,4 +20,10 @@ public interface EventsMapper extends BasicCRUDMapper<EventBean>
 {
 	void updateExecution(EventBean event);
 	List<EventBean> selectEventsForProcessing(Date date);
+	List<EventBean> selectEventsBatchForProcessing(@Param("date") Date date, 
+			@Param("excludedListeners") Set<String> excludedListeners, @Param("limit") int limit);
+	int claimForProcessing(@Param("id") long id, @Param("date") Date date, 
+			@Param("claimedUntil") Date claimedUntil);
+	int extendClaim(@Param("ids") List<Long> ids, @Param("date") Date date, 
+			@Param("claimedUntil") Date claimedUntil);
 }
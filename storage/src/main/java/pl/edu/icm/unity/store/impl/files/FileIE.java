@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.files;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -37,9 +37,9 @@ public class FileIE extends AbstractIEBase<FileData>
 	}
 
 	@Override
-	protected List<FileData> getAllToExport()
+	protected Stream<FileData> getAllToExport()
 	{
-		return dao.getAll();
+		return dao.streamAll();
 	}
 
 	@Override
@@ -6,6 +6,7 @@ package pl.edu.icm.unity.store.impl.groups;
 
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,9 +44,9 @@ public class GroupIE extends AbstractIEBase<Group>
 	}
 
 	@Override
-	protected List<Group> getAllToExport()
+	protected Stream<Group> getAllToExport()
 	{
-		 return dao.getAll();
+		 return dao.streamAll();
 	}
 	
 	@Override
@@ -17,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import pl.edu.icm.unity.base.group.Group;
+import pl.edu.icm.unity.store.SystemDefinitionsVersionImpl;
 import pl.edu.icm.unity.store.impl.StorageLimits;
 import pl.edu.icm.unity.store.rdbms.GenericNamedRDBMSCRUD;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
@@ -30,11 +31,19 @@ import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 public class GroupRDBMSStore extends GenericNamedRDBMSCRUD<Group, GroupBean> implements GroupDAOInternal
 {
 	public static final String BEAN = DAO_ID + "rdbms";
+	private final SystemDefinitionsVersionImpl definitionsVersion;
 
 	@Autowired
-	public GroupRDBMSStore(GroupJsonSerializer jsonSerializer)
+	public GroupRDBMSStore(GroupJsonSerializer jsonSerializer, SystemDefinitionsVersionImpl definitionsVersion)
 	{
 		super(GroupsMapper.class, jsonSerializer, NAME);
+		this.definitionsVersion = definitionsVersion;
+	}
+
+	@Override
+	protected void onModification()
+	{
+		definitionsVersion.markModified();
 	}
 	
 	@Override
@@ -53,6 +62,7 @@ public class GroupRDBMSStore extends GenericNamedRDBMSCRUD<Group, GroupBean> imp
 			{
 				mapper.createRoot(toAdd);
 			}
+			onModification();
 			return toAdd.getId();				
 		} catch (PersistenceException e)
 		{
@@ -92,6 +102,7 @@ public class GroupRDBMSStore extends GenericNamedRDBMSCRUD<Group, GroupBean> imp
 			converted.add(toAdd);
 		}
 		mapper.createList(converted);
+		onModification();
 	}
 	
 	@Override
@@ -119,7 +130,8 @@ public class GroupRDBMSStore extends GenericNamedRDBMSCRUD<Group, GroupBean> imp
 		GroupBean toUpdate = jsonSerializer.toDB(obj);
 		StorageLimits.checkContentsLimit(toUpdate.getContents());
 		toUpdate.setId(key);
-		mapper.updateByKey(toUpdate);		
+		mapper.updateByKey(toUpdate);
+		onModification();
 	}
 
 	private void updateChilderenPaths(String oldPath, String newPath, GroupsMapper mapper)
@@ -4,6 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.identities;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -19,6 +20,9 @@ public interface IdentitiesMapper extends NamedCRUDMapper<IdentityBean>
 {
 	List<IdentityBean> getByEntity(long entityId);
 	List<IdentityBean> getByGroup(String group);
+	List<IdentityBean> getByGroups(List<String> groups);
 	long getCountByType(List<String> types);
+	List<IdentityBean> getExpiredOfType(@Param("identityType") String type, @Param("time") Date time, 
+			@Param("limit") int limit);
 	Set<Long> getIdByTypeAndNames(@Param("identityType") String type, @Param("names") List<String> names);
 }
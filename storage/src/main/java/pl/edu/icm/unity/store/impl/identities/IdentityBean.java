@@ -4,6 +4,8 @@
  */
 package pl.edu.icm.unity.store.impl.identities;
 
+import java.util.Date;
+
 import pl.edu.icm.unity.store.rdbms.BaseBean;
 
 
@@ -16,6 +18,7 @@ public class IdentityBean extends BaseBean
 	private Long entityId;
 	private Long typeId;
 	private String typeName;
+	private Date expires;
 	
 	public IdentityBean() 
 	{
@@ -49,4 +52,14 @@ public class IdentityBean extends BaseBean
 	{
 		this.typeName = typeName;
 	}
+
+	public Date getExpires()
+	{
+		return expires;
+	}
+
+	public void setExpires(Date expires)
+	{
+		this.expires = expires;
+	}
 }
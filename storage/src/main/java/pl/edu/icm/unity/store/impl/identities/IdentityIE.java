@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.identities;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,9 +39,9 @@ public class IdentityIE extends AbstractIEBase<StoredIdentity>
 	}
 
 	@Override
-	protected List<StoredIdentity> getAllToExport()
+	protected Stream<StoredIdentity> getAllToExport()
 	{
-		return dbIds.getAll();
+		return dbIds.streamAll();
 	}
 
 	@Override
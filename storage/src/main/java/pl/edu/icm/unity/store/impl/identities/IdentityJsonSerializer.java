@@ -5,11 +5,13 @@ N * Copyright (c) 2016 ICM Uniwersytet Warszawski All rights reserved.
 package pl.edu.icm.unity.store.impl.identities;
 
 import java.io.IOException;
+import java.util.Date;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import pl.edu.icm.unity.base.identity.Identity;
@@ -25,6 +27,10 @@ import pl.edu.icm.unity.store.types.StoredIdentity;
 @Component
 class IdentityJsonSerializer implements RDBMSObjectSerializer<StoredIdentity, IdentityBean>
 {
+	private static final String ABSOLUTE_TTL = "absoluteTTL";
+	private static final String RELATIVE_TTL = "relativeTTL";
+	private static final String LAST_USAGE = "lastUsage";
+	
 	private final IdentityTypeRDBMSStore idTypeDAO;
 	
 	@Autowired
@@ -44,6 +50,7 @@ class IdentityJsonSerializer implements RDBMSObjectSerializer<StoredIdentity, Id
 		idB.setName(sobject.getName());
 		long typeKey = idTypeDAO.getKeyForName(object.getTypeId());
 		idB.setTypeId(typeKey);
+		idB.setExpires(getExpires(object));
 		try
 		{
 			idB.setContents(jsonMapper.writeValueAsBytes(IdentityBaseMapper.map(object)));
@@ -66,4 +73,20 @@ class IdentityJsonSerializer implements RDBMSObjectSerializer<StoredIdentity, Id
 			throw new IllegalStateException("Error parsing identity from DB", e);
 		}
 	}
+
+	/**
+	 * @return expiration time of an identity bound to login sessions, which is the earlier of its absolute 
+	 * expiration and the time of its last usage increased by the allowed inactivity period. Null is returned 
+	 * if identity metadata has no expiration information.
+	 */
+	static Date getExpires(Identity identity)
+	{
+		JsonNode metadata = identity.getMetadata();
+		if (metadata == null || !metadata.hasNonNull(ABSOLUTE_TTL) || !metadata.hasNonNull(RELATIVE_TTL) 
+				|| !metadata.hasNonNull(LAST_USAGE))
+			return null;
+		long absolute = metadata.get(ABSOLUTE_TTL).asLong();
+		long relative = metadata.get(LAST_USAGE).asLong() + metadata.get(RELATIVE_TTL).asLong();
+		return new Date(Math.min(absolute, relative));
+	}
 }
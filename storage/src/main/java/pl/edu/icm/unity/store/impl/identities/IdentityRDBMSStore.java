@@ -5,6 +5,7 @@
 package pl.edu.icm.unity.store.impl.identities;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -85,6 +86,15 @@ public class IdentityRDBMSStore extends GenericNamedRDBMSCRUD<StoredIdentity, Id
 		return ret;
 	}
 
+	@Override
+	public List<StoredIdentity> getByGroups(List<String> groups)
+	{
+		if (groups.isEmpty())
+			return new ArrayList<>();
+		IdentitiesMapper mapper = SQLTransactionTL.getSql().getMapper(IdentitiesMapper.class);
+		return convertList(mapper.getByGroups(groups));
+	}
+
 	@Override
 	public long getCountByType(List<String> types)
 	{
@@ -92,6 +102,13 @@ public class IdentityRDBMSStore extends GenericNamedRDBMSCRUD<StoredIdentity, Id
 		return mapper.getCountByType(types);
 	}
 	
+	@Override
+	public List<StoredIdentity> getExpiredOfType(String type, Date time, int limit)
+	{
+		IdentitiesMapper mapper = SQLTransactionTL.getSql().getMapper(IdentitiesMapper.class);
+		return convertList(mapper.getExpiredOfType(type, time, limit));
+	}
+	
 	@Override
 	public Set<Long> getIdByTypeAndValues(String type, List<String> values)
 	{
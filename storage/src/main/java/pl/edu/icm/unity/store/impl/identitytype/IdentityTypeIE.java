@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.identitytype;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,9 +40,9 @@ public class IdentityTypeIE extends AbstractIEBase<IdentityType>
 	}
 
 	@Override
-	protected List<IdentityType> getAllToExport()
+	protected Stream<IdentityType> getAllToExport()
 	{
-		return dbIdTypes.getAll();
+		return dbIdTypes.streamAll();
 	}
 
 	@Override
@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.idpStatistics;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,9 +36,9 @@ public class IdpStatisticIE extends AbstractIEBase<IdpStatistic>
 	}
 
 	@Override
-	protected List<IdpStatistic> getAllToExport()
+	protected Stream<IdpStatistic> getAllToExport()
 	{
-		return dao.getAll();
+		return dao.streamAll();
 	}
 
 	@Override
@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.membership;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,9 +40,9 @@ public class MembershipIE extends AbstractIEBase<GroupMembership>
 	}
 
 	@Override
-	protected List<GroupMembership> getAllToExport()
+	protected Stream<GroupMembership> getAllToExport()
 	{
-		return dao.getAll();
+		return dao.getAll().stream();
 	}
 
 	@Override
@@ -27,6 +27,8 @@ public interface MembershipMapper
 
 	List<GroupElementBean> getEntityMemberships(List<Long> entityId);
 
+	List<GroupElementBean> getMembersOfGroupsMemberships(List<String> groups);
+
 	List<GroupElementBean> getMembers(long groupId);
 	
 	List<GroupElementBean> getAll();
@@ -104,6 +104,15 @@ public class MembershipRDBMSStore implements MembershipDAO, RDBMSDAO
 		return deserializeList(entityMembershipB);
 	}
 
+	@Override
+	public List<GroupMembership> getMembershipsOfMembersOfGroups(List<String> groups)
+	{
+		if (groups.isEmpty())
+			return new ArrayList<>();
+		MembershipMapper mapper = SQLTransactionTL.getSql().getMapper(MembershipMapper.class);
+		return deserializeList(mapper.getMembersOfGroupsMemberships(groups));
+	}
+
 	@Override
 	public List<GroupMembership> getMembers(String group)
 	{
@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.messages;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -38,9 +38,9 @@ public class MessageIE extends AbstractIEBase<Message>
 	}
 
 	@Override
-	protected List<Message> getAllToExport()
+	protected Stream<Message> getAllToExport()
 	{
-		return dao.getAll();
+		return dao.streamAll();
 	}
 
 	@Override
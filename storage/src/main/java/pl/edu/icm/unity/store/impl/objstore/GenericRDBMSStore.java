@@ -12,10 +12,11 @@ import org.springframework.stereotype.Repository;
 
 import pl.edu.icm.unity.store.rdbms.GenericRDBMSCRUD;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+import pl.edu.icm.unity.store.types.ObjectChange;
 
 
 /**
- * RDBMS storage of {@link GenericObjectBean}
+ * RDBMS storage of {@link GenericObjectBean}. Each modification is recorded in the objects changes log.
  * @author K. Benedyczak
  */
 @Repository(GenericRDBMSStore.BEAN)
@@ -23,11 +24,63 @@ public class GenericRDBMSStore extends GenericRDBMSCRUD<GenericObjectBean, Gener
 					implements ObjectStoreDAO
 {
 	public static final String BEAN = ObjectStoreDAO.DAO_ID + "rdbms";
+	private final ObjectChangesRDBMSStore changesLog;
 
 	@Autowired
-	public GenericRDBMSStore(GenericObjectRDBMSSerializer serializer)
+	public GenericRDBMSStore(GenericObjectRDBMSSerializer serializer, ObjectChangesRDBMSStore changesLog)
 	{
 		super(GenericMapper.class, serializer, NAME);
+		this.changesLog = changesLog;
+	}
+
+	@Override
+	public long create(GenericObjectBean obj)
+	{
+		long ret = super.create(obj);
+		changesLog.recordChange(obj.getType(), obj.getName());
+		return ret;
+	}
+
+	@Override
+	public void createList(List<GenericObjectBean> objs)
+	{
+		super.createList(objs);
+		for (GenericObjectBean obj: objs)
+			changesLog.recordChange(obj.getType(), obj.getName());
+	}
+
+	@Override
+	public void createWithId(long key, GenericObjectBean obj)
+	{
+		super.createWithId(key, obj);
+		changesLog.recordChange(obj.getType(), obj.getName());
+	}
+
+	@Override
+	public void updateByKey(long key, GenericObjectBean obj)
+	{
+		GenericMapper mapper = SQLTransactionTL.getSql().getMapper(GenericMapper.class);
+		GenericObjectBean old = mapper.getByKey(key);
+		super.updateByKey(key, obj);
+		changesLog.recordChange(old.getType(), old.getName());
+		if (!old.getName().equals(obj.getName()))
+			changesLog.recordChange(old.getType(), obj.getName());
+	}
+
+	@Override
+	public void deleteByKey(long id)
+	{
+		GenericMapper mapper = SQLTransactionTL.getSql().getMapper(GenericMapper.class);
+		GenericObjectBean toRemove = mapper.getByKey(id);
+		super.deleteByKey(id);
+		changesLog.recordChange(toRemove.getType(), toRemove.getName());
+	}
+
+	@Override
+	public void deleteAll()
+	{
+		super.deleteAll();
+		changesLog.recordChange(ObjectChange.ALL_TYPES, null);
 	}
 
 
@@ -40,6 +93,7 @@ public class GenericRDBMSStore extends GenericRDBMSCRUD<GenericObjectBean, Gener
 					+ name + "//" + type + "]");
 		GenericMapper mapper = SQLTransactionTL.getSql().getMapper(GenericMapper.class);
 		mapper.deleteByKey(toRemove.getId());
+		changesLog.recordChange(type, name);
 	}
 
 	@Override
@@ -47,6 +101,7 @@ public class GenericRDBMSStore extends GenericRDBMSCRUD<GenericObjectBean, Gener
 	{
 		GenericMapper mapper = SQLTransactionTL.getSql().getMapper(GenericMapper.class);
 		mapper.deleteByType(type);
+		changesLog.recordChange(type, null);
 	}
 
 	@Override
@@ -61,6 +116,9 @@ public class GenericRDBMSStore extends GenericRDBMSCRUD<GenericObjectBean, Gener
 		toUpdate.setName(obj.getName());
 		toUpdate.setLastUpdate(obj.getLastUpdate());
 		mapper.updateByKey(toUpdate);
+		changesLog.recordChange(type, name);
+		if (!name.equals(obj.getName()))
+			changesLog.recordChange(type, obj.getName());
 	}
 	
 	@Override
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.objstore;
+
+import java.util.Date;
+
+/**
+ * In DB representation of an entry of the objects changes log.
+ */
+public class ObjectChangeBean
+{
+	private Long id;
+	private String type;
+	private String name;
+	private Date timestamp;
+
+	public ObjectChangeBean()
+	{
+	}
+
+	public ObjectChangeBean(String type, String name, Date timestamp)
+	{
+		this.type = type;
+		this.name = name;
+		this.timestamp = timestamp;
+	}
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public void setId(Long id)
+	{
+		this.id = id;
+	}
+
+	public String getType()
+	{
+		return type;
+	}
+
+	public void setType(String type)
+	{
+		this.type = type;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public void setName(String name)
+	{
+		this.name = name;
+	}
+
+	public Date getTimestamp()
+	{
+		return timestamp;
+	}
+
+	public void setTimestamp(Date timestamp)
+	{
+		this.timestamp = timestamp;
+	}
+}
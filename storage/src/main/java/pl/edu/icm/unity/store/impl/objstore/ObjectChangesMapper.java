@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.objstore;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Access to the ObjectChanges.xml operations.
+ */
+public interface ObjectChangesMapper
+{
+	void create(ObjectChangeBean change);
+	Long getLastChangeId();
+	List<ObjectChangeBean> getChangesAfter(long changeId);
+	void deleteOlderThan(Date time);
+	void deleteAll();
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.objstore;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Repository;
+
+import pl.edu.icm.unity.store.api.ObjectChangesDAO;
+import pl.edu.icm.unity.store.rdbms.RDBMSDAO;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+import pl.edu.icm.unity.store.types.ObjectChange;
+
+/**
+ * RDBMS storage of the generic objects changes log. Changes are recorded by {@link GenericRDBMSStore}
+ * and by other stores which need to notify other cluster nodes about modifications.
+ */
+@Repository
+public class ObjectChangesRDBMSStore implements ObjectChangesDAO, RDBMSDAO
+{
+	/**
+	 * Records a change in the current transaction.
+	 */
+	public void recordChange(String type, String name)
+	{
+		ObjectChangesMapper mapper = SQLTransactionTL.getSql().getMapper(ObjectChangesMapper.class);
+		mapper.create(new ObjectChangeBean(type, name, new Date()));
+	}
+
+	@Override
+	public long getLastChangeId()
+	{
+		ObjectChangesMapper mapper = SQLTransactionTL.getSql().getMapper(ObjectChangesMapper.class);
+		Long last = mapper.getLastChangeId();
+		return last == null ? 0 : last;
+	}
+
+	@Override
+	public List<ObjectChange> getChangesAfter(long changeId)
+	{
+		ObjectChangesMapper mapper = SQLTransactionTL.getSql().getMapper(ObjectChangesMapper.class);
+		return mapper.getChangesAfter(changeId).stream()
+				.map(bean -> new ObjectChange(bean.getId(), bean.getType(), bean.getName(), 
+						bean.getTimestamp()))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public void deleteOlderThan(Date time)
+	{
+		ObjectChangesMapper mapper = SQLTransactionTL.getSql().getMapper(ObjectChangesMapper.class);
+		mapper.deleteOlderThan(time);
+	}
+}
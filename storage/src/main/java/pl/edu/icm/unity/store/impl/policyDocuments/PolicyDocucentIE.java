@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.policyDocuments;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,9 +42,9 @@ public class PolicyDocucentIE extends AbstractIEBase<StoredPolicyDocument>
 	}
 
 	@Override
-	protected List<StoredPolicyDocument> getAllToExport()
+	protected Stream<StoredPolicyDocument> getAllToExport()
 	{
-		return dbIds.getAll();
+		return dbIds.streamAll();
 	}
 
 	@Override
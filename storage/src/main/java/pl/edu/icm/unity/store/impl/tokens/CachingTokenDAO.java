@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.tokens;
+
+import java.lang.ref.WeakReference;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.session.SqlSession;
+
+import pl.edu.icm.unity.base.token.Token;
+import pl.edu.icm.unity.store.api.TokenDAO;
+import pl.edu.icm.unity.store.api.tx.TxManager;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
+
+/**
+ * Write-through cache of tokens in front of the actual {@link TokenDAO}. Only lookups of a single token
+ * by its type and value are served from cache, all other queries go to the wrapped DAO.
+ * <p>
+ * Modified tokens are removed from cache immediately and once again after the transaction is committed.
+ * Tokens read in a transaction which modified any token are not cached, as they might be never committed.
+ */
+class CachingTokenDAO implements TokenDAO
+{
+	private final TokenDAO wrapped;
+	private final TokenCache cache;
+	private final TxManager txManager;
+	private final ThreadLocal<WeakReference<SqlSession>> modifyingSession = new ThreadLocal<>();
+
+	CachingTokenDAO(TokenDAO wrapped, TokenCache cache, TxManager txManager)
+	{
+		this.wrapped = wrapped;
+		this.cache = cache;
+		this.txManager = txManager;
+	}
+
+	@Override
+	public Token get(String type, String id)
+	{
+		Optional<Token> cached = cache.get(type, id);
+		if (cached.isPresent())
+			return cached.get();
+		long generation = cache.getGeneration();
+		Token token = wrapped.get(type, id);
+		if (!isModifyingTransaction())
+			cache.put(token, generation);
+		return token;
+	}
+
+	@Override
+	public long create(Token obj)
+	{
+		beforeModification(obj.getType(), obj.getValue());
+		return wrapped.create(obj);
+	}
+
+	@Override
+	public void createWithId(long id, Token obj)
+	{
+		beforeModification(obj.getType(), obj.getValue());
+		wrapped.createWithId(id, obj);
+	}
+
+	@Override
+	public void createList(List<Token> objs)
+	{
+		objs.forEach(obj -> beforeModification(obj.getType(), obj.getValue()));
+		wrapped.createList(objs);
+	}
+
+	@Override
+	public void update(Token token)
+	{
+		beforeModification(token.getType(), token.getValue());
+		wrapped.update(token);
+	}
+
+	@Override
+	public void updateByKey(long id, Token obj)
+	{
+		beforeBulkModification();
+		wrapped.updateByKey(id, obj);
+	}
+
+	@Override
+	public void delete(String type, String id)
+	{
+		beforeModification(type, id);
+		wrapped.delete(type, id);
+	}
+
+	@Override
+	public void deleteByKey(long id)
+	{
+		beforeBulkModification();
+		wrapped.deleteByKey(id);
+	}
+
+	@Override
+	public void deleteAll()
+	{
+		beforeBulkModification();
+		wrapped.deleteAll();
+	}
+
+	@Override
+	public Token getByKey(long id)
+	{
+		return wrapped.getByKey(id);
+	}
+
+	@Override
+	public List<Token> getAll()
+	{
+		return wrapped.getAll();
+	}
+
+	@Override
+	public Stream<Token> streamAll()
+	{
+		return wrapped.streamAll();
+	}
+
+	@Override
+	public long getCount()
+	{
+		return wrapped.getCount();
+	}
+
+	@Override
+	public List<Token> getByType(String type)
+	{
+		return wrapped.getByType(type);
+	}
+
+	@Override
+	public List<Token> getOwned(String type, long entityId)
+	{
+		return wrapped.getOwned(type, entityId);
+	}
+
+	@Override
+	public List<Token> getOwnedByClient(String type, long entityId, long clientId)
+	{
+		return wrapped.getOwnedByClient(type, entityId, clientId);
+	}
+
+	@Override
+	public List<Token> getExpired()
+	{
+		return wrapped.getExpired();
+	}
+
+	@Override
+	public List<Token> getInactive(String type, Date deadline)
+	{
+		return wrapped.getInactive(type, deadline);
+	}
+
+	@Override
+	public void updateActivityDeadlines(String type, Map<String, Date> deadlines)
+	{
+		deadlines.keySet().forEach(value -> beforeModification(type, value));
+		wrapped.updateActivityDeadlines(type, deadlines);
+	}
+
+	private void beforeModification(String type, String value)
+	{
+		markModifyingTransaction();
+		cache.invalidate(type, value);
+		txManager.addPostCommitAction(() -> cache.invalidate(type, value));
+	}
+
+	private void beforeBulkModification()
+	{
+		markModifyingTransaction();
+		cache.invalidateCache();
+		txManager.addPostCommitAction(cache::invalidateCache);
+	}
+
+	private void markModifyingTransaction()
+	{
+		modifyingSession.set(new WeakReference<>(SQLTransactionTL.getSql()));
+	}
+
+	private boolean isModifyingTransaction()
+	{
+		WeakReference<SqlSession> modifying = modifyingSession.get();
+		return modifying != null && modifying.get() == SQLTransactionTL.getSql();
+	}
+}
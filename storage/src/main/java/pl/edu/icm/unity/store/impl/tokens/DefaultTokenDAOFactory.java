@@ -12,9 +12,12 @@ import org.springframework.context.annotation.Primary;
 
 import pl.edu.icm.unity.store.StorageConfiguration;
 import pl.edu.icm.unity.store.api.TokenDAO;
+import pl.edu.icm.unity.store.api.tx.TxManager;
+import pl.edu.icm.unity.store.impl.entities.EntityRDBMSStore;
 
 /**
- * Produces a default {@link TokenDAO}, basing on the configuration. 
+ * Produces a default {@link TokenDAO}, basing on the configuration. If enabled, the DAO is wrapped 
+ * with {@link CachingTokenDAO}.
  * @author K. Benedyczak
  */
 @Configuration
@@ -23,8 +26,17 @@ public class DefaultTokenDAOFactory
 	@Bean
 	@Primary
 	public TokenDAO getDefaultTokenDAO(StorageConfiguration cfg, 
-			Map<String, TokenDAO> daos)
+			Map<String, TokenDAO> daos, TokenCache tokenCache, TxManager txManager,
+			EntityRDBMSStore entityDAO)
 	{
-		return daos.get(TokenDAO.DAO_ID + cfg.getEngine().name());
+		TokenDAO dao = daos.get(TokenDAO.DAO_ID + cfg.getEngine().name());
+		if (!tokenCache.isEnabled())
+			return dao;
+		entityDAO.addRemovalHandler((removedId, removedName) -> 
+		{
+			tokenCache.invalidateOwned(removedId);
+			txManager.addPostCommitAction(() -> tokenCache.invalidateOwned(removedId));
+		});
+		return new CachingTokenDAO(dao, tokenCache, txManager);
 	}
 }
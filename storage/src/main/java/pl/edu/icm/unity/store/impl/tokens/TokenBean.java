@@ -12,8 +12,10 @@ public class TokenBean extends BaseBean
 {
 	private String type;
 	private Long owner;
+	private Long clientId;
 	private Date created;
 	private Date expires;
+	private Date activityDeadline;
 
 	public TokenBean()
 	{
@@ -73,6 +75,24 @@ public class TokenBean extends BaseBean
 		this.expires = expires;
 	}
 	
+	public Long getClientId()
+	{
+		return clientId;
+	}
+	public void setClientId(Long clientId)
+	{
+		this.clientId = clientId;
+	}
+	
+	public Date getActivityDeadline()
+	{
+		return activityDeadline;
+	}
+	public void setActivityDeadline(Date activityDeadline)
+	{
+		this.activityDeadline = activityDeadline;
+	}
+	
 	public boolean isExpired()
 	{
 		return expires != null ? new Date().after(expires) : false;
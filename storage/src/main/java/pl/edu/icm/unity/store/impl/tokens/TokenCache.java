@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.tokens;
+
+import java.time.Clock;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import pl.edu.icm.unity.base.token.Token;
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.CachingDAO;
+import pl.edu.icm.unity.store.StorageConfiguration;
+
+/**
+ * In memory cache of tokens, used by {@link CachingTokenDAO}. Each cached entry is valid up to the
+ * earlier of: token expiration time and configured TTL. Entries are kept in an expiry ordered queue,
+ * so that outdated entries are dropped incrementally, with each cache modification, without scanning
+ * the whole cache. Entries removed from the cache are removed from the queue too, so the queue is never
+ * larger than the cache.
+ * <p>
+ * To avoid caching a value read concurrently with its modification, each invalidation bumps a
+ * generation counter. Value read from DB is cached only if no invalidation happened in the meantime.
+ */
+@Component
+public class TokenCache implements CachingDAO
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, TokenCache.class);
+
+	private final long ttlMillis;
+	private final int maxEntries;
+	private final Clock clock;
+	private final Map<TokenKey, CachedToken> cache = new ConcurrentHashMap<>();
+	private final NavigableSet<CachedToken> expiryQueue = new TreeSet<>(
+			Comparator.<CachedToken>comparingLong(entry -> entry.validUntil).thenComparingLong(entry -> entry.id));
+	private final AtomicLong entryIds = new AtomicLong();
+	private final AtomicLong generation = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	@Autowired
+	public TokenCache(StorageConfiguration cfg)
+	{
+		this(TimeUnit.SECONDS.toMillis(cfg.getLongValue(StorageConfiguration.TOKEN_CACHE_TTL)),
+				cfg.getIntValue(StorageConfiguration.TOKEN_CACHE_MAX_ENTRIES),
+				Clock.systemUTC());
+	}
+
+	TokenCache(long ttlMillis, int maxEntries, Clock clock)
+	{
+		this.ttlMillis = ttlMillis;
+		this.maxEntries = maxEntries;
+		this.clock = clock;
+	}
+
+	boolean isEnabled()
+	{
+		return ttlMillis > 0;
+	}
+
+	Optional<Token> get(String type, String value)
+	{
+		CachedToken cached = cache.get(new TokenKey(type, value));
+		if (cached == null || cached.validUntil <= clock.millis())
+		{
+			misses.incrementAndGet();
+			return Optional.empty();
+		}
+		hits.incrementAndGet();
+		return Optional.of(copy(cached.token));
+	}
+
+	/**
+	 * @return generation to be passed to {@link #put(Token, long)} after reading the value from DB
+	 */
+	long getGeneration()
+	{
+		return generation.get();
+	}
+
+	/**
+	 * Caches a token read from DB, unless any invalidation happened since the given generation was obtained.
+	 */
+	synchronized void put(Token token, long readGeneration)
+	{
+		long now = clock.millis();
+		purgeOutdated(now);
+		if (generation.get() != readGeneration || cache.size() >= maxEntries)
+			return;
+		long validUntil = now + ttlMillis;
+		if (token.getExpires() != null)
+			validUntil = Math.min(validUntil, token.getExpires().getTime());
+		if (validUntil <= now)
+			return;
+		CachedToken entry = new CachedToken(copy(token), validUntil, entryIds.incrementAndGet());
+		CachedToken previous = cache.put(new TokenKey(token.getType(), token.getValue()), entry);
+		if (previous != null)
+			expiryQueue.remove(previous);
+		expiryQueue.add(entry);
+	}
+
+	synchronized void invalidate(String type, String value)
+	{
+		generation.incrementAndGet();
+		CachedToken removed = cache.remove(new TokenKey(type, value));
+		if (removed != null)
+			expiryQueue.remove(removed);
+	}
+
+	synchronized void invalidateOwned(long owner)
+	{
+		generation.incrementAndGet();
+		Iterator<CachedToken> entries = cache.values().iterator();
+		while (entries.hasNext())
+		{
+			CachedToken cached = entries.next();
+			if (Long.valueOf(owner).equals(cached.token.getOwner()))
+			{
+				entries.remove();
+				expiryQueue.remove(cached);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void invalidateCache()
+	{
+		generation.incrementAndGet();
+		cache.clear();
+		expiryQueue.clear();
+		log.debug("Tokens cache invalidated, hits: {}, misses: {}", hits.get(), misses.get());
+	}
+
+	long getHits()
+	{
+		return hits.get();
+	}
+
+	long getMisses()
+	{
+		return misses.get();
+	}
+
+	int size()
+	{
+		return cache.size();
+	}
+
+	synchronized int getExpiryQueueSize()
+	{
+		return expiryQueue.size();
+	}
+
+	private void purgeOutdated(long now)
+	{
+		int purged = 0;
+		while (!expiryQueue.isEmpty() && expiryQueue.first().validUntil <= now)
+		{
+			CachedToken outdated = expiryQueue.pollFirst();
+			TokenKey key = new TokenKey(outdated.token.getType(), outdated.token.getValue());
+			if (cache.remove(key, outdated))
+				purged++;
+		}
+		if (purged > 0)
+			log.trace("Purged {} outdated tokens from cache", purged);
+	}
+
+	static Token copy(Token src)
+	{
+		Token ret = new Token(src.getType(), src.getValue(), src.getOwner());
+		ret.setContents(src.getContents() == null ? null : src.getContents().clone());
+		ret.setCreated(src.getCreated() == null ? null : new Date(src.getCreated().getTime()));
+		ret.setExpires(src.getExpires() == null ? null : new Date(src.getExpires().getTime()));
+		ret.setClientId(src.getClientId());
+		ret.setActivityDeadline(src.getActivityDeadline() == null ? 
+				null : new Date(src.getActivityDeadline().getTime()));
+		return ret;
+	}
+
+	private record TokenKey(String type, String value)
+	{
+	}
+
+	private static class CachedToken
+	{
+		private final Token token;
+		private final long validUntil;
+		private final long id;
+
+		CachedToken(Token token, long validUntil, long id)
+		{
+			this.token = token;
+			this.validUntil = validUntil;
+			this.id = id;
+		}
+	}
+}
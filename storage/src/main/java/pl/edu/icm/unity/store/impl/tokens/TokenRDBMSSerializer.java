@@ -22,6 +22,8 @@ public class TokenRDBMSSerializer implements RDBMSObjectSerializer<Token, TokenB
 		TokenBean ret = new TokenBean(object.getValue(), object.getContents(), 
 				object.getType(), object.getOwner(), object.getCreated());
 		ret.setExpires(object.getExpires());
+		ret.setActivityDeadline(object.getActivityDeadline());
+		ret.setClientId(object.getClientId());
 		return ret;
 	}
 
@@ -32,6 +34,8 @@ public class TokenRDBMSSerializer implements RDBMSObjectSerializer<Token, TokenB
 		token.setContents(bean.getContents());
 		token.setCreated(bean.getCreated());
 		token.setExpires(bean.getExpires());
+		token.setActivityDeadline(bean.getActivityDeadline());
+		token.setClientId(bean.getClientId());
 		return token;
 	}
 }
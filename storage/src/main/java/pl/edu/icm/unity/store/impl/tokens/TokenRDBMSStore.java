@@ -4,8 +4,10 @@
  */
 package pl.edu.icm.unity.store.impl.tokens;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -24,6 +26,7 @@ import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 public class TokenRDBMSStore extends GenericRDBMSCRUD<Token, TokenBean> implements TokenDAO
 {
 	public static final String BEAN = DAO_ID + "rdbms";
+	private static final int UPDATE_CHUNK_SIZE = 500;
 
 	@Autowired
 	public TokenRDBMSStore(TokenRDBMSSerializer serializer)
@@ -54,6 +57,8 @@ public class TokenRDBMSStore extends GenericRDBMSCRUD<Token, TokenBean> implemen
 					token.getType() + "//" + token.getValue() + "] does not exist");
 		inDB.setContents(token.getContents());
 		inDB.setExpires(token.getExpires());
+		inDB.setActivityDeadline(token.getActivityDeadline());
+		inDB.setClientId(token.getClientId());
 		mapper.updateByKey(inDB);
 	}
 
@@ -86,6 +91,17 @@ public class TokenRDBMSStore extends GenericRDBMSCRUD<Token, TokenBean> implemen
 		return convertList(allInDB);
 	}
 
+	@Override
+	public List<Token> getOwnedByClient(String type, long entityId, long clientId)
+	{
+		TokensMapper mapper = SQLTransactionTL.getSql().getMapper(TokensMapper.class);
+		TokenBean selector = new TokenBean(null, type);
+		selector.setOwner(entityId);
+		selector.setClientId(clientId);
+		List<TokenBean> allInDB = mapper.getByOwnerAndClient(selector);
+		return convertList(allInDB);
+	}
+
 	@Override
 	public List<Token> getExpired()
 	{
@@ -93,4 +109,34 @@ public class TokenRDBMSStore extends GenericRDBMSCRUD<Token, TokenBean> implemen
 		List<TokenBean> allInDB = mapper.getExpired(new Date());
 		return convertList(allInDB);
 	}
+
+	@Override
+	public List<Token> getInactive(String type, Date deadline)
+	{
+		TokensMapper mapper = SQLTransactionTL.getSql().getMapper(TokensMapper.class);
+		TokenBean selector = new TokenBean(null, type);
+		selector.setActivityDeadline(deadline);
+		List<TokenBean> allInDB = mapper.getInactive(selector);
+		return convertList(allInDB);
+	}
+
+	@Override
+	public void updateActivityDeadlines(String type, Map<String, Date> deadlines)
+	{
+		TokensMapper mapper = SQLTransactionTL.getSql().getMapper(TokensMapper.class);
+		List<TokenBean> chunk = new ArrayList<>(Math.min(deadlines.size(), UPDATE_CHUNK_SIZE));
+		for (Map.Entry<String, Date> deadline: deadlines.entrySet())
+		{
+			TokenBean bean = new TokenBean(deadline.getKey(), type);
+			bean.setActivityDeadline(deadline.getValue());
+			chunk.add(bean);
+			if (chunk.size() == UPDATE_CHUNK_SIZE)
+			{
+				mapper.updateActivityDeadlines(type, chunk);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty())
+			mapper.updateActivityDeadlines(type, chunk);
+	}
 }
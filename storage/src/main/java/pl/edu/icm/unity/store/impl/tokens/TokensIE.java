@@ -4,7 +4,7 @@
  */
 package pl.edu.icm.unity.store.impl.tokens;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,9 +39,9 @@ public class TokensIE extends AbstractIEBase<Token>
 	}
 	
 	@Override
-	protected List<Token> getAllToExport()
+	protected Stream<Token> getAllToExport()
 	{
-		return dbTokens.getAll();
+		return dbTokens.streamAll();
 	}
 
 	@Override
@@ -7,6 +7,8 @@ package pl.edu.icm.unity.store.impl.tokens;
 import java.util.Date;
 import java.util.List;
 
+import org.apache.ibatis.annotations.Param;
+
 import pl.edu.icm.unity.store.rdbms.BasicCRUDMapper;
 
 /**
@@ -17,6 +19,9 @@ public interface TokensMapper extends BasicCRUDMapper<TokenBean>
 {
 	public TokenBean getById(TokenBean toSelect);
 	public List<TokenBean> getByOwner(TokenBean toSelect);
+	public List<TokenBean> getByOwnerAndClient(TokenBean toSelect);
 	public List<TokenBean> getByType(String type);
 	public List<TokenBean> getExpired(Date now);
+	public List<TokenBean> getInactive(TokenBean toSelect);
+	public void updateActivityDeadlines(@Param("type") String type, @Param("tokens") List<TokenBean> tokens);
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+
+package pl.edu.icm.unity.store.migration.to4_5;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import pl.edu.icm.unity.base.entity.EntityInformation;
+import pl.edu.icm.unity.base.json.JsonUtil;
+import pl.edu.icm.unity.base.token.Token;
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.impl.entities.EntityRDBMSStore;
+import pl.edu.icm.unity.store.impl.identities.IdentityRDBMSStore;
+import pl.edu.icm.unity.store.impl.tokens.TokenRDBMSStore;
+import pl.edu.icm.unity.store.migration.InDBContentsUpdater;
+
+@Component
+class InDBUpdateFromSchema23 implements InDBContentsUpdater
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, InDBUpdateFromSchema23.class);
+
+	private final TokenRDBMSStore tokensDAO;
+	private final EntityRDBMSStore entityDAO;
+	private final IdentityRDBMSStore identityDAO;
+	
+	@Autowired
+	InDBUpdateFromSchema23(TokenRDBMSStore tokensDAO, EntityRDBMSStore entityDAO, IdentityRDBMSStore identityDAO)
+	{
+		this.tokensDAO = tokensDAO;
+		this.entityDAO = entityDAO;
+		this.identityDAO = identityDAO;
+	}
+
+	@Override
+	public int getUpdatedVersion()
+	{
+		return 23;
+	}
+
+	@Override
+	public void update() throws IOException
+	{
+		updateSessionTokens();
+		updateOAuthTokens();
+		updateEntitiesNextOperationTime();
+		updateIdentitiesExpiration();
+	}
+
+	void updateSessionTokens()
+	{
+		List<Token> sessions = tokensDAO.getByType(UpdateHelperTo4_5.SESSION_TOKEN_TYPE);
+		int updated = 0;
+		for (Token token : sessions)
+		{
+			Optional<Long> deadline = UpdateHelperTo4_5.getSessionActivityDeadline(
+					JsonUtil.parse(token.getContents()));
+			if (deadline.isEmpty())
+				continue;
+			token.setActivityDeadline(new Date(deadline.get()));
+			tokensDAO.update(token);
+			updated++;
+		}
+		log.info("Set activity deadline of {} login sessions", updated);
+	}
+
+	void updateOAuthTokens()
+	{
+		int updated = 0;
+		for (String type : UpdateHelperTo4_5.OAUTH_TOKEN_TYPES)
+		{
+			for (Token token : tokensDAO.getByType(type))
+			{
+				Optional<Long> clientId = UpdateHelperTo4_5.getOAuthTokenClientId(
+						JsonUtil.parse(token.getContents()));
+				if (clientId.isEmpty())
+					continue;
+				token.setClientId(clientId.get());
+				tokensDAO.update(token);
+				updated++;
+			}
+		}
+		log.info("Set client id of {} OAuth tokens", updated);
+	}
+
+	void updateEntitiesNextOperationTime()
+	{
+		AtomicInteger updated = new AtomicInteger();
+		entityDAO.streamAll()
+			.filter(this::hasScheduledOperation)
+			.forEach(entity -> 
+			{
+				entityDAO.updateByKey(entity.getId(), entity);
+				updated.incrementAndGet();
+			});
+		log.info("Set next operation time of {} entities", updated.get());
+	}
+	
+	private boolean hasScheduledOperation(EntityInformation entity)
+	{
+		return entity.getScheduledOperationTime() != null || entity.getRemovalByUserTime() != null;
+	}
+
+	/**
+	 * Identities with metadata are stored again, what sets the expiration time of those which hold 
+	 * expiration information in metadata.
+	 */
+	void updateIdentitiesExpiration()
+	{
+		AtomicInteger updated = new AtomicInteger();
+		identityDAO.streamAll()
+			.filter(identity -> identity.getIdentity().getMetadata() != null)
+			.forEach(identity -> 
+			{
+				identityDAO.update(identity);
+				updated.incrementAndGet();
+			});
+		log.info("Set expiration time of {} identities", updated.get());
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+
+package pl.edu.icm.unity.store.migration.to4_5;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import pl.edu.icm.unity.base.json.JsonUtil;
+import pl.edu.icm.unity.store.export.JsonDumpUpdate;
+
+@Component
+public class JsonDumpUpdateFromV23 implements JsonDumpUpdate
+{
+	private final ObjectMapper objectMapper;
+
+	JsonDumpUpdateFromV23(ObjectMapper objectMapper)
+	{
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public int getUpdatedVersion()
+	{
+		return 23;
+	}
+
+	@Override
+	public InputStream update(InputStream is) throws IOException
+	{
+		ObjectNode root = (ObjectNode) objectMapper.readTree(is);
+		JsonNode contents = root.get("contents");
+		updateSessionTokens(contents.withArray("tokens"));
+		updateOAuthTokens(contents.withArray("tokens"));
+		return new ByteArrayInputStream(objectMapper.writeValueAsBytes(root));
+	}
+
+	private void updateSessionTokens(JsonNode tokensArray) throws IOException
+	{
+		for (JsonNode tokenNode : tokensArray)
+		{
+			ObjectNode tokenObj = (ObjectNode) tokenNode;
+			if (!UpdateHelperTo4_5.SESSION_TOKEN_TYPE.equals(tokenObj.get("type").asText()))
+				continue;
+			ObjectNode session = JsonUtil.parse(tokenObj.get("contents").binaryValue());
+			Optional<Long> deadline = UpdateHelperTo4_5.getSessionActivityDeadline(session);
+			deadline.ifPresent(d -> tokenObj.put("activityDeadline", d));
+		}
+	}
+
+	private void updateOAuthTokens(JsonNode tokensArray) throws IOException
+	{
+		for (JsonNode tokenNode : tokensArray)
+		{
+			ObjectNode tokenObj = (ObjectNode) tokenNode;
+			if (!UpdateHelperTo4_5.OAUTH_TOKEN_TYPES.contains(tokenObj.get("type").asText()))
+				continue;
+			ObjectNode oauthToken = JsonUtil.parse(tokenObj.get("contents").binaryValue());
+			Optional<Long> clientId = UpdateHelperTo4_5.getOAuthTokenClientId(oauthToken);
+			clientId.ifPresent(id -> tokenObj.put("clientId", id));
+		}
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+
+package pl.edu.icm.unity.store.migration.to4_5;
+
+import java.util.Optional;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+class UpdateHelperTo4_5
+{
+	static final String SESSION_TOKEN_TYPE = "session";
+	static final Set<String> OAUTH_TOKEN_TYPES = Set.of("oauth2Code", "oauth2Access", "oauth2Refresh",
+			"usedOauth2Refresh");
+
+	/**
+	 * @return the time after which login session becomes inactive, computed from the serialized session 
+	 */
+	static Optional<Long> getSessionActivityDeadline(ObjectNode sessionContents)
+	{
+		if (!sessionContents.hasNonNull("lastUsed") || !sessionContents.hasNonNull("maxInactivity"))
+			return Optional.empty();
+		return Optional.of(sessionContents.get("lastUsed").asLong() 
+				+ sessionContents.get("maxInactivity").asLong());
+	}
+
+	/**
+	 * @return entity id of the client to which the OAuth token was issued, taken from the serialized token
+	 */
+	static Optional<Long> getOAuthTokenClientId(ObjectNode oauthTokenContents)
+	{
+		if (!oauthTokenContents.hasNonNull("clientId"))
+			return Optional.empty();
+		return Optional.of(oauthTokenContents.get("clientId").asLong());
+	}
+}
@@ -6,8 +6,8 @@ package pl.edu.icm.unity.store.objstore;
 
 import java.util.AbstractMap.SimpleEntry;
 import java.util.Date;
-import java.util.List;
 import java.util.Map.Entry;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -36,9 +36,9 @@ public abstract class GenericObjectIEBase<T extends NamedObject> extends Abstrac
 	}
 
 	@Override
-	protected List<Entry<T, Date>> getAllToExport()
+	protected Stream<Entry<T, Date>> getAllToExport()
 	{
-		return dao.getAllWithUpdateTimestamps();
+		return dao.getAllWithUpdateTimestamps().stream();
 	}
 
 	@Override
@@ -169,12 +169,14 @@ public class GenericObjectsDAOImpl<T extends NamedObject> implements NamedCRUDDA
 			firePreRemove(raw.getId(), name, removed);
 		}
 		dbGeneric.removeObject(name, type);
+		onModification();
 	}
 
 	@Override
 	public void deleteAll()
 	{
 		dbGeneric.removeObjectsByType(type);
+		onModification();
 	}
 	
 	@Override
@@ -191,6 +193,7 @@ public class GenericObjectsDAOImpl<T extends NamedObject> implements NamedCRUDDA
 		GenericObjectBean blob = handler.toBlob(newValue);
 		blob.setLastUpdate(new Date());
 		dbGeneric.updateObject(current, blob.getType(), blob);
+		onModification();
 	}
 
 	@Override
@@ -200,6 +203,7 @@ public class GenericObjectsDAOImpl<T extends NamedObject> implements NamedCRUDDA
 		GenericObjectBean raw = handler.toBlob(obj);
 		raw.setLastUpdate(new Date());
 		dbGeneric.updateByKey(id, raw);
+		onModification();
 	}
 
 	@Override
@@ -227,7 +231,9 @@ public class GenericObjectsDAOImpl<T extends NamedObject> implements NamedCRUDDA
 		if (exists(newValue.getName()))
 			throw new IllegalArgumentException("The [" + newValue.getName() + "] " + objectName +
 					" already exists");
-		return dbGeneric.create(blob);
+		long id = dbGeneric.create(blob);
+		onModification();
+		return id;
 	}
 
 	@Override
@@ -239,6 +245,7 @@ public class GenericObjectsDAOImpl<T extends NamedObject> implements NamedCRUDDA
 			throw new IllegalArgumentException("The [" + obj.getName() + "] " + objectName +
 					" already exists");
 		dbGeneric.createWithId(id, blob);
+		onModification();
 	}
 
 	@Override
@@ -251,6 +258,7 @@ public class GenericObjectsDAOImpl<T extends NamedObject> implements NamedCRUDDA
 	public void deleteByKey(long id)
 	{
 		dbGeneric.deleteByKey(id);
+		onModification();
 	}
 
 	@Override
@@ -301,4 +309,11 @@ public class GenericObjectsDAOImpl<T extends NamedObject> implements NamedCRUDDA
 		for (ReferenceUpdateHandler<T> handler: updateHandlers)
 			handler.preUpdateCheck(updateEvent);
 	}
+
+	/**
+	 * For extensions: invoked after stored objects were modified.
+	 */
+	protected void onModification()
+	{
+	}
 }
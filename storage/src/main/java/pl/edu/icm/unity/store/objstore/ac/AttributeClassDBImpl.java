@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.attribute.AttributesClass;
+import pl.edu.icm.unity.store.SystemDefinitionsVersionImpl;
 import pl.edu.icm.unity.store.api.generic.AttributeClassDB;
 import pl.edu.icm.unity.store.impl.objstore.ObjectStoreDAO;
 import pl.edu.icm.unity.store.objstore.GenericObjectsDAOImpl;
@@ -19,10 +20,19 @@ import pl.edu.icm.unity.store.objstore.GenericObjectsDAOImpl;
 @Component
 public class AttributeClassDBImpl extends GenericObjectsDAOImpl<AttributesClass> implements AttributeClassDB 
 {
+	private final SystemDefinitionsVersionImpl definitionsVersion;
+
 	@Autowired
 	AttributeClassDBImpl(AttributeClassHandler handler,
-			ObjectStoreDAO dbGeneric)
+			ObjectStoreDAO dbGeneric, SystemDefinitionsVersionImpl definitionsVersion)
 	{
 		super(handler, dbGeneric, AttributesClass.class, "attributes class");
+		this.definitionsVersion = definitionsVersion;
+	}
+
+	@Override
+	protected void onModification()
+	{
+		definitionsVersion.markModified();
 	}
 }
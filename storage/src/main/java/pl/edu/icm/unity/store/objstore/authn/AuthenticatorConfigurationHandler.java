@@ -11,6 +11,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import pl.edu.icm.unity.base.exceptions.InternalException;
+import pl.edu.icm.unity.store.api.generic.AuthenticatorConfigurationDB;
 import pl.edu.icm.unity.store.impl.objstore.GenericObjectBean;
 import pl.edu.icm.unity.store.objstore.DefaultEntityHandler;
 import pl.edu.icm.unity.store.types.AuthenticatorConfiguration;
@@ -22,7 +23,7 @@ import pl.edu.icm.unity.store.types.AuthenticatorConfiguration;
 @Component
 public class AuthenticatorConfigurationHandler extends DefaultEntityHandler<AuthenticatorConfiguration>
 {
-	public static final String AUTHENTICATOR_OBJECT_TYPE = "authenticator";
+	public static final String AUTHENTICATOR_OBJECT_TYPE = AuthenticatorConfigurationDB.OBJECT_TYPE;
 	
 	@Autowired
 	public AuthenticatorConfigurationHandler(ObjectMapper jsonMapper)
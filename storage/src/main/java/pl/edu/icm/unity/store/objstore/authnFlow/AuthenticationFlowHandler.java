@@ -12,6 +12,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import pl.edu.icm.unity.base.authn.AuthenticationFlowDefinition;
 import pl.edu.icm.unity.base.exceptions.InternalException;
+import pl.edu.icm.unity.store.api.generic.AuthenticationFlowDB;
 import pl.edu.icm.unity.store.impl.objstore.GenericObjectBean;
 import pl.edu.icm.unity.store.objstore.DefaultEntityHandler;
 
@@ -22,7 +23,7 @@ import pl.edu.icm.unity.store.objstore.DefaultEntityHandler;
 @Component
 public class AuthenticationFlowHandler extends DefaultEntityHandler<AuthenticationFlowDefinition>
 {
-	public static final String AUTHENTICATION_FLOW_OBJECT_TYPE = "authenticationFlow";
+	public static final String AUTHENTICATION_FLOW_OBJECT_TYPE = AuthenticationFlowDB.OBJECT_TYPE;
 	
 	@Autowired
 	public AuthenticationFlowHandler(ObjectMapper jsonMapper)
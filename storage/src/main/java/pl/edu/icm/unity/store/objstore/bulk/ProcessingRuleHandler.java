@@ -12,6 +12,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import pl.edu.icm.unity.base.bulkops.ScheduledProcessingRule;
 import pl.edu.icm.unity.base.exceptions.InternalException;
+import pl.edu.icm.unity.store.api.generic.ProcessingRuleDB;
 import pl.edu.icm.unity.store.impl.objstore.GenericObjectBean;
 import pl.edu.icm.unity.store.objstore.DefaultEntityHandler;
 
@@ -23,7 +24,7 @@ import pl.edu.icm.unity.store.objstore.DefaultEntityHandler;
 @Component
 public class ProcessingRuleHandler extends DefaultEntityHandler<ScheduledProcessingRule>
 {
-	public static final String PROCESSING_RULE_OBJECT_TYPE = "processingRule";
+	public static final String PROCESSING_RULE_OBJECT_TYPE = ProcessingRuleDB.OBJECT_TYPE;
 
 	@Autowired
 	public ProcessingRuleHandler(ObjectMapper jsonMapper)
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.authn.CredentialDefinition;
+import pl.edu.icm.unity.store.SystemDefinitionsVersionImpl;
 import pl.edu.icm.unity.store.api.generic.CredentialDB;
 import pl.edu.icm.unity.store.impl.objstore.ObjectStoreDAO;
 import pl.edu.icm.unity.store.objstore.GenericObjectsDAOImpl;
@@ -19,9 +20,19 @@ import pl.edu.icm.unity.store.objstore.GenericObjectsDAOImpl;
 @Component
 public class CredentialDBImpl extends GenericObjectsDAOImpl<CredentialDefinition> implements CredentialDB
 {
+	private final SystemDefinitionsVersionImpl definitionsVersion;
+
 	@Autowired
-	CredentialDBImpl(CredentialHandler handler, ObjectStoreDAO dbGeneric)
+	CredentialDBImpl(CredentialHandler handler, ObjectStoreDAO dbGeneric,
+			SystemDefinitionsVersionImpl definitionsVersion)
 	{
 		super(handler, dbGeneric, CredentialDefinition.class, "credential");
+		this.definitionsVersion = definitionsVersion;
+	}
+
+	@Override
+	protected void onModification()
+	{
+		definitionsVersion.markModified();
 	}
 }
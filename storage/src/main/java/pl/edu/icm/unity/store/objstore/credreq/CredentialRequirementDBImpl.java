@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.authn.CredentialRequirements;
+import pl.edu.icm.unity.store.SystemDefinitionsVersionImpl;
 import pl.edu.icm.unity.store.api.generic.CredentialRequirementDB;
 import pl.edu.icm.unity.store.impl.objstore.ObjectStoreDAO;
 import pl.edu.icm.unity.store.objstore.GenericObjectsDAOImpl;
@@ -25,14 +26,24 @@ import pl.edu.icm.unity.store.objstore.cred.CredentialDBImpl;
 public class CredentialRequirementDBImpl extends GenericObjectsDAOImpl<CredentialRequirements>
 			implements CredentialRequirementDB
 {
+	private final SystemDefinitionsVersionImpl definitionsVersion;
+
 	@Autowired
 	public CredentialRequirementDBImpl(CredentialRequirementHandler handler,
-			ObjectStoreDAO dbGeneric, CredentialDBImpl credentialDB)
+			ObjectStoreDAO dbGeneric, CredentialDBImpl credentialDB,
+			SystemDefinitionsVersionImpl definitionsVersion)
 	{
 		super(handler, dbGeneric, CredentialRequirements.class,	"credential requirement");
+		this.definitionsVersion = definitionsVersion;
 		credentialDB.addRemovalHandler(this::restrictCredentialRemoval);
 	}
-	
+
+	@Override
+	protected void onModification()
+	{
+		definitionsVersion.markModified();
+	}
+
 	
 	private void restrictCredentialRemoval(long removedId, String removedName)
 	{
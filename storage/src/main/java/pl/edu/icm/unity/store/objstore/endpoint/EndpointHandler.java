@@ -12,6 +12,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import pl.edu.icm.unity.base.endpoint.Endpoint;
 import pl.edu.icm.unity.base.exceptions.InternalException;
+import pl.edu.icm.unity.store.api.generic.EndpointDB;
 import pl.edu.icm.unity.store.impl.objstore.GenericObjectBean;
 import pl.edu.icm.unity.store.objstore.DefaultEntityHandler;
 
@@ -23,7 +24,7 @@ import pl.edu.icm.unity.store.objstore.DefaultEntityHandler;
 @Component
 public class EndpointHandler extends DefaultEntityHandler<Endpoint>
 {
-	public static final String ENDPOINT_OBJECT_TYPE = "endpointDefinition";
+	public static final String ENDPOINT_OBJECT_TYPE = EndpointDB.OBJECT_TYPE;
 
 	@Autowired
 	public EndpointHandler(ObjectMapper jsonMapper)
@@ -12,6 +12,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import pl.edu.icm.unity.base.authn.AuthenticationRealm;
 import pl.edu.icm.unity.base.exceptions.InternalException;
+import pl.edu.icm.unity.store.api.generic.RealmDB;
 import pl.edu.icm.unity.store.impl.objstore.GenericObjectBean;
 import pl.edu.icm.unity.store.objstore.DefaultEntityHandler;
 
@@ -22,7 +23,7 @@ import pl.edu.icm.unity.store.objstore.DefaultEntityHandler;
 @Component
 public class RealmHandler extends DefaultEntityHandler<AuthenticationRealm>
 {
-	public static final String REALM_OBJECT_TYPE = "authenticationRealm";
+	public static final String REALM_OBJECT_TYPE = RealmDB.OBJECT_TYPE;
 	
 	@Autowired
 	public RealmHandler(ObjectMapper jsonMapper)
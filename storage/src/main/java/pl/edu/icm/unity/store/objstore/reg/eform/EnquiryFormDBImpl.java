@@ -19,6 +19,7 @@ import pl.edu.icm.unity.base.registration.EnquiryForm.EnquiryType;
 import pl.edu.icm.unity.base.registration.EnquiryFormNotifications;
 import pl.edu.icm.unity.store.ReferenceRemovalHandler;
 import pl.edu.icm.unity.store.ReferenceUpdateHandler;
+import pl.edu.icm.unity.store.SystemDefinitionsVersionImpl;
 import pl.edu.icm.unity.store.api.generic.EnquiryFormDB;
 import pl.edu.icm.unity.store.impl.attributetype.AttributeTypeDAOInternal;
 import pl.edu.icm.unity.store.impl.groups.GroupDAOInternal;
@@ -41,12 +42,15 @@ import pl.edu.icm.unity.store.objstore.reg.GroupRenameListener;
 @Component
 public class EnquiryFormDBImpl extends GenericObjectsDAOImpl<EnquiryForm> implements EnquiryFormDB
 {
+	private final SystemDefinitionsVersionImpl definitionsVersion;
+
 	@Autowired
 	public EnquiryFormDBImpl(EnquiryFormHandler handler, ObjectStoreDAO dbGeneric,
 			CredentialDBImpl credDAO, AttributeTypeDAOInternal atDAO, GroupDAOInternal groupDAO,
-			MessageTemplateDBImpl msgTemplateDB)
+			MessageTemplateDBImpl msgTemplateDB, SystemDefinitionsVersionImpl definitionsVersion)
 	{
 		super(handler, dbGeneric, EnquiryForm.class, "enquiry form");
+		this.definitionsVersion = definitionsVersion;
 		credDAO.addRemovalHandler(new CredentialChangeListener(this));
 		credDAO.addUpdateHandler(new CredentialRenameListener<>(this));
 		
@@ -69,6 +73,12 @@ public class EnquiryFormDBImpl extends GenericObjectsDAOImpl<EnquiryForm> implem
 	public void deleteWithoutDependencyChecking(String name) {
 		super.delete(name, true);
 	}
+
+	@Override
+	protected void onModification()
+	{
+		definitionsVersion.markModified();
+	}
 	
 	private class MessageTemplateChangeListener extends BaseTemplateChangeListener
 	{
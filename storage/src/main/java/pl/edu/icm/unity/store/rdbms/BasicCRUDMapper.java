@@ -6,6 +6,8 @@ package pl.edu.icm.unity.store.rdbms;
 
 import java.util.List;
 
+import org.apache.ibatis.annotations.Param;
+
 /**
  * All mappers extend this interface, and those operations are available on all tables.
  * @author K. Benedyczak
@@ -27,6 +29,11 @@ public interface BasicCRUDMapper<BEAN>
 	
 	List<BEAN> getAll();
 	
+	/**
+	 * @return up to limit beans with key greater than afterId, ordered by key
+	 */
+	List<BEAN> getPage(@Param("afterId") long afterId, @Param("limit") int limit);
+	
 	BEAN getByKey(long key);
 	
 	long getCount();
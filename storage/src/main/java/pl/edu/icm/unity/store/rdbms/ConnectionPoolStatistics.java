@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms;
+
+/**
+ * Snapshot of database connection pool usage, as observed by {@link MonitoredDataSource}.
+ */
+public class ConnectionPoolStatistics
+{
+	/**
+	 * Upper bounds (exclusive) in milliseconds of the connection acquisition time histogram buckets. 
+	 * The last bucket holds all longer acquisitions.
+	 */
+	public static final long[] ACQUISITION_TIME_BUCKETS_MS = {1, 10, 100, 1000};
+
+	public final String poolName;
+	public final int active;
+	/**
+	 * -1 if the pool implementation doesn't provide this information
+	 */
+	public final int idle;
+	public final int pending;
+	public final long acquisitions;
+	public final long[] acquisitionTimeHistogram;
+	public final long leakedConnections;
+
+	ConnectionPoolStatistics(String poolName, int active, int idle, int pending, long acquisitions,
+			long[] acquisitionTimeHistogram, long leakedConnections)
+	{
+		this.poolName = poolName;
+		this.active = active;
+		this.idle = idle;
+		this.pending = pending;
+		this.acquisitions = acquisitions;
+		this.acquisitionTimeHistogram = acquisitionTimeHistogram;
+		this.leakedConnections = leakedConnections;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder histogram = new StringBuilder();
+		for (int i = 0; i < acquisitionTimeHistogram.length; i++)
+		{
+			if (i > 0)
+				histogram.append(", ");
+			histogram.append(i < ACQUISITION_TIME_BUCKETS_MS.length ? 
+					"<" + ACQUISITION_TIME_BUCKETS_MS[i] : 
+					">=" + ACQUISITION_TIME_BUCKETS_MS[ACQUISITION_TIME_BUCKETS_MS.length - 1]);
+			histogram.append("ms: ").append(acquisitionTimeHistogram[i]);
+		}
+		return "ConnectionPoolStatistics [poolName=" + poolName + ", active=" + active + ", idle=" + idle 
+				+ ", pending=" + pending + ", acquisitions=" + acquisitions 
+				+ ", acquisitionTimeHistogram={" + histogram + "}, leakedConnections=" + leakedConnections 
+				+ "]";
+	}
+}
@@ -8,6 +8,10 @@
 
 package pl.edu.icm.unity.store.rdbms;
 
+import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.BATCH_FLUSH_SIZE;
+import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.CONNECTION_LEAK_THRESHOLD_MILLIS;
+import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.DATASOURCE_FACTORY;
+import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.DATASOURCE_PROPERTIES;
 import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.DEFAULT_NETWORK_TIMEOUT_MILLIS;
 import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.POOL_MAX_ACTIVE_CONNECTIONS;
 import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.POOL_MAX_CHECKOUT_TIME_MILLIS;
@@ -15,48 +19,103 @@ import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.POOL_MAX_IDLE_CONN
 import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.POOL_MAX_LOCAL_BAD_CONNECTION_TOLERANCE;
 import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.POOL_PING_CONNECTIONS_NOT_USED_FOR_MILLIS;
 import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.POOL_TIME_TO_WAIT_MILLIS;
+import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.REPLICA_PASSWORD;
+import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.REPLICA_READ_AFTER_WRITE_PERIOD_MILLIS;
+import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.REPLICA_URL;
+import static pl.edu.icm.unity.store.rdbms.RDBMSConfiguration.REPLICA_USER;
 
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import eu.unicore.util.configuration.ConfigurationException;
 import eu.unicore.util.db.DBPropertiesHelper;
 import pl.edu.icm.unity.base.exceptions.InternalException;
+import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.store.StorageConfiguration;
+import pl.edu.icm.unity.store.rdbms.tx.BatchFlushInterceptor;
+import pl.edu.icm.unity.store.rdbms.tx.ReplicaModificationInterceptor;
 
 
 /**
  * Provides initial MyBatis initialization and support for obtaining MyBatis SqlSessions.
+ * Optionally a second factory is set up, providing sessions of a read-only database replica.
+ * The connection pools are either the MyBatis built-in ones or are provided by a configured 
+ * {@link DataSourceFactory}. In both cases their usage is monitored with {@link MonitoredDataSource}.
  * 
  * @author K. Benedyczak
  */
 @Component
 public class DBSessionManager
 {
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, DBSessionManager.class);
 	public static final String DEF_MAPCONFIG_LOCATION = "pl/edu/icm/unity/store/rdbms/mapper/mapconfig.xml";
 
 	public static final int SESSION_KEEP_WARN_TIME = 3000;
 	
 	private SqlSessionFactory sqlMapFactory;
+	private SqlSessionFactory replicaSqlMapFactory;
+	private long replicaReadAfterWritePeriod;
+	private final List<MonitoredDataSource> dataSources = new ArrayList<>();
 
 	@Autowired
 	public DBSessionManager(StorageConfiguration config) 
 			throws InternalException, IOException
 	{
-		sqlMapFactory = loadMybatis(config.getEngineConfig());
+		RDBMSConfiguration engineConfig = config.getEngineConfig();
+		sqlMapFactory = loadMybatis(engineConfig, getConnectionProperties(engineConfig), "main");
+		sqlMapFactory.getConfiguration().addInterceptor(
+				new BatchFlushInterceptor(engineConfig.getIntValue(BATCH_FLUSH_SIZE)));
+		if (engineConfig.isSet(REPLICA_URL))
+		{
+			log.info("Read-only transactions will be served by the database replica {}", 
+					engineConfig.getValue(REPLICA_URL));
+			replicaSqlMapFactory = loadMybatis(engineConfig, getReplicaConnectionProperties(engineConfig), 
+					"replica");
+			replicaSqlMapFactory.getConfiguration().addInterceptor(new ReplicaModificationInterceptor());
+			replicaReadAfterWritePeriod = engineConfig.getIntValue(REPLICA_READ_AFTER_WRITE_PERIOD_MILLIS);
+		}
 	}
 	
-	private SqlSessionFactory loadMybatis(RDBMSConfiguration config) throws IOException
+	private Properties getConnectionProperties(RDBMSConfiguration config)
+	{
+		Properties properties = new Properties();
+		properties.setProperty(DBPropertiesHelper.PASSWORD, config.getValue(DBPropertiesHelper.PASSWORD));
+		properties.setProperty(DBPropertiesHelper.URL, config.getValue(DBPropertiesHelper.URL));
+		properties.setProperty(DBPropertiesHelper.USER, config.getValue(DBPropertiesHelper.USER));
+		return properties;
+	}
+
+	private Properties getReplicaConnectionProperties(RDBMSConfiguration config)
+	{
+		Properties properties = getConnectionProperties(config);
+		properties.setProperty(DBPropertiesHelper.URL, config.getValue(REPLICA_URL));
+		if (config.isSet(REPLICA_USER))
+			properties.setProperty(DBPropertiesHelper.USER, config.getValue(REPLICA_USER));
+		if (config.isSet(REPLICA_PASSWORD))
+			properties.setProperty(DBPropertiesHelper.PASSWORD, config.getValue(REPLICA_PASSWORD));
+		return properties;
+	}
+	
+	private SqlSessionFactory loadMybatis(RDBMSConfiguration config, Properties connectionProperties, 
+			String poolName) throws IOException
 	{
 		String mapFile = config.getFileValueAsString(RDBMSConfiguration.DBCONFIG_FILE, false);
 		SqlSessionFactoryBuilder builder = new SqlSessionFactoryBuilder();
@@ -66,11 +125,9 @@ public class DBSessionManager
 		else
 			reader = Resources.getResourceAsReader(DEF_MAPCONFIG_LOCATION);
 		Properties properties = new Properties();
+		properties.putAll(connectionProperties);
 		properties.setProperty(DBPropertiesHelper.DIALECT, config.getValue(DBPropertiesHelper.DIALECT));
 		properties.setProperty(DBPropertiesHelper.DRIVER, config.getValue(DBPropertiesHelper.DRIVER));
-		properties.setProperty(DBPropertiesHelper.PASSWORD, config.getValue(DBPropertiesHelper.PASSWORD));
-		properties.setProperty(DBPropertiesHelper.URL, config.getValue(DBPropertiesHelper.URL));
-		properties.setProperty(DBPropertiesHelper.USER, config.getValue(DBPropertiesHelper.USER));
 		
 		properties.setProperty(DEFAULT_NETWORK_TIMEOUT_MILLIS, config.getValue(DEFAULT_NETWORK_TIMEOUT_MILLIS));
 		properties.setProperty(POOL_MAX_ACTIVE_CONNECTIONS, config.getValue(POOL_MAX_ACTIVE_CONNECTIONS));
@@ -80,7 +137,58 @@ public class DBSessionManager
 		properties.setProperty(POOL_MAX_LOCAL_BAD_CONNECTION_TOLERANCE, config.getValue(POOL_MAX_LOCAL_BAD_CONNECTION_TOLERANCE));
 		properties.setProperty(POOL_PING_CONNECTIONS_NOT_USED_FOR_MILLIS, config.getValue(POOL_PING_CONNECTIONS_NOT_USED_FOR_MILLIS));
 
-		return builder.build(reader, properties);
+		SqlSessionFactory factory = builder.build(reader, properties);
+		installMonitoredDataSource(factory.getConfiguration(), config, connectionProperties, poolName);
+		return factory;
+	}
+
+	private void installMonitoredDataSource(Configuration mybatisConfig, RDBMSConfiguration config, 
+			Properties connectionProperties, String poolName)
+	{
+		Environment environment = mybatisConfig.getEnvironment();
+		DataSource dataSource = config.isSet(DATASOURCE_FACTORY) ? 
+				createCustomDataSource(config, connectionProperties) : environment.getDataSource();
+		MonitoredDataSource monitored = new MonitoredDataSource(poolName, dataSource, 
+				config.getIntValue(CONNECTION_LEAK_THRESHOLD_MILLIS));
+		dataSources.add(monitored);
+		mybatisConfig.setEnvironment(new Environment(environment.getId(), 
+				environment.getTransactionFactory(), monitored));
+	}
+
+	private DataSource createCustomDataSource(RDBMSConfiguration config, Properties connectionProperties)
+	{
+		String factoryClass = config.getValue(DATASOURCE_FACTORY);
+		DataSourceFactory factory;
+		try
+		{
+			factory = (DataSourceFactory) Class.forName(factoryClass).getDeclaredConstructor().newInstance();
+		} catch (Exception e)
+		{
+			throw new ConfigurationException("Can not instantiate data source factory " + factoryClass, e);
+		}
+		Properties properties = new Properties();
+		properties.setProperty("driver", config.getValue(DBPropertiesHelper.DRIVER));
+		properties.setProperty("url", connectionProperties.getProperty(DBPropertiesHelper.URL));
+		properties.setProperty("username", connectionProperties.getProperty(DBPropertiesHelper.USER));
+		properties.setProperty("password", connectionProperties.getProperty(DBPropertiesHelper.PASSWORD));
+		String prefix = RDBMSConfiguration.PREFIX + DATASOURCE_PROPERTIES;
+		for (String key: config.getProperties().stringPropertyNames())
+			if (key.startsWith(prefix))
+				properties.setProperty(key.substring(prefix.length()), config.getProperties().getProperty(key));
+		factory.setProperties(properties);
+		log.info("Using connection pool provided by {}", factoryClass);
+		return factory.getDataSource();
+	}
+
+	/**
+	 * @return usage statistics of the connection pools: of the main database and of the replica if configured
+	 */
+	public List<ConnectionPoolStatistics> getConnectionPoolStatistics()
+	{
+		List<ConnectionPoolStatistics> ret = new ArrayList<>();
+		for (MonitoredDataSource dataSource: dataSources)
+			ret.add(dataSource.getStatistics());
+		return ret;
 	}
 
 	public Configuration getMyBatisConfiguration()
@@ -97,4 +205,23 @@ public class DBSessionManager
 	{
 		return sqlMapFactory.openSession(executor, !transactional);
 	}
+
+	public boolean isReplicaConfigured()
+	{
+		return replicaSqlMapFactory != null;
+	}
+
+	/**
+	 * @return transactional session of the read-only replica. Can be used only if 
+	 * {@link #isReplicaConfigured()} returns true.
+	 */
+	public SqlSession getReplicaSqlSession()
+	{
+		return replicaSqlMapFactory.openSession(ExecutorType.SIMPLE, false);
+	}
+
+	public long getReplicaReadAfterWritePeriod()
+	{
+		return replicaReadAfterWritePeriod;
+	}
 }
@@ -94,6 +94,7 @@ public abstract class GenericNamedRDBMSCRUD<T extends NamedObject, DBT extends B
 					"] does not exist");
 		firePreRemove(toRemove.getId(), id, toRemove);
 		mapper.delete(id);
+		onModification();
 	}
 	
 	@Override
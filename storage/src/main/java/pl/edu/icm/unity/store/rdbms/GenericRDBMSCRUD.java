@@ -5,10 +5,16 @@
 package pl.edu.icm.unity.store.rdbms;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Stream;
+
+import com.google.common.collect.Streams;
 
 import pl.edu.icm.unity.store.ReferenceAwareDAO;
 import pl.edu.icm.unity.store.ReferenceRemovalHandler;
@@ -26,6 +32,7 @@ import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean> 
 		implements BasicCRUDDAO<T>, RDBMSDAO, ReferenceAwareDAO<T>
 {
+	static final int STREAM_PAGE_SIZE = 1000;
 	private final Class<? extends BasicCRUDMapper<DBT>> mapperClass;
 	protected final RDBMSObjectSerializer<T, DBT> jsonSerializer;
 	protected final String elementName;
@@ -58,6 +65,7 @@ public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean>
 		DBT toAdd = jsonSerializer.toDB(obj);
 		assertContentsLimit(toAdd.getContents());
 		mapper.create(toAdd);
+		onModification();
 		return toAdd.getId();
 	}
 
@@ -76,6 +84,7 @@ public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean>
 			converted.add(toAdd);
 		}
 		mapper.createList(converted);
+		onModification();
 	}
 	
 	@Override
@@ -86,6 +95,7 @@ public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean>
 		toAdd.setId(key);
 		assertContentsLimit(toAdd.getContents());
 		mapper.createWithKey(toAdd);
+		onModification();
 	}
 	
 	@Override
@@ -101,7 +111,8 @@ public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean>
 		DBT toUpdate = jsonSerializer.toDB(obj);
 		assertContentsLimit(toUpdate.getContents());
 		toUpdate.setId(key);
-		mapper.updateByKey(toUpdate);		
+		mapper.updateByKey(toUpdate);
+		onModification();
 	}
 
 	protected void assertContentsLimit(byte[] contents)
@@ -115,6 +126,13 @@ public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean>
 	protected void preUpdateCheck(T old, T updated)
 	{
 	}
+
+	/**
+	 * For extensions: invoked after stored elements were modified.
+	 */
+	protected void onModification()
+	{
+	}
 	
 	@Override
 	public void deleteByKey(long id)
@@ -125,6 +143,7 @@ public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean>
 			throw missingElementExceptionProvider.apply(id);
 		firePreRemove(id, null, toRemove);
 		mapper.deleteByKey(id);
+		onModification();
 	}
 	
 	@Override
@@ -132,6 +151,7 @@ public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean>
 	{
 		BasicCRUDMapper<DBT> mapper = SQLTransactionTL.getSql().getMapper(mapperClass);
 		mapper.deleteAll();
+		onModification();
 	}
 	
 	protected void assertExists(long id, BasicCRUDMapper<DBT> mapper)
@@ -157,6 +177,23 @@ public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean>
 		List<DBT> allInDB = mapper.getAll();
 		return convertList(allInDB);
 	}
+
+	/**
+	 * Rows are loaded in pages of {@link #STREAM_PAGE_SIZE}, using keyset pagination over the primary key,
+	 * and are deserialized only when consumed.
+	 */
+	@Override
+	public Stream<T> streamAll()
+	{
+		return streamAll(STREAM_PAGE_SIZE);
+	}
+
+	Stream<T> streamAll(int pageSize)
+	{
+		BasicCRUDMapper<DBT> mapper = SQLTransactionTL.getSql().getMapper(mapperClass);
+		return Streams.stream(new KeysetPageIterator<>(mapper, pageSize))
+				.map(jsonSerializer::fromDB);
+	}
 	
 	@Override
 	public long getCount()
@@ -199,4 +236,44 @@ public abstract class GenericRDBMSCRUD<T, DBT extends GenericDBBean>
 		for (ReferenceUpdateHandler<T> handler: updateHandlers)
 			handler.preUpdateCheck(new PlannedUpdateEvent<>(modifiedId, modifiedName, newVal, old));
 	}
+
+	private static class KeysetPageIterator<DBT extends GenericDBBean> implements Iterator<DBT>
+	{
+		private final BasicCRUDMapper<DBT> mapper;
+		private final int pageSize;
+		private Iterator<DBT> page = Collections.emptyIterator();
+		private long lastKey = Long.MIN_VALUE;
+		private boolean lastPage;
+
+		KeysetPageIterator(BasicCRUDMapper<DBT> mapper, int pageSize)
+		{
+			this.mapper = mapper;
+			this.pageSize = pageSize;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			if (!page.hasNext() && !lastPage)
+				loadPage();
+			return page.hasNext();
+		}
+
+		@Override
+		public DBT next()
+		{
+			if (!hasNext())
+				throw new NoSuchElementException();
+			DBT next = page.next();
+			lastKey = next.getId();
+			return next;
+		}
+
+		private void loadPage()
+		{
+			List<DBT> loaded = mapper.getPage(lastKey, pageSize);
+			lastPage = loaded.size() < pageSize;
+			page = loaded.iterator();
+		}
+	}
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+
+import pl.edu.icm.unity.base.utils.Log;
+
+/**
+ * Wraps the data source of a connection pool and gathers its usage statistics: active and pending connections
+ * and the histogram of connection acquisition times. Works with any pool implementation, the number of idle
+ * connections is only available for the MyBatis built-in pool.
+ * <p>
+ * Optionally detects leaked connections: the ones which are not returned to the pool for longer than
+ * the configured threshold. As this requires recording the stack trace of each checkout, it is disabled by
+ * default. The check is performed at connection acquisition, so no additional thread is used. Statistics
+ * are logged on debug level, also at connection acquisition, not more often than every minute.
+ */
+class MonitoredDataSource implements DataSource
+{
+	private static final org.apache.logging.log4j.Logger log =
+			Log.getLogger(Log.U_SERVER_DB, MonitoredDataSource.class);
+	static final long CHECKS_INTERVAL_MS = 1000;
+	static final long STATISTICS_LOG_INTERVAL_MS = 60000;
+	private final String name;
+	private final DataSource delegate;
+	private final long leakThresholdMs;
+	private final Map<Connection, Checkout> checkedOut = new ConcurrentHashMap<>();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicLong acquisitions = new AtomicLong();
+	private final AtomicLong leaked = new AtomicLong();
+	private final AtomicLongArray acquisitionTimeHistogram =
+			new AtomicLongArray(ConnectionPoolStatistics.ACQUISITION_TIME_BUCKETS_MS.length + 1);
+	private final AtomicLong lastLeakCheck = new AtomicLong(System.currentTimeMillis());
+	private final AtomicLong lastStatisticsLog = new AtomicLong(System.currentTimeMillis());
+
+	/**
+	 * @param leakThresholdMs time after which a not returned connection is reported as leaked.
+	 * 0 disables the detection.
+	 */
+	MonitoredDataSource(String name, DataSource delegate, long leakThresholdMs)
+	{
+		this.name = name;
+		this.delegate = delegate;
+		this.leakThresholdMs = leakThresholdMs;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		return monitorAcquisition(() -> delegate.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException
+	{
+		return monitorAcquisition(() -> delegate.getConnection(username, password));
+	}
+
+	ConnectionPoolStatistics getStatistics()
+	{
+		long[] histogram = new long[acquisitionTimeHistogram.length()];
+		for (int i = 0; i < histogram.length; i++)
+			histogram[i] = acquisitionTimeHistogram.get(i);
+		int idle = delegate instanceof PooledDataSource ?
+				((PooledDataSource) delegate).getPoolState().getIdleConnectionCount() : -1;
+		return new ConnectionPoolStatistics(name, checkedOut.size(), idle, pending.get(), acquisitions.get(),
+				histogram, leaked.get());
+	}
+
+	DataSource getDelegate()
+	{
+		return delegate;
+	}
+
+	private Connection monitorAcquisition(ConnectionSupplier supplier) throws SQLException
+	{
+		runPeriodicChecks();
+		pending.incrementAndGet();
+		long start = System.nanoTime();
+		Connection connection;
+		try
+		{
+			connection = supplier.get();
+		} finally
+		{
+			pending.decrementAndGet();
+		}
+		recordAcquisitionTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return wrap(connection);
+	}
+
+	private void recordAcquisitionTime(long timeMs)
+	{
+		acquisitions.incrementAndGet();
+		long[] buckets = ConnectionPoolStatistics.ACQUISITION_TIME_BUCKETS_MS;
+		int bucket = 0;
+		while (bucket < buckets.length && timeMs >= buckets[bucket])
+			bucket++;
+		acquisitionTimeHistogram.incrementAndGet(bucket);
+	}
+
+	private Connection wrap(Connection connection)
+	{
+		Checkout checkout = new Checkout(connection, System.currentTimeMillis(),
+				leakThresholdMs > 0 ? new Throwable("Connection checkout stack trace") : null);
+		Connection wrapped = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {Connection.class}, checkout);
+		checkedOut.put(wrapped, checkout);
+		checkout.wrapped = wrapped;
+		return wrapped;
+	}
+
+	private void runPeriodicChecks()
+	{
+		long now = System.currentTimeMillis();
+		long lastCheck = lastLeakCheck.get();
+		if (leakThresholdMs > 0 && now - lastCheck >= CHECKS_INTERVAL_MS
+				&& lastLeakCheck.compareAndSet(lastCheck, now))
+			checkLeaks(now);
+		long lastLog = lastStatisticsLog.get();
+		if (log.isDebugEnabled() && now - lastLog >= STATISTICS_LOG_INTERVAL_MS
+				&& lastStatisticsLog.compareAndSet(lastLog, now))
+			log.debug("{}", getStatistics());
+	}
+
+	void checkLeaks(long now)
+	{
+		for (Checkout checkout: checkedOut.values())
+		{
+			if (!checkout.reportedAsLeaked && now - checkout.time > leakThresholdMs)
+			{
+				checkout.reportedAsLeaked = true;
+				leaked.incrementAndGet();
+				log.warn("Connection of the " + name + " pool is not returned for " + (now - checkout.time)
+						+ "ms, it was likely leaked. It was checked out at:", checkout.stackTrace);
+			}
+		}
+	}
+
+	private class Checkout implements InvocationHandler
+	{
+		private final Connection connection;
+		private final long time;
+		private final Throwable stackTrace;
+		private final AtomicBoolean closed = new AtomicBoolean();
+		private volatile boolean reportedAsLeaked;
+		private Connection wrapped;
+
+		Checkout(Connection connection, long time, Throwable stackTrace)
+		{
+			this.connection = connection;
+			this.time = time;
+			this.stackTrace = stackTrace;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			switch (method.getName())
+			{
+			case "close":
+				if (closed.compareAndSet(false, true))
+					checkedOut.remove(wrapped);
+				break;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			default:
+			}
+			try
+			{
+				return method.invoke(connection, args);
+			} catch (InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+		}
+	}
+
+	private interface ConnectionSupplier
+	{
+		Connection get() throws SQLException;
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException
+	{
+		return delegate.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException
+	{
+		delegate.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException
+	{
+		delegate.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException
+	{
+		return delegate.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		return delegate.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		if (iface.isInstance(delegate))
+			return iface.cast(delegate);
+		return delegate.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+	}
+}
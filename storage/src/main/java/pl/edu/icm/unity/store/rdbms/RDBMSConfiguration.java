@@ -48,8 +48,20 @@ public class RDBMSConfiguration extends PropertiesHelper
 	public static final String POOL_MAX_LOCAL_BAD_CONNECTION_TOLERANCE = "poolMaximumLocalBadConnectionTolerance";
 	public static final String POOL_PING_CONNECTIONS_NOT_USED_FOR_MILLIS = "poolPingConnectionsNotUsedFor";
 	
+	public static final String DATASOURCE_FACTORY = "dataSourceFactory";
+	public static final String DATASOURCE_PROPERTIES = "dataSourceProperties.";
+	public static final String CONNECTION_LEAK_THRESHOLD_MILLIS = "connectionLeakDetectionThreshold";
+	public static final String BATCH_FLUSH_SIZE = "batchFlushSize";
+	
+	public static final String REPLICA_URL = "replicaJdbcUrl";
+	public static final String REPLICA_USER = "replicaUsername";
+	public static final String REPLICA_PASSWORD = "replicaPassword";
+	public static final String REPLICA_READ_AFTER_WRITE_PERIOD_MILLIS = "replicaReadAfterWritePeriod";
+	
 	public final static DocumentationCategory CONNECTION_CAT = new DocumentationCategory(
 			"Low level database connection settings", "2");
+	public final static DocumentationCategory REPLICA_CAT = new DocumentationCategory(
+			"Read-only replica settings", "3");
 	
 	@DocumentationReferenceMeta
 	public static final Map<String, PropertyMD> META = createMetadata();
@@ -107,6 +119,47 @@ public class RDBMSConfiguration extends PropertiesHelper
 						+ "used to keep the conection active. Can be set to match the typical timeout for a "
 						+ "database connection, to avoid unnecessary pings.")
 		);
+		meta.put(DATASOURCE_FACTORY, new PropertyMD().setCategory(CONNECTION_CAT)
+				.setDescription("Class name of an implementation of MyBatis DataSourceFactory, which provides "
+						+ "the connection pool to be used instead of the built-in one. The factory receives "
+						+ "the driver, url, username and password properties and all properties set with the "
+						+ DATASOURCE_PROPERTIES + " prefix. The pool settings of the built-in pool are then "
+						+ "ignored. The pool must be configured to use the READ_COMMITTED isolation level.")
+		);
+		meta.put(DATASOURCE_PROPERTIES, new PropertyMD().setCanHaveSubkeys().setCategory(CONNECTION_CAT)
+				.setDescription("Properties passed to the custom data source factory, "
+						+ "with the prefix removed.")
+		);
+		meta.put(CONNECTION_LEAK_THRESHOLD_MILLIS, new PropertyMD("0").setInt().setNonNegative()
+				.setCategory(CONNECTION_CAT)
+				.setDescription("If positive, a database connection which is not returned to the pool for "
+						+ "longer than this number of milliseconds is reported in log as leaked, together with "
+						+ "the stack trace of the code which obtained it. Enabling this option adds some "
+						+ "overhead to each connection checkout.")
+		);
+		meta.put(BATCH_FLUSH_SIZE, new PropertyMD("500").setInt().setPositive()
+				.setCategory(CONNECTION_CAT)
+				.setDescription("Maximum number of modifications which are collected in a single JDBC batch "
+						+ "by bulk operations, as the database import.")
+		);
+		meta.put(REPLICA_URL, new PropertyMD().setCategory(REPLICA_CAT)
+				.setDescription("Database URL of a read-only replica of the main database. If set, "
+						+ "read-only transactions are served by the replica. The replica connections use "
+						+ "the same pool settings as the main database.")
+		);
+		meta.put(REPLICA_USER, new PropertyMD().setCategory(REPLICA_CAT)
+				.setDescription("Database username of the replica. If unset the main database username is used.")
+		);
+		meta.put(REPLICA_PASSWORD, new PropertyMD().setSecret().setCategory(REPLICA_CAT)
+				.setDescription("Database password of the replica. If unset the main database password is used.")
+		);
+		meta.put(REPLICA_READ_AFTER_WRITE_PERIOD_MILLIS, new PropertyMD("5000").setInt().setNonNegative()
+				.setCategory(REPLICA_CAT)
+				.setDescription("Time in milliseconds after a read-write transaction was committed, during which "
+						+ "read-only transactions of the same thread are still served by the main database. "
+						+ "Ensures that a request reads its own writes, and should be larger than "
+						+ "the typical replication lag.")
+		);
 		return meta;
 	}
 	
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.tx;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+import pl.edu.icm.unity.store.tx.TransactionsState;
+
+/**
+ * Flushes JDBC batches of batch transactions. MyBatis flushes the batch only before queries and at commit,
+ * so bulk writes would collect an unbounded number of statements. Here the batch is flushed after the
+ * configured number of statements. Also inserts with generated keys are flushed immediately, as the keys are
+ * set in the inserted objects only after the statement is executed, and callers usually return them.
+ * <p>
+ * Modifications in other transactions are passed through without any processing.
+ */
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class BatchFlushInterceptor implements Interceptor
+{
+	private final int flushSize;
+
+	public BatchFlushInterceptor(int flushSize)
+	{
+		this.flushSize = flushSize;
+	}
+
+	@Override
+	public Object intercept(Invocation invocation) throws Throwable
+	{
+		Object ret = invocation.proceed();
+		TransactionsState<SQLTransactionState> transactionsStack = SQLTransactionTL.getState();
+		if (transactionsStack.isEmpty() || !transactionsStack.getCurrent().isBatch())
+			return ret;
+		SQLTransactionState transaction = transactionsStack.getCurrent();
+		MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+		if (transaction.addBatchStatement() >= flushSize
+				|| !(statement.getKeyGenerator() instanceof NoKeyGenerator))
+		{
+			((Executor) invocation.getTarget()).flushStatements();
+			transaction.batchFlushed();
+		}
+		return ret;
+	}
+}
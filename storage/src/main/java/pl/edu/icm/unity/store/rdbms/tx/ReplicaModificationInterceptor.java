@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.tx;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+/**
+ * Rejects all modifications in sessions of the database replica. Read-write transactions nested in a read-only
+ * one join its replica session, what is fine as long as they only read, as most of transactional code does. 
+ * A modification in such transaction is a bug, which would be otherwise reported with a database specific error
+ * or even lost. Rejected modifications are not retried.
+ */
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class ReplicaModificationInterceptor implements Interceptor
+{
+	@Override
+	public Object intercept(Invocation invocation) throws Throwable
+	{
+		MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+		throw new ReplicaModificationException("Modification " + statement.getId() 
+				+ " is not allowed in a read-only transaction served by the database replica");
+	}
+
+	static class ReplicaModificationException extends IllegalStateException
+	{
+		ReplicaModificationException(String message)
+		{
+			super(message);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.tx;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+
+import pl.edu.icm.unity.store.rdbms.tx.ReplicaModificationInterceptor.ReplicaModificationException;
+
+/**
+ * Classifies database errors to decide whether a failed transaction should be retried. The classification
+ * is based on SQL states, which are common for the supported databases, with a few vendor specific
+ * error codes of MySQL, which reports several conditions with generic states.
+ */
+class SQLErrorClassifier
+{
+	private static final int MYSQL_DEADLOCK = 1213;
+	private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+	private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+
+	enum ErrorType
+	{
+		DEADLOCK(true),
+		SERIALIZATION_FAILURE(true),
+		LOCK_TIMEOUT(true),
+		/**
+		 * Usually caused by a concurrent insert of the same element, after which a retried transaction
+		 * can notice the existing element.
+		 */
+		UNIQUE_VIOLATION(true),
+		CONNECTIVITY(true),
+		/**
+		 * Errors which will repeat, as syntax errors, data or integrity errors other than unique violations,
+		 * also modifications attempted in a session of the database replica.
+		 */
+		NON_RETRYABLE(false),
+		/**
+		 * Errors without a known SQL state, also the ones not caused by an SQL error.
+		 */
+		UNKNOWN(true);
+
+		final boolean retryable;
+
+		ErrorType(boolean retryable)
+		{
+			this.retryable = retryable;
+		}
+	}
+
+	static ErrorType classify(Throwable error)
+	{
+		if (findCause(error, ReplicaModificationException.class) != null)
+			return ErrorType.NON_RETRYABLE;
+		SQLException sqlError = findSQLException(error);
+		if (sqlError == null)
+			return ErrorType.UNKNOWN;
+		if (sqlError instanceof SQLTransientConnectionException || sqlError instanceof SQLRecoverableException)
+			return ErrorType.CONNECTIVITY;
+		String state = sqlError.getSQLState();
+		int code = sqlError.getErrorCode();
+		if ("40P01".equals(state) || code == MYSQL_DEADLOCK)
+			return ErrorType.DEADLOCK;
+		if (code == MYSQL_LOCK_WAIT_TIMEOUT)
+			return ErrorType.LOCK_TIMEOUT;
+		if (code == MYSQL_DUPLICATE_ENTRY)
+			return ErrorType.UNIQUE_VIOLATION;
+		if (state == null)
+			return ErrorType.UNKNOWN;
+		if (state.startsWith("40"))
+			return ErrorType.SERIALIZATION_FAILURE;
+		if ("55P03".equals(state) || "HYT00".equals(state))
+			return ErrorType.LOCK_TIMEOUT;
+		if ("23505".equals(state))
+			return ErrorType.UNIQUE_VIOLATION;
+		if (state.startsWith("08"))
+			return ErrorType.CONNECTIVITY;
+		if (state.startsWith("23") || state.startsWith("22") || state.startsWith("42")
+				|| state.startsWith("0A"))
+			return ErrorType.NON_RETRYABLE;
+		return ErrorType.UNKNOWN;
+	}
+
+	private static SQLException findSQLException(Throwable error)
+	{
+		return findCause(error, SQLException.class);
+	}
+
+	private static <T extends Throwable> T findCause(Throwable error, Class<T> type)
+	{
+		Throwable current = error;
+		for (int depth = 0; current != null && depth < 10; depth++)
+		{
+			if (type.isInstance(current))
+				return type.cast(current);
+			current = current.getCause();
+		}
+		return null;
+	}
+}
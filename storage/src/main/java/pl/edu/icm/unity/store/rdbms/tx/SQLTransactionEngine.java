@@ -4,7 +4,10 @@
  */
 package pl.edu.icm.unity.store.rdbms.tx;
 
+import java.util.concurrent.TimeUnit;
+
 import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.logging.log4j.Logger;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -13,6 +16,7 @@ import org.springframework.stereotype.Component;
 
 import pl.edu.icm.unity.base.utils.Log;
 import pl.edu.icm.unity.store.rdbms.DBSessionManager;
+import pl.edu.icm.unity.store.rdbms.tx.SQLErrorClassifier.ErrorType;
 import pl.edu.icm.unity.store.tx.TransactionEngine;
 import pl.edu.icm.unity.store.tx.TransactionalAspect;
 import pl.edu.icm.unity.store.tx.TransactionsState;
@@ -20,7 +24,15 @@ import pl.edu.icm.unity.store.tx.TxEngineUtils;
 import pl.edu.icm.unity.store.tx.TxPersistenceException;
 
 /**
- * RDBMS based transactions layer implementation
+ * RDBMS based transactions layer implementation. Read-only transactions, which are not nested in 
+ * a read-write transaction, are served by the database replica if it is configured, unless the current thread
+ * recently committed a read-write transaction: then the main database is used to read own writes. 
+ * Nested transactions join the session of the enclosing one, so modifications in a nested read-write transaction
+ * of a replica served one are rejected by {@link ReplicaModificationInterceptor}.
+ * Batch transactions use the MyBatis batch executor, statements are flushed by {@link BatchFlushInterceptor}.
+ * <p>
+ * Transactions failed with a persistence error are retried with a randomized, exponential backoff, unless 
+ * the error is classified by {@link SQLErrorClassifier} as one which would repeat.
  * @author K. Benedyczak
  */
 @Component(TransactionEngine.NAME_PFX + "rdbms")
@@ -28,20 +40,55 @@ public class SQLTransactionEngine implements TransactionEngine
 {
 	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, TransactionalAspect.class);
 	public static final long RETRY_BASE_DELAY = 50;
-	public static final long RETRY_MAX_DELAY = 200;
+	public static final long RETRY_MAX_DELAY = 800;
+	/**
+	 * A repeated unique violation is rather a conflict with an existing element than a race with 
+	 * a concurrent insert.
+	 */
+	private static final int MAX_UNIQUE_VIOLATION_RETRIES = 1;
 
 	private static final Logger testLog = Log.getLogger(Log.BUG_CATCHER, SQLTransactionEngine.class);
 
 	@Autowired
 	private DBSessionManager dbSessionMan;
+	private final TransactionsMonitor monitor = new TransactionsMonitor();
 	
 	@Override
-	public Object runInTransaction(ProceedingJoinPoint pjp, int maxRetries, boolean autoCommit) throws Throwable 
+	public Object runInTransaction(ProceedingJoinPoint pjp, int maxRetries, boolean autoCommit, boolean readOnly,
+			boolean batch) throws Throwable 
+	{
+		if (!SQLTransactionTL.getState().isEmpty())
+			return runWithRetries(pjp, maxRetries, autoCommit, readOnly, batch);
+		long start = System.nanoTime();
+		boolean failed = false;
+		try
+		{
+			return runWithRetries(pjp, maxRetries, autoCommit, readOnly, batch);
+		} catch (TxPersistenceException e)
+		{
+			failed = true;
+			throw e;
+		} finally
+		{
+			monitor.recordTransaction(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failed);
+		}
+	}
+
+	/**
+	 * @return statistics of transactions executed since the server start
+	 */
+	public TransactionStatistics getStatistics()
+	{
+		return monitor.getStatistics();
+	}
+
+	private Object runWithRetries(ProceedingJoinPoint pjp, int maxRetries, boolean autoCommit, boolean readOnly,
+			boolean batch) throws Throwable 
 	{
 		int retry = 0;
 		do
 		{
-			setupTransactionSession(pjp);
+			setupTransactionSession(pjp, readOnly, batch);
 			try
 			{
 				testLog.trace("Starting transaction in thread {}", Thread.currentThread().getName());
@@ -56,16 +103,20 @@ public class SQLTransactionEngine implements TransactionEngine
 			} catch (PersistenceException pe)
 			{
 				retry++;
-				if (retry < maxRetries)
+				ErrorType errorType = SQLErrorClassifier.classify(pe);
+				boolean retryable = errorType.retryable && retry < maxRetries 
+						&& (errorType != ErrorType.UNIQUE_VIOLATION || retry <= MAX_UNIQUE_VIOLATION_RETRIES);
+				monitor.recordError(getCallSite(pjp), errorType, retryable);
+				if (retryable)
 				{
 					if (log.isDebugEnabled())
-						log.debug("Got persistence error, will do retry #" + retry + 
+						log.debug("Got " + errorType + " persistence error, will do retry #" + retry + 
 							"; " + pjp.toShortString() + 
 							"; " + pe.getCause());
 					TxEngineUtils.sleepInterruptible(retry, RETRY_BASE_DELAY, RETRY_MAX_DELAY);
 				} else
 				{
-					log.warn("Got persistence error, give up", pe);
+					log.warn("Got " + errorType + " persistence error, give up", pe);
 					throw new TxPersistenceException(pe);
 				}
 
@@ -76,21 +127,38 @@ public class SQLTransactionEngine implements TransactionEngine
 		} while(true);
 	}
 	
-	private void setupTransactionSession(ProceedingJoinPoint pjp)
+	private String getCallSite(ProceedingJoinPoint pjp)
+	{
+		Object target = pjp.getTarget();
+		return target == null ? pjp.getSignature().toShortString() : 
+			target.getClass().getSimpleName() + "." + pjp.getSignature().getName();
+	}
+
+	private void setupTransactionSession(ProceedingJoinPoint pjp, boolean readOnly, boolean batch)
 	{
 		TransactionsState<SQLTransactionState> transactionsStack = SQLTransactionTL.getState();
 		
 		if (transactionsStack.isEmpty())
 		{
+			boolean useReplica = readOnly && shouldUseReplica();
+			boolean useBatch = batch && !useReplica;
 			if (log.isTraceEnabled())
-				log.trace("Starting sql session for " + pjp.toShortString());
-			SqlSession sqlSession = dbSessionMan.getSqlSession(true);
-			transactionsStack.push(new SQLTransactionState(sqlSession));
+				log.trace("Starting sql session for " + pjp.toShortString() + 
+						(useReplica ? " using replica" : "") + (useBatch ? " in batch mode" : ""));
+			SqlSession sqlSession = useReplica ? dbSessionMan.getReplicaSqlSession() : 
+				dbSessionMan.getSqlSession(useBatch ? ExecutorType.BATCH : ExecutorType.SIMPLE, true);
+			transactionsStack.push(new SQLTransactionState(sqlSession, readOnly, useBatch, useReplica));
 		} else
 		{
-			transactionsStack.push(new SQLTransactionState(SQLTransactionTL.getSql()));
+			transactionsStack.push(new SQLTransactionState(transactionsStack.getCurrent()));
 		}
 	}
+
+	private boolean shouldUseReplica()
+	{
+		return dbSessionMan.isReplicaConfigured() && System.currentTimeMillis() - 
+				SQLTransactionTL.getLastWriteCommit() > dbSessionMan.getReplicaReadAfterWritePeriod();
+	}
 	
 	private void commitIfNeeded(ProceedingJoinPoint pjp, boolean autoCommit)
 	{
@@ -106,6 +174,8 @@ public class SQLTransactionEngine implements TransactionEngine
 				log.trace("Commiting transaction for " + pjp.toShortString());
 			
 			ti.getSql().commit();
+			if (!ti.isReadOnly())
+				SQLTransactionTL.recordWriteCommit();
 			ti.runPostCommitActions();
 		}
 	}
@@ -119,7 +189,13 @@ public class SQLTransactionEngine implements TransactionEngine
 		{
 			if (log.isTraceEnabled())
 				log.trace("Releassing sql session for " + pjp.toShortString());
-			ti.getSql().close();
+			try
+			{
+				ti.getSql().close();
+			} finally
+			{
+				ti.runFinalizationActions();
+			}
 		}
 	}
 }
@@ -14,11 +14,34 @@ import pl.edu.icm.unity.store.tx.TransactionState;
 public class SQLTransactionState implements TransactionState
 {
 	private SqlSession sql;
+	private final boolean readOnly;
+	private final boolean replica;
+	private final BatchStatements batchStatements;
 	private List<Runnable> actions = new ArrayList<>();
+	private List<Runnable> finalizationActions = new ArrayList<>();
 	
-	public SQLTransactionState(SqlSession sql)
+	public SQLTransactionState(SqlSession sql, boolean readOnly)
+	{
+		this(sql, readOnly, false, false);
+	}
+
+	public SQLTransactionState(SqlSession sql, boolean readOnly, boolean batch, boolean replica)
 	{
 		this.sql = sql;
+		this.readOnly = readOnly;
+		this.replica = replica;
+		this.batchStatements = batch ? new BatchStatements() : null;
+	}
+
+	/**
+	 * Creates a state of a nested transaction, which joins the parent one.
+	 */
+	SQLTransactionState(SQLTransactionState parent)
+	{
+		this.sql = parent.sql;
+		this.readOnly = parent.readOnly;
+		this.replica = parent.replica;
+		this.batchStatements = parent.batchStatements;
 	}
 	
 	public SqlSession getSql()
@@ -26,10 +49,42 @@ public class SQLTransactionState implements TransactionState
 		return sql;
 	}
 
+	public boolean isReadOnly()
+	{
+		return readOnly;
+	}
+
+	@Override
+	public boolean isServedByReplica()
+	{
+		return replica;
+	}
+
+	public boolean isBatch()
+	{
+		return batchStatements != null;
+	}
+
+	/**
+	 * Records a statement added to the JDBC batch of a batch transaction.
+	 * @return number of statements added since the last flush
+	 */
+	int addBatchStatement()
+	{
+		return ++batchStatements.pending;
+	}
+
+	void batchFlushed()
+	{
+		batchStatements.pending = 0;
+	}
+
 	@Override
 	public void manualCommit()
 	{
 		sql.commit();
+		if (!readOnly)
+			SQLTransactionTL.recordWriteCommit();
 		runPostCommitActions();
 	}
 
@@ -38,4 +93,23 @@ public class SQLTransactionState implements TransactionState
 	{
 		return actions;
 	}
+
+	@Override
+	public void addFinalizationAction(Runnable action)
+	{
+		finalizationActions.add(action);
+	}
+
+	void runFinalizationActions()
+	{
+		finalizationActions.forEach(Runnable::run);
+	}
+
+	/**
+	 * Shared by all nested transactions of a batch transaction, as they use the same session.
+	 */
+	private static class BatchStatements
+	{
+		private int pending;
+	}
 }
\ No newline at end of file
@@ -16,6 +16,7 @@ public class SQLTransactionTL
 {
 	private static ThreadLocal<TransactionsState<SQLTransactionState>> transactionState = 
 			new TransactionsState.TransactionsThreadLocal<>();
+	private static ThreadLocal<Long> lastWriteCommit = ThreadLocal.withInitial(() -> 0L);
 	
 	public static SqlSession getSql()
 	{
@@ -26,4 +27,17 @@ public class SQLTransactionTL
 	{
 		return transactionState.get();
 	}
+
+	static void recordWriteCommit()
+	{
+		lastWriteCommit.set(System.currentTimeMillis());
+	}
+
+	/**
+	 * @return time of the last commit of a read-write transaction in the current thread
+	 */
+	static long getLastWriteCommit()
+	{
+		return lastWriteCommit.get();
+	}
 }
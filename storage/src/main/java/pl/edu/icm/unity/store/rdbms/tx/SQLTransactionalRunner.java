@@ -61,4 +61,25 @@ public class SQLTransactionalRunner implements TransactionalRunner
 	{
 		return code.run();
 	}
+
+	@TransactionalExt(storageEngine=StorageEngine.rdbms, readOnly = true)
+	@Override
+	public <T> T runInReadOnlyTransactionRet(TxRunnableRet<T> code)
+	{
+		return code.run();
+	}
+
+	@TransactionalExt(storageEngine=StorageEngine.rdbms, readOnly = true)
+	@Override
+	public <T> T runInReadOnlyTransactionRetThrowing(TxRunnableThrowingRet<T> code) throws EngineException
+	{
+		return code.run();
+	}
+
+	@TransactionalExt(storageEngine=StorageEngine.rdbms, batch = true)
+	@Override
+	public void runInBatchTransaction(TxRunnable code)
+	{
+		code.run();
+	}
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.tx;
+
+import java.util.Map;
+
+/**
+ * Snapshot of RDBMS transactions statistics, as collected by {@link SQLTransactionEngine}. Retries are
+ * counted per call site, i.e. the transactional method, so that contention hot spots can be found.
+ */
+public class TransactionStatistics
+{
+	/**
+	 * Upper bounds (exclusive) in milliseconds of the transaction latency histogram buckets.
+	 * The last bucket holds all longer transactions.
+	 */
+	public static final long[] LATENCY_BUCKETS_MS = {10, 100, 1000, 10000};
+
+	/**
+	 * Number of finished top level transactions, including the failed ones
+	 */
+	public final long transactions;
+	/**
+	 * Number of transactions which failed with a persistence error, after all allowed retries
+	 */
+	public final long failedTransactions;
+	/**
+	 * Latencies of top level transactions, including the time of retries
+	 */
+	public final long[] latencyHistogram;
+	public final Map<String, Long> retriesByCallSite;
+	/**
+	 * Numbers of persistence errors, by their classification
+	 */
+	public final Map<String, Long> errorsByType;
+
+	TransactionStatistics(long transactions, long failedTransactions, long[] latencyHistogram,
+			Map<String, Long> retriesByCallSite, Map<String, Long> errorsByType)
+	{
+		this.transactions = transactions;
+		this.failedTransactions = failedTransactions;
+		this.latencyHistogram = latencyHistogram;
+		this.retriesByCallSite = retriesByCallSite;
+		this.errorsByType = errorsByType;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder histogram = new StringBuilder();
+		for (int i = 0; i < latencyHistogram.length; i++)
+		{
+			if (i > 0)
+				histogram.append(", ");
+			histogram.append(i < LATENCY_BUCKETS_MS.length ?
+					"<" + LATENCY_BUCKETS_MS[i] :
+					">=" + LATENCY_BUCKETS_MS[LATENCY_BUCKETS_MS.length - 1]);
+			histogram.append("ms: ").append(latencyHistogram[i]);
+		}
+		return "TransactionStatistics [transactions=" + transactions + ", failedTransactions="
+				+ failedTransactions + ", latencyHistogram={" + histogram + "}, retriesByCallSite="
+				+ retriesByCallSite + ", errorsByType=" + errorsByType + "]";
+	}
+}
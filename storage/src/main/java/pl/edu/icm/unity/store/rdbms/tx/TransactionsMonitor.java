@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.tx;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.Logger;
+
+import pl.edu.icm.unity.base.utils.Log;
+import pl.edu.icm.unity.store.rdbms.tx.SQLErrorClassifier.ErrorType;
+
+/**
+ * Collects {@link TransactionStatistics}. Statistics are logged on debug level, not more often than
+ * every minute.
+ */
+class TransactionsMonitor
+{
+	private static final Logger log = Log.getLogger(Log.U_SERVER_DB, TransactionsMonitor.class);
+	static final long STATISTICS_LOG_INTERVAL_MS = 60000;
+	private final AtomicLong transactions = new AtomicLong();
+	private final AtomicLong failedTransactions = new AtomicLong();
+	private final AtomicLongArray latencyHistogram =
+			new AtomicLongArray(TransactionStatistics.LATENCY_BUCKETS_MS.length + 1);
+	private final Map<String, LongAdder> retriesByCallSite = new ConcurrentHashMap<>();
+	private final AtomicLongArray errorsByType = new AtomicLongArray(ErrorType.values().length);
+	private final AtomicLong lastStatisticsLog = new AtomicLong(System.currentTimeMillis());
+
+	void recordTransaction(long timeMs, boolean failed)
+	{
+		transactions.incrementAndGet();
+		if (failed)
+			failedTransactions.incrementAndGet();
+		long[] buckets = TransactionStatistics.LATENCY_BUCKETS_MS;
+		int bucket = 0;
+		while (bucket < buckets.length && timeMs >= buckets[bucket])
+			bucket++;
+		latencyHistogram.incrementAndGet(bucket);
+		logIfNeeded();
+	}
+
+	void recordError(String callSite, ErrorType type, boolean retried)
+	{
+		errorsByType.incrementAndGet(type.ordinal());
+		if (retried)
+			retriesByCallSite.computeIfAbsent(callSite, key -> new LongAdder()).increment();
+	}
+
+	TransactionStatistics getStatistics()
+	{
+		long[] histogram = new long[latencyHistogram.length()];
+		for (int i = 0; i < histogram.length; i++)
+			histogram[i] = latencyHistogram.get(i);
+		Map<String, Long> retries = new TreeMap<>();
+		retriesByCallSite.forEach((callSite, count) -> retries.put(callSite, count.sum()));
+		Map<String, Long> errors = new TreeMap<>();
+		for (ErrorType type: ErrorType.values())
+			if (errorsByType.get(type.ordinal()) > 0)
+				errors.put(type.name(), errorsByType.get(type.ordinal()));
+		return new TransactionStatistics(transactions.get(), failedTransactions.get(), histogram,
+				retries, errors);
+	}
+
+	private void logIfNeeded()
+	{
+		if (!log.isDebugEnabled())
+			return;
+		long now = System.currentTimeMillis();
+		long lastLog = lastStatisticsLog.get();
+		if (now - lastLog >= STATISTICS_LOG_INTERVAL_MS && lastStatisticsLog.compareAndSet(lastLog, now))
+			log.debug("{}", getStatistics());
+	}
+}
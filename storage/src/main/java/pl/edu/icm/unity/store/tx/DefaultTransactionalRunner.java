@@ -62,4 +62,25 @@ public class DefaultTransactionalRunner implements TransactionalRunner
 	{
 		return code.run();
 	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public <T> T runInReadOnlyTransactionRet(TxRunnableRet<T> code)
+	{
+		return code.run();
+	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public <T> T runInReadOnlyTransactionRetThrowing(TxRunnableThrowingRet<T> code) throws EngineException
+	{
+		return code.run();
+	}
+
+	@Transactional(batch = true)
+	@Override
+	public void runInBatchTransaction(TxRunnable code)
+	{
+		code.run();
+	}
 }
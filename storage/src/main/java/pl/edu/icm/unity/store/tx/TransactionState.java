@@ -42,5 +42,17 @@ public interface TransactionState
 		getPostCommitActions().forEach(Runnable::run);
 	}
 
+	/**
+	 * @return true if the transaction reads from the database replica, which can lag behind the main database
+	 */
+	boolean isServedByReplica();
+
+	/**
+	 * Add new action that should be executed when the transaction is finished, either committed 
+	 * or rolled back.
+	 * @param action
+	 * 		Action that will be executed
+	 */
+	void addFinalizationAction(Runnable action);
 
 }
@@ -33,6 +33,24 @@ public class TransactionTL
 		get().getRootTransaction().addPostCommitAction(action);
 	}
 
+	/**
+	 * @return the first transaction of the current context or null if there is no transaction.
+	 */
+	public static TransactionState getRootTransactionIfPresent()
+	{
+		TransactionsState<? extends TransactionState> state = get();
+		return state.isEmpty() ? null : state.getRootTransaction();
+	}
+
+	/**
+	 * @return true if there is a transaction in the current context and it is served by the database replica
+	 */
+	static boolean isServedByReplica()
+	{
+		TransactionState root = getRootTransactionIfPresent();
+		return root != null && root.isServedByReplica();
+	}
+
 	private static TransactionsState<? extends TransactionState> get()
 	{
 		return SQLTransactionTL.getState();
@@ -49,7 +49,7 @@ public class TransactionalAspect
 	private Object retryIfNeeded4Class(ProceedingJoinPoint pjp, TransactionalExt transactional) throws Throwable 
 	{
 		return getEngine(transactional.storageEngine()).runInTransaction(pjp, transactional.maxRetries(), 
-				transactional.autoCommit());
+				transactional.autoCommit(), transactional.readOnly(), transactional.batch());
 	};
 	
 	@Around("(execution(public * pl.edu.icm.unity..*.*(..)) || execution(public * io.imunity..*.*(..))) && "
@@ -57,7 +57,7 @@ public class TransactionalAspect
 	public Object retryIfNeeded4Method(ProceedingJoinPoint pjp, TransactionalExt transactional) throws Throwable 
 	{
 		return getEngine(transactional.storageEngine()).runInTransaction(pjp, transactional.maxRetries(), 
-				transactional.autoCommit());
+				transactional.autoCommit(), transactional.readOnly(), transactional.batch());
 	}
 	
 	@Around("(execution(public * pl.edu.icm.unity..*.*(..)) || execution(public * io.imunity..*.*(..))) && "
@@ -65,7 +65,7 @@ public class TransactionalAspect
 	private Object retryIfNeeded4Class(ProceedingJoinPoint pjp, Transactional transactional) throws Throwable 
 	{
 		return defaultEngine.runInTransaction(pjp, transactional.maxRetries(), 
-				transactional.autoCommit());
+				transactional.autoCommit(), transactional.readOnly(), transactional.batch());
 	};
 	
 	@Around("(execution(public * pl.edu.icm.unity..*.*(..)) || execution(public * io.imunity..*.*(..))) && "
@@ -73,7 +73,7 @@ public class TransactionalAspect
 	public Object retryIfNeeded4Method(ProceedingJoinPoint pjp, Transactional transactional) throws Throwable 
 	{
 		return defaultEngine.runInTransaction(pjp, transactional.maxRetries(), 
-				transactional.autoCommit());
+				transactional.autoCommit(), transactional.readOnly(), transactional.batch());
 	}
 	
 	
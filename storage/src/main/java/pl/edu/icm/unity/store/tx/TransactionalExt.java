@@ -28,5 +28,9 @@ public @interface TransactionalExt
 	
 	boolean autoCommit() default true;
 
+	boolean readOnly() default false;
+
+	boolean batch() default false;
+
 	StorageEngine storageEngine();
 }
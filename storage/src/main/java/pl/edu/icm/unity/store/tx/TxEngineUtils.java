@@ -4,17 +4,22 @@
  */
 package pl.edu.icm.unity.store.tx;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Helpers for transaction engine implementations.
  * @author K. Benedyczak
  */
 public class TxEngineUtils
 {
+	/**
+	 * Sleeps before a retry. The delay grows exponentially with the retry number, up to the maximum delay, 
+	 * and is randomized between half and the full value, so that conflicting transactions don't retry
+	 * at the same moment again.
+	 */
 	public static void sleepInterruptible(int retryNum, long retryBaseDelay, long retryMaxDelay)
 	{
-		long ms = retryNum * retryBaseDelay;
-		if (ms > retryMaxDelay)
-			ms = retryMaxDelay;
+		long ms = getRetryDelay(retryNum, retryBaseDelay, retryMaxDelay);
 		try
 		{
 			Thread.sleep(ms);
@@ -23,4 +28,12 @@ public class TxEngineUtils
 			//ok
 		}
 	}
+
+	static long getRetryDelay(int retryNum, long retryBaseDelay, long retryMaxDelay)
+	{
+		long max = retryBaseDelay << Math.min(Math.max(retryNum - 1, 0), 20);
+		if (max > retryMaxDelay)
+			max = retryMaxDelay;
+		return max / 2 + ThreadLocalRandom.current().nextLong(max / 2 + 1);
+	}
 }
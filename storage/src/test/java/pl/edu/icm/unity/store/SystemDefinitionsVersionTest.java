@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import pl.edu.icm.unity.base.attribute.AttributesClass;
+import pl.edu.icm.unity.base.entity.EntityInformation;
+import pl.edu.icm.unity.base.group.Group;
+import pl.edu.icm.unity.store.api.EntityDAO;
+import pl.edu.icm.unity.store.api.GroupDAO;
+import pl.edu.icm.unity.store.api.SystemDefinitionsVersion;
+import pl.edu.icm.unity.store.api.generic.AttributeClassDB;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations={"classpath*:META-INF/components.xml"})
+public class SystemDefinitionsVersionTest
+{
+	@Autowired
+	private StorageCleanerImpl dbCleaner;
+
+	@Autowired
+	private TransactionalRunner tx;
+
+	@Autowired
+	private SystemDefinitionsVersion definitionsVersion;
+
+	@Autowired
+	private GroupDAO groupDAO;
+
+	@Autowired
+	private AttributeClassDB acDB;
+
+	@Autowired
+	private EntityDAO entityDAO;
+
+	@BeforeEach
+	public void cleanDB()
+	{
+		dbCleaner.cleanOrDelete();
+	}
+
+	@AfterEach
+	public void shutdown()
+	{
+		dbCleaner.shutdown();
+	}
+
+	@Test
+	public void shouldChangeVersionAfterCommitOfModification()
+	{
+		long initial = definitionsVersion.getVersion();
+		long initialChange = tx.runInTransactionRet(() -> definitionsVersion.getLastChangeId());
+
+		tx.runInTransaction(() -> {
+			groupDAO.create(new Group("/A"));
+			acDB.create(new AttributesClass("ac", "", Set.of(), Set.of(), false, Set.of()));
+
+			assertThat(definitionsVersion.isModifiedInCurrentTransaction()).isTrue();
+			assertThat(definitionsVersion.getVersion()).isEqualTo(initial);
+		});
+
+		assertThat(definitionsVersion.getVersion()).isEqualTo(initial + 1);
+		tx.runInTransaction(() ->
+			assertThat(definitionsVersion.isModifiedInCurrentTransaction()).isFalse());
+		tx.runInTransaction(() ->
+			assertThat(definitionsVersion.getLastChangeId()).isGreaterThan(initialChange));
+	}
+
+	@Test
+	public void shouldNotChangeVersionAfterRollback()
+	{
+		long initial = definitionsVersion.getVersion();
+		long initialChange = tx.runInTransactionRet(() -> definitionsVersion.getLastChangeId());
+
+		catchThrowable(() -> tx.runInTransaction(() -> {
+			groupDAO.create(new Group("/A"));
+			throw new IllegalStateException();
+		}));
+
+		assertThat(definitionsVersion.getVersion()).isEqualTo(initial);
+		tx.runInTransaction(() ->
+			assertThat(definitionsVersion.isModifiedInCurrentTransaction()).isFalse());
+		tx.runInTransaction(() ->
+			assertThat(definitionsVersion.getLastChangeId()).isEqualTo(initialChange));
+	}
+
+	@Test
+	public void shouldNotChangeVersionAfterModificationOfOtherData()
+	{
+		long initial = definitionsVersion.getVersion();
+
+		tx.runInTransaction(() -> {
+			entityDAO.create(new EntityInformation());
+
+			assertThat(definitionsVersion.isModifiedInCurrentTransaction()).isFalse();
+		});
+
+		assertThat(definitionsVersion.getVersion()).isEqualTo(initial);
+	}
+}
@@ -13,6 +13,7 @@ import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -128,6 +129,20 @@ public abstract class AbstractBasicDAOTest<T>
 		});
 	}
 
+	@Test
+	public void shouldStreamAllCreated()
+	{
+		tx.runInTransaction(() -> {
+			BasicCRUDDAO<T> dao = getDAO();
+			dao.create(getObject("name1"));
+			dao.create(getObject("name2"));
+
+			List<T> streamed = dao.streamAll().collect(Collectors.toList());
+
+			assertThat(streamed).containsExactlyInAnyOrderElementsOf(dao.getAll());
+		});
+	}
+
 	@Test
 	public void shouldReturnTwoCreatedWithinCollectionsWithCommit()
 	{
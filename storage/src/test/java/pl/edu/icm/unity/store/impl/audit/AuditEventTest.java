@@ -178,6 +178,32 @@ public class AuditEventTest extends AbstractBasicDAOTest<AuditEvent>
 		});
 	}
 
+	@Test
+	public void shouldStoreListOfEventsWithTags()
+	{
+		// given
+		AuditEvent event1 = getObject("");
+		AuditEvent event2 = mutateObject(event1);
+		AuditEvent event3 = AuditEvent.builder()
+				.name("name3")
+				.type(AuditEventType.GROUP)
+				.timestamp(new Date())
+				.action(AuditEventAction.REMOVE)
+				.initiator(event1.getInitiator())
+				.build();
+
+		tx.runInTransaction(() -> {
+			// when
+			dao.createList(List.of(event1, event2, event3));
+			TransactionTL.manualCommit();
+
+			// than
+			List<AuditEvent> events = dao.getAll();
+			assertThat(events).containsExactlyInAnyOrder(event1, event2, event3);
+			assertThat(dao.getAllTags()).containsExactlyInAnyOrder("TAG1", "TAG2", "TAG3");
+		});
+	}
+
 	@Test
 	public void shouldInsertAuditEntitiesWithNulls()
 	{
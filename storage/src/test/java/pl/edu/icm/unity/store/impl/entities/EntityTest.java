@@ -134,6 +134,28 @@ public class EntityTest extends AbstractBasicDAOTest<EntityInformation>
 			assertThat(ret).contains(dao.getByKey(id1), dao.getByKey(id2));
 		});
 	}
+
+	@Test
+	public void shouldReturnMembersOfAnyOfGroupsOnce()
+	{
+		tx.runInTransaction(() -> {
+			long id1 = dao.create(getObject("1"));
+			long id2 = dao.create(getObject("2"));
+			dao.create(getObject("3"));
+
+			groupDAO.create(new Group("/C"));
+			groupDAO.create(new Group("/A"));
+			groupDAO.create(new Group("/B"));
+			membershipDao.create(new GroupMembership("/C", id1, new Date(1)));
+			membershipDao.create(new GroupMembership("/A", id1, new Date(1)));
+			membershipDao.create(new GroupMembership("/A", id2, new Date(1)));
+
+			List<EntityInformation> ret = dao.getByGroups(List.of("/A", "/C"));
+
+			assertThat(ret).containsExactlyInAnyOrder(dao.getByKey(id1), dao.getByKey(id2));
+			assertThat(dao.getByGroups(List.of())).isEmpty();
+		});
+	}
 	
 	@Test
 	public void insertedListIsReturned()
@@ -150,4 +172,46 @@ public class EntityTest extends AbstractBasicDAOTest<EntityInformation>
 			assertThat(ret.size()).isEqualTo(2);
 		});
 	}
+
+	@Test
+	public void shouldReturnEntitiesWithOperationDueEarliestFirst()
+	{
+		tx.runInTransaction(() -> {
+			long removedByUser = dao.create(getScheduled(null, new Date(1500)));
+			long scheduled = dao.create(getScheduled(new Date(1000), new Date(4000)));
+			long notDue = dao.create(getScheduled(new Date(3000), null));
+			dao.create(new EntityInformation());
+
+			List<EntityInformation> ret = dao.getWithOperationDue(new Date(2000), 10);
+
+			assertThat(ret).containsExactly(dao.getByKey(scheduled), dao.getByKey(removedByUser));
+			assertThat(dao.getWithOperationDue(new Date(2000), 1)).containsExactly(dao.getByKey(scheduled));
+			assertThat(dao.getWithOperationDue(new Date(3000), 10)).contains(dao.getByKey(notDue));
+		});
+	}
+
+	@Test
+	public void shouldReturnNextOperationTimeOfUpdatedEntities()
+	{
+		tx.runInTransaction(() -> {
+			assertThat(dao.getNextOperationTime()).isEmpty();
+			long id = dao.create(getScheduled(new Date(3000), null));
+			dao.create(getScheduled(null, new Date(5000)));
+			assertThat(dao.getNextOperationTime()).contains(new Date(3000));
+
+			dao.updateByKey(id, getScheduled(null, null));
+
+			assertThat(dao.getNextOperationTime()).contains(new Date(5000));
+			assertThat(dao.getWithOperationDue(new Date(4000), 10)).isEmpty();
+		});
+	}
+
+	private EntityInformation getScheduled(Date operationTime, Date removalByUserTime)
+	{
+		EntityInformation ei = new EntityInformation();
+		ei.setScheduledOperation(operationTime == null ? null : EntityScheduledOperation.DISABLE);
+		ei.setScheduledOperationTime(operationTime);
+		ei.setRemovalByUserTime(removalByUserTime);
+		return ei;
+	}
 }
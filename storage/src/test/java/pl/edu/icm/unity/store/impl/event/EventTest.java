@@ -8,6 +8,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -75,6 +76,61 @@ public class EventTest extends AbstractBasicDAOTest<EventExecution>
 		});
 	}
 
+	@Test
+	public void eligibleEventsBatchIsLimitedAndSkipsExcludedListeners()
+	{
+		tx.runInTransaction(() -> {
+			PersistableEvent event = new PersistableEvent("category", 123l, new Date(1000), "contents");
+			EventExecution ev1 = new EventExecution(event, new Date(3000), "listener1", 0);
+			EventExecution ev2 = new EventExecution(event, new Date(2000), "listener1", 0);
+			EventExecution ev3 = new EventExecution(event, new Date(1000), "listener2", 0);
+			dao.create(ev1);
+			dao.create(ev2);
+			dao.create(ev3);
+			
+			List<EventExecution> eligible = dao.getEligibleForProcessing(new Date(5000), Set.of("listener2"), 1);
+			
+			assertThat(eligible).containsExactly(ev2);
+		});
+	}
+
+	@Test
+	public void eventCanBeClaimedOnlyOnce()
+	{
+		tx.runInTransaction(() -> {
+			EventExecution ev = getObject("");
+			long key = dao.create(ev);
+			Date date = new Date(ev.getNextProcessing().getTime() + 1);
+			
+			boolean first = dao.claimForProcessing(key, date, new Date(date.getTime() + 1000));
+			boolean second = dao.claimForProcessing(key, date, new Date(date.getTime() + 1000));
+			
+			assertThat(first).isTrue();
+			assertThat(second).isFalse();
+			assertThat(dao.getByKey(key).getNextProcessing()).isEqualTo(new Date(date.getTime() + 1000));
+		});
+	}
+	
+	@Test
+	public void shouldExtendClaimOfNotExpiredEventsOnly()
+	{
+		tx.runInTransaction(() -> {
+			EventExecution ev = getObject("");
+			long key = dao.create(ev);
+			Date date = new Date(ev.getNextProcessing().getTime() + 1);
+			dao.claimForProcessing(key, date, new Date(date.getTime() + 1000));
+			
+			boolean extended = dao.extendClaim(List.of(key), new Date(date.getTime() + 500), 
+					new Date(date.getTime() + 2000));
+			boolean expiredExtended = dao.extendClaim(List.of(key), new Date(date.getTime() + 3000), 
+					new Date(date.getTime() + 4000));
+			
+			assertThat(extended).isTrue();
+			assertThat(expiredExtended).isFalse();
+			assertThat(dao.getByKey(key).getNextProcessing()).isEqualTo(new Date(date.getTime() + 2000));
+		});
+	}
+	
 	@Test
 	public void eventWithUpdatedExecutionIsReturned()
 	{
@@ -156,6 +156,54 @@ public class IdentityTest extends AbstractNamedDAOTest<StoredIdentity>
 		});
 	}
 	
+	@Test
+	public void shouldReturnExpiredIdentitiesOfType()
+	{
+		tx.runInTransaction(() -> {
+			itDao.create(new IdentityType("email"));
+			StoredIdentity absoluteExpired = getExpiring("name1", 1000, 500, 1000);
+			StoredIdentity inactive = getExpiring("name2", 5000, 500, 100);
+			dao.create(absoluteExpired);
+			dao.create(inactive);
+			dao.create(getExpiring("name3", 5000, 500, 3000));
+			dao.create(getObject("name4"));
+			dao.create(new StoredIdentity(new Identity("email", "name5", entity, "name5")));
+			
+			List<StoredIdentity> expired = dao.getExpiredOfType("username", new Date(2000), 10);
+
+			assertThat(expired).containsExactlyInAnyOrder(absoluteExpired, inactive);
+			assertThat(dao.getExpiredOfType("username", new Date(2000), 1)).hasSize(1);
+			assertThat(dao.getExpiredOfType("email", new Date(2000), 10)).isEmpty();
+		});
+	}
+
+	@Test
+	public void shouldReturnExpiredIdentityAfterUpdate()
+	{
+		tx.runInTransaction(() -> {
+			StoredIdentity identity = getExpiring("name1", 5000, 500, 3000);
+			dao.create(identity);
+			assertThat(dao.getExpiredOfType("username", new Date(2000), 10)).isEmpty();
+			
+			StoredIdentity updated = getExpiring("name1", 5000, 500, 1000);
+			dao.update(updated);
+
+			assertThat(dao.getExpiredOfType("username", new Date(2000), 10)).containsExactly(updated);
+		});
+	}
+
+	private StoredIdentity getExpiring(String name, long absoluteTTL, long relativeTTL, long lastUsage)
+	{
+		StoredIdentity ret = getObject(name);
+		ObjectNode meta = Constants.MAPPER.createObjectNode();
+		meta.put("absoluteTTL", absoluteTTL);
+		meta.put("relativeTTL", relativeTTL);
+		meta.put("lastUsage", lastUsage);
+		meta.put("idValue", name);
+		ret.getIdentity().setMetadata(meta);
+		return ret;
+	}
+	
 	@Override
 	@Test
 	public void shouldFailOnCreatingWithTooLongName()
@@ -119,8 +119,25 @@ public class MembershipTest
 			assertThat(entityMembership.get(0).getGroup()).isEqualTo("/A");
 			assertThat(entityMembership.get(0).getEntityId()).isEqualTo(entity);
 		});
-	}	
-	
+	}
+
+	@Test
+	public void shouldReturnAllMembershipsOfMembersOfGroups()
+	{
+		tx.runInTransaction(() -> {
+			long entity3 = entDao.create(new EntityInformation());
+			dao.create(new GroupMembership("/A", entity, null));
+			dao.create(new GroupMembership("/B", entity, null));
+			dao.create(new GroupMembership("/B", entity2, null));
+			dao.create(new GroupMembership("/A", entity3, null));
+
+			List<GroupMembership> memberships = dao.getMembershipsOfMembersOfGroups(List.of("/B"));
+
+			assertThat(memberships).extracting(m -> m.getEntityId() + m.getGroup())
+				.containsExactlyInAnyOrder(entity + "/A", entity + "/B", entity2 + "/B");
+		});
+	}
+
 	@Test
 	public void shouldReturnMemberStatusForAddedMembership()
 	{
@@ -6,6 +6,7 @@ package pl.edu.icm.unity.store.impl.objstore;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
 
 
 import java.util.Date;
@@ -15,12 +16,16 @@ import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import pl.edu.icm.unity.store.api.ObjectChangesDAO;
 import pl.edu.icm.unity.store.impl.AbstractBasicDAOTest;
+import pl.edu.icm.unity.store.types.ObjectChange;
 
 public class ObjectStoreTest extends AbstractBasicDAOTest<GenericObjectBean>
 {
 	@Autowired
 	private ObjectStoreDAO dao;
+	@Autowired
+	private ObjectChangesDAO changesDAO;
 	
 	@Override
 	protected ObjectStoreDAO getDAO()
@@ -181,6 +186,42 @@ public class ObjectStoreTest extends AbstractBasicDAOTest<GenericObjectBean>
 		});	
 	}
 	
+	@Test
+	public void modificationsAreRecordedInChangesLog()
+	{
+		tx.runInTransaction(() -> {
+			long lastChange = changesDAO.getLastChangeId();
+			GenericObjectBean obj = getObject("name1");
+			dao.create(obj);
+			dao.updateObject("name1", "type", mutateObject(obj));
+			GenericObjectBean obj2 = getObject("name2");
+			obj2.setType("type2");
+			dao.create(obj2);
+			dao.removeObject("name2", "type2");
+
+			List<ObjectChange> changes = changesDAO.getChangesAfter(lastChange);
+
+			assertThat(changes).extracting(ObjectChange::getType, ObjectChange::getName).containsExactly(
+					tuple("type", "name1"), tuple("type", "name1"), 
+					tuple("type2", "name2"), tuple("type2", "name2"));
+			assertThat(changes).extracting(ObjectChange::getId).isSorted();
+			assertThat(changesDAO.getLastChangeId()).isEqualTo(changes.get(3).getId());
+			assertThat(changesDAO.getChangesAfter(changes.get(1).getId())).hasSize(2);
+		});
+	}
+
+	@Test
+	public void oldChangesAreRemoved()
+	{
+		tx.runInTransaction(() -> {
+			dao.create(getObject("name1"));
+			
+			changesDAO.deleteOlderThan(new Date(System.currentTimeMillis() + 1000));
+
+			assertThat(changesDAO.getChangesAfter(0)).isEmpty();
+		});
+	}
+
 	@Test
 	@Override
 	public void importExportIsIdempotent()
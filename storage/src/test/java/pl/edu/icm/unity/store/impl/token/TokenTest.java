@@ -10,6 +10,7 @@ import static org.assertj.core.api.Assertions.catchThrowable;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -189,6 +190,71 @@ public class TokenTest extends AbstractBasicDAOTest<Token>
 		});
 	}	
 
+	@Test
+	public void onlyInactiveTokensOfGivenTypeAreReturned()
+	{
+		tx.runInTransaction(() -> {
+			Token inactive = getObject("type1", "name", entityId);
+			inactive.setActivityDeadline(new Date(500));
+			dao.create(inactive);
+			Token active = getObject("type1", "name2", entityId);
+			active.setActivityDeadline(new Date(1500));
+			dao.create(active);
+			Token otherType = getObject("type2", "name3", entityId);
+			otherType.setActivityDeadline(new Date(500));
+			dao.create(otherType);
+			dao.create(getObject("type1", "name4", entityId));
+
+			List<Token> inactiveTokens = dao.getInactive("type1", new Date(1000));
+
+			assertThat(inactiveTokens).containsExactly(inactive);
+		});
+	}	
+
+	@Test
+	public void onlyTokensOfGivenOwnerAndClientAreReturned()
+	{
+		tx.runInTransaction(() -> {
+			Token matching = getObject("type1", "name", entityId);
+			matching.setClientId(entityId2);
+			dao.create(matching);
+			Token otherClient = getObject("type1", "name2", entityId);
+			otherClient.setClientId(entityId);
+			dao.create(otherClient);
+			Token otherOwner = getObject("type1", "name3", entityId2);
+			otherOwner.setClientId(entityId2);
+			dao.create(otherOwner);
+			Token otherType = getObject("type2", "name4", entityId);
+			otherType.setClientId(entityId2);
+			dao.create(otherType);
+			dao.create(getObject("type1", "name5", entityId));
+
+			List<Token> clientTokens = dao.getOwnedByClient("type1", entityId, entityId2);
+
+			assertThat(clientTokens).containsExactly(matching);
+		});
+	}
+
+	@Test
+	public void activityDeadlinesAreUpdatedInBatch()
+	{
+		tx.runInTransaction(() -> {
+			dao.create(getObject("type1", "name", entityId));
+			dao.create(getObject("type1", "name2", entityId));
+			Token otherType = getObject("type2", "name", entityId);
+			dao.create(otherType);
+
+			dao.updateActivityDeadlines("type1", Map.of(
+					"name", new Date(1500), 
+					"name2", new Date(2500),
+					"missing", new Date(2500)));
+
+			assertThat(dao.get("type1", "name").getActivityDeadline()).isEqualTo(new Date(1500));
+			assertThat(dao.get("type1", "name2").getActivityDeadline()).isEqualTo(new Date(2500));
+			assertThat(dao.get("type2", "name").getActivityDeadline()).isNull();
+		});
+	}	
+
 	@Override
 	@Test
 	public void importExportIsIdempotent()
@@ -222,6 +288,7 @@ public class TokenTest extends AbstractBasicDAOTest<Token>
 	{
 		src.setContents(new byte[] {'b', 'b'});
 		src.setExpires(new Date(2000));
+		src.setActivityDeadline(new Date(1500));
 		return src;
 	}
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.impl.tokens;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.base.token.Token;
+
+public class TokenCacheTest
+{
+	private final MutableClock clock = new MutableClock();
+	private final TokenCache cache = new TokenCache(1000, 10, clock);
+
+	@Test
+	public void shouldReturnCachedToken()
+	{
+		cache.put(token("t1", null), cache.getGeneration());
+
+		assertThat(cache.get("type", "t1")).isPresent();
+		assertThat(cache.getHits()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldNotReturnTokenAfterTTL()
+	{
+		cache.put(token("t1", null), cache.getGeneration());
+
+		clock.advance(1000);
+
+		assertThat(cache.get("type", "t1")).isEmpty();
+	}
+
+	@Test
+	public void shouldNotReturnTokenAfterItsExpiration()
+	{
+		cache.put(token("t1", new Date(clock.millis() + 100)), cache.getGeneration());
+
+		clock.advance(100);
+
+		assertThat(cache.get("type", "t1")).isEmpty();
+	}
+
+	@Test
+	public void shouldPurgeOutdatedEntriesOnPut()
+	{
+		cache.put(token("t1", null), cache.getGeneration());
+		clock.advance(1000);
+
+		cache.put(token("t2", null), cache.getGeneration());
+
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldNotCacheValueReadBeforeInvalidation()
+	{
+		long generation = cache.getGeneration();
+		cache.invalidate("type", "t1");
+
+		cache.put(token("t1", null), generation);
+
+		assertThat(cache.get("type", "t1")).isEmpty();
+	}
+
+	@Test
+	public void shouldRemoveInvalidatedEntriesFromExpiryQueue()
+	{
+		for (int i = 0; i < 100; i++)
+		{
+			cache.put(token("t1", null), cache.getGeneration());
+			cache.invalidate("type", "t1");
+			cache.put(token("t2", null), cache.getGeneration());
+			cache.invalidateOwned(1L);
+		}
+
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.getExpiryQueueSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldInvalidateOwnedTokens()
+	{
+		cache.put(token("t1", null), cache.getGeneration());
+
+		cache.invalidateOwned(1L);
+
+		assertThat(cache.get("type", "t1")).isEmpty();
+	}
+
+	@Test
+	public void shouldNotExceedMaxEntries()
+	{
+		for (int i = 0; i < 20; i++)
+			cache.put(token("t" + i, null), cache.getGeneration());
+
+		assertThat(cache.size()).isEqualTo(10);
+	}
+
+	@Test
+	public void shouldReturnCopyOfCachedToken()
+	{
+		cache.put(token("t1", null), cache.getGeneration());
+
+		cache.get("type", "t1").get().setContents(new byte[] {9});
+
+		assertThat(cache.get("type", "t1").get().getContents()).isEqualTo(new byte[] {1});
+	}
+
+	private Token token(String value, Date expires)
+	{
+		Token token = new Token("type", value, 1L);
+		token.setContents(new byte[] {1});
+		token.setCreated(new Date(clock.millis()));
+		token.setExpires(expires);
+		return token;
+	}
+
+	private static class MutableClock extends Clock
+	{
+		private long millis = 1000000;
+
+		void advance(long delta)
+		{
+			millis += delta;
+		}
+
+		@Override
+		public ZoneId getZone()
+		{
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone)
+		{
+			return this;
+		}
+
+		@Override
+		public Instant instant()
+		{
+			return Instant.ofEpochMilli(millis);
+		}
+	}
+}
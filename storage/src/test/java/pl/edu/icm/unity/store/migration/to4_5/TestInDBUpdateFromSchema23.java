@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.migration.to4_5;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.base.Constants;
+import pl.edu.icm.unity.base.entity.EntityInformation;
+import pl.edu.icm.unity.base.entity.EntityScheduledOperation;
+import pl.edu.icm.unity.base.identity.Identity;
+import pl.edu.icm.unity.base.token.Token;
+import pl.edu.icm.unity.store.impl.entities.EntityRDBMSStore;
+import pl.edu.icm.unity.store.impl.identities.IdentityRDBMSStore;
+import pl.edu.icm.unity.store.impl.tokens.TokenRDBMSStore;
+import pl.edu.icm.unity.store.types.StoredIdentity;
+
+public class TestInDBUpdateFromSchema23
+{
+	@Test
+	public void shouldSetActivityDeadlineOfSession()
+	{
+		TokenRDBMSStore tokensDAO = mock(TokenRDBMSStore.class);
+		Token session = new Token("session", "123", 1l);
+		session.setContents("{\"lastUsed\":1000,\"maxInactivity\":500}".getBytes(StandardCharsets.UTF_8));
+		when(tokensDAO.getByType("session")).thenReturn(List.of(session));
+		InDBUpdateFromSchema23 update = new InDBUpdateFromSchema23(tokensDAO, mock(EntityRDBMSStore.class), 
+				mock(IdentityRDBMSStore.class));
+
+		update.updateSessionTokens();
+
+		Token expectedToken = new Token("session", "123", 1l);
+		expectedToken.setContents(session.getContents());
+		expectedToken.setActivityDeadline(new Date(1500));
+		verify(tokensDAO).update(expectedToken);
+	}
+
+	@Test
+	public void shouldSkipSessionWithoutActivityInformation()
+	{
+		TokenRDBMSStore tokensDAO = mock(TokenRDBMSStore.class);
+		Token session = new Token("session", "123", 1l);
+		session.setContents("{}".getBytes(StandardCharsets.UTF_8));
+		when(tokensDAO.getByType("session")).thenReturn(List.of(session));
+		InDBUpdateFromSchema23 update = new InDBUpdateFromSchema23(tokensDAO, mock(EntityRDBMSStore.class), 
+				mock(IdentityRDBMSStore.class));
+
+		update.updateSessionTokens();
+
+		verify(tokensDAO, never()).update(any());
+	}
+
+	@Test
+	public void shouldSetClientIdOfOAuthToken()
+	{
+		TokenRDBMSStore tokensDAO = mock(TokenRDBMSStore.class);
+		Token accessToken = new Token("oauth2Access", "123", 1l);
+		accessToken.setContents("{\"clientId\":55,\"accessToken\":\"123\"}".getBytes(StandardCharsets.UTF_8));
+		when(tokensDAO.getByType(any())).thenReturn(List.of());
+		when(tokensDAO.getByType("oauth2Access")).thenReturn(List.of(accessToken));
+		InDBUpdateFromSchema23 update = new InDBUpdateFromSchema23(tokensDAO, mock(EntityRDBMSStore.class), 
+				mock(IdentityRDBMSStore.class));
+
+		update.updateOAuthTokens();
+
+		Token expectedToken = new Token("oauth2Access", "123", 1l);
+		expectedToken.setContents(accessToken.getContents());
+		expectedToken.setClientId(55l);
+		verify(tokensDAO).update(expectedToken);
+	}
+
+	@Test
+	public void shouldRewriteOnlyEntitiesWithScheduledOperation()
+	{
+		EntityRDBMSStore entityDAO = mock(EntityRDBMSStore.class);
+		EntityInformation scheduled = new EntityInformation(1);
+		scheduled.setScheduledOperation(EntityScheduledOperation.DISABLE);
+		scheduled.setScheduledOperationTime(new Date(1000));
+		EntityInformation removedByUser = new EntityInformation(2);
+		removedByUser.setRemovalByUserTime(new Date(2000));
+		when(entityDAO.streamAll()).thenReturn(Stream.of(scheduled, new EntityInformation(3), removedByUser));
+		InDBUpdateFromSchema23 update = new InDBUpdateFromSchema23(mock(TokenRDBMSStore.class), entityDAO, 
+				mock(IdentityRDBMSStore.class));
+
+		update.updateEntitiesNextOperationTime();
+
+		verify(entityDAO).updateByKey(1, scheduled);
+		verify(entityDAO).updateByKey(2, removedByUser);
+		verify(entityDAO, never()).updateByKey(eq(3L), any());
+	}
+
+	@Test
+	public void shouldRewriteOnlyIdentitiesWithMetadata()
+	{
+		IdentityRDBMSStore identityDAO = mock(IdentityRDBMSStore.class);
+		Identity transientId = new Identity("transient", "1", 1, "1");
+		transientId.setMetadata(Constants.MAPPER.createObjectNode().put("absoluteTTL", 1000));
+		StoredIdentity withMetadata = new StoredIdentity(transientId);
+		StoredIdentity withoutMetadata = new StoredIdentity(new Identity("userName", "2", 1, "2"));
+		when(identityDAO.streamAll()).thenReturn(Stream.of(withMetadata, withoutMetadata));
+		InDBUpdateFromSchema23 update = new InDBUpdateFromSchema23(mock(TokenRDBMSStore.class), 
+				mock(EntityRDBMSStore.class), identityDAO);
+
+		update.updateIdentitiesExpiration();
+
+		verify(identityDAO).update(withMetadata);
+		verify(identityDAO, never()).update(withoutMetadata);
+	}
+}
@@ -4,15 +4,21 @@
  */
 package pl.edu.icm.unity.store.rdbms;
 
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static pl.edu.icm.unity.store.StorageConfiguration.ALTERNATIVE_DB_CONFIG;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.Properties;
 
 import javax.sql.DataSource;
 
 import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.SqlSession;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,6 +30,8 @@ import pl.edu.icm.unity.store.StorageConfiguration;
 import pl.edu.icm.unity.store.StorageConfigurationFactory;
 import pl.edu.icm.unity.store.StorageEngine;
 import pl.edu.icm.unity.store.api.StoragePropertiesSource;
+import pl.edu.icm.unity.store.impl.objstore.ObjectChangeBean;
+import pl.edu.icm.unity.store.impl.objstore.ObjectChangesMapper;
 
 public class DataSourceConfigurationTest
 {
@@ -109,24 +117,69 @@ public class DataSourceConfigurationTest
 		Assertions.assertThat(ds.getPoolPingConnectionsNotUsedFor()).isEqualTo(1234567897);
 	}
 
+	@Test
+	public void shouldUseDataSourceOfConfiguredFactory() throws InternalException, IOException
+	{
+		// when
+		DataSource ds = getDataSource(
+				"unityServer.storage.engine.rdbms.dataSourceFactory", UnpooledDataSourceFactory.class.getName(),
+				"unityServer.storage.engine.rdbms.dataSourceProperties.defaultNetworkTimeout", "1234");
+		// then
+		Assertions.assertThat(ds).isInstanceOf(UnpooledDataSource.class);
+		Assertions.assertThat(((UnpooledDataSource) ds).getDefaultNetworkTimeout()).isEqualTo(1234);
+	}
+
+	@Test
+	public void shouldRejectModificationsInReplicaSession() throws InternalException, IOException
+	{
+		// given
+		DBSessionManager dbMgr = new DBSessionManager(getConfig(
+				"unityServer.storage.engine.rdbms.replicaJdbcUrl", "jdbc:h2:mem:replica-test"));
+
+		// when
+		Throwable error;
+		try (SqlSession session = dbMgr.getReplicaSqlSession())
+		{
+			error = catchThrowable(() -> session.getMapper(ObjectChangesMapper.class)
+					.create(new ObjectChangeBean("type", "name", new Date())));
+		}
+
+		// then
+		Assertions.assertThat(error).isInstanceOf(PersistenceException.class);
+		Assertions.assertThat(error.getCause()).isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("database replica");
+	}
+
 	private PooledDataSource getDataSourceWithConfig(String key, String value) throws InternalException, IOException
 	{
-		StorageConfigurationFactory factory = new RDBMSConfigurationFactory();
-		StorageConfiguration storageConfig = new StorageConfiguration(
-				ImmutableMap.of(StorageConfigurationFactory.BEAN_PFX + StorageEngine.rdbms.name(), factory),
-				get(key, value));
-		DBSessionManager dbMgr = new DBSessionManager(storageConfig);
-		DataSource ds = dbMgr.getMyBatisConfiguration().getEnvironment().getDataSource();
+		DataSource ds = getDataSource(key, value);
 		Assertions.assertThat(ds).isInstanceOf(PooledDataSource.class);
 		return (PooledDataSource) ds;
 	}
 
-	private StoragePropertiesSource get(String key, String value)
+	private DataSource getDataSource(String... keysAndValues) throws InternalException, IOException
+	{
+		DBSessionManager dbMgr = new DBSessionManager(getConfig(keysAndValues));
+		DataSource ds = dbMgr.getMyBatisConfiguration().getEnvironment().getDataSource();
+		Assertions.assertThat(ds).isInstanceOf(MonitoredDataSource.class);
+		return ((MonitoredDataSource) ds).getDelegate();
+	}
+
+	private StorageConfiguration getConfig(String... keysAndValues)
+	{
+		StorageConfigurationFactory factory = new RDBMSConfigurationFactory();
+		return new StorageConfiguration(
+				ImmutableMap.of(StorageConfigurationFactory.BEAN_PFX + StorageEngine.rdbms.name(), factory),
+				get(keysAndValues));
+	}
+
+	private StoragePropertiesSource get(String... keysAndValues)
 	{
 		return () ->
 		{
 			Properties ret = new Properties();
-			ret.setProperty(key, value);
+			for (int i = 0; i < keysAndValues.length; i += 2)
+				ret.setProperty(keysAndValues[i], keysAndValues[i + 1]);
 			return ret;
 		};
 	}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import pl.edu.icm.unity.base.entity.EntityInformation;
+import pl.edu.icm.unity.store.StorageCleanerImpl;
+import pl.edu.icm.unity.store.api.EntityDAO;
+import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations={"classpath*:META-INF/components.xml"})
+public class GenericRDBMSCRUDStreamTest
+{
+	@Autowired
+	private StorageCleanerImpl dbCleaner;
+
+	@Autowired
+	private TransactionalRunner tx;
+
+	@Autowired
+	private EntityDAO dao;
+
+	@BeforeEach
+	public void cleanDB()
+	{
+		dbCleaner.cleanOrDelete();
+	}
+
+	@AfterEach
+	public void shutdown()
+	{
+		dbCleaner.shutdown();
+	}
+
+	@Test
+	public void shouldStreamAllElementsInPages()
+	{
+		tx.runInTransaction(() -> {
+			for (int i = 0; i < 5; i++)
+				dao.create(new EntityInformation());
+
+			List<Long> streamed = ((GenericRDBMSCRUD<EntityInformation, ?>) dao).streamAll(2)
+					.map(EntityInformation::getId)
+					.collect(Collectors.toList());
+
+			List<Long> all = dao.getAll().stream()
+					.map(EntityInformation::getId)
+					.sorted()
+					.collect(Collectors.toList());
+			assertThat(streamed).hasSize(5).isEqualTo(all);
+		});
+	}
+
+	@Test
+	public void shouldStreamNothingFromEmptyTable()
+	{
+		tx.runInTransaction(() -> {
+			dao.deleteAll();
+
+			assertThat(((GenericRDBMSCRUD<EntityInformation, ?>) dao).streamAll(2)).isEmpty();
+		});
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MonitoredDataSourceTest
+{
+	private DataSource delegate;
+	private Connection connection;
+
+	@BeforeEach
+	public void init() throws SQLException
+	{
+		delegate = mock(DataSource.class);
+		connection = mock(Connection.class);
+		when(delegate.getConnection()).thenReturn(connection);
+	}
+
+	@Test
+	public void shouldCountActiveConnections() throws SQLException
+	{
+		MonitoredDataSource dataSource = new MonitoredDataSource("test", delegate, 0);
+
+		Connection c1 = dataSource.getConnection();
+		Connection c2 = dataSource.getConnection();
+		c1.close();
+		c1.close();
+
+		ConnectionPoolStatistics statistics = dataSource.getStatistics();
+		assertThat(statistics.active).isEqualTo(1);
+		assertThat(statistics.acquisitions).isEqualTo(2);
+		assertThat(statistics.pending).isEqualTo(0);
+		assertThat(statistics.idle).isEqualTo(-1);
+		assertThat(statistics.acquisitionTimeHistogram).hasSize(
+				ConnectionPoolStatistics.ACQUISITION_TIME_BUCKETS_MS.length + 1);
+		assertThat(statistics.acquisitionTimeHistogram[0] + statistics.acquisitionTimeHistogram[1]).isEqualTo(2);
+		verify(connection, times(2)).close();
+		c2.close();
+		assertThat(dataSource.getStatistics().active).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldDelegateConnectionOperations() throws SQLException
+	{
+		MonitoredDataSource dataSource = new MonitoredDataSource("test", delegate, 0);
+
+		dataSource.getConnection().commit();
+
+		verify(connection).commit();
+	}
+
+	@Test
+	public void shouldReportLeakedConnectionOnce() throws SQLException
+	{
+		MonitoredDataSource dataSource = new MonitoredDataSource("test", delegate, 100);
+		Connection leaked = dataSource.getConnection();
+		Connection returned = dataSource.getConnection();
+		returned.close();
+
+		dataSource.checkLeaks(System.currentTimeMillis() + 1000);
+		dataSource.checkLeaks(System.currentTimeMillis() + 2000);
+
+		assertThat(dataSource.getStatistics().leakedConnections).isEqualTo(1);
+		leaked.close();
+	}
+
+	@Test
+	public void shouldNotReportConnectionUsedShorterThanThreshold() throws SQLException
+	{
+		MonitoredDataSource dataSource = new MonitoredDataSource("test", delegate, 10000);
+		dataSource.getConnection();
+
+		dataSource.checkLeaks(System.currentTimeMillis());
+
+		assertThat(dataSource.getStatistics().leakedConnections).isEqualTo(0);
+	}
+}
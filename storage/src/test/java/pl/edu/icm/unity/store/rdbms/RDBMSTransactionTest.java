@@ -7,7 +7,9 @@ package pl.edu.icm.unity.store.rdbms;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 
+import java.sql.SQLException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.junit.jupiter.api.AfterEach;
@@ -25,8 +27,12 @@ import pl.edu.icm.unity.store.StorageEngine;
 import pl.edu.icm.unity.store.api.tx.TransactionalRunner;
 import pl.edu.icm.unity.store.impl.attributetype.AttributeTypeBean;
 import pl.edu.icm.unity.store.impl.attributetype.AttributeTypesMapper;
+import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionEngine;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionTL;
 import pl.edu.icm.unity.store.rdbms.tx.SQLTransactionalRunner;
+import pl.edu.icm.unity.store.tx.TransactionState;
+import pl.edu.icm.unity.store.tx.TransactionTL;
+import pl.edu.icm.unity.store.tx.TxPersistenceException;
 
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(locations={"classpath*:META-INF/components.xml"})
@@ -35,6 +41,9 @@ public class RDBMSTransactionTest
 	@Autowired @Qualifier(SQLTransactionalRunner.NAME)
 	private TransactionalRunner tx;
 	
+	@Autowired
+	private SQLTransactionEngine txEngine;
+	
 	@Autowired
 	private StorageCleanerImpl initDB;
 	
@@ -91,6 +100,34 @@ public class RDBMSTransactionTest
 		assertThat(ret).isNull();
 	}
 	
+	@Test
+	public void rdbmsFinalizationActionsAreRunAfterRollback()
+	{
+		AtomicInteger postCommit = new AtomicInteger(0);
+		AtomicInteger finalization = new AtomicInteger(0);
+
+		catchThrowable(() -> tx.runInTransaction(() -> {
+			TransactionState transaction = TransactionTL.getRootTransactionIfPresent();
+			transaction.addPostCommitAction(postCommit::incrementAndGet);
+			transaction.addFinalizationAction(finalization::incrementAndGet);
+			throw new RuntimeException("break");
+		}));
+
+		assertThat(postCommit.get()).isZero();
+		assertThat(finalization.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void rdbmsFinalizationActionsAreRunAfterCommit()
+	{
+		AtomicInteger finalization = new AtomicInteger(0);
+
+		tx.runInTransaction(() -> tx.runInTransaction(() ->
+			TransactionTL.getRootTransactionIfPresent().addFinalizationAction(finalization::incrementAndGet)));
+
+		assertThat(finalization.get()).isEqualTo(1);
+	}
+
 	@Test
 	public void rdbmsNoAutoCommitIsHonored()
 	{
@@ -119,6 +156,35 @@ public class RDBMSTransactionTest
 		assertThat(ret).isNotNull();
 	}
 	
+	@Test
+	public void rdbmsTransactionWithNonRetryableErrorIsNotRetried()
+	{
+		AtomicInteger i = new AtomicInteger(0);
+
+		Throwable error = catchThrowable(() -> tx.runInTransaction(() -> {
+			i.incrementAndGet();
+			throw new PersistenceException(new SQLException("test", "42000"));
+		}));
+
+		assertThat(error).hasCauseInstanceOf(TxPersistenceException.class);
+		assertThat(i.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void rdbmsRetriesAreCountedPerCallSite()
+	{
+		long before = getRetries("SQLTransactionalRunner.runInTransaction");
+		AtomicInteger i = new AtomicInteger(0);
+
+		tx.runInTransaction(() -> {
+			if (i.incrementAndGet() < 3)
+				throw new PersistenceException(new SQLException("test", "40001"));
+		});
+
+		assertThat(getRetries("SQLTransactionalRunner.runInTransaction") - before).isEqualTo(2);
+		assertThat(txEngine.getStatistics().errorsByType.get("SERIALIZATION_FAILURE")).isGreaterThanOrEqualTo(2);
+	}
+
 	@Test
 	public void rdbmsNestedTransactionIsIncludedWithMainCommit()
 	{
@@ -211,6 +277,77 @@ public class RDBMSTransactionTest
 		assertThat(ret2).isNull();
 	}
 	
+	@Test
+	public void rdbmsReadOnlyTransactionReadsCommittedData()
+	{
+		tx.runInTransaction(() -> {
+			getMapper().create(getObject("n1"));
+		});
+
+		AttributeTypeBean ret = tx.runInReadOnlyTransactionRet(() -> getMapper().getByName("n1"));
+
+		assertThat(ret).isNotNull();
+	}
+
+	@Test
+	public void rdbmsReadOnlyTransactionNestedInReadWriteSeesItsChanges()
+	{
+		AttributeTypeBean ret = tx.runInTransactionRet(() -> {
+			getMapper().create(getObject("n1"));
+			return tx.runInReadOnlyTransactionRet(() -> getMapper().getByName("n1"));
+		});
+
+		assertThat(ret).isNotNull();
+	}
+
+	@Test
+	public void rdbmsBatchTransactionIsPersistedAfterCommit()
+	{
+		int count = 1200;
+		tx.runInBatchTransaction(() -> {
+			assertThat(SQLTransactionTL.getState().getCurrent().isBatch()).isTrue();
+			for (int i = 1; i <= count; i++)
+			{
+				AttributeTypeBean bean = getObject("n" + i);
+				bean.setId((long) i);
+				getMapper().createWithKey(bean);
+			}
+		});
+
+		int stored = tx.runInTransactionRet(() -> getMapper().getAll().size());
+		assertThat(stored).isEqualTo(count);
+	}
+
+	@Test
+	public void rdbmsBatchTransactionProvidesGeneratedKeys()
+	{
+		AttributeTypeBean bean = getObject("n1");
+
+		tx.runInBatchTransaction(() -> getMapper().create(bean));
+
+		assertThat(bean.getId()).isNotNull();
+	}
+
+	@Test
+	public void rdbmsBatchTransactionReadsItsChanges()
+	{
+		AtomicReference<AttributeTypeBean> ret = new AtomicReference<>();
+
+		tx.runInBatchTransaction(() -> {
+			AttributeTypeBean bean = getObject("n1");
+			bean.setId(1L);
+			getMapper().createWithKey(bean);
+			ret.set(getMapper().getByName("n1"));
+		});
+
+		assertThat(ret.get()).isNotNull();
+	}
+
+	private long getRetries(String callSite)
+	{
+		return txEngine.getStatistics().retriesByCallSite.getOrDefault(callSite, 0L);
+	}
+
 	private AttributeTypeBean getFromDB(String name)
 	{
 		return tx.runInTransactionRet(() -> {
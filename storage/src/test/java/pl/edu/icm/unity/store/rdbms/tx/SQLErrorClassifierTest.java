@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.rdbms.tx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.junit.jupiter.api.Test;
+
+import pl.edu.icm.unity.store.rdbms.tx.ReplicaModificationInterceptor.ReplicaModificationException;
+import pl.edu.icm.unity.store.rdbms.tx.SQLErrorClassifier.ErrorType;
+
+public class SQLErrorClassifierTest
+{
+	@Test
+	public void shouldClassifyDeadlocks()
+	{
+		assertThat(classify(new SQLException("pg", "40P01"))).isEqualTo(ErrorType.DEADLOCK);
+		assertThat(classify(new SQLException("mysql", "40001", 1213))).isEqualTo(ErrorType.DEADLOCK);
+	}
+
+	@Test
+	public void shouldClassifySerializationFailure()
+	{
+		assertThat(classify(new SQLException("serialization", "40001"))).isEqualTo(ErrorType.SERIALIZATION_FAILURE);
+	}
+
+	@Test
+	public void shouldClassifyLockTimeouts()
+	{
+		assertThat(classify(new SQLException("h2", "HYT00"))).isEqualTo(ErrorType.LOCK_TIMEOUT);
+		assertThat(classify(new SQLException("mysql", "HY000", 1205))).isEqualTo(ErrorType.LOCK_TIMEOUT);
+	}
+
+	@Test
+	public void shouldClassifyUniqueViolations()
+	{
+		assertThat(classify(new SQLException("pg", "23505"))).isEqualTo(ErrorType.UNIQUE_VIOLATION);
+		assertThat(classify(new SQLException("mysql", "23000", 1062))).isEqualTo(ErrorType.UNIQUE_VIOLATION);
+	}
+
+	@Test
+	public void shouldClassifyConnectivityErrors()
+	{
+		assertThat(classify(new SQLException("broken", "08006"))).isEqualTo(ErrorType.CONNECTIVITY);
+		assertThat(classify(new SQLTransientConnectionException("timeout"))).isEqualTo(ErrorType.CONNECTIVITY);
+	}
+
+	@Test
+	public void shouldNotRetryRepeatableErrors()
+	{
+		assertThat(classify(new SQLException("foreign key", "23503")).retryable).isFalse();
+		assertThat(classify(new SQLException("syntax", "42000")).retryable).isFalse();
+		assertThat(classify(new SQLException("too long", "22001")).retryable).isFalse();
+	}
+
+	@Test
+	public void shouldNotRetryModificationsOfReplica()
+	{
+		ErrorType type = SQLErrorClassifier.classify(new PersistenceException(
+				new ReplicaModificationException("modification")));
+
+		assertThat(type.retryable).isFalse();
+	}
+
+	@Test
+	public void shouldRetryErrorsWithoutSQLCause()
+	{
+		ErrorType type = SQLErrorClassifier.classify(new PersistenceException("test"));
+
+		assertThat(type).isEqualTo(ErrorType.UNKNOWN);
+		assertThat(type.retryable).isTrue();
+	}
+
+	private ErrorType classify(SQLException cause)
+	{
+		return SQLErrorClassifier.classify(new PersistenceException(new RuntimeException(cause)));
+	}
+}
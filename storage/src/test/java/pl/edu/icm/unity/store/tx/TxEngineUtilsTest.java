@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2024 Bixbit s.c. All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package pl.edu.icm.unity.store.tx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class TxEngineUtilsTest
+{
+	@Test
+	public void retryDelayShouldGrowExponentially()
+	{
+		for (int i = 0; i < 100; i++)
+		{
+			assertThat(TxEngineUtils.getRetryDelay(1, 50, 800)).isBetween(25L, 50L);
+			assertThat(TxEngineUtils.getRetryDelay(3, 50, 800)).isBetween(100L, 200L);
+		}
+	}
+
+	@Test
+	public void retryDelayShouldBeLimited()
+	{
+		for (int i = 0; i < 100; i++)
+			assertThat(TxEngineUtils.getRetryDelay(10, 50, 800)).isBetween(400L, 800L);
+	}
+}